@@ -1,17 +1,60 @@
 package org.example;
 
-import lombok.extern.log4j.Log4j2;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.example.mapper.InputValidator;
+import org.example.service.BatchFeedService;
+import org.example.service.FastStartFeedService;
+import org.example.service.PartitionedFeedService;
 import org.example.service.TwitterFeedService;
 import org.example.utility.Configuration;
+import org.example.utility.ParseTracer;
+
+import java.nio.file.Path;
+import java.util.List;
 
 /**
  * Main class and method for the program to produce a Twitter
  * feed based on the input provided in a user and tweet text file.
+ * <p>
+ * The logger is created on first use rather than when the class loads, so that the
+ * fast-start path never initialises log4j-core.
  */
-@Log4j2
 public class Main {
 
   public static void main(String[] args) {
+    /*
+    Fast-start path for short runs; writes the plain feed to stdout using JDK
+    classes only. Errors are reported on stderr without initialising logging.
+     */
+    if (FastStartFeedService.isApplicable()) {
+      try {
+        FastStartFeedService.writeTwitterFeed(System.out);
+      } catch (Exception e) {
+        System.err.println("Failed to generate Twitter feed: " + e.getMessage());
+        System.exit(1);
+      }
+      return;
+    }
+
+    // Log the parse records traced before exiting, in particular those before a failure
+    int exitCode;
+    try {
+      exitCode = run(LogHolder.LOG);
+    } finally {
+      ParseTracer.shutdown();
+    }
+    if (exitCode != 0) {
+      System.exit(exitCode);
+    }
+  }
+
+  /**
+   * Run the configured mode on the regular path.
+   *
+   * @return Exit code of the program: 0 on success, 1 on failure.
+   */
+  private static int run(Logger log) {
     try {
       log.info("Generating Twitter feed");
 
@@ -21,18 +64,102 @@ public class Main {
        */
       Configuration.init();
 
+      /*
+      Worker of a partitioned run; build the feed for the owned partition of
+      users only and write it to the partial feed file for the coordinator.
+       */
+      if (Configuration.isPartitionWorker()) {
+        PartitionedFeedService.producePartialTwitterFeed();
+        log.info("Partial Twitter feed generated for partition " + Configuration.getPartitionIndex());
+        return 0;
+      }
+
+      /*
+      Validation-only mode; report every malformed line of the inputs and the
+      throughput, and fail the program if any input is malformed.
+       */
+      if (Configuration.isValidateOnly()) {
+        boolean valid = true;
+        for (InputValidator.ValidationReport report : TwitterFeedService.validateInputs()) {
+          log.info("Validated " + report);
+          for (InputValidator.MalformedLine malformedLine : report.getMalformedLines()) {
+            log.error(report.getFilePath() + ": " + malformedLine);
+          }
+          if (report.getMalformedCount() > report.getMalformedLines().size()) {
+            log.error(report.getFilePath() + ": " + (report.getMalformedCount() - report.getMalformedLines().size())
+                + " more malformed line(s) not listed");
+          }
+          valid &= report.isValid();
+        }
+        if (!valid) {
+          log.error("One or more input files are malformed");
+          return 1;
+        }
+        log.info("Input files validated successfully!");
+        return 0;
+      }
+
+      /*
+      Batch mode; produce a feed file per job of the manifest. Failed jobs don't
+      stop the batch, but fail the program once all jobs ran.
+       */
+      if (Configuration.getBatchManifestPath() != null) {
+        List<BatchFeedService.BatchResult> results = BatchFeedService.produceTwitterFeeds();
+        if (results.stream().anyMatch(result -> !result.isSuccessful())) {
+          log.error("One or more batch jobs failed");
+          return 1;
+        }
+        log.info("Twitter feeds generated successfully!");
+        return 0;
+      }
+
       /*
       Read the input files, build the required data structures
       and output the Twitter feed per user in documented format.
+      Feed generation is spread over worker processes when partitioned.
        */
-      String twitterFeed = TwitterFeedService.produceTwitterFeed();
-      log.info("Feed output\n" + twitterFeed);
+      Path outputFile = Configuration.getOutputFilePath() == null ? null : Path.of(Configuration.getOutputFilePath());
+      String twitterFeed;
+      TwitterFeedService.FeedDelta feedDelta = null;
+      if (Configuration.getStateFilePath() != null) {
+        // Delta mode; only output the feeds that changed since the previous run
+        feedDelta = TwitterFeedService.produceTwitterFeedDelta(Path.of(Configuration.getStateFilePath()));
+        twitterFeed = feedDelta.getTwitterFeed();
+      } else if (Configuration.getPartitionWorkers() > 1) {
+        twitterFeed = PartitionedFeedService.produceTwitterFeed();
+      } else if (outputFile != null) {
+        // Full feed streamed to the output file (compressed for ".gz") rather than built in memory
+        TwitterFeedService.writeTwitterFeed(outputFile);
+        log.info("Twitter feed generated successfully!");
+        return 0;
+      } else {
+        twitterFeed = TwitterFeedService.produceTwitterFeed();
+      }
+
+      if (outputFile != null) {
+        TwitterFeedService.writeFeedOutput(outputFile, twitterFeed);
+      } else {
+        log.info("Feed output\n" + twitterFeed);
+      }
+      // The state only moves on once the delta computed against it is persisted
+      if (feedDelta != null) {
+        feedDelta.commit();
+      }
 
       log.info("Twitter feed generated successfully!");
+      return 0;
     } catch (Exception e) {
       // If an error occurs in the program then send failure exit code
       log.error("Failed to generate Twitter feed", e);
-      System.exit(1);
+      return 1;
     }
   }
+
+  /**
+   * Holder of the logger; initialised (with log4j-core) on first access only.
+   */
+  private static final class LogHolder {
+
+    private static final Logger LOG = LogManager.getLogger(Main.class);
+  }
 }
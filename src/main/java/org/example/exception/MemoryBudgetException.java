@@ -0,0 +1,15 @@
+package org.example.exception;
+
+/**
+ * Exception class for when the estimated memory footprint of the parsed input
+ * exceeds the configured memory budget.
+ */
+public class MemoryBudgetException extends DataException {
+
+  /**
+   * @param errorMessage error message for exception.
+   */
+  public MemoryBudgetException(String errorMessage) {
+    super(errorMessage);
+  }
+}
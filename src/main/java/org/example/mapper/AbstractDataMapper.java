@@ -1,21 +1,62 @@
 package org.example.mapper;
 
 import lombok.extern.log4j.Log4j2;
+import org.example.utility.LineReader;
 
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.List;
 
 /**
  * Abstract class for shared methods for the DataMapper classes such as reading the
- * input file's contents.
+ * input file's contents. Input is streamed in blocks and split into lines with the
+ * LineReader, which also rejects anything that isn't 7-bit ASCII, so no more than a
+ * block of the file is held in memory at a time.
  */
 @Log4j2
 public abstract class AbstractDataMapper {
 
-  protected List<String> readFile(String filePathStr) throws IOException {
+  /**
+   * Open the lines of an input file, which may be gzip compressed; reading a line fails on
+   * a character outside 7-bit ASCII.
+   *
+   * @param filePathStr The path to the input file.
+   * @return Reader of the lines of the file, to be closed by the caller.
+   * @throws IOException Occurs when the file doesn't exist or can't be read.
+   */
+  protected LineReader openLines(String filePathStr) throws IOException {
+    return new LineReader(openInput(filePathStr), filePathStr);
+  }
+
+  /**
+   * Open the (decompressed) contents of an input file, which may be gzip compressed.
+   *
+   * @param filePathStr The path to the input file.
+   * @return Stream of the contents of the file, to be closed by the caller.
+   * @throws IOException Occurs when the file doesn't exist or can't be read.
+   */
+  protected InputStream openInput(String filePathStr) throws IOException {
+    Path filePath = checkReadable(filePathStr);
+
+    // Compressed input is streamed through the inflater instead of decompressing to disk first
+    if (RecordReader.isGzip(filePath)) {
+      log.debug("Reading gzip compressed data in file " + filePathStr);
+      return new AsyncGzipInputStream(Files.newInputStream(filePath));
+    }
+
+    log.debug("Reading data in file " + filePathStr);
+    return Files.newInputStream(filePath);
+  }
+
+  /**
+   * Check that an input file exists and is readable.
+   *
+   * @param filePathStr The path to the input file.
+   * @return The path of the file.
+   * @throws IOException Occurs when the file doesn't exist or isn't readable.
+   */
+  protected Path checkReadable(String filePathStr) throws IOException {
     Path filePath = Path.of(filePathStr);
 
     log.debug("Checking if file " + filePathStr + " exists");
@@ -27,9 +68,6 @@ public abstract class AbstractDataMapper {
     if (!Files.isReadable(filePath)) {
       throw new IOException("File " + filePathStr + " is not readable");
     }
-
-    log.debug("Reading data in file " + filePathStr);
-    return Files.readAllLines(filePath, StandardCharsets.UTF_8);
+    return filePath;
   }
-
 }
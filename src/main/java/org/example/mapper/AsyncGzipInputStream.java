@@ -0,0 +1,139 @@
+package org.example.mapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Input stream that inflates gzip data on a separate thread and hands the decompressed
+ * chunks over through a bounded queue, so that decompression overlaps with the parsing
+ * done by the consuming data mapper.
+ */
+final class AsyncGzipInputStream extends InputStream {
+
+  private static final int CHUNK_SIZE = 64 * 1024;
+  private static final int QUEUE_CAPACITY = 8;
+
+  // Sentinel chunk signalling that the inflater thread is done (end of data or failure)
+  private static final byte[] END_OF_STREAM = new byte[0];
+
+  private final BlockingQueue<byte[]> chunks = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+  private final Thread inflater;
+  private volatile IOException failure;
+
+  private byte[] current = new byte[0];
+  private int position;
+  private boolean finished;
+
+  /**
+   * Start inflating the compressed source on a background thread.
+   *
+   * @param source The gzip compressed input; closed by the inflater thread once consumed.
+   */
+  AsyncGzipInputStream(InputStream source) {
+    inflater = new Thread(() -> inflate(source), "gzip-inflater");
+    inflater.setDaemon(true);
+    inflater.start();
+  }
+
+  /**
+   * Inflater thread body; reads decompressed chunks and blocks while the queue is full.
+   *
+   * @param source The gzip compressed input.
+   */
+  private void inflate(InputStream source) {
+    try (InputStream raw = source; InputStream in = new GZIPInputStream(raw, CHUNK_SIZE)) {
+      while (true) {
+        byte[] buffer = new byte[CHUNK_SIZE];
+        int read = in.readNBytes(buffer, 0, CHUNK_SIZE);
+        if (read <= 0) {
+          break;
+        }
+        chunks.put(read == CHUNK_SIZE ? buffer : Arrays.copyOf(buffer, read));
+      }
+    } catch (InterruptedException e) {
+      // Consumer closed the stream; nobody is waiting for further chunks
+      Thread.currentThread().interrupt();
+    } catch (IOException e) {
+      failure = e;
+    } catch (Throwable e) {
+      // E.g. an OutOfMemoryError; fail the consumer rather than leave it waiting
+      failure = new IOException("Failed to inflate gzip data", e);
+    } finally {
+      try {
+        // Fails immediately when interrupted, i.e. the consumer closed the stream
+        chunks.put(END_OF_STREAM);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  @Override
+  public int read() throws IOException {
+    if (!fill()) {
+      return -1;
+    }
+    return current[position++] & 0xFF;
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    if (len == 0) {
+      return 0;
+    }
+    if (!fill()) {
+      return -1;
+    }
+
+    int count = Math.min(len, current.length - position);
+    System.arraycopy(current, position, b, off, count);
+    position += count;
+    return count;
+  }
+
+  /**
+   * Ensure the current chunk has unread bytes, taking the next chunk from the queue if needed.
+   *
+   * @return true if there are bytes available, false at end of stream.
+   * @throws IOException Occurs when the inflater thread failed or the wait was interrupted.
+   */
+  private boolean fill() throws IOException {
+    while (position >= current.length) {
+      if (finished) {
+        return false;
+      }
+
+      byte[] next;
+      try {
+        next = chunks.take();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException("Interrupted while waiting for decompressed data");
+      }
+
+      if (next == END_OF_STREAM) {
+        finished = true;
+        if (failure != null) {
+          throw failure;
+        }
+        return false;
+      }
+
+      current = next;
+      position = 0;
+    }
+    return true;
+  }
+
+  @Override
+  public void close() {
+    finished = true;
+    inflater.interrupt();
+    chunks.clear();
+  }
+}
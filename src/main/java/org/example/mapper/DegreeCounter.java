@@ -0,0 +1,122 @@
+package org.example.mapper;
+
+import lombok.extern.log4j.Log4j2;
+import org.apache.commons.lang3.StringUtils;
+import org.example.model.InputDegrees;
+import org.example.utility.LineReader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Pre-pass over the user and tweet inputs that counts the degrees the model structures are
+ * sized with (see InputDegrees). Records are matched like the data mappers do, but nothing
+ * else is built; records the data mappers would reject are skipped here and reported by the
+ * data mappers on the second pass.
+ */
+@Log4j2
+public class DegreeCounter extends AbstractDataMapper {
+
+  private static final String DELIMITER_USER_FOLLOWER = ", ";
+  private static final String TWEET_PREFIX = "@";
+  private static final int SAMPLE_BYTES = 64 * 1024;
+  // Largest power of two HashMap sizes its table to
+  private static final int MAX_EXPECTED_NAMES = 1 << 29;
+
+  /**
+   * Count the degrees of a user and a tweet input file (either may be gzip compressed).
+   *
+   * @param userFilePath  The path to the user input file.
+   * @param tweetFilePath The path to the tweet input file.
+   * @return The counted degrees.
+   * @throws IOException Occurs when a file can't be read.
+   */
+  public InputDegrees count(String userFilePath, String tweetFilePath) throws IOException {
+    InputDegrees inputDegrees = new InputDegrees(estimateNames(userFilePath));
+    // Users first, so that the self-follow of authors without followers is counted right
+    try (LineReader lines = new LineReader(openInput(userFilePath), userFilePath, false)) {
+      countUsers(lines, inputDegrees);
+    }
+    try (LineReader lines = new LineReader(openInput(tweetFilePath), tweetFilePath, false)) {
+      countTweets(lines, inputDegrees);
+    }
+    log.debug("Counted input degrees " + inputDegrees);
+    return inputDegrees;
+  }
+
+  /**
+   * Estimate the number of distinct names from the line count of the user input, taken from
+   * the line length of its first block; every user record names a follower. Compressed input
+   * can't be estimated from its size, so its counts grow on demand.
+   *
+   * @return Estimated number of names, 0 if unknown.
+   */
+  private int estimateNames(String userFilePath) throws IOException {
+    Path path = checkReadable(userFilePath);
+    if (RecordReader.isGzip(path)) {
+      return 0;
+    }
+
+    long size = Files.size(path);
+    byte[] sample = new byte[(int) Math.min(size, SAMPLE_BYTES)];
+    int sampled;
+    try (InputStream in = Files.newInputStream(path)) {
+      sampled = in.readNBytes(sample, 0, sample.length);
+    }
+    int sampledLines = 0;
+    for (int i = 0; i < sampled; i++) {
+      if (sample[i] == '\n') {
+        sampledLines++;
+      }
+    }
+    return sampledLines == 0 ? 0 : (int) Math.min(MAX_EXPECTED_NAMES, size * sampledLines / sampled);
+  }
+
+  private static void countUsers(LineReader lines, InputDegrees inputDegrees) throws IOException {
+    String line;
+    while ((line = lines.readLine()) != null) {
+      String record = recordOf(line, lines.getNonAsciiOffset());
+      String[] groups = record == null ? null : RecordMatcher.matchUserRecord(record);
+      if (groups == null) {
+        continue;
+      }
+
+      String follower = groups[0];
+      String users = groups[1];
+      int userStart = 0;
+      while (true) {
+        int userEnd = users.indexOf(DELIMITER_USER_FOLLOWER, userStart);
+        inputDegrees.countFollow(users.substring(userStart, userEnd < 0 ? users.length() : userEnd), follower);
+        if (userEnd < 0) {
+          break;
+        }
+        userStart = userEnd + DELIMITER_USER_FOLLOWER.length();
+      }
+      inputDegrees.countFollow(follower, follower);
+    }
+  }
+
+  private static void countTweets(LineReader lines, InputDegrees inputDegrees) throws IOException {
+    String line;
+    while ((line = lines.readLine()) != null) {
+      String record = recordOf(line, lines.getNonAsciiOffset());
+      int delimiter = record == null ? -1 : RecordMatcher.findTweetDelimiter(record);
+      if (delimiter > 0) {
+        // "user> tweet" is stored as "@user: tweet", one character longer
+        inputDegrees.countTweet(record.substring(0, delimiter), record.length() + TWEET_PREFIX.length());
+      }
+    }
+  }
+
+  /**
+   * Get the stripped record of a line, or null for blank and non-ASCII lines.
+   */
+  private static String recordOf(String line, long nonAsciiOffset) {
+    if (nonAsciiOffset >= 0) {
+      return null;
+    }
+    return StringUtils.isAllBlank(line) ? null : StringUtils.strip(line);
+  }
+}
@@ -0,0 +1,422 @@
+package org.example.mapper;
+
+import lombok.extern.log4j.Log4j2;
+import org.apache.commons.lang3.StringUtils;
+import org.example.utility.LineReader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Validation of input files against the grammar of the data mappers without building the
+ * follower graph or the tweets. The file is split into byte ranges at line boundaries which
+ * are read and checked concurrently, a block at a time; every malformed line is counted
+ * instead of stopping at the first, and the first ones (up to a limit) are kept for the
+ * report. Gzip compressed input is checked as a single stream.
+ */
+@Log4j2
+public class InputValidator extends AbstractDataMapper {
+
+  // Smaller inputs aren't worth splitting over threads
+  private static final int DEFAULT_MIN_CHUNK_BYTES = 1024 * 1024;
+  private static final int ALIGN_BUFFER_BYTES = 8 * 1024;
+
+  /**
+   * Type of records held by an input file.
+   */
+  public enum RecordType {
+    USER,
+    TWEET
+  }
+
+  private final int threads;
+  private final int reportLimit;
+  private final int minChunkBytes;
+
+  /**
+   * @param threads     Maximum number of chunks checked concurrently.
+   * @param reportLimit Maximum number of malformed lines kept per report; all are counted.
+   */
+  public InputValidator(int threads, int reportLimit) {
+    this(threads, reportLimit, DEFAULT_MIN_CHUNK_BYTES);
+  }
+
+  InputValidator(int threads, int reportLimit, int minChunkBytes) {
+    if (threads < 1) {
+      throw new IllegalArgumentException("Thread count must be at least 1");
+    }
+    if (reportLimit < 1) {
+      throw new IllegalArgumentException("Report limit must be at least 1");
+    }
+    this.threads = threads;
+    this.reportLimit = reportLimit;
+    this.minChunkBytes = minChunkBytes;
+  }
+
+  /**
+   * Check every record of an input file, which may be gzip compressed.
+   *
+   * @param filePath   The path to the input file.
+   * @param recordType The type of records the file should hold.
+   * @return Report of the malformed lines and throughput.
+   * @throws IOException Occurs when the file can't be read.
+   */
+  public ValidationReport validate(String filePath, RecordType recordType) throws IOException {
+    long startNanos = System.nanoTime();
+    Path path = checkReadable(filePath);
+
+    // Compressed input can't be split at byte offsets, so it is checked as a single stream
+    if (RecordReader.isGzip(path)) {
+      log.debug("Validating gzip compressed " + filePath + " in 1 chunk");
+      try (LineReader lines = new LineReader(openInput(filePath), filePath, false)) {
+        ChunkResult chunkResult = validateChunk(lines, 0, recordType);
+        return new ValidationReport(filePath, recordType, chunkResult.lineCount, lines.getOffset(),
+            System.nanoTime() - startNanos, chunkResult.malformedLines, chunkResult.malformedCount);
+      }
+    }
+
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      List<long[]> chunks = splitChunks(channel);
+      log.debug("Validating " + filePath + " in " + chunks.size() + " chunk(s)");
+
+      List<ChunkResult> chunkResults = new ArrayList<>();
+      if (chunks.size() == 1) {
+        chunkResults.add(validateRange(channel, filePath, chunks.get(0), recordType));
+      } else {
+        AtomicInteger threadCounter = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(chunks.size(), runnable -> {
+          Thread thread = new Thread(runnable, "input-validator-" + threadCounter.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        });
+        try {
+          List<Future<ChunkResult>> futures = new ArrayList<>();
+          for (long[] chunk : chunks) {
+            futures.add(executor.submit(() -> validateRange(channel, filePath, chunk, recordType)));
+          }
+          for (Future<ChunkResult> future : futures) {
+            chunkResults.add(getChunkResult(future));
+          }
+        } finally {
+          executor.shutdownNow();
+        }
+      }
+
+      // Chunk line numbers are relative; offset them by the lines of the preceding chunks
+      List<MalformedLine> malformedLines = new ArrayList<>();
+      long lineCount = 0;
+      long malformedCount = 0;
+      for (ChunkResult chunkResult : chunkResults) {
+        for (MalformedLine malformedLine : chunkResult.malformedLines) {
+          if (malformedLines.size() == reportLimit) {
+            break;
+          }
+          malformedLines.add(new MalformedLine(lineCount + malformedLine.lineNumber, malformedLine.reason, malformedLine.record));
+        }
+        lineCount += chunkResult.lineCount;
+        malformedCount += chunkResult.malformedCount;
+      }
+
+      return new ValidationReport(filePath, recordType, lineCount, channel.size(), System.nanoTime() - startNanos, malformedLines,
+          malformedCount);
+    }
+  }
+
+  /**
+   * Split the file into at most one byte range per thread; every range but the last ends
+   * after a line feed, so no line (including a "\r\n" terminator) spans two ranges. Only
+   * the bytes up to the line feed after each split point are read.
+   *
+   * @return Start (inclusive) and end (exclusive) offset per chunk.
+   */
+  private List<long[]> splitChunks(FileChannel channel) throws IOException {
+    long size = channel.size();
+    long chunkCount = Math.max(1, Math.min(threads, size / Math.max(1, minChunkBytes)));
+    List<long[]> chunks = new ArrayList<>();
+    long start = 0;
+    for (long i = 1; i <= chunkCount && start < size; i++) {
+      long end = i == chunkCount ? size : nextLineStart(channel, Math.max(start, size * i / chunkCount), size);
+      chunks.add(new long[]{start, end});
+      start = end;
+    }
+    if (chunks.isEmpty()) {
+      chunks.add(new long[]{0, 0});
+    }
+    return chunks;
+  }
+
+  /**
+   * Get the offset after the first line feed at or after position - 1, i.e. position itself
+   * if a line starts there, or the size if no line feed follows.
+   */
+  private static long nextLineStart(FileChannel channel, long position, long size) throws IOException {
+    if (position == 0) {
+      return 0;
+    }
+    ByteBuffer buffer = ByteBuffer.allocate(ALIGN_BUFFER_BYTES);
+    long offset = position - 1;
+    while (offset < size) {
+      buffer.clear();
+      int read = channel.read(buffer, offset);
+      if (read < 0) {
+        break;
+      }
+      for (int i = 0; i < read; i++) {
+        if (buffer.get(i) == '\n') {
+          return offset + i + 1;
+        }
+      }
+      offset += read;
+    }
+    return size;
+  }
+
+  /**
+   * Check the records of a byte range of the file, read with positional reads so that the
+   * ranges can be read concurrently from the same channel.
+   */
+  private ChunkResult validateRange(FileChannel channel, String filePath, long[] chunk, RecordType recordType) throws IOException {
+    try (LineReader lines = new LineReader(new RangeInputStream(channel, chunk[0], chunk[1]), filePath, false)) {
+      return validateChunk(lines, chunk[0], recordType);
+    }
+  }
+
+  /**
+   * Check the records of a chunk the way the data mappers do: blank lines are skipped and
+   * the stripped record must match the pattern of the record type.
+   */
+  private ChunkResult validateChunk(LineReader lines, long chunkOffset, RecordType recordType) throws IOException {
+    ChunkResult chunkResult = new ChunkResult(reportLimit);
+    String line;
+    while ((line = lines.readLine()) != null) {
+      long lineNumber = ++chunkResult.lineCount;
+
+      if (lines.getNonAsciiOffset() >= 0) {
+        chunkResult.addMalformedLine(lineNumber,
+            "contains a character that is not 7-bit ASCII (byte offset " + (chunkOffset + lines.getNonAsciiOffset()) + ")", line);
+        continue;
+      }
+      if (StringUtils.isAllBlank(line)) {
+        continue;
+      }
+
+      line = StringUtils.strip(line);
+      boolean conforms = recordType == RecordType.USER
+          ? RecordMatcher.matchUserRecord(line) != null
+          : RecordMatcher.findTweetDelimiter(line) > 0;
+      if (!conforms) {
+        chunkResult.addMalformedLine(lineNumber, "does not conform to pattern", line);
+      }
+    }
+    return chunkResult;
+  }
+
+  /**
+   * Wait for the result of a chunk and rethrow any failure as the original exception type.
+   */
+  private static ChunkResult getChunkResult(Future<ChunkResult> future) throws IOException {
+    try {
+      return future.get();
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      }
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw new IOException("Failed to validate chunk", cause);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while validating chunks", e);
+    }
+  }
+
+  /**
+   * Input stream over a byte range of a file channel, read with positional reads that leave
+   * the position of the channel alone.
+   */
+  private static final class RangeInputStream extends InputStream {
+
+    private final FileChannel channel;
+    private final long end;
+    private long position;
+
+    RangeInputStream(FileChannel channel, long start, long end) {
+      this.channel = channel;
+      this.position = start;
+      this.end = end;
+    }
+
+    @Override
+    public int read() throws IOException {
+      byte[] single = new byte[1];
+      return read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      if (position >= end) {
+        return -1;
+      }
+      int read = channel.read(ByteBuffer.wrap(b, off, (int) Math.min(len, end - position)), position);
+      if (read < 0) {
+        return -1;
+      }
+      position += read;
+      return read;
+    }
+  }
+
+  private static final class ChunkResult {
+
+    private final int reportLimit;
+    private long lineCount;
+    private long malformedCount;
+    // Only the first lines up to the limit; a preceding chunk may leave no room for any of them
+    private final List<MalformedLine> malformedLines = new ArrayList<>();
+
+    ChunkResult(int reportLimit) {
+      this.reportLimit = reportLimit;
+    }
+
+    void addMalformedLine(long lineNumber, String reason, String record) {
+      malformedCount++;
+      if (malformedLines.size() < reportLimit) {
+        malformedLines.add(new MalformedLine(lineNumber, reason, record));
+      }
+    }
+  }
+
+  /**
+   * A line of an input file that the data mappers would reject.
+   */
+  public static final class MalformedLine {
+
+    private final long lineNumber;
+    private final String reason;
+    private final String record;
+
+    MalformedLine(long lineNumber, String reason, String record) {
+      this.lineNumber = lineNumber;
+      this.reason = reason;
+      this.record = record;
+    }
+
+    public long getLineNumber() {
+      return lineNumber;
+    }
+
+    public String getReason() {
+      return reason;
+    }
+
+    public String getRecord() {
+      return record;
+    }
+
+    @Override
+    public String toString() {
+      return "Line " + lineNumber + " " + reason + ".\nRecord: " + record;
+    }
+  }
+
+  /**
+   * Outcome of validating an input file: the malformed lines and the throughput.
+   */
+  public static final class ValidationReport {
+
+    private final String filePath;
+    private final RecordType recordType;
+    private final long lineCount;
+    private final long byteCount;
+    private final long elapsedNanos;
+    private final List<MalformedLine> malformedLines;
+    private final long malformedCount;
+
+    ValidationReport(String filePath, RecordType recordType, long lineCount, long byteCount, long elapsedNanos,
+                     List<MalformedLine> malformedLines, long malformedCount) {
+      this.filePath = filePath;
+      this.recordType = recordType;
+      this.lineCount = lineCount;
+      this.byteCount = byteCount;
+      this.elapsedNanos = elapsedNanos;
+      this.malformedLines = Collections.unmodifiableList(malformedLines);
+      this.malformedCount = malformedCount;
+    }
+
+    public String getFilePath() {
+      return filePath;
+    }
+
+    public RecordType getRecordType() {
+      return recordType;
+    }
+
+    public long getLineCount() {
+      return lineCount;
+    }
+
+    /**
+     * Get the number of (decompressed) bytes checked
+     *
+     * @return Byte count of the input data
+     */
+    public long getByteCount() {
+      return byteCount;
+    }
+
+    public long getElapsedNanos() {
+      return elapsedNanos;
+    }
+
+    /**
+     * Get the first malformed lines in line order, at most the report limit
+     *
+     * @return Read-only list of malformed lines, empty if the file is valid
+     */
+    public List<MalformedLine> getMalformedLines() {
+      return malformedLines;
+    }
+
+    /**
+     * Get the number of malformed lines, including those beyond the report limit
+     *
+     * @return Count of malformed lines
+     */
+    public long getMalformedCount() {
+      return malformedCount;
+    }
+
+    public boolean isValid() {
+      return malformedCount == 0;
+    }
+
+    public double getBytesPerSecond() {
+      return byteCount * 1e9 / Math.max(1, elapsedNanos);
+    }
+
+    public double getLinesPerSecond() {
+      return lineCount * 1e9 / Math.max(1, elapsedNanos);
+    }
+
+    @Override
+    public String toString() {
+      return String.format("%s (%s records): %d lines, %d bytes in %.1f ms (%.1f MB/s, %.0f lines/s), %d malformed",
+          filePath, recordType.name().toLowerCase(), lineCount, byteCount, elapsedNanos / 1e6,
+          getBytesPerSecond() / (1024 * 1024), getLinesPerSecond(), malformedCount);
+    }
+  }
+}
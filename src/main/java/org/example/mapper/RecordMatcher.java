@@ -0,0 +1,111 @@
+package org.example.mapper;
+
+/**
+ * Matching of the user and tweet records against their documented patterns without
+ * regular expressions (no pattern compilation at startup and no backtracking per record).
+ * Records are expected to be stripped of leading and trailing whitespace.
+ */
+public final class RecordMatcher {
+
+  private static final String KEYWORD_FOLLOWS = "follows";
+  private static final char DELIMITER_USER_TWEET = '>';
+  private static final int MAX_TWEET_LENGTH = 139;
+
+  private RecordMatcher() {
+    // Private constructor
+  }
+
+  /**
+   * Match a stripped record against the pattern "^([a-zA-Z]+)\sfollows\s(([a-zA-Z]+)(,\s[a-zA-Z]+)*)$".
+   *
+   * @param line The stripped user record.
+   * @return The follower and the (comma separated) users followed, or null if the record
+   * doesn't conform to the pattern.
+   */
+  public static String[] matchUserRecord(String line) {
+    int followerEnd = skipLetters(line, 0);
+    int keywordEnd = followerEnd + 1 + KEYWORD_FOLLOWS.length();
+    if (followerEnd == 0 || keywordEnd >= line.length()
+        || !isWhitespace(line.charAt(followerEnd))
+        || !line.startsWith(KEYWORD_FOLLOWS, followerEnd + 1)
+        || !isWhitespace(line.charAt(keywordEnd))) {
+      return null;
+    }
+
+    // One or more users separated by a comma and a whitespace character
+    int usersStart = keywordEnd + 1;
+    int position = usersStart;
+    while (true) {
+      int userEnd = skipLetters(line, position);
+      if (userEnd == position) {
+        return null;
+      }
+      if (userEnd == line.length()) {
+        break;
+      }
+      if (userEnd + 1 >= line.length() || line.charAt(userEnd) != ',' || !isWhitespace(line.charAt(userEnd + 1))) {
+        return null;
+      }
+      position = userEnd + 2;
+    }
+
+    return new String[]{line.substring(0, followerEnd), line.substring(usersStart)};
+  }
+
+  /**
+   * Match a stripped record against the pattern "^([a-zA-Z]+)>\s((.){1,139})$". The user
+   * consists of letters only, so the first '>' is the delimiter, and it is found with an
+   * indexOf scan that the JVM vectorises for ASCII (Latin-1) strings.
+   *
+   * @param line The stripped tweet record.
+   * @return Index of the '>' delimiter, or -1 if the record doesn't conform to the pattern.
+   */
+  public static int findTweetDelimiter(String line) {
+    int delimiter = line.indexOf(DELIMITER_USER_TWEET);
+    if (delimiter < 1 || delimiter + 2 >= line.length() || skipLetters(line, 0) != delimiter) {
+      return -1;
+    }
+
+    // Single whitespace character (\s) after the delimiter
+    if (!isWhitespace(line.charAt(delimiter + 1))) {
+      return -1;
+    }
+
+    // Tweet of 1 to 139 characters without line terminators (.)
+    if (line.length() - delimiter - 2 > MAX_TWEET_LENGTH) {
+      return -1;
+    }
+    for (int i = delimiter + 2; i < line.length(); i++) {
+      char c = line.charAt(i);
+      if (c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029') {
+        return -1;
+      }
+    }
+
+    return delimiter;
+  }
+
+  /**
+   * Skip the ASCII letters (a-z and A-Z) from a position onwards.
+   *
+   * @return Index of the first character that isn't a letter.
+   */
+  private static int skipLetters(String line, int from) {
+    int position = from;
+    while (position < line.length()) {
+      char c = line.charAt(position);
+      if ((c < 'a' || c > 'z') && (c < 'A' || c > 'Z')) {
+        break;
+      }
+      position++;
+    }
+    return position;
+  }
+
+  /**
+   * Is the character a whitespace character as per the regex class \\s ([ \\t\\n\\x0B\\f\\r]).
+   */
+  private static boolean isWhitespace(char c) {
+    return c == ' ' || c == '\t' || c == '\n' || c == '\u000b' || c == '\f' || c == '\r';
+  }
+}
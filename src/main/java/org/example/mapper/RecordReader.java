@@ -0,0 +1,222 @@
+package org.example.mapper;
+
+import org.example.exception.DataException;
+import org.example.utility.LineReader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Record loop over the lines of a user or tweet input, shared by the data mappers and the
+ * fast-start path: blank lines are skipped, records are stripped and matched against their
+ * pattern and a malformed record fails the parse. Only JDK classes are used (no logging,
+ * no commons-lang3), so the fast-start path can use it; the data mappers hook their
+ * logging, tracing and bookkeeping in through the visitor.
+ */
+public final class RecordReader {
+
+  private static final String GZIP_EXTENSION = ".gz";
+  private static final int GZIP_MAGIC_FIRST = 0x1f;
+  private static final int GZIP_MAGIC_SECOND = 0x8b;
+  private static final String DELIMITER_USER_FOLLOWER = ", ";
+  private static final int GZIP_BUFFER_BYTES = 64 * 1024;
+
+  private RecordReader() {
+    // Private constructor
+  }
+
+  /**
+   * Callbacks for the lines of an input besides its records.
+   */
+  public interface Visitor {
+
+    /**
+     * Called for every line as read (not stripped), before it is matched.
+     *
+     * @param lineNumber The line number.
+     * @param line       The line.
+     * @throws IOException Passed on to the caller of the loop.
+     */
+    default void line(int lineNumber, String line) throws IOException {
+    }
+
+    /**
+     * Called for a line holding only whitespace, which is skipped.
+     *
+     * @param lineNumber The line number.
+     */
+    default void blankLine(int lineNumber) {
+    }
+
+    /**
+     * Called for a malformed record, before the loop fails with a DataException.
+     *
+     * @param lineNumber The line number.
+     * @throws IOException Passed on to the caller of the loop.
+     */
+    default void malformedRecord(int lineNumber) throws IOException {
+    }
+  }
+
+  /**
+   * Callback for the records of a user input.
+   */
+  @FunctionalInterface
+  public interface UserVisitor extends Visitor {
+
+    /**
+     * @param lineNumber The line number.
+     * @param record     The stripped record.
+     * @param follower   The user that follows.
+     * @param users      The users followed, in record order.
+     * @throws DataException Passed on to the caller of the loop, e.g. when a memory budget is exceeded.
+     */
+    void follows(int lineNumber, String record, String follower, List<String> users) throws DataException;
+  }
+
+  /**
+   * Callback for the records of a tweet input.
+   */
+  @FunctionalInterface
+  public interface TweetVisitor extends Visitor {
+
+    /**
+     * @param lineNumber The line number.
+     * @param record     The stripped record.
+     * @param user       The user that posted the tweet.
+     * @param tweet      The tweet.
+     * @throws IOException   Passed on to the caller of the loop, e.g. when the tweet can't be checkpointed.
+     * @throws DataException Passed on to the caller of the loop, e.g. when a memory budget is exceeded.
+     */
+    void tweet(int lineNumber, String record, String user, String tweet) throws IOException, DataException;
+  }
+
+  /**
+   * Read the user records of the remaining lines.
+   *
+   * @param lines   Reader of the lines of the user input.
+   * @param visitor Receives every record, in input order.
+   * @return The number of lines read.
+   * @throws IOException   Occurs when the input can't be read.
+   * @throws DataException Occurs when a record doesn't conform to the pattern or isn't 7-bit ASCII, or passed on
+   *                       from the visitor.
+   */
+  public static int readUsers(LineReader lines, UserVisitor visitor) throws IOException, DataException {
+    int lineCount = 0;
+    String line;
+    while ((line = readLine(lines)) != null) {
+      lineCount++;
+      int lineNumber = lines.getLineNumber();
+      visitor.line(lineNumber, line);
+      if (line.isBlank()) {
+        visitor.blankLine(lineNumber);
+        continue;
+      }
+
+      String record = line.strip();
+      String[] groups = RecordMatcher.matchUserRecord(record);
+      if (groups == null) {
+        visitor.malformedRecord(lineNumber);
+        throw new DataException("User record on line " + lineNumber + " does not conform to pattern.\nRecord: " + record);
+      }
+      visitor.follows(lineNumber, record, groups[0], splitUsers(groups[1]));
+    }
+    return lineCount;
+  }
+
+  /**
+   * Read the tweet records of the remaining lines.
+   *
+   * @param lines   Reader of the lines of the tweet input.
+   * @param visitor Receives every record, in input order.
+   * @return The number of lines read.
+   * @throws IOException   Occurs when the input can't be read.
+   * @throws DataException Occurs when a record doesn't conform to the pattern or isn't 7-bit ASCII, or passed on
+   *                       from the visitor.
+   */
+  public static int readTweets(LineReader lines, TweetVisitor visitor) throws IOException, DataException {
+    int lineCount = 0;
+    String line;
+    while ((line = readLine(lines)) != null) {
+      lineCount++;
+      int lineNumber = lines.getLineNumber();
+      visitor.line(lineNumber, line);
+      if (line.isBlank()) {
+        visitor.blankLine(lineNumber);
+        continue;
+      }
+
+      String record = line.strip();
+      int delimiter = RecordMatcher.findTweetDelimiter(record);
+      if (delimiter <= 0) {
+        visitor.malformedRecord(lineNumber);
+        throw new DataException("Tweet record on line " + lineNumber + " does not conform to pattern.\nRecord: " + record);
+      }
+      visitor.tweet(lineNumber, record, record.substring(0, delimiter), record.substring(delimiter + 2));
+    }
+    return lineCount;
+  }
+
+  /**
+   * Read the next line, reporting a line outside 7-bit ASCII as malformed data like any
+   * other malformed record.
+   */
+  private static String readLine(LineReader lines) throws IOException, DataException {
+    try {
+      return lines.readLine();
+    } catch (LineReader.NonAsciiException e) {
+      throw new DataException(e.getMessage());
+    }
+  }
+
+  /**
+   * Open the lines of an input file, decompressing it while reading if it is gzip compressed;
+   * for callers outside the data mappers, which open their inputs with logging.
+   *
+   * @param filePath The path to the input file.
+   * @return Reader of the lines of the file, to be closed by the caller.
+   * @throws IOException Occurs when the file doesn't exist or can't be read.
+   */
+  public static LineReader openLines(String filePath) throws IOException {
+    Path path = Path.of(filePath);
+    InputStream in = Files.newInputStream(path);
+    return new LineReader(isGzip(path) ? new GZIPInputStream(in, GZIP_BUFFER_BYTES) : in, filePath);
+  }
+
+  /**
+   * Check if the file is gzip compressed, either by its extension or by the gzip magic bytes.
+   *
+   * @param filePath The path to the input file.
+   * @return true if the file should be read as gzip, otherwise false.
+   * @throws IOException Occurs when the file header can't be read.
+   */
+  public static boolean isGzip(Path filePath) throws IOException {
+    if (filePath.toString().endsWith(GZIP_EXTENSION)) {
+      return true;
+    }
+
+    try (InputStream in = Files.newInputStream(filePath)) {
+      return in.read() == GZIP_MAGIC_FIRST && in.read() == GZIP_MAGIC_SECOND;
+    }
+  }
+
+  /**
+   * Split the users of a record on ", " without String.split compiling a regex for it.
+   */
+  private static List<String> splitUsers(String users) {
+    List<String> split = new ArrayList<>();
+    int userStart = 0;
+    int separator;
+    while ((separator = users.indexOf(DELIMITER_USER_FOLLOWER, userStart)) >= 0) {
+      split.add(users.substring(userStart, separator));
+      userStart = separator + DELIMITER_USER_FOLLOWER.length();
+    }
+    split.add(users.substring(userStart));
+    return split;
+  }
+}
@@ -0,0 +1,158 @@
+package org.example.mapper;
+
+import lombok.extern.log4j.Log4j2;
+import org.example.exception.DataException;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BinaryOperator;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * DataMapper class that accepts a single file, a directory or a glob pattern as input
+ * location. Each matching file (shard) is parsed concurrently by its own DataMapper and
+ * the results are merged in lexicographic file name order, giving the same result as
+ * parsing the concatenation of the shards in that order.
+ *
+ * @param <E> Generic used to return a specific POJO.
+ */
+@Log4j2
+public class ShardedDataMapper<E> implements DataMapper<E> {
+
+  private static final String GLOB_CHARACTERS = "*?[{";
+
+  private final Supplier<DataMapper<E>> mapperFactory;
+  private final BinaryOperator<E> merger;
+
+  /**
+   * @param mapperFactory Creates the DataMapper used to parse a single shard.
+   * @param merger        Merges the result of a later shard into the result of an earlier shard.
+   */
+  public ShardedDataMapper(Supplier<DataMapper<E>> mapperFactory, BinaryOperator<E> merger) {
+    this.mapperFactory = mapperFactory;
+    this.merger = merger;
+  }
+
+  /**
+   * Parse all shards found at the input location and merge them into a single POJO.
+   *
+   * @param location Path to a file, a directory or a glob pattern on file names.
+   * @return a POJO based on the type of data parsed.
+   * @throws IOException   Error occurs during file reading or no shards were found.
+   * @throws DataException Error occurs with data such as pattern mismatch.
+   */
+  @Override
+  public E parseData(String location) throws IOException, DataException {
+    List<String> shards = resolveShards(location);
+
+    // Single file keeps the plain (non-concurrent) parsing path
+    if (shards.size() == 1) {
+      return mapperFactory.get().parseData(shards.get(0));
+    }
+
+    log.debug("Parsing " + shards.size() + " shards for " + location);
+    ExecutorService executor = Executors.newFixedThreadPool(Math.min(shards.size(), Runtime.getRuntime().availableProcessors()));
+    try {
+      List<Future<E>> futures = new ArrayList<>();
+      for (String shard : shards) {
+        futures.add(executor.submit(() -> mapperFactory.get().parseData(shard)));
+      }
+
+      // Merge in shard order so global ordering matches reading the shards one after another
+      E result = null;
+      for (Future<E> future : futures) {
+        E shardResult = getShardResult(future);
+        result = result == null ? shardResult : merger.apply(result, shardResult);
+      }
+      return result;
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Wait for the result of a shard and rethrow any failure as the original exception type.
+   *
+   * @param future The future of the shard being parsed.
+   * @return The parsed shard.
+   * @throws IOException   Error occurred during file reading of shard.
+   * @throws DataException Error occurred with the data of shard.
+   */
+  private E getShardResult(Future<E> future) throws IOException, DataException {
+    try {
+      return future.get();
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      }
+      if (cause instanceof DataException) {
+        throw (DataException) cause;
+      }
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw new IOException("Failed to parse shard", cause);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while parsing shards", e);
+    }
+  }
+
+  /**
+   * Resolve the input location into the list of files to parse, ordered lexicographically
+   * by file name. A plain file path is returned as is (file checks happen on read).
+   *
+   * @param location Path to a file, a directory or a glob pattern on file names.
+   * @return Ordered list of file paths.
+   * @throws IOException Occurs when the directory can't be listed or no files match.
+   */
+  public static List<String> resolveShards(String location) throws IOException {
+    Path path = Path.of(location);
+    Path directory;
+    PathMatcher matcher;
+
+    if (Files.isDirectory(path)) {
+      directory = path;
+      matcher = p -> true;
+    } else if (isGlob(path.getFileName())) {
+      directory = path.getParent() == null ? Path.of(".") : path.getParent();
+      matcher = FileSystems.getDefault().getPathMatcher("glob:" + path.getFileName());
+    } else {
+      return List.of(location);
+    }
+
+    List<String> shards;
+    try (Stream<Path> files = Files.list(directory)) {
+      shards = files.filter(Files::isRegularFile)
+          .filter(file -> matcher.matches(file.getFileName()))
+          .sorted(Comparator.comparing(file -> file.getFileName().toString()))
+          .map(Path::toString)
+          .collect(Collectors.toList());
+    }
+
+    if (shards.isEmpty()) {
+      throw new IOException("No input files found for " + location);
+    }
+    return shards;
+  }
+
+  private static boolean isGlob(Path fileName) {
+    if (fileName == null) {
+      return false;
+    }
+    return fileName.toString().chars().anyMatch(c -> GLOB_CHARACTERS.indexOf(c) >= 0);
+  }
+}
@@ -1,15 +1,21 @@
 package org.example.mapper;
 
 import lombok.extern.log4j.Log4j2;
-import org.apache.commons.lang3.StringUtils;
 import org.example.exception.DataException;
+import org.example.model.InputDegrees;
 import org.example.model.TwitterFollowers;
 import org.example.model.TwitterTweets;
+import org.example.store.FeedState;
+import org.example.store.TweetCheckpoint;
+import org.example.utility.LineReader;
+import org.example.utility.MemoryBudget;
+import org.example.utility.ParseTracer;
 
 import java.io.IOException;
-import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.function.Predicate;
 
 /**
  * DataMapper class specifically for the input file for Twitter tweets
@@ -17,8 +23,12 @@ import java.util.regex.Pattern;
 @Log4j2
 public class TweetDataMapper extends AbstractDataMapper implements DataMapper<TwitterTweets> {
 
-  private static final Pattern REGEX_TWEETS = Pattern.compile("^([a-zA-Z]+)>\\s((.){1,139})$");
   private final TwitterFollowers twitterFollowers;
+  private final Predicate<String> recipientFilter;
+  private final MemoryBudget memoryBudget;
+  private final Path checkpointDirectory;
+  private final int checkpointInterval;
+  private final boolean verifyPrefix;
 
   /**
    * Constructor to pass in list of followers to reference during parsing processing
@@ -26,7 +36,72 @@ public class TweetDataMapper extends AbstractDataMapper implements DataMapper<Tw
    * @param twitterFollowers TwitterFollowers POJO object
    */
   public TweetDataMapper(TwitterFollowers twitterFollowers) {
+    this(twitterFollowers, follower -> true);
+  }
+
+  /**
+   * Constructor to pass in list of followers to reference during parsing processing and
+   * a filter limiting fan-out to a subset of recipients (e.g. a partition of users).
+   *
+   * @param twitterFollowers TwitterFollowers POJO object
+   * @param recipientFilter  Filter on the followers that should receive tweets
+   */
+  public TweetDataMapper(TwitterFollowers twitterFollowers, Predicate<String> recipientFilter) {
+    this(twitterFollowers, recipientFilter, MemoryBudget.unlimited());
+  }
+
+  /**
+   * Constructor as above, parsing within a memory budget; the estimated footprint of the
+   * parsed tweets is charged to the budget after every record.
+   *
+   * @param twitterFollowers TwitterFollowers POJO object
+   * @param recipientFilter  Filter on the followers that should receive tweets
+   * @param memoryBudget     The budget shared by the mappers of a run
+   */
+  public TweetDataMapper(TwitterFollowers twitterFollowers, Predicate<String> recipientFilter, MemoryBudget memoryBudget) {
+    this(twitterFollowers, recipientFilter, memoryBudget, null, 0);
+  }
+
+  /**
+   * Constructor as above, checkpointing the parse every checkpointInterval lines and when a
+   * malformed record is found. A parse of an input with a checkpoint resumes from it if the
+   * input still starts with the same bytes and holds the lines of the last checkpointed
+   * interval; the checkpoint is deleted once the input is parsed completely.
+   *
+   * @param twitterFollowers    TwitterFollowers POJO object
+   * @param recipientFilter     Filter on the followers that should receive tweets
+   * @param memoryBudget        The budget shared by the mappers of a run
+   * @param checkpointDirectory Directory holding the checkpoint per input; null disables checkpoints
+   * @param checkpointInterval  Number of lines between checkpoints
+   */
+  public TweetDataMapper(TwitterFollowers twitterFollowers, Predicate<String> recipientFilter, MemoryBudget memoryBudget,
+                         Path checkpointDirectory, int checkpointInterval) {
+    this(twitterFollowers, recipientFilter, memoryBudget, checkpointDirectory, checkpointInterval, false);
+  }
+
+  /**
+   * Constructor as above, optionally confirming on resume that every committed line of the
+   * input is unchanged rather than only its head and the last interval; the committed
+   * prefix of the input is then read again.
+   *
+   * @param twitterFollowers    TwitterFollowers POJO object
+   * @param recipientFilter     Filter on the followers that should receive tweets
+   * @param memoryBudget        The budget shared by the mappers of a run
+   * @param checkpointDirectory Directory holding the checkpoint per input; null disables checkpoints
+   * @param checkpointInterval  Number of lines between checkpoints
+   * @param verifyPrefix        true to verify the whole committed prefix on resume
+   */
+  public TweetDataMapper(TwitterFollowers twitterFollowers, Predicate<String> recipientFilter, MemoryBudget memoryBudget,
+                         Path checkpointDirectory, int checkpointInterval, boolean verifyPrefix) {
+    if (checkpointDirectory != null && checkpointInterval < 1) {
+      throw new IllegalArgumentException("Checkpoint interval must be at least 1");
+    }
     this.twitterFollowers = twitterFollowers;
+    this.recipientFilter = recipientFilter;
+    this.memoryBudget = memoryBudget;
+    this.checkpointDirectory = checkpointDirectory;
+    this.checkpointInterval = checkpointInterval;
+    this.verifyPrefix = verifyPrefix;
   }
 
   /**
@@ -35,81 +110,284 @@ public class TweetDataMapper extends AbstractDataMapper implements DataMapper<Tw
    * @param filePath The absolute path to the file to read and parse.
    * @return TwitterTweets POJO object
    * @throws IOException   Error occurs during file reading
-   * @throws DataException Error occurs with data such as pattern mismatch.
+   * @throws DataException Error occurs with data such as pattern mismatch or if the memory budget is exceeded.
    */
   @Override
   public TwitterTweets parseData(String filePath) throws IOException, DataException {
     log.debug("Parsing tweet data");
-    TwitterTweets twitterTweets = new TwitterTweets();
-    List<String> fileData;
 
+    TweetCheckpoint checkpoint = null;
     try {
-      fileData = readFile(filePath);
+      if (checkpointDirectory != null) {
+        checkpoint = TweetCheckpoint.open(checkpointDirectory, filePath);
+        if (checkpoint == null) {
+          log.info("Checkpoint of tweet file " + filePath + " is held by another parse, parsing without checkpoints");
+        }
+      }
+      return parseTwitterTweets(filePath, checkpoint);
     } catch (IOException e) {
       log.error("Failed to parse Twitter tweet file (" + filePath + ")");
       throw e;
+    } finally {
+      if (checkpoint != null) {
+        checkpoint.close();
+      }
+    }
+  }
+
+  /**
+   * Parse the input data from file as Twitter tweets, resuming from the checkpoint if it has
+   * committed progress.
+   *
+   * @param filePath   The path to the file to read and parse.
+   * @param checkpoint The checkpoint of the input, null to parse without checkpoints.
+   * @return TwitterTweets POJO object
+   * @throws IOException   Error occurs during file reading
+   * @throws DataException Error occurs with data such as pattern mismatch or if the memory budget is exceeded.
+   */
+  private TwitterTweets parseTwitterTweets(String filePath, TweetCheckpoint checkpoint) throws IOException, DataException {
+    TwitterTweets twitterTweets = newTwitterTweets();
+
+    // Resume from the checkpoint of an earlier, interrupted parse of the same input
+    LineReader fileData = null;
+    long chargedBytes = 0;
+    if (checkpoint != null && checkpoint.isCommitted()) {
+      fileData = resumeLines(filePath, checkpoint);
+      if (fileData != null) {
+        try {
+          checkpoint.replay((user, tweet) -> addTweet(twitterTweets, user, tweet));
+          chargedBytes = twitterTweets.getEstimatedBytes();
+          memoryBudget.charge(chargedBytes, filePath, checkpoint.getLineNumber());
+        } catch (IOException | DataException e) {
+          fileData.close();
+          throw e;
+        }
+        log.info("Resuming tweet file " + filePath + " from checkpoint at line " + (checkpoint.getLineNumber() + 1)
+            + " (offset " + checkpoint.getOffset() + ")");
+      } else {
+        log.warn("Tweet file " + filePath + " changed since its checkpoint was written, parsing from the start");
+        checkpoint.delete();
+      }
+    }
+    if (fileData == null) {
+      fileData = new LineReader(openInput(filePath), filePath);
     }
 
+    // Read input file a block at a time and parse its lines as they are read
+    try (LineReader lines = fileData) {
+      RecordReader.readTweets(lines, new TweetVisitor(filePath, lines, checkpoint, twitterTweets, chargedBytes));
+    }
+
+    if (checkpoint != null) {
+      checkpoint.delete();
+    }
+
+    // Every array is filled; the counts would otherwise stay reachable for the rest of the run
+    twitterTweets.releaseInputDegrees();
+    return twitterTweets;
+  }
+
+  /**
+   * Open the input at the start of the last checkpointed interval and read that interval,
+   * after checking the head of the input and seeking over (or for compressed input,
+   * skipping) everything else before it. When verifying the prefix, all committed lines are
+   * read and checked instead.
+   *
+   * @param filePath   The path to the file to read.
+   * @param checkpoint The checkpoint to resume from.
+   * @return Reader positioned at the first unparsed line, or null if the input changed.
+   * @throws IOException Error occurs during file reading
+   */
+  private LineReader resumeLines(String filePath, TweetCheckpoint checkpoint) throws IOException {
+    InputStream in = openInput(filePath);
+    try {
+      if (verifyPrefix) {
+        LineReader lines = new LineReader(in, filePath);
+        if (checkpoint.matchesPrefix(lines)) {
+          return lines;
+        }
+      } else if (checkpoint.matchesHead(in.readNBytes(checkpoint.getHeadLength()))
+          && skipFully(in, checkpoint.getIntervalOffset() - checkpoint.getHeadLength())) {
+        LineReader lines = new LineReader(in, filePath, checkpoint.getIntervalOffset(), checkpoint.getIntervalLine());
+        if (checkpoint.matchesInterval(lines)) {
+          return lines;
+        }
+      }
+    } catch (IOException e) {
+      in.close();
+      throw e;
+    }
+    in.close();
+    return null;
+  }
+
+  /**
+   * Read the first bytes of the input, which a checkpoint hashes to confirm the input on resume.
+   */
+  private byte[] readHead(String filePath, long intervalOffset) throws IOException {
+    try (InputStream in = openInput(filePath)) {
+      return in.readNBytes((int) Math.min(TweetCheckpoint.HEAD_BYTES, intervalOffset));
+    }
+  }
+
+  /**
+   * Skip bytes of the input; false if it ends first.
+   */
+  private static boolean skipFully(InputStream in, long count) throws IOException {
+    long remaining = count;
+    while (remaining > 0) {
+      long skipped = in.skip(remaining);
+      if (skipped > 0) {
+        remaining -= skipped;
+      } else if (in.read() < 0) {
+        return false;
+      } else {
+        remaining--;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Add a tweet, fanning it out to the followers of its author.
+   */
+  private void addTweet(TwitterTweets twitterTweets, String user, String tweet) {
     /*
-    If there are no tweets then we don't error out.
-    It just means users follow one another but no one has posted anything yet.
-    Return empty object and continue processing.
+    If tweet is found that does not have linking user then
+    proceed by adding a single 1-1 mapping where the user
+    will only see their own tweets as user is following no one
+    and no one is following said user (which is a valid use case).
+
+    Followers are shared between mappers parsing tweet shards concurrently,
+    hence the lookup and insert happen under its lock.
      */
-    if (fileData.isEmpty()) {
-      return twitterTweets;
+    Set<String> followers;
+    synchronized (twitterFollowers) {
+      if (!twitterFollowers.hasFollowers(user)) {
+        twitterFollowers.addFollower(user, user);
+      }
+      followers = twitterFollowers.getFollowers(user);
     }
 
-    // Loop through the file and parse tweets into Twitter Tweet object
-    int lineCounter = 0;
-    for (String line : fileData) {
-      lineCounter++;
+    /*
+    Pass list of followers for user that made tweet to ensure tweet is assigned to
+    all users that need to see it in their feed.
+     */
+    twitterTweets.addTweet(followers, user, tweet);
+  }
 
+  /**
+   * Create the tweets to fill; pre-sized when the follower graph was filled from counted
+   * degrees, in which case the runs per follower are counted against the filled graph first.
+   * The graph hands the counts over to the tweets, which hold them until they are filled.
+   */
+  private TwitterTweets newTwitterTweets() {
+    InputDegrees inputDegrees = twitterFollowers.getInputDegrees();
+    if (inputDegrees == null) {
+      return new TwitterTweets(recipientFilter);
+    }
+    synchronized (twitterFollowers) {
+      inputDegrees.countRuns(twitterFollowers, recipientFilter);
+      twitterFollowers.releaseInputDegrees();
+    }
+    return new TwitterTweets(recipientFilter, inputDegrees);
+  }
+
+  /**
+   * Receives the tweet records of a parse, appending them to the checkpoint and committing
+   * it every checkpointInterval lines and before failing on a malformed record.
+   */
+  private final class TweetVisitor implements RecordReader.TweetVisitor {
+
+    private final String filePath;
+    private final LineReader lines;
+    private final TweetCheckpoint checkpoint;
+    private final TwitterTweets twitterTweets;
+    private final ParseTracer parseTracer = ParseTracer.getInstance();
+    private long chargedBytes;
+    // Start and number of lines before the interval since the last commit, and the hash of its lines so far
+    private long intervalOffset;
+    private int intervalLine;
+    private long intervalHash = FeedState.INITIAL_HASH;
+    // Hash of all lines before the current one (continued from the checkpoint on resume)
+    private long prefixHash;
+    private long linePrefixHash;
+    // Head of the input as of the last commit; read again only while the interval starts within HEAD_BYTES
+    private byte[] head;
+    // Start and end of the current line and the interval hash before it, i.e. what a commit taken now covers
+    private long lineStart;
+    private long lineEnd;
+    private long lineHash;
+
+    TweetVisitor(String filePath, LineReader lines, TweetCheckpoint checkpoint, TwitterTweets twitterTweets, long chargedBytes) {
+      this.filePath = filePath;
+      this.lines = lines;
+      this.checkpoint = checkpoint;
+      this.twitterTweets = twitterTweets;
+      this.chargedBytes = chargedBytes;
+      this.intervalOffset = lines.getOffset();
+      this.intervalLine = lines.getLineNumber();
+      this.lineEnd = lines.getOffset();
+      this.prefixHash = checkpoint == null ? FeedState.INITIAL_HASH : checkpoint.getPrefixHash();
+    }
+
+    @Override
+    public void line(int lineNumber, String line) throws IOException {
+      if (checkpoint == null) {
+        return;
+      }
+      lineStart = lineEnd;
+      lineEnd = lines.getOffset();
+      lineHash = intervalHash;
+      linePrefixHash = prefixHash;
+      int parsedLines = lineNumber - 1;
+      if (parsedLines > intervalLine && parsedLines % checkpointInterval == 0) {
+        commit(parsedLines);
+        log.debug("Checkpointed tweet file " + filePath + " at line " + parsedLines);
+      }
+      intervalHash = TweetCheckpoint.hashLine(lineHash, line);
+      prefixHash = TweetCheckpoint.hashLine(linePrefixHash, line);
+    }
+
+    @Override
+    public void blankLine(int lineNumber) {
       // In the case where empty lines occurs, just skip as it won't affect data, but log warning
-      if (StringUtils.isAllBlank(line)) {
-        log.warn("Line " + lineCounter + " contains only whitespace/empty line, skipping...");
-        continue;
+      log.warn("Line " + lineNumber + " contains only whitespace/empty line, skipping...");
+    }
+
+    @Override
+    public void malformedRecord(int lineNumber) throws IOException {
+      // Keep the progress up to the malformed record, so a corrected input resumes from there
+      if (checkpoint != null && lineNumber - 1 > intervalLine) {
+        commit(lineNumber - 1);
       }
+    }
 
-      log.debug("Raw Tweet Record: " + line);
-
-      // Strip any starting and ending spaces before pattern matching (acceptable user content)
-      line = StringUtils.strip(line);
-      Matcher matcher = REGEX_TWEETS.matcher(line);
-
-      // If data line matches pattern then extract specific values from pattern group
-      if (matcher.matches()) {
-        /*
-        First group is the Twitter user that made the post.
-        Second group is the actual Twitter post/tweet/message.
-         */
-        String user = matcher.group(1);
-        String tweet = matcher.group(2);
-
-        log.debug("Record Group 1: " + user);
-        log.debug("Record Group 2: " + tweet);
-
-
-        /*
-        If tweet is found that does not have linking user then
-        proceed by adding a single 1-1 mapping where the user
-        will only see their own tweets as user is following no one
-        and no one is following said user (which is a valid use case).
-         */
-        if (!twitterFollowers.hasFollowers(user)) {
-          twitterFollowers.addFollower(user, user);
-        }
+    @Override
+    public void tweet(int lineNumber, String record, String user, String tweet) throws IOException, DataException {
+      parseTracer.trace(filePath, lineNumber, user, record);
 
-        /*
-        Pass list of followers for user that made tweet to ensure tweet is assigned to
-        all users that need to see it in their feed.
-         */
-        twitterTweets.addTweet(twitterFollowers.getFollowers(user), user, tweet);
-      } else {
-        //  Strict pattern matching; error out program if malformed data record is found
-        throw new DataException("Tweet record on line " + lineCounter + " does not conform to pattern.\nRecord: " + line);
+      addTweet(twitterTweets, user, tweet);
+      if (checkpoint != null) {
+        checkpoint.append(user, tweet);
       }
+
+      long estimatedBytes = twitterTweets.getEstimatedBytes();
+      memoryBudget.charge(estimatedBytes - chargedBytes, filePath, lineNumber);
+      chargedBytes = estimatedBytes;
     }
 
-    return twitterTweets;
+    /**
+     * Commit the checkpoint up to the start of the current line and start the next interval there.
+     */
+    private void commit(int parsedLines) throws IOException {
+      if (head == null || head.length < TweetCheckpoint.HEAD_BYTES && head.length < intervalOffset) {
+        head = readHead(filePath, intervalOffset);
+      }
+      checkpoint.commit(lineStart, parsedLines, intervalOffset, intervalLine, lineHash, head, linePrefixHash);
+      intervalOffset = lineStart;
+      intervalLine = parsedLines;
+      lineHash = FeedState.INITIAL_HASH;
+    }
   }
 }
@@ -1,14 +1,15 @@
 package org.example.mapper;
 
 import lombok.extern.log4j.Log4j2;
-import org.apache.commons.lang3.StringUtils;
 import org.example.exception.DataException;
+import org.example.model.InputDegrees;
 import org.example.model.TwitterFollowers;
+import org.example.utility.LineReader;
+import org.example.utility.MemoryBudget;
+import org.example.utility.ParseTracer;
 
 import java.io.IOException;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * DataMapper class specifically for the input file for Twitter users
@@ -16,8 +17,37 @@ import java.util.regex.Pattern;
 @Log4j2
 public class UserDataMapper extends AbstractDataMapper implements DataMapper<TwitterFollowers> {
 
-  private static final String DELIMITER_USER_FOLLOWER = ", ";
-  private static final Pattern REGEX_USER_FOLLOWERS = Pattern.compile("^([a-zA-Z]+)\\sfollows\\s(([a-zA-Z]+)(,\\s[a-zA-Z]+)*)$");
+  private final MemoryBudget memoryBudget;
+  private final InputDegrees inputDegrees;
+
+  /**
+   * Constructor for parsing without a memory budget.
+   */
+  public UserDataMapper() {
+    this(MemoryBudget.unlimited());
+  }
+
+  /**
+   * Constructor for parsing within a memory budget; the estimated footprint of the parsed
+   * followers is charged to the budget after every record.
+   *
+   * @param memoryBudget The budget shared by the mappers of a run.
+   */
+  public UserDataMapper(MemoryBudget memoryBudget) {
+    this(memoryBudget, null);
+  }
+
+  /**
+   * Constructor as above, filling a follower graph pre-sized with the degrees counted on the
+   * same inputs.
+   *
+   * @param memoryBudget The budget shared by the mappers of a run.
+   * @param inputDegrees Counts of a pre-pass over the inputs; null to grow on demand.
+   */
+  public UserDataMapper(MemoryBudget memoryBudget, InputDegrees inputDegrees) {
+    this.memoryBudget = memoryBudget;
+    this.inputDegrees = inputDegrees;
+  }
 
   /**
    * Parse the user input data and return in-memory data structure.
@@ -30,78 +60,74 @@ public class UserDataMapper extends AbstractDataMapper implements DataMapper<Twi
   @Override
   public TwitterFollowers parseData(String filePath) throws IOException, DataException {
     log.debug("Parsing user data");
-    List<String> fileData;
 
-    // Read input file and get lines as data output
-    try {
-      fileData = readFile(filePath);
+    // Read input file a block at a time and parse its lines as they are read
+    try (LineReader fileData = openLines(filePath)) {
+      return parseTwitterFollowers(filePath, fileData);
     } catch (IOException e) {
       log.error("Failed to parse Twitter user file (" + filePath + ")");
       throw e;
     }
-
-    // If there are no users then the feed would be empty, thus throw error
-    if (fileData.isEmpty()) {
-      log.warn("No data in user file " + filePath + ". Might extract some users from tweet.txt.");
-      return new TwitterFollowers();
-    }
-
-    return parseTwitterFollowers(fileData);
   }
 
   /**
    * Parse the input data from file as Twitter followers based on defined pattern
    *
-   * @param fileData The data file's contents.
+   * @param filePath The path of the file, for error reporting.
+   * @param fileData Reader of the data file's lines.
    * @return TwitterFollowers POJO
-   * @throws DataException Error occurs with data such as pattern mismatch or if no users in input file.
+   * @throws IOException   Error occurs during file reading
+   * @throws DataException Error occurs with data such as pattern mismatch (strict pattern matching), if no
+   *                       users in input file or if the memory budget is exceeded.
    */
-  private TwitterFollowers parseTwitterFollowers(List<String> fileData) throws DataException {
-    TwitterFollowers twitterFollowers = new TwitterFollowers();
+  private TwitterFollowers parseTwitterFollowers(String filePath, LineReader fileData) throws IOException, DataException {
+    TwitterFollowers twitterFollowers = new TwitterFollowers(inputDegrees);
+    ParseTracer parseTracer = ParseTracer.getInstance();
 
     // Loop through the file and parse users into Twitter followers object
-    int lineCounter = 0;
-    for (String line : fileData) {
-      lineCounter++;
-
-      // In the case where empty lines occurs, just skip as it won't affect data, but log warning
-      if (StringUtils.isAllBlank(line)) {
-        log.warn("Line " + lineCounter + " contains only whitespace/empty line, skipping...");
-        continue;
-      }
+    int lineCounter = RecordReader.readUsers(fileData, new RecordReader.UserVisitor() {
 
-      log.debug("Raw User Record: " + line);
+      private long chargedBytes;
 
-      // Strip any starting and ending spaces before pattern matching (acceptable user content)
-      line = StringUtils.strip(line);
-      Matcher matcher = REGEX_USER_FOLLOWERS.matcher(line);
-
-      // If data line matches pattern then extract specific values from pattern group
-      if (matcher.matches()) {
-        /*
-        First group is Twitter user that "follows" another (follower).
-        Second group is the Twitter user(s) being followed by said Twitter user.
+      @Override
+      public void blankLine(int lineNumber) {
+        // In the case where empty lines occurs, just skip as it won't affect data, but log warning
+        log.warn("Line " + lineNumber + " contains only whitespace/empty line, skipping...");
+      }
 
-        X follows Y
-        X being a Twitter follower to Y that can be a single or multiple Twitter users
-         */
-        String follower = matcher.group(1);
-        String users = matcher.group(2);
+      /*
+      Follower is the Twitter user that "follows" another.
+      Users are the Twitter user(s) being followed by said Twitter user.
 
-        log.debug("Record Group 1: " + follower);
-        log.debug("Record Group 2: " + users);
+      X follows Y
+      X being a Twitter follower to Y that can be a single or multiple Twitter users
+       */
+      @Override
+      public void follows(int lineNumber, String record, String follower, List<String> users) throws DataException {
+        boolean traced = parseTracer.isTraced(lineNumber, follower);
 
-        // Loop through list of users in second group and add follower
-        for (String user : users.split(DELIMITER_USER_FOLLOWER)) {
+        // Loop through list of users and add follower
+        for (String user : users) {
           twitterFollowers.addFollower(user, follower);
+          traced = traced || parseTracer.isTracedUser(user);
+        }
+        if (traced) {
+          parseTracer.record(filePath, lineNumber, follower, record);
         }
 
         // User will also be their own follower (i.e. see their own posts)
         twitterFollowers.addFollower(follower, follower);
-      } else {
-        //  Strict pattern matching; error out program if malformed data record is found
-        throw new DataException("User record on line " + lineCounter + " does not conform to pattern.\nRecord: " + line);
+
+        long estimatedBytes = twitterFollowers.getEstimatedBytes();
+        memoryBudget.charge(estimatedBytes - chargedBytes, filePath, lineNumber);
+        chargedBytes = estimatedBytes;
       }
+    });
+
+    // If there are no users then the feed would be empty, but tweets might still introduce users
+    if (lineCounter == 0) {
+      log.warn("No data in user file " + filePath + ". Might extract some users from tweet.txt.");
+      return twitterFollowers;
     }
 
     /*
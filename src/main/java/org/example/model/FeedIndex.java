@@ -0,0 +1,178 @@
+package org.example.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Read-only index over the feed of every Twitter user, built once from the parsed
+ * TwitterFollowers and TwitterTweets.
+ * <p>
+ * By default the index is compact: it keeps only the users and merges a page of a feed
+ * from the fan-out runs of TwitterTweets on every query, so building it costs nothing per
+ * feed entry. The runs are positioned at the start of the page by binary search, so a
+ * page costs in proportion to its size rather than its offset. Feeds are materialised up
+ * front only when their estimated size is within the threshold passed in, which saves the
+ * merge on every query.
+ */
+public class FeedIndex {
+
+  // Users in alphabetical order
+  private final List<String> users;
+  private final Set<String> indexedUsers;
+  // User mapped to their feed entries in "@user: tweet" format, oldest first (input order); null when compact
+  private final Map<String, List<String>> feeds;
+  // Source of the feeds when compact, otherwise null
+  private final TwitterTweets twitterTweets;
+
+  /**
+   * Build the compact index for all users.
+   *
+   * @param twitterFollowers TwitterFollowers POJO object
+   * @param twitterTweets    TwitterTweets POJO object
+   */
+  public FeedIndex(TwitterFollowers twitterFollowers, TwitterTweets twitterTweets) {
+    this(twitterFollowers, twitterTweets, user -> true);
+  }
+
+  /**
+   * Build the compact index for the users accepted by the filter only.
+   *
+   * @param twitterFollowers TwitterFollowers POJO object
+   * @param twitterTweets    TwitterTweets POJO object; must not change while the index is used.
+   * @param userFilter       Filter on the users to index.
+   */
+  public FeedIndex(TwitterFollowers twitterFollowers, TwitterTweets twitterTweets, Predicate<String> userFilter) {
+    this(twitterFollowers, twitterTweets, userFilter, 0);
+  }
+
+  /**
+   * Build the index for the users accepted by the filter only, materialising the feeds
+   * unless their estimated size exceeds the threshold.
+   *
+   * @param twitterFollowers      TwitterFollowers POJO object
+   * @param twitterTweets         TwitterTweets POJO object; must not change while the index is used.
+   * @param userFilter            Filter on the users to index.
+   * @param compactThresholdBytes Estimated size of the materialised feeds above which the index is compact;
+   *                              0 for a compact index whenever there are users.
+   */
+  public FeedIndex(TwitterFollowers twitterFollowers, TwitterTweets twitterTweets, Predicate<String> userFilter,
+                   long compactThresholdBytes) {
+    List<String> filteredUsers = new ArrayList<>();
+
+    // getUsers() is already in alphabetical order
+    for (String user : twitterFollowers.getUsers()) {
+      if (userFilter.test(user)) {
+        filteredUsers.add(user);
+      }
+    }
+
+    this.users = Collections.unmodifiableList(filteredUsers);
+    this.indexedUsers = new HashSet<>(filteredUsers);
+
+    if (estimateMaterialisedBytes(filteredUsers.size(), twitterTweets) > compactThresholdBytes) {
+      this.feeds = null;
+      this.twitterTweets = twitterTweets;
+      return;
+    }
+
+    Map<String, List<String>> indexedFeeds = new HashMap<>();
+    for (String user : filteredUsers) {
+      indexedFeeds.put(user, Collections.unmodifiableList(twitterTweets.getTweets(user)));
+    }
+    this.feeds = indexedFeeds;
+    this.twitterTweets = null;
+  }
+
+  /**
+   * Estimate the size of materialising every feed: a list per user and a reference per
+   * feed entry (the tweet strings themselves are shared with TwitterTweets).
+   */
+  private static long estimateMaterialisedBytes(int userCount, TwitterTweets twitterTweets) {
+    long perUserBytes = Footprint.HASH_ENTRY_BYTES + 24 + 16 + Footprint.ARRAY_BYTES;
+    return userCount * perUserBytes + twitterTweets.getFootprint().getFeedEntries() * Footprint.REFERENCE_BYTES;
+  }
+
+  /**
+   * Get a page of the feed of a Twitter user.
+   *
+   * @param user   The Twitter user.
+   * @param offset Index of the first feed entry to return.
+   * @param limit  Maximum number of feed entries to return.
+   * @return Feed entries in "@user: tweet" format; empty if the user is unknown or offset is past the end.
+   */
+  public List<String> feed(String user, int offset, int limit) {
+    if (offset < 0 || limit < 0) {
+      throw new IllegalArgumentException("Offset and limit must not be negative");
+    }
+
+    if (!indexedUsers.contains(user)) {
+      return Collections.emptyList();
+    }
+    if (feeds == null) {
+      return Collections.unmodifiableList(twitterTweets.getTweets(user, offset, limit));
+    }
+
+    List<String> feed = feeds.get(user);
+    if (offset >= feed.size()) {
+      return Collections.emptyList();
+    }
+    return feed.subList(offset, (int) Math.min(feed.size(), (long) offset + limit));
+  }
+
+  /**
+   * Get the number of entries in the feed of a Twitter user.
+   *
+   * @param user The Twitter user.
+   * @return Feed size; 0 if the user is unknown.
+   */
+  public int feedSize(String user) {
+    if (!indexedUsers.contains(user)) {
+      return 0;
+    }
+    return feeds == null ? twitterTweets.getTweetCount(user) : feeds.get(user).size();
+  }
+
+  /**
+   * Does the index contain the Twitter user
+   *
+   * @param user The Twitter user.
+   * @return true if the user is indexed, otherwise false.
+   */
+  public boolean hasUser(String user) {
+    return indexedUsers.contains(user);
+  }
+
+  /**
+   * Get the number of indexed Twitter users.
+   *
+   * @return Number of users.
+   */
+  public int userCount() {
+    return users.size();
+  }
+
+  /**
+   * Is the index compact, i.e. are feeds merged on every query instead of materialised
+   *
+   * @return true if compact, otherwise false.
+   */
+  public boolean isCompact() {
+    return feeds == null;
+  }
+
+  /**
+   * Iterate over the indexed Twitter users in alphabetical order.
+   *
+   * @return Read-only iterator over users.
+   */
+  public Iterator<String> users() {
+    return users.iterator();
+  }
+}
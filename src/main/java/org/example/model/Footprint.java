@@ -0,0 +1,63 @@
+package org.example.model;
+
+/**
+ * Estimated retained size of an in-memory model structure, with the counts the estimate
+ * is based on. Estimates assume a 64 bit JVM with compressed references and compact
+ * (Latin-1) strings; they are meant for sizing the heap, not for exact accounting.
+ */
+public final class Footprint {
+
+  // Object layout estimates in bytes
+  static final int STRING_BYTES = 24 + 16;
+  static final int REFERENCE_BYTES = 4;
+  static final int HASH_ENTRY_BYTES = 32 + REFERENCE_BYTES;
+  static final int HASH_SET_BYTES = 16 + 48 + 16;
+  static final int ARRAY_BYTES = 16;
+
+  private final long entries;
+  private final long edges;
+  private final long feedEntries;
+  private final long textBytes;
+  private final long estimatedBytes;
+
+  /**
+   * @param entries        Number of top-level entries (e.g. users or tweets).
+   * @param edges          Number of links between entries (e.g. follows or fan-out runs).
+   * @param feedEntries    Number of feed entries the structure serves.
+   * @param textBytes      Bytes of text held (user names, tweets).
+   * @param estimatedBytes Estimated retained heap size.
+   */
+  public Footprint(long entries, long edges, long feedEntries, long textBytes, long estimatedBytes) {
+    this.entries = entries;
+    this.edges = edges;
+    this.feedEntries = feedEntries;
+    this.textBytes = textBytes;
+    this.estimatedBytes = estimatedBytes;
+  }
+
+  public long getEntries() {
+    return entries;
+  }
+
+  public long getEdges() {
+    return edges;
+  }
+
+  public long getFeedEntries() {
+    return feedEntries;
+  }
+
+  public long getTextBytes() {
+    return textBytes;
+  }
+
+  public long getEstimatedBytes() {
+    return estimatedBytes;
+  }
+
+  @Override
+  public String toString() {
+    return "Footprint{entries=" + entries + ", edges=" + edges + ", feedEntries=" + feedEntries
+        + ", textBytes=" + textBytes + ", estimatedBytes=" + estimatedBytes + "}";
+  }
+}
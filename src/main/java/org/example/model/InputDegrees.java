@@ -0,0 +1,254 @@
+package org.example.model;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Degree counts from a pre-pass over the user and tweet inputs: per user the number of
+ * followers, per follower the number of users followed and per author the number of
+ * tweets. TwitterFollowers and TwitterTweets created with the counts size every map, set
+ * and array to its final size up front, so nothing is resized while the model is filled,
+ * and the footprint of the model is known before the fill starts.
+ * <p>
+ * Counts follow the data mappers: every follower also follows themselves, and an author
+ * without followers follows themselves on their first tweet. Follows repeated in the input
+ * are counted twice, so for such input the counts are an upper bound.
+ */
+public class InputDegrees {
+
+  // Map entry, Degree object and name per counted user
+  private static final int DEGREE_BYTES = Footprint.HASH_ENTRY_BYTES + 16 + 4 * Integer.BYTES + Footprint.STRING_BYTES;
+
+  private final Map<String, Degree> degrees;
+  private long countedNameBytes;
+  private int userCount;
+  private int followerCount;
+  private int authorCount;
+  private long edgeCount;
+  private long nameBytes;
+  private long tweetCount;
+  private long tweetTextBytes;
+  // Runs per follower are only known once the follower graph is filled, see countRuns
+  private long runCount;
+  private int runHolderCount;
+  private boolean runsCounted;
+
+  /**
+   * Constructor for counts that grow on demand.
+   */
+  public InputDegrees() {
+    this(0);
+  }
+
+  /**
+   * Constructor for counts sized for the expected number of distinct names, so the counts
+   * don't grow by rehashing while they are taken.
+   *
+   * @param expectedNames Estimated number of users, followers and authors; 0 if unknown.
+   */
+  public InputDegrees(int expectedNames) {
+    degrees = expectedNames == 0 ? new HashMap<>() : new HashMap<>(hashCapacity(expectedNames));
+  }
+
+  /**
+   * Count a follow (an edge of the follower graph).
+   *
+   * @param user     The Twitter user being followed.
+   * @param follower The Twitter follower.
+   */
+  public void countFollow(String user, String follower) {
+    Degree userDegree = degree(user);
+    if (userDegree.followers++ == 0) {
+      userCount++;
+      nameBytes += user.length();
+    }
+    Degree followerDegree = degree(follower);
+    if (followerDegree.followees++ == 0) {
+      followerCount++;
+    }
+    edgeCount++;
+  }
+
+  /**
+   * Count a tweet; count the users before the tweets so that the self-follow of an author
+   * without followers is counted correctly.
+   *
+   * @param author      The Twitter user that posted the tweet.
+   * @param tweetLength Length of the tweet in "@user: tweet" format.
+   */
+  public void countTweet(String author, int tweetLength) {
+    Degree authorDegree = degree(author);
+    if (authorDegree.tweets++ == 0) {
+      authorCount++;
+      if (authorDegree.followers == 0) {
+        countFollow(author, author);
+      }
+      // Upper bound until countRuns applies the recipient filter
+      runCount += authorDegree.followers;
+    }
+    tweetCount++;
+    tweetTextBytes += tweetLength;
+  }
+
+  /**
+   * Count the fan-out runs per follower: one per author followed. Called once the follower
+   * graph is filled, before the tweets are.
+   *
+   * @param twitterFollowers The filled follower graph.
+   * @param recipientFilter  Filter on the followers that receive tweets.
+   */
+  public void countRuns(TwitterFollowers twitterFollowers, Predicate<String> recipientFilter) {
+    runCount = 0;
+    runHolderCount = 0;
+    runsCounted = true;
+    degrees.values().forEach(degree -> degree.runs = 0);
+
+    // Iterate a copy, as counting may add followers that weren't counted (e.g. for another graph)
+    for (Map.Entry<String, Degree> entry : new ArrayList<>(degrees.entrySet())) {
+      if (entry.getValue().tweets == 0) {
+        continue;
+      }
+      // An author without followers gets a self-follow on their first tweet
+      Set<String> followers = twitterFollowers.getFollowers(entry.getKey());
+      if (followers == null) {
+        countRun(entry.getKey(), recipientFilter);
+        continue;
+      }
+      for (String follower : followers) {
+        countRun(follower, recipientFilter);
+      }
+    }
+  }
+
+  private void countRun(String follower, Predicate<String> recipientFilter) {
+    if (recipientFilter.test(follower)) {
+      if (degree(follower).runs++ == 0) {
+        runHolderCount++;
+      }
+      runCount++;
+    }
+  }
+
+  /**
+   * Get the initial capacity of a hash based collection that holds the given number of
+   * elements without resizing (at the default load factor).
+   *
+   * @param expectedSize Number of elements.
+   * @return Initial capacity.
+   */
+  public static int hashCapacity(int expectedSize) {
+    return (int) ((long) expectedSize * 4 / 3) + 1;
+  }
+
+  public int getFollowerDegree(String user) {
+    Degree degree = degrees.get(user);
+    return degree == null ? 0 : degree.followers;
+  }
+
+  public int getFolloweeDegree(String follower) {
+    Degree degree = degrees.get(follower);
+    return degree == null ? 0 : degree.followees;
+  }
+
+  public int getTweetCount(String author) {
+    Degree degree = degrees.get(author);
+    return degree == null ? 0 : degree.tweets;
+  }
+
+  public int getRunCount(String follower) {
+    Degree degree = degrees.get(follower);
+    return degree == null ? 0 : degree.runs;
+  }
+
+  /**
+   * Get the number of users (users with followers, including themselves)
+   *
+   * @return User count
+   */
+  public int getUserCount() {
+    return userCount;
+  }
+
+  /**
+   * Get the number of followers (users following at least one user)
+   *
+   * @return Follower count
+   */
+  public int getFollowerCount() {
+    return followerCount;
+  }
+
+  public int getAuthorCount() {
+    return authorCount;
+  }
+
+  /**
+   * Get the number of followers receiving at least one run; only known after countRuns
+   *
+   * @return Follower count
+   */
+  public int getRunHolderCount() {
+    return runHolderCount;
+  }
+
+  public long getTweetCount() {
+    return tweetCount;
+  }
+
+  /**
+   * Estimate the retained heap size of the model filled from the counted inputs. Unlike the
+   * running estimates of a growing model there are no unused slots to account for.
+   *
+   * @return Estimated bytes.
+   */
+  public long getEstimatedBytes() {
+    long followerBytes = userCount * (long) (Footprint.HASH_ENTRY_BYTES + Footprint.HASH_SET_BYTES + Footprint.STRING_BYTES
+        + Footprint.REFERENCE_BYTES) + nameBytes
+        + followerCount * (long) (Footprint.HASH_ENTRY_BYTES + Footprint.HASH_SET_BYTES)
+        + 2 * edgeCount * Footprint.HASH_ENTRY_BYTES;
+    long tweetBytes = tweetCount * (Footprint.STRING_BYTES + Footprint.REFERENCE_BYTES + Integer.BYTES) + tweetTextBytes
+        + authorCount * (long) (Footprint.HASH_ENTRY_BYTES + 24 + 2 * Footprint.ARRAY_BYTES);
+    long runBytes = runCount * (24 + Footprint.REFERENCE_BYTES)
+        // Before countRuns every follower is assumed to receive runs
+        + (runsCounted ? runHolderCount : followerCount) * (long) (Footprint.HASH_ENTRY_BYTES + 16 + 24 + Footprint.ARRAY_BYTES);
+    return followerBytes + tweetBytes + runBytes;
+  }
+
+  /**
+   * Estimate the retained heap size of the counts themselves, held alongside the model until
+   * the tweets are filled.
+   *
+   * @return Estimated bytes.
+   */
+  public long getRetainedBytes() {
+    return degrees.size() * (long) DEGREE_BYTES + countedNameBytes;
+  }
+
+  @Override
+  public String toString() {
+    return "InputDegrees{users=" + userCount + ", followers=" + followerCount + ", follows=" + edgeCount
+        + ", authors=" + authorCount + ", tweets=" + tweetCount + ", runs=" + runCount + ", estimatedBytes=" + getEstimatedBytes()
+        + ", retainedBytes=" + getRetainedBytes() + "}";
+  }
+
+  private Degree degree(String name) {
+    Degree degree = degrees.get(name);
+    if (degree == null) {
+      degree = new Degree();
+      degrees.put(name, degree);
+      countedNameBytes += name.length();
+    }
+    return degree;
+  }
+
+  private static final class Degree {
+
+    private int followers;
+    private int followees;
+    private int tweets;
+    private int runs;
+  }
+}
@@ -1,24 +1,173 @@
 package org.example.model;
 
+import org.example.utility.PersistentHashMap;
+import org.example.utility.PersistentHashSet;
+import org.example.utility.StringRadixSort;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
-import java.util.TreeMap;
 
 /**
  * POJO class for storing Twitter users and their list of followers
  * as per the user input file.
+ * <p>
+ * The graph is bidirectional: next to the followers of every user, the users every
+ * follower follows (followees) are kept so that both directions can be looked up and
+ * edges removed without scanning the whole graph.
  */
 public class TwitterFollowers {
 
   /*
    Map Twitter user to unique set of Twitter followers
-   TreeMap impl to ensure natural ordering of user key.
+   HashMap impl for constant time inserts and lookups while parsing; the
+   natural ordering of the user keys is produced once when the users are
+   iterated (see getUsers).
 
    Structure contains Twitter user as key and set of unique
    followers.
    */
-  private final Map<String, Set<String>> followers = new TreeMap<>();
+  private final Map<String, Set<String>> followers;
+
+  /*
+   Reverse index; map Twitter follower to unique set of Twitter users
+   they follow.
+   */
+  private final Map<String, Set<String>> followees;
+
+  // Running totals for the footprint estimate
+  private long edgeCount;
+  private long nameBytes;
+
+  // Users in natural order; sorted on first iteration and dropped when a user is added
+  private volatile String[] sortedUsers;
+
+  // Counts of a pre-pass over the inputs to size the maps and sets with; null if unknown or released
+  private InputDegrees inputDegrees;
+
+  /**
+   * Constructor for an empty, modifiable instance.
+   */
+  public TwitterFollowers() {
+    this(null);
+  }
+
+  /**
+   * Constructor for an empty, modifiable instance that is filled from the inputs the degrees
+   * were counted on; maps and follower sets are created at their final size.
+   *
+   * @param inputDegrees Counts of a pre-pass over the inputs; null to grow on demand.
+   */
+  public TwitterFollowers(InputDegrees inputDegrees) {
+    this(inputDegrees == null ? new HashMap<>() : new HashMap<>(InputDegrees.hashCapacity(inputDegrees.getUserCount())),
+        inputDegrees == null ? new HashMap<>() : new HashMap<>(InputDegrees.hashCapacity(inputDegrees.getFollowerCount())),
+        0, 0, inputDegrees);
+  }
+
+  private TwitterFollowers(Map<String, Set<String>> followers, Map<String, Set<String>> followees, long edgeCount, long nameBytes,
+                           InputDegrees inputDegrees) {
+    this.followers = followers;
+    this.followees = followees;
+    this.edgeCount = edgeCount;
+    this.nameBytes = nameBytes;
+    this.inputDegrees = inputDegrees;
+  }
+
+  /**
+   * Create a modifiable deep copy of this instance.
+   *
+   * @return Copy of the users and their followers.
+   */
+  public TwitterFollowers copy() {
+    TwitterFollowers copy = new TwitterFollowers();
+    copy.merge(this);
+    return copy;
+  }
+
+  /**
+   * Create an immutable deep copy of this instance that can be shared between threads
+   * as a snapshot of the follower graph; modifying it throws UnsupportedOperationException.
+   *
+   * @return Immutable copy of the users and their followers.
+   */
+  public TwitterFollowers toImmutable() {
+    Map<String, Set<String>> followersSnapshot = new HashMap<>(InputDegrees.hashCapacity(followers.size()));
+    followers.forEach((user, userFollowers) -> followersSnapshot.put(user, PersistentHashSet.copyOf(userFollowers)));
+    Map<String, Set<String>> followeesSnapshot = new HashMap<>(InputDegrees.hashCapacity(followees.size()));
+    followees.forEach((follower, users) -> followeesSnapshot.put(follower, PersistentHashSet.copyOf(users)));
+    TwitterFollowers snapshot = new TwitterFollowers(PersistentHashMap.copyOf(followersSnapshot), PersistentHashMap.copyOf(followeesSnapshot),
+        edgeCount, nameBytes, null);
+    // Sort up front so that readers sharing the snapshot never sort concurrently
+    snapshot.sortedUsers = sortedUsers();
+    return snapshot;
+  }
+
+  /**
+   * Create an immutable snapshot with an edge added. The snapshot shares structure with this
+   * one: the maps and follower sets of a snapshot are persistent, so only the trie paths to
+   * the two changed sets are copied (O(log n) per edge). Adding a user that isn't part of the
+   * graph yet also copies the sorted user array. A modifiable instance is converted with
+   * {@link #toImmutable()} first.
+   *
+   * @param user     The Twitter user being followed.
+   * @param follower The Twitter follower.
+   * @return Immutable snapshot including the edge; this snapshot if it already holds the edge.
+   */
+  public TwitterFollowers withFollower(String user, String follower) {
+    return withEdge(user, follower, true);
+  }
+
+  /**
+   * Create an immutable snapshot with an edge removed; see {@link #withFollower(String, String)}.
+   * The user stays part of the graph even if it has no followers left.
+   *
+   * @param user     The Twitter user being followed.
+   * @param follower The Twitter follower.
+   * @return Immutable snapshot excluding the edge; this snapshot if the user or the edge doesn't exist.
+   */
+  public TwitterFollowers withoutFollower(String user, String follower) {
+    return withEdge(user, follower, false);
+  }
+
+  private TwitterFollowers withEdge(String user, String follower, boolean add) {
+    if (!(followers instanceof PersistentHashMap)) {
+      return toImmutable().withEdge(user, follower, add);
+    }
+    PersistentHashMap<String, Set<String>> followersSnapshot = (PersistentHashMap<String, Set<String>>) followers;
+    PersistentHashMap<String, Set<String>> followeesSnapshot = (PersistentHashMap<String, Set<String>>) followees;
+
+    PersistentHashSet<String> userFollowers = (PersistentHashSet<String>) followers.get(user);
+    if ((userFollowers != null && userFollowers.contains(follower)) == add) {
+      // Nothing to add or remove; also keeps a removal from adding a missing user
+      return this;
+    }
+    PersistentHashSet<String> followerUsers = (PersistentHashSet<String>) followees.get(follower);
+    boolean newUser = userFollowers == null;
+    if (newUser) {
+      userFollowers = PersistentHashSet.empty();
+    }
+    if (followerUsers == null) {
+      followerUsers = PersistentHashSet.empty();
+    }
+
+    if (add) {
+      followersSnapshot = followersSnapshot.plus(user, userFollowers.plus(follower));
+      followeesSnapshot = followeesSnapshot.plus(follower, followerUsers.plus(user));
+    } else {
+      followersSnapshot = followersSnapshot.plus(user, userFollowers.minus(follower));
+      followerUsers = followerUsers.minus(user);
+      followeesSnapshot = followerUsers.isEmpty() ? followeesSnapshot.minus(follower) : followeesSnapshot.plus(follower, followerUsers);
+    }
+
+    TwitterFollowers snapshot = new TwitterFollowers(followersSnapshot, followeesSnapshot, edgeCount + (add ? 1 : -1),
+        nameBytes + (newUser ? user.length() : 0), null);
+    snapshot.sortedUsers = newUser ? insertSorted(sortedUsers(), user) : sortedUsers();
+    return snapshot;
+  }
 
   /**
    * Add/Link a follower to a Twitter user.
@@ -27,8 +176,92 @@ public class TwitterFollowers {
    * @param follower The Twitter follower (also a user Twitter user).
    */
   public void addFollower(String user, String follower) {
-    Set<String> userFollowers = followers.computeIfAbsent(user, k -> new HashSet<>());
-    userFollowers.add(follower);
+    Set<String> userFollowers = followers.get(user);
+    if (userFollowers == null) {
+      userFollowers = newSet(inputDegrees == null ? 0 : inputDegrees.getFollowerDegree(user));
+      followers.put(user, userFollowers);
+      nameBytes += user.length();
+      sortedUsers = null;
+    }
+
+    if (userFollowers.add(follower)) {
+      followees.computeIfAbsent(follower, k -> newSet(inputDegrees == null ? 0 : inputDegrees.getFolloweeDegree(follower))).add(user);
+      edgeCount++;
+    }
+  }
+
+  /**
+   * Create a set for the expected number of elements, or of the default size if unknown.
+   */
+  private static Set<String> newSet(int expectedSize) {
+    return expectedSize == 0 ? new HashSet<>() : new HashSet<>(InputDegrees.hashCapacity(expectedSize));
+  }
+
+  /**
+   * Remove/Unlink a follower from a Twitter user. The user stays part of the graph
+   * even if it has no followers left.
+   *
+   * @param user     The Twitter user being followed.
+   * @param follower The Twitter follower.
+   * @return true if the follower was linked to the user, otherwise false.
+   */
+  public boolean removeFollower(String user, String follower) {
+    Set<String> userFollowers = followers.get(user);
+    if (userFollowers == null || !userFollowers.remove(follower)) {
+      return false;
+    }
+    edgeCount--;
+
+    Set<String> followerUsers = followees.get(follower);
+    if (followerUsers != null) {
+      followerUsers.remove(user);
+      if (followerUsers.isEmpty()) {
+        followees.remove(follower);
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Merge the users and followers of another instance into this one; followers of
+   * users present in both are unioned.
+   *
+   * @param other The TwitterFollowers to merge in (e.g. parsed from another input shard).
+   */
+  public void merge(TwitterFollowers other) {
+    other.followers.forEach((user, userFollowers) -> {
+      if (userFollowers.isEmpty() && !followers.containsKey(user)) {
+        followers.put(user, new HashSet<>());
+        nameBytes += user.length();
+        sortedUsers = null;
+      }
+      for (String follower : userFollowers) {
+        addFollower(user, follower);
+      }
+    });
+  }
+
+  /**
+   * Estimate the retained heap size of the graph; cheap enough to call after every record.
+   *
+   * @return Estimated bytes.
+   */
+  public long getEstimatedBytes() {
+    long users = followers.size();
+    // Map entry, follower set, name and slot in the sorted user array per user
+    return users * (Footprint.HASH_ENTRY_BYTES + Footprint.HASH_SET_BYTES + Footprint.STRING_BYTES + Footprint.REFERENCE_BYTES) + nameBytes
+        + followees.size() * (Footprint.HASH_ENTRY_BYTES + Footprint.HASH_SET_BYTES)
+        // Every edge is held in both directions
+        + 2 * edgeCount * Footprint.HASH_ENTRY_BYTES;
+  }
+
+  /**
+   * Get the footprint of the graph: users (entries), follows (edges) and bytes of user names.
+   *
+   * @return Footprint estimate.
+   */
+  public Footprint getFootprint() {
+    return new Footprint(followers.size(), edgeCount, 0, nameBytes, getEstimatedBytes());
   }
 
   /**
@@ -42,6 +275,34 @@ public class TwitterFollowers {
     return followers.getOrDefault(user, null);
   }
 
+  /**
+   * Get list of Twitter users a given Twitter follower follows.
+   *
+   * @param follower The Twitter follower for lookup.
+   * @return Unique set of Twitter users followed.
+   * null is returned if the Twitter follower follows no one.
+   */
+  public Set<String> getFollowees(String follower) {
+    return followees.getOrDefault(follower, null);
+  }
+
+  /**
+   * Get the degree counts the instance was sized with
+   *
+   * @return Counts of a pre-pass over the inputs, or null if the instance grows on demand or they were released.
+   */
+  public InputDegrees getInputDegrees() {
+    return inputDegrees;
+  }
+
+  /**
+   * Drop the degree counts, e.g. once the tweets are created from them; users added later
+   * (authors without followers) get sets of the default size.
+   */
+  public void releaseInputDegrees() {
+    inputDegrees = null;
+  }
+
   /**
    * Does the user have any followers assign
    *
@@ -53,11 +314,52 @@ public class TwitterFollowers {
   }
 
   /**
-   * Get unique set of Twitter users.
+   * Get unique set of Twitter users. The set iterates in natural (alphabetical) order; the
+   * users are sorted once on the first iteration after users were added.
    *
-   * @return Set of Twitter users.
+   * @return Read-only set of Twitter users.
    */
   public Set<String> getUsers() {
-    return followers.keySet();
+    return new AbstractSet<>() {
+      @Override
+      public Iterator<String> iterator() {
+        return Arrays.asList(sortedUsers()).iterator();
+      }
+
+      @Override
+      public int size() {
+        return followers.size();
+      }
+
+      @Override
+      public boolean contains(Object user) {
+        return followers.containsKey(user);
+      }
+    };
+  }
+
+  /**
+   * Copy a sorted array of users with one user inserted in order.
+   */
+  private static String[] insertSorted(String[] users, String user) {
+    int index = -Arrays.binarySearch(users, user) - 1;
+    String[] inserted = new String[users.length + 1];
+    System.arraycopy(users, 0, inserted, 0, index);
+    inserted[index] = user;
+    System.arraycopy(users, index, inserted, index + 1, users.length - index);
+    return inserted;
+  }
+
+  /**
+   * Get the users in natural order, sorting them with a radix sort if the order isn't known yet.
+   */
+  private String[] sortedUsers() {
+    String[] users = sortedUsers;
+    if (users == null) {
+      users = followers.keySet().toArray(new String[0]);
+      StringRadixSort.sort(users);
+      sortedUsers = users;
+    }
+    return users;
   }
 }
@@ -1,19 +1,89 @@
 package org.example.model;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
 
 /**
  * POJO class for the Twitter tweets linked to the Twitter follower(s) that view
  * it in their feed.
+ * <p>
+ * Tweets are stored once per author (in posting order with a global sequence number).
+ * Fan-out happens per author rather than per tweet: each (follower, author) pair gets a
+ * single run that points to the author's range of tweets. A follower's feed is the merge
+ * of their runs by sequence number.
+ * <p>
+ * Storage is append-only and published through volatile sizes, so a single writer can add
+ * tweets while other threads read feeds without locking. The only removal, dropping a run on
+ * unfollow, publishes a copy of the follower's runs.
  */
 public class TwitterTweets {
 
-  private static final String TWEET_FORMAT = "@%s: %s";
-  private final Map<String, List<String>> tweets = new HashMap<>();
+  private static final String TWEET_PREFIX = "@";
+  private static final String TWEET_SEPARATOR = ": ";
+
+  /**
+   * Callback for every tweet, see {@link #forEachTweet(TweetVisitor)}.
+   */
+  @FunctionalInterface
+  public interface TweetVisitor {
+    void visit(String tweetOwner, String tweet);
+  }
+
+  // Author mapped to the tweets they posted
+  private final Map<String, AuthorTweets> authorTweets;
+  // Follower mapped to their runs (one per author followed)
+  private final Map<String, FollowerRuns> runs;
+  private final Predicate<String> recipientFilter;
+  // Counts of a pre-pass over the inputs to size the maps and arrays with; null if unknown or released
+  private InputDegrees inputDegrees;
+  // Created from counts, i.e. the arrays have no unused slots
+  private final boolean presized;
+  private int nextSequence;
+  // Running totals for the footprint estimate (maintained by the single writer)
+  private long tweetCount;
+  private long textBytes;
+  private long runCount;
+
+  /**
+   * Constructor for tweets fanned out to all followers.
+   */
+  public TwitterTweets() {
+    this(follower -> true);
+  }
+
+  /**
+   * Constructor for tweets fanned out only to the followers accepted by the filter,
+   * e.g. the recipients owned by a partition worker.
+   *
+   * @param recipientFilter Filter on the followers that should receive tweets.
+   */
+  public TwitterTweets(Predicate<String> recipientFilter) {
+    this(recipientFilter, null);
+  }
+
+  /**
+   * Constructor as above for tweets parsed from the inputs the degrees were counted on; the
+   * maps, the tweet arrays of every author and the run arrays of every follower are created
+   * at their final size. The runs must have been counted (see {@link InputDegrees#countRuns})
+   * with the same filter.
+   *
+   * @param recipientFilter Filter on the followers that should receive tweets.
+   * @param inputDegrees    Counts of a pre-pass over the inputs; null to grow on demand.
+   */
+  public TwitterTweets(Predicate<String> recipientFilter, InputDegrees inputDegrees) {
+    this.recipientFilter = recipientFilter;
+    this.inputDegrees = inputDegrees;
+    this.presized = inputDegrees != null;
+    // ConcurrentHashMap sizes its table for the given number of elements itself
+    this.authorTweets = inputDegrees == null ? new ConcurrentHashMap<>() : new ConcurrentHashMap<>(inputDegrees.getAuthorCount());
+    this.runs = inputDegrees == null ? new ConcurrentHashMap<>() : new ConcurrentHashMap<>(inputDegrees.getRunHolderCount());
+  }
 
   /**
    * Add a Twitter tweet to a set of followers that are following the owner
-   * of posted tweet.
+   * of posted tweet. Followers are only linked on the first tweet of the owner,
+   * later tweets extend the run of tweets every follower already points to.
    *
    * @param followers  Set of followers that will consume the tweet.
    * @param tweetOwner The owner of the tweet
@@ -21,14 +91,100 @@ public class TwitterTweets {
    */
   public void addTweet(Set<String> followers, String tweetOwner, String tweet) {
     // Ensure if any followers that require to see this tweet
-    if (followers != null) {
-      // For each follower add the tweet in correct feed format
-      followers.forEach(follower -> {
-        // Add tweets to LinkedList impl to ensure correct order during feed printout
-        List<String> tweetList = tweets.computeIfAbsent(follower, v -> new LinkedList<>());
-        tweetList.add(String.format(TWEET_FORMAT, tweetOwner, tweet));
-      });
+    if (followers == null) {
+      return;
     }
+
+    AuthorTweets author = authorTweets.get(tweetOwner);
+    if (author == null) {
+      author = new AuthorTweets(inputDegrees == null ? 0 : inputDegrees.getTweetCount(tweetOwner));
+      authorTweets.put(tweetOwner, author);
+
+      // Fan out once per author; every follower gets a run covering all the author's tweets
+      addRuns(followers, tweetOwner, author);
+    }
+
+    // "@owner: tweet"; concatenated rather than String.format, which parses the format (regex) per call
+    String formatted = TWEET_PREFIX + tweetOwner + TWEET_SEPARATOR + tweet;
+    author.add(nextSequence++, formatted);
+    tweetCount++;
+    textBytes += formatted.length();
+  }
+
+  /**
+   * Drop the degree counts once the tweets of the counted input are added; tweets added
+   * later (e.g. live updates) grow the arrays on demand.
+   */
+  public void releaseInputDegrees() {
+    inputDegrees = null;
+  }
+
+  /**
+   * Append the tweets of another instance after the tweets held by this one, so that
+   * per follower the order is this instance's tweets followed by the other's.
+   *
+   * @param other The TwitterTweets to append (e.g. parsed from a later input shard).
+   */
+  public void merge(TwitterTweets other) {
+    int sequenceOffset = nextSequence;
+    Map<String, Integer> startOffsets = new HashMap<>();
+
+    // Append the other's tweets per author, shifting sequences after the tweets held here
+    other.authorTweets.forEach((tweetOwner, otherAuthor) -> {
+      AuthorTweets author = authorTweets.computeIfAbsent(tweetOwner, k -> new AuthorTweets(0));
+      startOffsets.put(tweetOwner, author.size());
+      for (int i = 0; i < otherAuthor.size(); i++) {
+        author.add(otherAuthor.sequences[i] + sequenceOffset, otherAuthor.tweets[i]);
+      }
+    });
+
+    // Runs already held for an author also cover the appended tweets; only add new runs
+    other.runs.forEach((follower, otherRuns) -> {
+      FollowerRuns followerRuns = runs.computeIfAbsent(follower, k -> new FollowerRuns(0));
+      RunArray otherRunArray = otherRuns.current;
+      for (int i = 0; i < otherRunArray.size; i++) {
+        Run otherRun = otherRunArray.runs[i];
+        if (!followerRuns.hasAuthor(otherRun.tweetOwner)) {
+          followerRuns.add(new Run(otherRun.tweetOwner, authorTweets.get(otherRun.tweetOwner),
+              startOffsets.get(otherRun.tweetOwner) + otherRun.start));
+          runCount++;
+        }
+      }
+    });
+
+    nextSequence += other.nextSequence;
+    tweetCount += other.tweetCount;
+    textBytes += other.textBytes;
+  }
+
+  /**
+   * Create a new instance sharing the tweets held by this one, but fanned out over a
+   * different follower graph (e.g. after the user input was reloaded). Every follower of
+   * an author sees all of the author's tweets, as if the tweets were parsed against the
+   * new graph.
+   *
+   * @param twitterFollowers The follower graph to fan out over.
+   * @return TwitterTweets POJO object fanned out over the given followers.
+   */
+  public TwitterTweets withFollowers(TwitterFollowers twitterFollowers) {
+    TwitterTweets twitterTweets = new TwitterTweets(recipientFilter);
+    twitterTweets.nextSequence = nextSequence;
+    twitterTweets.tweetCount = tweetCount;
+    twitterTweets.textBytes = textBytes;
+    authorTweets.forEach((tweetOwner, author) -> {
+      twitterTweets.authorTweets.put(tweetOwner, author);
+      twitterTweets.addRuns(twitterFollowers.getFollowers(tweetOwner), tweetOwner, author);
+    });
+    return twitterTweets;
+  }
+
+  /**
+   * Get unique set of Twitter users that posted tweets.
+   *
+   * @return Set of tweet owners.
+   */
+  public Set<String> getAuthors() {
+    return Collections.unmodifiableSet(authorTweets.keySet());
   }
 
   /**
@@ -38,6 +194,423 @@ public class TwitterTweets {
    * @return List of tweets that the Twitter follower should see on their feed
    */
   public List<String> getTweets(String follower) {
-    return tweets.getOrDefault(follower, new LinkedList<>());
+    return getTweets(follower, 0, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Get a page of the tweets for passed Twitter follower. Each run is first positioned at
+   * the start of the page (a binary search over the sequences of the runs), then only the
+   * page is merged, so a page costs in proportion to its limit, not its offset or the feed size.
+   *
+   * @param follower Twitter follower
+   * @param offset   Index of the first feed entry to return.
+   * @param limit    Maximum number of feed entries to return.
+   * @return List of tweets of the page; empty if offset is past the end of the feed.
+   */
+  public List<String> getTweets(String follower, int offset, int limit) {
+    FollowerRuns followerRuns = runs.get(follower);
+    if (followerRuns == null) {
+      return new ArrayList<>();
+    }
+
+    // Read the published runs and sizes once so the feed is a consistent prefix of each run
+    RunArray runArray = followerRuns.current;
+    int followerRunCount = runArray.size;
+    Run[] followerRunArray = runArray.runs;
+    if (followerRunCount == 0) {
+      return new ArrayList<>();
+    }
+    long pageEnd = (long) offset + limit;
+    if (followerRunCount == 1) {
+      // Single author needs no merge, the run is already in posting order
+      Run run = followerRunArray[0];
+      int end = (int) Math.min(run.author.size(), run.start + pageEnd);
+      int start = (int) Math.min(end, (long) run.start + offset);
+      return new ArrayList<>(Arrays.asList(run.author.tweets).subList(start, end));
+    }
+
+    // Merge the runs of all authors by global sequence to restore posting order
+    List<String> feed = new ArrayList<>();
+    List<RunCursor> runCursors = new ArrayList<>(followerRunCount);
+    for (int i = 0; i < followerRunCount; i++) {
+      RunCursor cursor = new RunCursor(followerRunArray[i]);
+      if (cursor.hasNext()) {
+        runCursors.add(cursor);
+      }
+    }
+    if (offset > 0) {
+      seek(runCursors, offset);
+    }
+    PriorityQueue<RunCursor> cursors = new PriorityQueue<>(Comparator.comparingInt(RunCursor::sequence));
+    for (RunCursor cursor : runCursors) {
+      if (cursor.hasNext()) {
+        cursors.add(cursor);
+      }
+    }
+
+    for (int index = 0; index < limit && !cursors.isEmpty(); index++) {
+      RunCursor cursor = cursors.poll();
+      feed.add(cursor.tweet());
+      cursor.advance();
+      if (cursor.hasNext()) {
+        cursors.add(cursor);
+      }
+    }
+
+    return feed;
+  }
+
+  /**
+   * Position the cursors at the feed entry with the given index: find the lowest sequence
+   * number with that many entries of the runs before it, by binary search over the
+   * sequence numbers, counting the entries before a candidate with a binary search per run.
+   * Sequence numbers are unique, so the count grows by at most one per sequence number.
+   *
+   * @param cursors The cursors of the runs, at the start of their runs.
+   * @param index   Index of the feed entry to position at.
+   */
+  private static void seek(List<RunCursor> cursors, long index) {
+    long low = 0;
+    long high = 0;
+    for (RunCursor cursor : cursors) {
+      high = Math.max(high, cursor.lastSequence() + 1L);
+    }
+
+    // Lowest sequence number with at least index entries before it; high if the feed is shorter
+    while (low < high) {
+      long middle = (low + high) >>> 1;
+      long before = 0;
+      for (RunCursor cursor : cursors) {
+        before += cursor.countBefore((int) middle);
+      }
+      if (before >= index) {
+        high = middle;
+      } else {
+        low = middle + 1;
+      }
+    }
+
+    for (RunCursor cursor : cursors) {
+      cursor.seek(low);
+    }
+  }
+
+  /**
+   * Get the number of tweets for passed Twitter follower, without merging the runs.
+   *
+   * @param follower Twitter follower
+   * @return Number of tweets on the follower's feed.
+   */
+  public int getTweetCount(String follower) {
+    FollowerRuns followerRuns = runs.get(follower);
+    if (followerRuns == null) {
+      return 0;
+    }
+
+    RunArray runArray = followerRuns.current;
+    int count = 0;
+    for (int i = 0; i < runArray.size; i++) {
+      Run run = runArray.runs[i];
+      count += Math.max(0, run.author.size() - run.start);
+    }
+    return count;
+  }
+
+  /**
+   * Visit every tweet in posting order (global sequence), regardless of its followers;
+   * e.g. to copy the tweets into another storage layout.
+   *
+   * @param visitor Receives the owner and the tweet in "@user: tweet" format.
+   */
+  public void forEachTweet(TweetVisitor visitor) {
+    PriorityQueue<RunCursor> cursors = new PriorityQueue<>(Comparator.comparingInt(RunCursor::sequence));
+    authorTweets.forEach((tweetOwner, author) -> {
+      RunCursor cursor = new RunCursor(new Run(tweetOwner, author, 0));
+      if (cursor.hasNext()) {
+        cursors.add(cursor);
+      }
+    });
+
+    while (!cursors.isEmpty()) {
+      RunCursor cursor = cursors.poll();
+      visitor.visit(cursor.tweetOwner, cursor.tweet());
+      cursor.advance();
+      if (cursor.hasNext()) {
+        cursors.add(cursor);
+      }
+    }
+  }
+
+  /**
+   * Link a follower to all tweets of an author, e.g. after the follower started following
+   * the author. Only the follower's runs change; nothing is fanned out again.
+   *
+   * @param follower   Twitter follower
+   * @param tweetOwner The author followed
+   * @return true if a run was added, false if the author has no tweets, the follower is
+   * filtered out or already sees the author.
+   */
+  public boolean addRun(String follower, String tweetOwner) {
+    AuthorTweets author = authorTweets.get(tweetOwner);
+    if (author == null || !recipientFilter.test(follower)) {
+      return false;
+    }
+
+    FollowerRuns followerRuns = runs.computeIfAbsent(follower, k -> new FollowerRuns(0));
+    if (followerRuns.hasAuthor(tweetOwner)) {
+      return false;
+    }
+    followerRuns.add(new Run(tweetOwner, author, 0));
+    runCount++;
+    return true;
+  }
+
+  /**
+   * Unlink a follower from the tweets of an author, e.g. after an unfollow. The author's
+   * tweets are dropped from the follower's feed by removing a single run; the feeds of
+   * other followers and the fan-out of other authors are untouched.
+   *
+   * @param follower   Twitter follower
+   * @param tweetOwner The author unfollowed
+   * @return true if the follower saw tweets of the author, otherwise false.
+   */
+  public boolean removeRun(String follower, String tweetOwner) {
+    FollowerRuns followerRuns = runs.get(follower);
+    if (followerRuns == null || !followerRuns.remove(tweetOwner)) {
+      return false;
+    }
+    runCount--;
+    return true;
+  }
+
+  /**
+   * Estimate the retained heap size of the tweets and their fan-out; cheap enough to call
+   * after every record.
+   *
+   * @return Estimated bytes.
+   */
+  public long getEstimatedBytes() {
+    // Arrays grow by doubling, so on average a third of the slots are unused; pre-sized arrays have none
+    long tweetSlotBytes = presized ? Footprint.REFERENCE_BYTES + Integer.BYTES : (Footprint.REFERENCE_BYTES + Integer.BYTES) * 3 / 2;
+    long runBytes = 24 + (presized ? Footprint.REFERENCE_BYTES : Footprint.REFERENCE_BYTES * 3 / 2);
+    // Map entry, FollowerRuns, RunArray and the run array header
+    long holderBytes = Footprint.HASH_ENTRY_BYTES + 16 + 24 + Footprint.ARRAY_BYTES;
+    return tweetCount * (Footprint.STRING_BYTES + tweetSlotBytes) + textBytes
+        + authorTweets.size() * (Footprint.HASH_ENTRY_BYTES + 24 + 2 * Footprint.ARRAY_BYTES)
+        + runCount * runBytes
+        + runs.size() * holderBytes;
+  }
+
+  /**
+   * Get the footprint of the tweets: tweets (entries), fan-out runs (edges), the feed
+   * entries those runs serve and bytes of tweet text. Counting the feed entries walks
+   * all runs.
+   *
+   * @return Footprint estimate.
+   */
+  public Footprint getFootprint() {
+    long feedEntries = 0;
+    for (FollowerRuns followerRuns : runs.values()) {
+      RunArray runArray = followerRuns.current;
+      for (int i = 0; i < runArray.size; i++) {
+        Run run = runArray.runs[i];
+        feedEntries += Math.max(0, run.author.size() - run.start);
+      }
+    }
+    return new Footprint(tweetCount, runCount, feedEntries, textBytes, getEstimatedBytes());
+  }
+
+  private void addRuns(Set<String> followers, String tweetOwner, AuthorTweets author) {
+    if (followers == null) {
+      return;
+    }
+
+    for (String follower : followers) {
+      if (recipientFilter.test(follower)) {
+        runs.computeIfAbsent(follower, k -> new FollowerRuns(inputDegrees == null ? 0 : inputDegrees.getRunCount(follower)))
+            .add(new Run(tweetOwner, author, 0));
+        runCount++;
+      }
+    }
+  }
+
+  /**
+   * Tweets of a single author in posting order with their global sequence numbers.
+   * Append-only; elements are written before the volatile size is published.
+   */
+  private static final class AuthorTweets {
+
+    private static final int DEFAULT_CAPACITY = 4;
+
+    private String[] tweets;
+    private int[] sequences;
+    private volatile int size;
+
+    /**
+     * @param capacity Expected number of tweets; 0 if unknown.
+     */
+    AuthorTweets(int capacity) {
+      int initialCapacity = capacity > 0 ? capacity : DEFAULT_CAPACITY;
+      tweets = new String[initialCapacity];
+      sequences = new int[initialCapacity];
+    }
+
+    void add(int sequence, String tweet) {
+      int index = size;
+      if (index == tweets.length) {
+        tweets = Arrays.copyOf(tweets, index * 2);
+        sequences = Arrays.copyOf(sequences, index * 2);
+      }
+      sequences[index] = sequence;
+      tweets[index] = tweet;
+      size = index + 1;
+    }
+
+    int size() {
+      return size;
+    }
+  }
+
+  /**
+   * Runs of a single follower. Readers take the published RunArray once; appends write
+   * past the published size before publishing a new holder, removals publish a copy.
+   */
+  private static final class FollowerRuns {
+
+    private static final int DEFAULT_CAPACITY = 2;
+
+    private volatile RunArray current;
+
+    /**
+     * @param capacity Expected number of runs; 0 if unknown.
+     */
+    FollowerRuns(int capacity) {
+      current = new RunArray(new Run[capacity > 0 ? capacity : DEFAULT_CAPACITY], 0);
+    }
+
+    void add(Run run) {
+      Run[] runArray = current.runs;
+      int index = current.size;
+      if (index == runArray.length) {
+        runArray = Arrays.copyOf(runArray, index * 2);
+      }
+      runArray[index] = run;
+      current = new RunArray(runArray, index + 1);
+    }
+
+    boolean remove(String tweetOwner) {
+      RunArray runArray = current;
+      for (int i = 0; i < runArray.size; i++) {
+        if (runArray.runs[i].tweetOwner.equals(tweetOwner)) {
+          // Copy so that readers holding the previous array are unaffected
+          Run[] remaining = new Run[Math.max(DEFAULT_CAPACITY, runArray.runs.length)];
+          System.arraycopy(runArray.runs, 0, remaining, 0, i);
+          System.arraycopy(runArray.runs, i + 1, remaining, i, runArray.size - i - 1);
+          current = new RunArray(remaining, runArray.size - 1);
+          return true;
+        }
+      }
+      return false;
+    }
+
+    boolean hasAuthor(String tweetOwner) {
+      RunArray runArray = current;
+      for (int i = 0; i < runArray.size; i++) {
+        if (runArray.runs[i].tweetOwner.equals(tweetOwner)) {
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+
+  /**
+   * Published view of the runs of a follower: the first size elements of the array.
+   */
+  private static final class RunArray {
+
+    private final Run[] runs;
+    private final int size;
+
+    RunArray(Run[] runs, int size) {
+      this.runs = runs;
+      this.size = size;
+    }
+  }
+
+  /**
+   * Range of an author's tweets seen by a follower; runs from start to the latest tweet.
+   */
+  private static final class Run {
+
+    private final String tweetOwner;
+    private final AuthorTweets author;
+    private final int start;
+
+    Run(String tweetOwner, AuthorTweets author, int start) {
+      this.tweetOwner = tweetOwner;
+      this.author = author;
+      this.start = start;
+    }
+  }
+
+  /**
+   * Position within a run while merging the runs of a follower; the end is fixed when
+   * the cursor is created.
+   */
+  private static final class RunCursor {
+
+    private final String tweetOwner;
+    private final int end;
+    private final String[] tweets;
+    private final int[] sequences;
+    private int position;
+
+    RunCursor(Run run) {
+      this.tweetOwner = run.tweetOwner;
+      this.end = run.author.size();
+      this.tweets = run.author.tweets;
+      this.sequences = run.author.sequences;
+      this.position = run.start;
+    }
+
+    boolean hasNext() {
+      return position < end;
+    }
+
+    int sequence() {
+      return sequences[position];
+    }
+
+    String tweet() {
+      return tweets[position];
+    }
+
+    void advance() {
+      position++;
+    }
+
+    int lastSequence() {
+      return sequences[end - 1];
+    }
+
+    /**
+     * @return Number of entries from the position with a sequence number below the given one.
+     */
+    int countBefore(int sequence) {
+      return lowerBound(sequence) - position;
+    }
+
+    /**
+     * Move to the first entry with a sequence number at or above the given one.
+     */
+    void seek(long sequence) {
+      position = sequence > Integer.MAX_VALUE ? end : lowerBound((int) sequence);
+    }
+
+    private int lowerBound(int sequence) {
+      int index = Arrays.binarySearch(sequences, position, end, sequence);
+      return index >= 0 ? index : -index - 1;
+    }
   }
 }
@@ -0,0 +1,304 @@
+package org.example.service;
+
+import lombok.extern.log4j.Log4j2;
+import org.apache.commons.lang3.StringUtils;
+import org.example.exception.DataException;
+import org.example.utility.Configuration;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Service for batch mode: many independent feeds (e.g. one per tenant) produced in a single
+ * JVM. The jobs of a manifest run concurrently on a bounded worker pool; each worker reuses
+ * its output buffer across jobs (and its parse block, see LineReader), feeds are streamed to
+ * their output file by the engine, and a failing job is reported without stopping the other jobs.
+ * <p>
+ * Manifest format, one job per line: user input, tweet input and output file separated by
+ * tabs. Relative paths are resolved against the directory of the manifest; blank lines and
+ * lines starting with # are skipped.
+ */
+@Log4j2
+public final class BatchFeedService {
+
+  private static final String DELIMITER = "\t";
+  private static final String COMMENT_PREFIX = "#";
+  private static final int OUTPUT_BUFFER_BYTES = 64 * 1024;
+
+  // Per worker output buffer, reused by every job the worker runs
+  private static final ThreadLocal<ByteBuffer> OUTPUT_BUFFERS = ThreadLocal.withInitial(() -> ByteBuffer.allocate(OUTPUT_BUFFER_BYTES));
+
+  private BatchFeedService() {
+    // Private constructor
+  }
+
+  /**
+   * Run all jobs of the configured manifest with the configured feed engine and number of workers.
+   *
+   * @return The result of every job, in manifest order.
+   * @throws IOException   Occurs when the manifest can't be read
+   * @throws DataException Occurs when a manifest line is malformed
+   */
+  public static List<BatchResult> produceTwitterFeeds() throws IOException, DataException {
+    List<BatchJob> jobs = readManifest(Path.of(Configuration.getBatchManifestPath()));
+    return runBatch(jobs, Configuration.getBatchWorkers(), FeedEngines.get(Configuration.getFeedEngine()));
+  }
+
+  /**
+   * Read the jobs of a batch manifest.
+   *
+   * @param manifest The manifest file.
+   * @return The jobs in manifest order.
+   * @throws IOException   Occurs when the manifest can't be read
+   * @throws DataException Occurs when a manifest line doesn't hold three paths
+   */
+  public static List<BatchJob> readManifest(Path manifest) throws IOException, DataException {
+    Path baseDirectory = manifest.toAbsolutePath().getParent();
+    List<BatchJob> jobs = new ArrayList<>();
+
+    int lineCounter = 0;
+    for (String line : Files.readAllLines(manifest, StandardCharsets.UTF_8)) {
+      lineCounter++;
+      if (StringUtils.isBlank(line) || line.startsWith(COMMENT_PREFIX)) {
+        continue;
+      }
+
+      String[] fields = line.split(DELIMITER);
+      if (fields.length != 3 || StringUtils.isAnyBlank(fields)) {
+        throw new DataException("Batch manifest record on line " + lineCounter + " does not hold user, tweet and output file.\nRecord: " + line);
+      }
+      jobs.add(new BatchJob(baseDirectory.resolve(fields[0].trim()), baseDirectory.resolve(fields[1].trim()),
+          baseDirectory.resolve(fields[2].trim())));
+    }
+
+    return jobs;
+  }
+
+  /**
+   * Run the jobs concurrently on a bounded pool of workers. Every job is isolated: a job that
+   * fails is reported in its result and leaves no output file; the output file of an earlier
+   * run is deleted. This includes errors such as an OutOfMemoryError of a job's feed, whose
+   * memory is released once the job unwinds.
+   *
+   * @param jobs       The jobs to run.
+   * @param workers    Maximum number of jobs running at the same time.
+   * @param feedEngine The engine producing each feed; must be safe for concurrent use.
+   * @return The result of every job, in job order.
+   * @throws IOException Occurs when interrupted while waiting for the jobs
+   */
+  public static List<BatchResult> runBatch(List<BatchJob> jobs, int workers, FeedEngine feedEngine) throws IOException {
+    if (jobs.isEmpty()) {
+      return new ArrayList<>();
+    }
+
+    long start = System.nanoTime();
+    ExecutorService executor = Executors.newFixedThreadPool(Math.min(workers, jobs.size()));
+    try {
+      List<Future<BatchResult>> futures = new ArrayList<>();
+      for (BatchJob job : jobs) {
+        futures.add(executor.submit(() -> runJob(job, feedEngine)));
+      }
+
+      List<BatchResult> results = new ArrayList<>();
+      for (Future<BatchResult> future : futures) {
+        results.add(future.get());
+      }
+
+      long failed = results.stream().filter(result -> !result.isSuccessful()).count();
+      log.info("Batch of " + jobs.size() + " jobs completed in " + (System.nanoTime() - start) / 1_000_000 + " ms; "
+          + failed + " failed");
+      return results;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while running batch", e);
+    } catch (ExecutionException e) {
+      // runJob catches every job failure, so this is a bug rather than bad input
+      throw new IllegalStateException("Batch job failed unexpectedly", e.getCause());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Run a single job, capturing its timing and any failure (errors included).
+   */
+  private static BatchResult runJob(BatchJob job, FeedEngine feedEngine) {
+    long start = System.nanoTime();
+    try {
+      long outputBytes = writeFeed(job, feedEngine);
+      BatchResult result = new BatchResult(job, System.nanoTime() - start, outputBytes, null);
+      log.info(result);
+      return result;
+    } catch (Throwable e) {
+      // The output of an earlier run would otherwise pass for the result of this one
+      try {
+        Files.deleteIfExists(job.outputFile.toAbsolutePath());
+      } catch (IOException deleteFailure) {
+        e.addSuppressed(deleteFailure);
+      }
+      BatchResult result = new BatchResult(job, System.nanoTime() - start, 0, e);
+      log.error(result);
+      return result;
+    }
+  }
+
+  /**
+   * Stream the feed of a job through the worker's reusable buffer into a temporary file,
+   * which replaces the output file once complete.
+   *
+   * @return Number of bytes written.
+   */
+  private static long writeFeed(BatchJob job, FeedEngine feedEngine) throws IOException, DataException {
+    Path absolute = job.outputFile.toAbsolutePath();
+    Path temporary = absolute.resolveSibling(absolute.getFileName() + ".tmp");
+
+    long written;
+    try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+        StandardOpenOption.TRUNCATE_EXISTING)) {
+      ChannelOutputStream out = new ChannelOutputStream(channel, OUTPUT_BUFFERS.get());
+      written = feedEngine.writeTwitterFeed(job.userFile.toString(), job.tweetFile.toString(), user -> true, out);
+      out.flush();
+    } catch (Throwable e) {
+      Files.deleteIfExists(temporary);
+      throw e;
+    }
+
+    Files.move(temporary, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    return written;
+  }
+
+  /**
+   * Output stream writing to a file channel through a worker's reusable buffer.
+   */
+  private static final class ChannelOutputStream extends OutputStream {
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+
+    ChannelOutputStream(FileChannel channel, ByteBuffer buffer) {
+      this.channel = channel;
+      this.buffer = buffer;
+      buffer.clear();
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      if (!buffer.hasRemaining()) {
+        flush();
+      }
+      buffer.put((byte) b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      while (len > 0) {
+        if (!buffer.hasRemaining()) {
+          flush();
+        }
+        int count = Math.min(len, buffer.remaining());
+        buffer.put(b, off, count);
+        off += count;
+        len -= count;
+      }
+    }
+
+    @Override
+    public void flush() throws IOException {
+      buffer.flip();
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+      buffer.clear();
+    }
+  }
+
+  /**
+   * A feed to produce: user input, tweet input and output file.
+   */
+  public static final class BatchJob {
+
+    private final Path userFile;
+    private final Path tweetFile;
+    private final Path outputFile;
+
+    public BatchJob(Path userFile, Path tweetFile, Path outputFile) {
+      this.userFile = userFile;
+      this.tweetFile = tweetFile;
+      this.outputFile = outputFile;
+    }
+
+    public Path getUserFile() {
+      return userFile;
+    }
+
+    public Path getTweetFile() {
+      return tweetFile;
+    }
+
+    public Path getOutputFile() {
+      return outputFile;
+    }
+  }
+
+  /**
+   * Outcome of a batch job: its timing and output size, or its failure.
+   */
+  public static final class BatchResult {
+
+    private final BatchJob job;
+    private final long elapsedNanos;
+    private final long outputBytes;
+    private final Throwable failure;
+
+    BatchResult(BatchJob job, long elapsedNanos, long outputBytes, Throwable failure) {
+      this.job = job;
+      this.elapsedNanos = elapsedNanos;
+      this.outputBytes = outputBytes;
+      this.failure = failure;
+    }
+
+    public BatchJob getJob() {
+      return job;
+    }
+
+    public long getElapsedNanos() {
+      return elapsedNanos;
+    }
+
+    public long getOutputBytes() {
+      return outputBytes;
+    }
+
+    /**
+     * Get the failure of the job
+     *
+     * @return The exception or error the job failed with, or null if it succeeded
+     */
+    public Throwable getFailure() {
+      return failure;
+    }
+
+    public boolean isSuccessful() {
+      return failure == null;
+    }
+
+    @Override
+    public String toString() {
+      String outcome = isSuccessful() ? "wrote " + outputBytes + " bytes" : "failed: " + failure.getMessage();
+      return "Batch job " + job.outputFile + " " + outcome + " in " + elapsedNanos / 1_000_000 + " ms";
+    }
+  }
+}
@@ -0,0 +1,148 @@
+package org.example.service;
+
+import org.example.exception.ConfigException;
+import org.example.exception.DataException;
+import org.example.mapper.RecordReader;
+import org.example.model.TwitterFollowers;
+import org.example.model.TwitterTweets;
+import org.example.utility.Configuration;
+import org.example.utility.LineReader;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Fast-start path for short runs on small inputs, where JVM startup costs more than the
+ * feed itself. Only JDK classes, the logging-free model classes and the record loop of the
+ * data mappers (RecordReader) are used: no log4j-core configuration, no commons-lang3 and no
+ * regex compilation. The feed is written straight to the output stream instead of through
+ * the logger.
+ * <p>
+ * Only the plain full feed of single input files is supported; runs using any other mode
+ * (batch, partitioned, delta, validation, another engine, a memory budget, checkpoints,
+ * pre-sizing, an output file or parse tracing) take the regular path.
+ * <p>
+ * Note: the Configuration property names referenced here are compile-time constants and
+ * are inlined, so they don't initialise the Configuration class (and its logger).
+ */
+public final class FastStartFeedService {
+
+  private FastStartFeedService() {
+    // Private constructor
+  }
+
+  /**
+   * Is the fast-start path requested and applicable to the configured run
+   *
+   * @return true if fast.start is set and no other run mode is configured, otherwise false.
+   */
+  public static boolean isApplicable() {
+    if (!Boolean.getBoolean(Configuration.PROPERTY_FAST_START)) {
+      return false;
+    }
+
+    String feedEngine = System.getProperty(Configuration.PROPERTY_FEED_ENGINE);
+    return isBlank(System.getProperty(Configuration.PROPERTY_BATCH_MANIFEST_PATH))
+        && isBlank(System.getProperty(Configuration.PROPERTY_PARTITION_WORKERS))
+        && isBlank(System.getProperty(Configuration.PROPERTY_PARTITION_INDEX))
+        && isBlank(System.getProperty(Configuration.PROPERTY_STATE_FILE_PATH))
+        && isBlank(System.getProperty(Configuration.PROPERTY_MEMORY_BUDGET_BYTES))
+        && isBlank(System.getProperty(Configuration.PROPERTY_CHECKPOINT_PATH))
+        && !Boolean.getBoolean(Configuration.PROPERTY_VALIDATE_ONLY)
+        && !Boolean.getBoolean(Configuration.PROPERTY_INGEST_PRESIZE)
+        && isBlank(System.getProperty(Configuration.PROPERTY_OUTPUT_FILE_PATH))
+        && isBlank(System.getProperty(Configuration.PROPERTY_TRACE_PARSE_SAMPLE))
+        && isBlank(System.getProperty(Configuration.PROPERTY_TRACE_PARSE_USERS))
+        && (isBlank(feedEngine) || ReferenceFeedEngine.NAME.equals(feedEngine.trim()))
+        && isRegularFile(System.getProperty(Configuration.PROPERTY_USER_FILE_PATH))
+        && isRegularFile(System.getProperty(Configuration.PROPERTY_TWEET_FILE_PATH));
+  }
+
+  /**
+   * Parse the configured input files and write the full feed in the documented format;
+   * the output is identical to the reference feed engine.
+   *
+   * @param out The stream to write the feed to; flushed, not closed.
+   * @throws ConfigException Occurs when the input file properties aren't set.
+   * @throws DataException   Occurs when a data record within input file is invalid such as pattern mismatch.
+   * @throws IOException     Occurs when reading the input files or writing the feed fails
+   */
+  public static void writeTwitterFeed(OutputStream out) throws ConfigException, DataException, IOException {
+    String userFilePath = getProperty(Configuration.PROPERTY_USER_FILE_PATH);
+    String tweetFilePath = getProperty(Configuration.PROPERTY_TWEET_FILE_PATH);
+
+    TwitterFollowers twitterFollowers = parseTwitterFollowers(userFilePath);
+    TwitterTweets twitterTweets = parseTwitterTweets(twitterFollowers, tweetFilePath);
+
+    // Input is 7-bit ASCII, so the feed is too
+    Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.US_ASCII));
+    for (String user : twitterFollowers.getUsers()) {
+      writer.write(user);
+      writer.write('\n');
+      List<String> userTweets = twitterTweets.getTweets(user);
+      if (userTweets != null) {
+        for (String tweet : userTweets) {
+          writer.write('\t');
+          writer.write(tweet);
+          writer.write('\n');
+        }
+      }
+    }
+    writer.flush();
+  }
+
+  /**
+   * Parse the user file as UserDataMapper does.
+   */
+  private static TwitterFollowers parseTwitterFollowers(String filePath) throws DataException, IOException {
+    TwitterFollowers twitterFollowers = new TwitterFollowers();
+    try (LineReader lines = RecordReader.openLines(filePath)) {
+      RecordReader.readUsers(lines, (lineNumber, record, follower, users) -> {
+        for (String user : users) {
+          twitterFollowers.addFollower(user, follower);
+        }
+        twitterFollowers.addFollower(follower, follower);
+      });
+    }
+    return twitterFollowers;
+  }
+
+  /**
+   * Parse the tweet file as TweetDataMapper does.
+   */
+  private static TwitterTweets parseTwitterTweets(TwitterFollowers twitterFollowers, String filePath) throws DataException, IOException {
+    TwitterTweets twitterTweets = new TwitterTweets();
+    try (LineReader lines = RecordReader.openLines(filePath)) {
+      RecordReader.readTweets(lines, (lineNumber, record, user, tweet) -> {
+        if (!twitterFollowers.hasFollowers(user)) {
+          twitterFollowers.addFollower(user, user);
+        }
+        twitterTweets.addTweet(twitterFollowers.getFollowers(user), user, tweet);
+      });
+    }
+    return twitterTweets;
+  }
+
+  private static String getProperty(String property) throws ConfigException {
+    String value = System.getProperty(property);
+    if (isBlank(value)) {
+      throw new ConfigException("Value not set for property - " + property);
+    }
+    return value;
+  }
+
+  private static boolean isRegularFile(String filePath) {
+    return !isBlank(filePath) && Files.isRegularFile(Path.of(filePath));
+  }
+
+  private static boolean isBlank(String value) {
+    return value == null || value.isBlank();
+  }
+}
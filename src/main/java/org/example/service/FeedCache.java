@@ -0,0 +1,162 @@
+package org.example.service;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Size-bounded LRU cache of rendered per-user feed blocks. The cache enforces a budget
+ * on the total number of bytes held and keeps hit/miss/eviction counters.
+ */
+public class FeedCache {
+
+  private final long byteBudget;
+
+  // Access ordered map so that iteration starts at the least recently used entry
+  private final LinkedHashMap<String, byte[]> entries = new LinkedHashMap<>(16, 0.75f, true);
+  private long usedBytes;
+  private long hits;
+  private long misses;
+  private long evictions;
+  // Bumped on every invalidation, so that blocks rendered before it can be rejected
+  private long generation;
+
+  /**
+   * @param byteBudget Maximum number of bytes of rendered feeds held by the cache; 0 disables caching.
+   */
+  public FeedCache(long byteBudget) {
+    if (byteBudget < 0) {
+      throw new IllegalArgumentException("Byte budget must not be negative");
+    }
+    this.byteBudget = byteBudget;
+  }
+
+  /**
+   * Get the rendered feed of a user.
+   *
+   * @param user The Twitter user.
+   * @return The rendered feed block, or null on a cache miss.
+   */
+  public synchronized byte[] get(String user) {
+    byte[] block = entries.get(user);
+    if (block == null) {
+      misses++;
+    } else {
+      hits++;
+    }
+    return block;
+  }
+
+  /**
+   * Add the rendered feed of a user; least recently used entries are evicted until the
+   * cache is within budget. Blocks larger than the whole budget are not cached.
+   *
+   * @param user  The Twitter user.
+   * @param block The rendered feed block.
+   */
+  public synchronized void put(String user, byte[] block) {
+    if (block.length > byteBudget) {
+      return;
+    }
+
+    byte[] previous = entries.put(user, block);
+    if (previous != null) {
+      usedBytes -= previous.length;
+    }
+    usedBytes += block.length;
+
+    Iterator<Map.Entry<String, byte[]>> iterator = entries.entrySet().iterator();
+    while (usedBytes > byteBudget && iterator.hasNext()) {
+      Map.Entry<String, byte[]> eldest = iterator.next();
+      usedBytes -= eldest.getValue().length;
+      iterator.remove();
+      evictions++;
+    }
+  }
+
+  /**
+   * Add the rendered feed of a user only if no invalidation happened since the given
+   * generation, i.e. the block wasn't rendered from data that has since changed.
+   *
+   * @param user       The Twitter user.
+   * @param block      The rendered feed block.
+   * @param generation The generation read before rendering the block.
+   * @return true if the block was offered to the cache, false if it was stale.
+   */
+  public synchronized boolean put(String user, byte[] block, long generation) {
+    if (generation != this.generation) {
+      return false;
+    }
+    put(user, block);
+    return true;
+  }
+
+  /**
+   * Get the current generation; read it before rendering a block to add with
+   * {@link #put(String, byte[], long)}.
+   *
+   * @return The invalidation generation.
+   */
+  public synchronized long getGeneration() {
+    return generation;
+  }
+
+  /**
+   * Remove the rendered feeds of the given users, e.g. the recipients of a new tweet.
+   *
+   * @param users The Twitter users whose feeds are stale; null is ignored.
+   */
+  public synchronized void invalidate(Collection<String> users) {
+    if (users == null) {
+      return;
+    }
+
+    generation++;
+    for (String user : users) {
+      byte[] removed = entries.remove(user);
+      if (removed != null) {
+        usedBytes -= removed.length;
+      }
+    }
+  }
+
+  /**
+   * Remove all rendered feeds.
+   */
+  public synchronized void invalidateAll() {
+    generation++;
+    entries.clear();
+    usedBytes = 0;
+  }
+
+  public synchronized long getHits() {
+    return hits;
+  }
+
+  public synchronized long getMisses() {
+    return misses;
+  }
+
+  public synchronized long getEvictions() {
+    return evictions;
+  }
+
+  public synchronized long getUsedBytes() {
+    return usedBytes;
+  }
+
+  public synchronized int getEntryCount() {
+    return entries.size();
+  }
+
+  public long getByteBudget() {
+    return byteBudget;
+  }
+
+  @Override
+  public synchronized String toString() {
+    return "FeedCache{entries=" + entries.size() + ", usedBytes=" + usedBytes + ", byteBudget=" + byteBudget
+        + ", hits=" + hits + ", misses=" + misses + ", evictions=" + evictions + "}";
+  }
+}
@@ -0,0 +1,59 @@
+package org.example.service;
+
+import org.example.exception.DataException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Predicate;
+
+/**
+ * Strategy for building the full Twitter feed from the user and tweet input. Engines
+ * may use different storage or fan-out approaches, but must produce byte-identical
+ * output to the {@link ReferenceFeedEngine}.
+ * <p>
+ * Engines other than the built-in ones are discovered through {@link java.util.ServiceLoader}
+ * and selected by name with the feed.engine property.
+ */
+public interface FeedEngine {
+
+  /**
+   * Get the name the engine is selected by.
+   *
+   * @return Unique engine name.
+   */
+  String getName();
+
+  /**
+   * Extract data from the input files and build the Twitter feed for the users accepted
+   * by the filter.
+   *
+   * @param userFilePath  Path to the user input (file, directory or glob).
+   * @param tweetFilePath Path to the tweet input (file, directory or glob).
+   * @param userFilter    Filter on the users to build the feed for.
+   * @return Twitter feed in correct format
+   * @throws DataException Occurs when a data record within input file is invalid such as pattern mismatch.
+   * @throws IOException   Occurs when reading the input file fails
+   */
+  String produceTwitterFeed(String userFilePath, String tweetFilePath, Predicate<String> userFilter) throws DataException, IOException;
+
+  /**
+   * Extract data from the input files and write the Twitter feed for the users accepted by
+   * the filter to a stream instead of returning it. Engines that can render a user at a
+   * time override this, so that the whole feed is never held in memory.
+   *
+   * @param userFilePath  Path to the user input (file, directory or glob).
+   * @param tweetFilePath Path to the tweet input (file, directory or glob).
+   * @param userFilter    Filter on the users to build the feed for.
+   * @param out           The stream to write the UTF-8 encoded feed to; not closed.
+   * @return Number of feed bytes written
+   * @throws DataException Occurs when a data record within input file is invalid such as pattern mismatch.
+   * @throws IOException   Occurs when reading the input file or writing the feed fails
+   */
+  default long writeTwitterFeed(String userFilePath, String tweetFilePath, Predicate<String> userFilter, OutputStream out)
+      throws DataException, IOException {
+    byte[] twitterFeed = produceTwitterFeed(userFilePath, tweetFilePath, userFilter).getBytes(StandardCharsets.UTF_8);
+    out.write(twitterFeed);
+    return twitterFeed.length;
+  }
+}
@@ -0,0 +1,304 @@
+package org.example.service;
+
+import lombok.extern.log4j.Log4j2;
+import org.example.exception.DataException;
+import org.example.mapper.RecordReader;
+import org.example.mapper.ShardedDataMapper;
+import org.example.utility.LineReader;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Differential harness for feed engines: runs two engines on the same (generated) input,
+ * checks that their output is byte-identical and reports their relative throughput and
+ * peak heap usage.
+ * <p>
+ * Usage: {@code java -cp <classpath> org.example.service.FeedEngineHarness <baseline> <candidate>
+ * [users] [followsPerUser] [tweets] [runs]}
+ */
+@Log4j2
+public final class FeedEngineHarness {
+
+  private static final int DEFAULT_USERS = 10_000;
+  private static final int DEFAULT_FOLLOWS_PER_USER = 20;
+  private static final int DEFAULT_TWEETS = 100_000;
+  private static final int DEFAULT_RUNS = 3;
+
+  private FeedEngineHarness() {
+    // Private constructor
+  }
+
+  public static void main(String[] args) {
+    if (args.length < 2) {
+      log.error("Usage: FeedEngineHarness <baseline> <candidate> [users] [followsPerUser] [tweets] [runs]");
+      System.exit(1);
+    }
+
+    try {
+      int users = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_USERS;
+      int followsPerUser = args.length > 3 ? Integer.parseInt(args[3]) : DEFAULT_FOLLOWS_PER_USER;
+      int tweets = args.length > 4 ? Integer.parseInt(args[4]) : DEFAULT_TWEETS;
+      int runs = args.length > 5 ? Integer.parseInt(args[5]) : DEFAULT_RUNS;
+
+      Path workDirectory = Files.createTempDirectory("twitter-feed-harness");
+      Path userFile = workDirectory.resolve("user.txt");
+      Path tweetFile = workDirectory.resolve("tweet.txt");
+      try {
+        generateInputs(userFile, tweetFile, users, followsPerUser, tweets, 42);
+        Result result = compare(FeedEngines.get(args[0]), FeedEngines.get(args[1]), userFile.toString(), tweetFile.toString(), runs);
+        log.info(result);
+        if (!result.isIdentical()) {
+          System.exit(1);
+        }
+      } finally {
+        Files.deleteIfExists(userFile);
+        Files.deleteIfExists(tweetFile);
+        Files.deleteIfExists(workDirectory);
+      }
+    } catch (Exception e) {
+      log.error("Failed to compare feed engines", e);
+      System.exit(1);
+    }
+  }
+
+  /**
+   * Generate a random (but reproducible) user and tweet input in the documented format.
+   *
+   * @param userFile       The user input file to write.
+   * @param tweetFile      The tweet input file to write.
+   * @param users          Number of users; at least 2.
+   * @param followsPerUser Number of users every user follows; at least 1 and less than users.
+   * @param tweets         Number of tweets.
+   * @param seed           Seed of the random generator.
+   * @throws IOException Occurs when the files can't be written.
+   */
+  public static void generateInputs(Path userFile, Path tweetFile, int users, int followsPerUser, int tweets, long seed)
+      throws IOException {
+    if (users < 2 || followsPerUser < 1 || followsPerUser >= users || tweets < 0) {
+      throw new IllegalArgumentException("Invalid input dimensions");
+    }
+
+    Random random = new Random(seed);
+    String[] names = new String[users];
+    for (int i = 0; i < users; i++) {
+      names[i] = userName(i);
+    }
+
+    try (BufferedWriter writer = Files.newBufferedWriter(userFile, StandardCharsets.UTF_8)) {
+      for (int i = 0; i < users; i++) {
+        Set<String> followed = new LinkedHashSet<>();
+        while (followed.size() < followsPerUser) {
+          int other = random.nextInt(users);
+          if (other != i) {
+            followed.add(names[other]);
+          }
+        }
+        writer.write(names[i] + " follows " + String.join(", ", followed));
+        writer.newLine();
+      }
+    }
+
+    try (BufferedWriter writer = Files.newBufferedWriter(tweetFile, StandardCharsets.UTF_8)) {
+      for (int i = 0; i < tweets; i++) {
+        writer.write(names[random.nextInt(users)] + "> Generated tweet number " + i + ".");
+        writer.newLine();
+      }
+    }
+  }
+
+  /**
+   * Run both engines on the same input, alternating between them after a warm-up round; the
+   * best time and the highest peak heap usage over the runs are reported.
+   *
+   * @param baseline      The engine to compare against (usually the reference engine).
+   * @param candidate     The engine under test.
+   * @param userFilePath  Path to the user input.
+   * @param tweetFilePath Path to the tweet input.
+   * @param runs          Number of runs per engine; at least 1.
+   * @return The comparison result.
+   * @throws DataException Occurs when a data record within input file is invalid.
+   * @throws IOException   Occurs when reading the input file fails
+   */
+  public static Result compare(FeedEngine baseline, FeedEngine candidate, String userFilePath, String tweetFilePath, int runs)
+      throws DataException, IOException {
+    if (runs < 1) {
+      throw new IllegalArgumentException("Number of runs must be at least 1");
+    }
+
+    // Warm-up round so that neither engine is measured while the JIT compiles the shared code
+    baseline.produceTwitterFeed(userFilePath, tweetFilePath, user -> true);
+    candidate.produceTwitterFeed(userFilePath, tweetFilePath, user -> true);
+
+    Measurement baselineMeasurement = new Measurement();
+    Measurement candidateMeasurement = new Measurement();
+    byte[] baselineOutput = null;
+    byte[] candidateOutput = null;
+    for (int run = 0; run < runs; run++) {
+      baselineOutput = baselineMeasurement.run(baseline, userFilePath, tweetFilePath);
+      candidateOutput = candidateMeasurement.run(candidate, userFilePath, tweetFilePath);
+    }
+
+    // Tweet records, as parsed by the engines (blank lines skipped, gzip shards inflated)
+    long[] tweets = new long[1];
+    for (String shard : ShardedDataMapper.resolveShards(tweetFilePath)) {
+      try (LineReader lines = RecordReader.openLines(shard)) {
+        RecordReader.readTweets(lines, (lineNumber, record, user, tweet) -> tweets[0]++);
+      }
+    }
+
+    return new Result(baseline.getName(), candidate.getName(), Arrays.mismatch(baselineOutput, candidateOutput), tweets[0],
+        baselineMeasurement, candidateMeasurement);
+  }
+
+  /**
+   * Name users a, b, ..., z, ba, bb, ... as user names may only hold letters.
+   */
+  private static String userName(int index) {
+    StringBuilder name = new StringBuilder();
+    do {
+      name.append((char) ('a' + index % 26));
+      index /= 26;
+    } while (index > 0);
+    name.setCharAt(name.length() - 1, Character.toUpperCase(name.charAt(name.length() - 1)));
+    return name.reverse().toString();
+  }
+
+  /**
+   * Best elapsed time and highest peak heap usage of an engine over its runs.
+   */
+  private static final class Measurement {
+
+    private long bestNanos = Long.MAX_VALUE;
+    private long peakHeapBytes;
+
+    byte[] run(FeedEngine feedEngine, String userFilePath, String tweetFilePath) throws DataException, IOException {
+      List<MemoryPoolMXBean> heapPools = new ArrayList<>();
+      for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+        if (pool.getType() == MemoryType.HEAP && pool.isValid()) {
+          heapPools.add(pool);
+        }
+      }
+
+      // Start each run from a collected heap so that the previous run's garbage isn't counted
+      System.gc();
+      heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+
+      long start = System.nanoTime();
+      String twitterFeed = feedEngine.produceTwitterFeed(userFilePath, tweetFilePath, user -> true);
+      long elapsed = System.nanoTime() - start;
+
+      long peak = 0;
+      for (MemoryPoolMXBean pool : heapPools) {
+        peak += pool.getPeakUsage().getUsed();
+      }
+
+      bestNanos = Math.min(bestNanos, elapsed);
+      peakHeapBytes = Math.max(peakHeapBytes, peak);
+      return twitterFeed.getBytes(StandardCharsets.UTF_8);
+    }
+  }
+
+  /**
+   * Outcome of comparing two engines.
+   */
+  public static final class Result {
+
+    private final String baselineName;
+    private final String candidateName;
+    private final long firstDifference;
+    private final long tweets;
+    private final Measurement baseline;
+    private final Measurement candidate;
+
+    private Result(String baselineName, String candidateName, long firstDifference, long tweets,
+                   Measurement baseline, Measurement candidate) {
+      this.baselineName = baselineName;
+      this.candidateName = candidateName;
+      this.firstDifference = firstDifference;
+      this.tweets = tweets;
+      this.baseline = baseline;
+      this.candidate = candidate;
+    }
+
+    /**
+     * Is the output of both engines byte-identical
+     *
+     * @return true if identical, otherwise false.
+     */
+    public boolean isIdentical() {
+      return firstDifference < 0;
+    }
+
+    /**
+     * Get the offset of the first byte the outputs differ in
+     *
+     * @return The UTF-8 byte offset, or -1 if the outputs are identical
+     */
+    public long getFirstDifference() {
+      return firstDifference;
+    }
+
+    /**
+     * Get the throughput of the candidate relative to the baseline
+     *
+     * @return Ratio of the best run times; above 1 means the candidate is faster
+     */
+    public double getRelativeThroughput() {
+      return (double) baseline.bestNanos / candidate.bestNanos;
+    }
+
+    /**
+     * Get the number of tweet records of the input the throughput is measured over
+     *
+     * @return Tweet record count
+     */
+    public long getTweets() {
+      return tweets;
+    }
+
+    public long getBaselineNanos() {
+      return baseline.bestNanos;
+    }
+
+    public long getCandidateNanos() {
+      return candidate.bestNanos;
+    }
+
+    public long getBaselinePeakHeapBytes() {
+      return baseline.peakHeapBytes;
+    }
+
+    public long getCandidatePeakHeapBytes() {
+      return candidate.peakHeapBytes;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("Feed engine comparison %s vs %s: output %s%n"
+              + "  %-12s %8.1f ms %12.0f tweets/s %8d KiB peak heap%n"
+              + "  %-12s %8.1f ms %12.0f tweets/s %8d KiB peak heap%n"
+              + "  relative throughput %.2fx",
+          baselineName, candidateName, isIdentical() ? "identical" : "differs at byte " + firstDifference,
+          baselineName, baseline.bestNanos / 1e6, tweetsPerSecond(baseline), baseline.peakHeapBytes / 1024,
+          candidateName, candidate.bestNanos / 1e6, tweetsPerSecond(candidate), candidate.peakHeapBytes / 1024,
+          getRelativeThroughput());
+    }
+
+    private double tweetsPerSecond(Measurement measurement) {
+      return tweets * 1e9 / measurement.bestNanos;
+    }
+  }
+}
@@ -0,0 +1,38 @@
+package org.example.service;
+
+import java.util.ServiceLoader;
+
+/**
+ * Registry of the available feed engines.
+ */
+public final class FeedEngines {
+
+  private FeedEngines() {
+    // Private constructor
+  }
+
+  /**
+   * Get the feed engine with the given name; the reference and off-heap engines are built in, other
+   * engines are looked up through the ServiceLoader.
+   *
+   * @param name The engine name.
+   * @return A new instance of the engine.
+   * @throws IllegalArgumentException Occurs when no engine with the name is available.
+   */
+  public static FeedEngine get(String name) {
+    if (ReferenceFeedEngine.NAME.equals(name)) {
+      return new ReferenceFeedEngine();
+    }
+    if (OffHeapFeedEngine.NAME.equals(name)) {
+      return new OffHeapFeedEngine();
+    }
+
+    for (FeedEngine feedEngine : ServiceLoader.load(FeedEngine.class)) {
+      if (feedEngine.getName().equals(name)) {
+        return feedEngine;
+      }
+    }
+
+    throw new IllegalArgumentException("Unknown feed engine - " + name);
+  }
+}
@@ -0,0 +1,83 @@
+package org.example.service;
+
+import lombok.extern.log4j.Log4j2;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Factory for the executors that run per-user feed lookups.
+ */
+@Log4j2
+public final class FeedExecutors {
+
+  private FeedExecutors() {
+    // Private constructor
+  }
+
+  /**
+   * Create an executor for feed lookups. With a thread count, a pool of that many daemon
+   * threads is created. Without one (0), every lookup gets its own virtual thread when the
+   * JVM supports them (Java 21+); older JVMs get a daemon pool with a thread per processor.
+   *
+   * @param threads Number of lookup threads, or 0 for virtual threads where available.
+   * @return A new executor; the caller is responsible for shutting it down.
+   */
+  public static ExecutorService newLookupExecutor(int threads) {
+    if (threads < 0) {
+      throw new IllegalArgumentException("Lookup thread count must not be negative");
+    }
+
+    if (threads == 0) {
+      ExecutorService virtualThreads = newVirtualThreadPerTaskExecutor();
+      if (virtualThreads != null) {
+        return virtualThreads;
+      }
+      threads = Runtime.getRuntime().availableProcessors();
+    }
+
+    AtomicInteger threadCounter = new AtomicInteger();
+    return Executors.newFixedThreadPool(threads, runnable -> {
+      Thread thread = new Thread(runnable, "feed-lookup-" + threadCounter.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * Are virtual threads supported by the running JVM
+   *
+   * @return true if lookups can run on virtual threads, otherwise false.
+   */
+  public static boolean isVirtualThreadsAvailable() {
+    return findVirtualThreadFactoryMethod() != null;
+  }
+
+  /**
+   * Invoke Executors.newVirtualThreadPerTaskExecutor() reflectively, as the code is
+   * compiled for Java versions that don't have it.
+   */
+  private static ExecutorService newVirtualThreadPerTaskExecutor() {
+    Method factoryMethod = findVirtualThreadFactoryMethod();
+    if (factoryMethod == null) {
+      return null;
+    }
+
+    try {
+      return (ExecutorService) factoryMethod.invoke(null);
+    } catch (ReflectiveOperationException e) {
+      log.debug("Virtual threads unavailable, falling back to a thread pool", e);
+      return null;
+    }
+  }
+
+  private static Method findVirtualThreadFactoryMethod() {
+    try {
+      return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+    } catch (NoSuchMethodException e) {
+      return null;
+    }
+  }
+}
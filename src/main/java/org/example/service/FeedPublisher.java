@@ -0,0 +1,119 @@
+package org.example.service;
+
+import org.example.model.TwitterFollowers;
+import org.example.model.TwitterTweets;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Publisher of the Twitter feed as a chunk per user (user line followed by a line per tweet),
+ * in alphabetical user order. A chunk is only rendered once the subscriber requested it, so
+ * the rendered output held at any time is bounded by the subscriber's demand rather than
+ * by the size of the whole feed.
+ * <p>
+ * Chunks are delivered on the thread calling {@link Flow.Subscription#request(long)}; every
+ * subscriber gets the complete feed.
+ */
+public class FeedPublisher implements Flow.Publisher<String> {
+
+  private final List<String> users;
+  private final TwitterTweets twitterTweets;
+
+  /**
+   * @param twitterFollowers TwitterFollowers POJO object
+   * @param twitterTweets    TwitterTweets POJO object; must not change while subscribed.
+   * @param userFilter       Filter on the users to publish the feed of.
+   */
+  public FeedPublisher(TwitterFollowers twitterFollowers, TwitterTweets twitterTweets, Predicate<String> userFilter) {
+    List<String> filteredUsers = new ArrayList<>();
+    for (String user : twitterFollowers.getUsers()) {
+      if (userFilter.test(user)) {
+        filteredUsers.add(user);
+      }
+    }
+    this.users = filteredUsers;
+    this.twitterTweets = twitterTweets;
+  }
+
+  @Override
+  public void subscribe(Flow.Subscriber<? super String> subscriber) {
+    Objects.requireNonNull(subscriber, "subscriber");
+    subscriber.onSubscribe(new FeedSubscription(subscriber, users.iterator()));
+  }
+
+  /**
+   * Subscription rendering chunks on demand. Re-entrant requests (a subscriber requesting
+   * more from within onNext) are queued as demand for the running drain loop instead of
+   * recursing.
+   */
+  private final class FeedSubscription implements Flow.Subscription {
+
+    private final Flow.Subscriber<? super String> subscriber;
+    private final Iterator<String> remainingUsers;
+    private final AtomicLong demand = new AtomicLong();
+    // Number of drain requests not yet handled by the thread in the drain loop
+    private final AtomicInteger pendingDrains = new AtomicInteger();
+    private volatile boolean done;
+
+    FeedSubscription(Flow.Subscriber<? super String> subscriber, Iterator<String> remainingUsers) {
+      this.subscriber = subscriber;
+      this.remainingUsers = remainingUsers;
+    }
+
+    @Override
+    public void request(long n) {
+      if (done) {
+        return;
+      }
+      if (n <= 0) {
+        done = true;
+        subscriber.onError(new IllegalArgumentException("Requested number of chunks must be positive: " + n));
+        return;
+      }
+
+      // Demand saturates at Long.MAX_VALUE (unbounded)
+      demand.getAndUpdate(current -> current + n < 0 ? Long.MAX_VALUE : current + n);
+      drain();
+    }
+
+    @Override
+    public void cancel() {
+      done = true;
+    }
+
+    private void drain() {
+      if (pendingDrains.getAndIncrement() != 0) {
+        return;
+      }
+
+      int missed = 1;
+      do {
+        while (!done && demand.get() > 0 && remainingUsers.hasNext()) {
+          String user = remainingUsers.next();
+          StringBuilder chunk = new StringBuilder();
+          TwitterFeedService.appendUserFeed(chunk, user, twitterTweets.getTweets(user));
+
+          if (demand.get() != Long.MAX_VALUE) {
+            demand.decrementAndGet();
+          }
+          subscriber.onNext(chunk.toString());
+        }
+
+        if (!done && !remainingUsers.hasNext()) {
+          done = true;
+          subscriber.onComplete();
+          return;
+        }
+
+        missed = pendingDrains.addAndGet(-missed);
+      } while (missed != 0);
+    }
+  }
+}
@@ -0,0 +1,429 @@
+package org.example.service;
+
+import lombok.extern.log4j.Log4j2;
+import org.example.exception.DataException;
+import org.example.model.TwitterFollowers;
+import org.example.model.TwitterTweets;
+import org.example.store.TweetLog;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+/**
+ * Service for a long-running deployment where per-user feeds are requested repeatedly and
+ * new tweets keep arriving. Rendered feeds are served from a FeedCache; a new tweet
+ * invalidates exactly the feeds of the followers of its author.
+ * <p>
+ * The follower graph is held as an immutable snapshot behind an atomic reference. Changes
+ * to the graph (a reload of the user input, or a tweet by an unknown user) build a new
+ * snapshot and swap it in with a single reference update, so feed readers never lock and
+ * never see a half-built graph. Single follow/unfollow edges are applied incrementally to
+ * the affected follower's feed. An old snapshot is garbage collected once the last reader
+ * holding it is done.
+ * <p>
+ * Feeds of many users can be looked up at once with {@link #getUserFeedsAsync(Collection)};
+ * the lookups run in parallel on the lookup executor. Unless the caller provides one, the
+ * lookup executor is created on the first asynchronous lookup and shut down on close.
+ */
+@Log4j2
+public class LiveFeedService implements Closeable {
+
+  private final AtomicReference<FeedSnapshot> snapshot;
+  private final FeedCache feedCache;
+  // Runs asynchronous lookups; null if this service creates (and shuts down) its own
+  private final Executor callerLookupExecutor;
+  private final int lookupThreads;
+  private ExecutorService ownedLookupExecutor;
+  private boolean closed;
+  // Serialises writers (new tweets and reloads); readers never take it
+  private final Object writeLock = new Object();
+  // Optional durable log of the tweets added to this service
+  private TweetLog tweetLog;
+
+  /**
+   * @param twitterFollowers TwitterFollowers POJO object
+   * @param twitterTweets    TwitterTweets POJO object
+   * @param feedCache        Cache of rendered per-user feeds
+   */
+  public LiveFeedService(TwitterFollowers twitterFollowers, TwitterTweets twitterTweets, FeedCache feedCache) {
+    this(twitterFollowers, twitterTweets, feedCache, null, 0);
+  }
+
+  /**
+   * @param twitterFollowers TwitterFollowers POJO object
+   * @param twitterTweets    TwitterTweets POJO object
+   * @param feedCache        Cache of rendered per-user feeds
+   * @param lookupExecutor   Executor for asynchronous lookups; owned by the caller
+   */
+  public LiveFeedService(TwitterFollowers twitterFollowers, TwitterTweets twitterTweets, FeedCache feedCache, Executor lookupExecutor) {
+    this(twitterFollowers, twitterTweets, feedCache, Objects.requireNonNull(lookupExecutor), 0);
+  }
+
+  /**
+   * @param twitterFollowers TwitterFollowers POJO object
+   * @param twitterTweets    TwitterTweets POJO object
+   * @param feedCache        Cache of rendered per-user feeds
+   * @param lookupThreads    Threads of the lookup executor created on the first asynchronous
+   *                         lookup, or 0 for virtual threads (see FeedExecutors).
+   */
+  LiveFeedService(TwitterFollowers twitterFollowers, TwitterTweets twitterTweets, FeedCache feedCache, int lookupThreads) {
+    this(twitterFollowers, twitterTweets, feedCache, null, lookupThreads);
+  }
+
+  private LiveFeedService(TwitterFollowers twitterFollowers, TwitterTweets twitterTweets, FeedCache feedCache,
+                          Executor callerLookupExecutor, int lookupThreads) {
+    this.snapshot = new AtomicReference<>(new FeedSnapshot(twitterFollowers.toImmutable(), twitterTweets));
+    this.feedCache = feedCache;
+    this.callerLookupExecutor = callerLookupExecutor;
+    this.lookupThreads = lookupThreads;
+  }
+
+  /**
+   * Get the rendered feed of a user (user line followed by a line per tweet).
+   *
+   * @param user The Twitter user.
+   * @return The rendered feed in UTF-8, or null if the user is unknown.
+   */
+  public byte[] getUserFeed(String user) {
+    byte[] block = feedCache.get(user);
+    if (block != null) {
+      return block;
+    }
+
+    /*
+    Read the cache generation before the snapshot; if a writer invalidates feeds while
+    rendering, the (possibly stale) block is returned but not cached.
+     */
+    long generation = feedCache.getGeneration();
+    FeedSnapshot current = snapshot.get();
+    if (!current.twitterFollowers.hasFollowers(user)) {
+      return null;
+    }
+
+    StringBuilder userFeed = new StringBuilder();
+    TwitterFeedService.appendUserFeed(userFeed, user, current.twitterTweets.getTweets(user));
+    block = userFeed.toString().getBytes(StandardCharsets.UTF_8);
+    feedCache.put(user, block, generation);
+    return block;
+  }
+
+  /**
+   * Get the rendered feed of a user on the lookup executor, see {@link #getUserFeed(String)}.
+   *
+   * @param user The Twitter user.
+   * @return Future of the rendered feed in UTF-8, completing with null if the user is unknown.
+   */
+  public CompletableFuture<byte[]> getUserFeedAsync(String user) {
+    return CompletableFuture.supplyAsync(() -> getUserFeed(user), lookupExecutor());
+  }
+
+  /**
+   * Get the rendered feeds of several users. Every user is looked up (and rendered on a
+   * cache miss) as a separate task on the lookup executor, so a request for many users
+   * takes about as long as the slowest single lookup given enough threads.
+   *
+   * @param users The Twitter users.
+   * @return Future of the rendered feeds in UTF-8 by user, in the iteration order of users;
+   * unknown users are left out.
+   */
+  public CompletableFuture<Map<String, byte[]>> getUserFeedsAsync(Collection<String> users) {
+    List<String> distinctUsers = users.stream().distinct().collect(Collectors.toList());
+    List<CompletableFuture<byte[]>> lookups = distinctUsers.stream().map(this::getUserFeedAsync).collect(Collectors.toList());
+
+    return CompletableFuture.allOf(lookups.toArray(new CompletableFuture<?>[0])).thenApply(ignored -> {
+      Map<String, byte[]> userFeeds = new LinkedHashMap<>();
+      for (int i = 0; i < distinctUsers.size(); i++) {
+        byte[] block = lookups.get(i).join();
+        if (block != null) {
+          userFeeds.put(distinctUsers.get(i), block);
+        }
+      }
+      return userFeeds;
+    });
+  }
+
+  /**
+   * Add a newly posted tweet; the cached feeds of the author's followers are invalidated.
+   * As with the tweet input file, an author without followers will only see their own tweets,
+   * which requires a new graph snapshot containing the author. When a tweet log is open, the
+   * tweet is appended to the log before it becomes visible.
+   *
+   * @param author The Twitter user that posted the tweet.
+   * @param tweet  The actual tweet/post.
+   * @throws IOException Occurs when appending to the tweet log fails
+   */
+  public void addTweet(String author, String tweet) throws IOException {
+    synchronized (writeLock) {
+      if (tweetLog != null) {
+        tweetLog.append(author, tweet);
+      }
+      applyTweet(author, tweet);
+    }
+  }
+
+  /**
+   * Open the durable tweet log; the tweets it holds are replayed into this service in log
+   * order and all tweets added afterwards are appended to it.
+   *
+   * @param directory    Directory holding the log segments.
+   * @param segmentBytes Size of each log segment.
+   * @param syncEvery    Force the log to disk every N appends (0 leaves it to the OS).
+   * @throws IOException Occurs when the log can't be read or written
+   */
+  public void openTweetLog(Path directory, int segmentBytes, int syncEvery) throws IOException {
+    synchronized (writeLock) {
+      if (tweetLog != null) {
+        throw new IllegalStateException("Tweet log is already open");
+      }
+      tweetLog = TweetLog.open(directory, segmentBytes, syncEvery, (sequence, author, tweet) -> applyTweet(author, tweet));
+      log.info("Replayed " + tweetLog.getNextSequence() + " tweets from tweet log " + directory);
+    }
+  }
+
+  /**
+   * Close the tweet log, if open, after forcing it to disk, and shut down the lookup
+   * executor if it was created by this service.
+   */
+  @Override
+  public void close() {
+    synchronized (writeLock) {
+      if (tweetLog != null) {
+        tweetLog.close();
+        tweetLog = null;
+      }
+    }
+    synchronized (this) {
+      closed = true;
+      if (ownedLookupExecutor != null) {
+        ownedLookupExecutor.shutdown();
+      }
+    }
+  }
+
+  /**
+   * Get the executor for asynchronous lookups, creating this service's own on first use.
+   */
+  private synchronized Executor lookupExecutor() {
+    if (callerLookupExecutor != null) {
+      return callerLookupExecutor;
+    }
+    if (closed) {
+      throw new IllegalStateException("Live feed service is closed");
+    }
+    if (ownedLookupExecutor == null) {
+      ownedLookupExecutor = FeedExecutors.newLookupExecutor(lookupThreads);
+    }
+    return ownedLookupExecutor;
+  }
+
+  /**
+   * Make a tweet visible to the followers of its author; must hold the write lock.
+   */
+  private void applyTweet(String author, String tweet) {
+    FeedSnapshot current = snapshot.get();
+
+    if (!current.twitterFollowers.hasFollowers(author)) {
+      current = new FeedSnapshot(current.twitterFollowers.withFollower(author, author), current.twitterTweets);
+      snapshot.set(current);
+    }
+
+    Set<String> followers = current.twitterFollowers.getFollowers(author);
+    current.twitterTweets.addTweet(followers, author, tweet);
+    feedCache.invalidate(followers);
+
+    log.debug("Invalidated cached feeds of " + followers.size() + " followers of " + author);
+  }
+
+  /**
+   * Let a follower start following a user. The new graph snapshot shares all unchanged
+   * follower sets with the current one; only the follower's feed is repaired (it now
+   * sees all tweets of the user) and invalidated.
+   *
+   * @param user     The Twitter user being followed.
+   * @param follower The Twitter follower.
+   * @return true if the follower didn't follow the user yet, otherwise false.
+   */
+  public boolean addFollower(String user, String follower) {
+    synchronized (writeLock) {
+      FeedSnapshot current = snapshot.get();
+      Set<String> followers = current.twitterFollowers.getFollowers(user);
+      if (followers != null && followers.contains(follower)) {
+        return false;
+      }
+
+      TwitterFollowers updated = current.twitterFollowers.withFollower(user, follower);
+      if (!updated.hasFollowers(follower)) {
+        // As with the user input, a follower is a user with their own tweets in their feed
+        updated = updated.withFollower(follower, follower);
+      }
+      snapshot.set(new FeedSnapshot(updated, current.twitterTweets));
+      current.twitterTweets.addRun(follower, user);
+      feedCache.invalidate(Collections.singleton(follower));
+      return true;
+    }
+  }
+
+  /**
+   * Let a follower stop following a user (unfollow). Rather than re-running the fan-out
+   * over the whole graph, only the follower's run of the user's tweets is dropped, which
+   * removes exactly the user's entries from the follower's feed.
+   *
+   * @param user     The Twitter user being unfollowed.
+   * @param follower The Twitter follower.
+   * @return true if the follower followed the user, otherwise false.
+   */
+  public boolean removeFollower(String user, String follower) {
+    synchronized (writeLock) {
+      FeedSnapshot current = snapshot.get();
+      Set<String> followers = current.twitterFollowers.getFollowers(user);
+      if (followers == null || !followers.contains(follower)) {
+        return false;
+      }
+
+      snapshot.set(new FeedSnapshot(current.twitterFollowers.withoutFollower(user, follower), current.twitterTweets));
+      current.twitterTweets.removeRun(follower, user);
+      feedCache.invalidate(Collections.singleton(follower));
+
+      log.debug("Removed follower " + follower + " of " + user);
+      return true;
+    }
+  }
+
+  /**
+   * Reload the follower graph from a new user input (file, directory or glob). The input is
+   * parsed without blocking readers or writers; the tweets are then fanned out over the new
+   * graph and swapped in atomically, and the cached feeds that changed are invalidated.
+   *
+   * @param userFilePath Path to the new user input.
+   * @throws IOException   Occurs when reading the input file fails
+   * @throws DataException Occurs when a data record within input file is invalid such as pattern mismatch.
+   */
+  public void reloadFollowers(String userFilePath) throws IOException, DataException {
+    TwitterFollowers parsed = TwitterFeedService.parseTwitterFollowers(userFilePath, TwitterFeedService.newMemoryBudget());
+
+    synchronized (writeLock) {
+      FeedSnapshot current = snapshot.get();
+
+      // Users only known from their tweets stay in the feed with their own tweets
+      for (String author : current.twitterTweets.getAuthors()) {
+        if (!parsed.hasFollowers(author)) {
+          parsed.addFollower(author, author);
+        }
+      }
+
+      TwitterFollowers reloaded = parsed.toImmutable();
+      TwitterTweets twitterTweets = current.twitterTweets.withFollowers(reloaded);
+      Set<String> changed = changedFeeds(current.twitterFollowers, reloaded, current.twitterTweets.getAuthors());
+
+      snapshot.set(new FeedSnapshot(reloaded, twitterTweets));
+      feedCache.invalidate(changed);
+
+      log.info("Reloaded Twitter followers from " + userFilePath + "; " + changed.size() + " feeds changed");
+    }
+  }
+
+  /**
+   * Reload the follower graph in the background, see {@link #reloadFollowers(String)}.
+   *
+   * @param userFilePath Path to the new user input.
+   * @return Future completing once the new graph is swapped in.
+   */
+  public CompletableFuture<Void> reloadFollowersAsync(String userFilePath) {
+    return CompletableFuture.runAsync(() -> {
+      try {
+        reloadFollowers(userFilePath);
+      } catch (IOException | DataException e) {
+        throw new CompletionException(e);
+      }
+    });
+  }
+
+  /**
+   * Get the current (immutable) snapshot of the follower graph.
+   *
+   * @return TwitterFollowers POJO object
+   */
+  public TwitterFollowers getTwitterFollowers() {
+    return snapshot.get().twitterFollowers;
+  }
+
+  /**
+   * Get the cache of rendered feeds, e.g. to report hit/miss metrics.
+   *
+   * @return The FeedCache used by this service.
+   */
+  public FeedCache getFeedCache() {
+    return feedCache;
+  }
+
+  /**
+   * Determine the users whose feed changed between two follower graphs, i.e. that started
+   * or stopped following an author with tweets, or that were removed from the graph.
+   *
+   * @param previous The previous follower graph.
+   * @param current  The new follower graph.
+   * @param authors  The users that posted tweets.
+   * @return The users whose feed changed.
+   */
+  private static Set<String> changedFeeds(TwitterFollowers previous, TwitterFollowers current, Set<String> authors) {
+    Set<String> changed = new HashSet<>();
+
+    for (String author : authors) {
+      Set<String> previousFollowers = followersOrEmpty(previous, author);
+      Set<String> currentFollowers = followersOrEmpty(current, author);
+      for (String follower : previousFollowers) {
+        if (!currentFollowers.contains(follower)) {
+          changed.add(follower);
+        }
+      }
+      for (String follower : currentFollowers) {
+        if (!previousFollowers.contains(follower)) {
+          changed.add(follower);
+        }
+      }
+    }
+
+    for (String user : previous.getUsers()) {
+      if (!current.hasFollowers(user)) {
+        changed.add(user);
+      }
+    }
+
+    return changed;
+  }
+
+  private static Set<String> followersOrEmpty(TwitterFollowers twitterFollowers, String user) {
+    Set<String> followers = twitterFollowers.getFollowers(user);
+    return followers == null ? Collections.emptySet() : followers;
+  }
+
+  /**
+   * Immutable pairing of a follower graph and the tweets fanned out over it.
+   */
+  private static final class FeedSnapshot {
+
+    private final TwitterFollowers twitterFollowers;
+    private final TwitterTweets twitterTweets;
+
+    FeedSnapshot(TwitterFollowers twitterFollowers, TwitterTweets twitterTweets) {
+      this.twitterFollowers = twitterFollowers;
+      this.twitterTweets = twitterTweets;
+    }
+  }
+}
@@ -0,0 +1,398 @@
+package org.example.service;
+
+import lombok.extern.log4j.Log4j2;
+import org.example.exception.DataException;
+import org.example.mapper.RecordReader;
+import org.example.mapper.ShardedDataMapper;
+import org.example.store.OffHeapArena;
+import org.example.store.OffHeapIntArray;
+import org.example.store.OffHeapLongArray;
+import org.example.store.OffHeapLongList;
+import org.example.store.OffHeapTextStore;
+import org.example.utility.LineReader;
+import org.example.utility.MemoryBudget;
+import org.example.utility.StringRadixSort;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.Predicate;
+
+/**
+ * Feed engine keeping the follower adjacency and the tweets in off-heap memory from an
+ * {@link OffHeapArena}, freed as soon as the feed is written.
+ * <p>
+ * The input is parsed with the record loop of the data mappers straight into off-heap
+ * builders: user names and tweets go into a text store, follows and tweet authors into
+ * growable id lists. These are then turned into a compressed sparse row layout: users get
+ * dense int ids in alphabetical order, tweets in posting order, and every per-user list
+ * (followees, tweets of an author) is a range of an off-heap id array. The feeds are merged
+ * from those ranges a user at a time while they are written, so neither a heap model of
+ * the input nor the rendered feed is held; the heap only holds the name to id lookup
+ * while parsing and the array handles.
+ * <p>
+ * Checkpoints, pre-sizing and parse tracing apply to the data mappers only; the memory
+ * budget is charged with the off-heap bytes allocated while parsing.
+ */
+@Log4j2
+public class OffHeapFeedEngine implements FeedEngine {
+
+  public static final String NAME = "offheap";
+
+  // Gzip compressed text inflates to several times its size; only used to size the chunks
+  private static final int GZIP_EXPANSION = 4;
+  // Typical bytes of input per follow, per distinct user and per tweet; only used to size the chunks
+  private static final int FOLLOW_BYTES = 8;
+  private static final int USER_BYTES = 64;
+  private static final int TWEET_BYTES = 64;
+
+  @Override
+  public String getName() {
+    return NAME;
+  }
+
+  @Override
+  public String produceTwitterFeed(String userFilePath, String tweetFilePath, Predicate<String> userFilter)
+      throws DataException, IOException {
+    ByteArrayOutputStream twitterFeed = new ByteArrayOutputStream();
+    writeTwitterFeed(userFilePath, tweetFilePath, userFilter, twitterFeed);
+    return twitterFeed.toString(StandardCharsets.UTF_8);
+  }
+
+  @Override
+  public long writeTwitterFeed(String userFilePath, String tweetFilePath, Predicate<String> userFilter, OutputStream out)
+      throws DataException, IOException {
+    try (OffHeapArena arena = new OffHeapArena()) {
+      FeedStore feedStore = buildFeedStore(arena, userFilePath, tweetFilePath, userFilter);
+      log.debug("Off-heap feed store holds " + arena.getAllocatedBytes() + " bytes");
+      return feedStore.write(out);
+    }
+  }
+
+  /**
+   * Parse the input into the off-heap builders and lay it out for writing; the name to id
+   * lookup is unreachable once this returns.
+   */
+  private static FeedStore buildFeedStore(OffHeapArena arena, String userFilePath, String tweetFilePath,
+                                          Predicate<String> userFilter) throws DataException, IOException {
+    List<String> userShards = ShardedDataMapper.resolveShards(userFilePath);
+    List<String> tweetShards = ShardedDataMapper.resolveShards(tweetFilePath);
+    long userBytes = estimateInputBytes(userShards);
+    long tweetBytes = estimateInputBytes(tweetShards);
+    FeedStoreBuilder builder = new FeedStoreBuilder(arena, TwitterFeedService.newMemoryBudget(), userBytes, tweetBytes);
+
+    // Shards one after another, which gives the order the data mappers merge them in
+    for (String shard : userShards) {
+      try (LineReader lines = RecordReader.openLines(shard)) {
+        RecordReader.readUsers(lines, (lineNumber, record, follower, users) -> {
+          builder.addFollows(follower, users, shard, lineNumber);
+          builder.charge(shard, lineNumber);
+        });
+      }
+    }
+    for (String shard : tweetShards) {
+      try (LineReader lines = RecordReader.openLines(shard)) {
+        RecordReader.readTweets(lines, (lineNumber, record, user, tweet) -> {
+          builder.addTweet(user, tweet, shard, lineNumber);
+          builder.charge(shard, lineNumber);
+        });
+      }
+    }
+
+    if (builder.getUserCount() == 0) {
+      throw new DataException("No Twitter users found so no feed can be produced.");
+    }
+    return builder.build(userFilter);
+  }
+
+  /**
+   * Estimate the uncompressed size of the input shards, to size the off-heap chunks with.
+   */
+  private static long estimateInputBytes(List<String> shards) throws IOException {
+    long bytes = 0;
+    for (String shard : shards) {
+      Path path = Path.of(shard);
+      bytes += RecordReader.isGzip(path) ? Files.size(path) * GZIP_EXPANSION : Files.size(path);
+    }
+    return bytes;
+  }
+
+  /**
+   * Collects the parsed users, follows and tweets off-heap in input order.
+   */
+  private static final class FeedStoreBuilder {
+
+    private final OffHeapArena arena;
+    private final MemoryBudget memoryBudget;
+    private final OffHeapTextStore texts;
+    // User name to id in order of first appearance; the only per-user structure on the heap
+    private final Map<String, Integer> userIds = new HashMap<>();
+    // Per user (first appearance order): name
+    private final OffHeapLongList userNames;
+    // Per follow: follower id in the high and followee id in the low 32 bits
+    private final OffHeapLongList follows;
+    // Per tweet (posting order): text and author id
+    private final OffHeapLongList tweetTexts;
+    private final OffHeapLongList tweetAuthors;
+    private long chargedBytes;
+
+    FeedStoreBuilder(OffHeapArena arena, MemoryBudget memoryBudget, long userBytes, long tweetBytes) {
+      this.arena = arena;
+      this.memoryBudget = memoryBudget;
+      this.texts = new OffHeapTextStore(arena, userBytes + tweetBytes);
+      this.userNames = new OffHeapLongList(arena, userBytes / USER_BYTES);
+      this.follows = new OffHeapLongList(arena, userBytes / FOLLOW_BYTES);
+      this.tweetTexts = new OffHeapLongList(arena, tweetBytes / TWEET_BYTES);
+      this.tweetAuthors = new OffHeapLongList(arena, tweetBytes / TWEET_BYTES);
+    }
+
+    /**
+     * Add the follows of a user record, as UserDataMapper does: the follower follows every
+     * user of the record and themselves.
+     */
+    void addFollows(String follower, List<String> users, String filePath, int lineNumber) throws DataException {
+      int followerId = userId(follower, filePath, lineNumber);
+      for (String user : users) {
+        follows.add(follow(followerId, userId(user, filePath, lineNumber)));
+      }
+      follows.add(follow(followerId, followerId));
+    }
+
+    /**
+     * Add a tweet, as TweetDataMapper does: an author that isn't a user yet becomes a user
+     * following themselves.
+     */
+    void addTweet(String user, String tweet, String filePath, int lineNumber) throws DataException {
+      Integer authorId = userIds.get(user);
+      if (authorId == null) {
+        authorId = userId(user, filePath, lineNumber);
+        follows.add(follow(authorId, authorId));
+      }
+      tweetTexts.add(appendText("@" + user + ": " + tweet, filePath, lineNumber));
+      tweetAuthors.add(authorId);
+    }
+
+    /**
+     * Charge the off-heap bytes allocated since the previous record to the memory budget.
+     */
+    void charge(String filePath, int lineNumber) throws DataException {
+      long allocatedBytes = arena.getAllocatedBytes();
+      if (allocatedBytes != chargedBytes) {
+        memoryBudget.charge(allocatedBytes - chargedBytes, filePath, lineNumber);
+        chargedBytes = allocatedBytes;
+      }
+    }
+
+    int getUserCount() {
+      return userIds.size();
+    }
+
+    private int userId(String user, String filePath, int lineNumber) throws DataException {
+      Integer userId = userIds.get(user);
+      if (userId == null) {
+        long userName = appendText(user, filePath, lineNumber);
+        userId = userIds.size();
+        userIds.put(user, userId);
+        userNames.add(userName);
+      }
+      return userId;
+    }
+
+    /**
+     * Append a text to the store, rejecting the record when the text exceeds what the store can hold.
+     */
+    private long appendText(String text, String filePath, int lineNumber) throws DataException {
+      byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+      if (bytes.length > OffHeapTextStore.MAX_TEXT_BYTES) {
+        throw new DataException("Record on line " + lineNumber + " of " + filePath + " holds a text of " + bytes.length
+            + " bytes, which exceeds the " + OffHeapTextStore.MAX_TEXT_BYTES + " bytes the " + NAME + " engine can store.");
+      }
+      return texts.append(bytes);
+    }
+
+    private static long follow(int followerId, int userId) {
+      return ((long) followerId << 32) | userId;
+    }
+
+    /**
+     * Renumber the users alphabetically and build the per-user ranges of the selected users.
+     */
+    FeedStore build(Predicate<String> userFilter) {
+      int userCount = userIds.size();
+      String[] users = userIds.keySet().toArray(new String[0]);
+      StringRadixSort.sort(users);
+
+      FeedStore feedStore = new FeedStore(arena, texts, userCount, tweetTexts);
+      // First appearance id to alphabetical id
+      OffHeapIntArray userRanks = new OffHeapIntArray(arena, userCount);
+      for (int rank = 0; rank < userCount; rank++) {
+        int userId = userIds.get(users[rank]);
+        userRanks.set(userId, rank);
+        feedStore.userNames.set(rank, userNames.get(userId));
+        feedStore.userSelected.set(rank, userFilter.test(users[rank]) ? 1 : 0);
+      }
+      feedStore.addFollowees(follows, userRanks);
+      feedStore.addTweets(tweetAuthors, userRanks);
+      return feedStore;
+    }
+  }
+
+  /**
+   * Off-heap layout of users, followees and tweets.
+   */
+  private static final class FeedStore {
+
+    private final OffHeapArena arena;
+    private final OffHeapTextStore texts;
+    private final int userCount;
+    private final long tweetCount;
+
+    // Per user: name and whether the feed is output
+    private final OffHeapLongArray userNames;
+    private final OffHeapIntArray userSelected;
+    // Per selected user: range of unique followee (author) ids
+    private final OffHeapLongArray followeeOffsets;
+    private OffHeapIntArray followeeIds;
+    // Per tweet: text; per author: range of tweet ids
+    private final OffHeapLongList tweetTexts;
+    private final OffHeapLongArray authorTweetOffsets;
+    private final OffHeapIntArray authorTweetIds;
+
+    FeedStore(OffHeapArena arena, OffHeapTextStore texts, int userCount, OffHeapLongList tweetTexts) {
+      this.arena = arena;
+      this.texts = texts;
+      this.userCount = userCount;
+      this.tweetCount = tweetTexts.size();
+      this.tweetTexts = tweetTexts;
+      this.userNames = new OffHeapLongArray(arena, userCount);
+      this.userSelected = new OffHeapIntArray(arena, userCount);
+      this.followeeOffsets = new OffHeapLongArray(arena, userCount + 1L);
+      this.authorTweetOffsets = new OffHeapLongArray(arena, userCount + 1L);
+      this.authorTweetIds = new OffHeapIntArray(arena, tweetCount);
+    }
+
+    /**
+     * Group the follows of the selected users by follower, dropping repeated follows.
+     */
+    void addFollowees(OffHeapLongList follows, OffHeapIntArray userRanks) {
+      // Count per follower, then fill the ranges
+      for (long i = 0; i < follows.size(); i++) {
+        int follower = userRanks.get((int) (follows.get(i) >>> 32));
+        if (userSelected.get(follower) != 0) {
+          followeeOffsets.set(follower + 1L, followeeOffsets.get(follower + 1L) + 1);
+        }
+      }
+      for (int userId = 0; userId < userCount; userId++) {
+        followeeOffsets.set(userId + 1L, followeeOffsets.get(userId + 1L) + followeeOffsets.get(userId));
+      }
+      followeeIds = new OffHeapIntArray(arena, followeeOffsets.get(userCount));
+      long[] cursors = new long[userCount];
+      for (long i = 0; i < follows.size(); i++) {
+        long follow = follows.get(i);
+        int follower = userRanks.get((int) (follow >>> 32));
+        if (userSelected.get(follower) != 0) {
+          followeeIds.set(followeeOffsets.get(follower) + cursors[follower]++, userRanks.get((int) follow));
+        }
+      }
+
+      // Sort every range and compact the unique followees towards the front
+      int[] followees = new int[0];
+      long position = 0;
+      long start = 0;
+      for (int userId = 0; userId < userCount; userId++) {
+        long end = followeeOffsets.get(userId + 1L);
+        int count = (int) (end - start);
+        if (count > followees.length) {
+          followees = new int[count];
+        }
+        for (int i = 0; i < count; i++) {
+          followees[i] = followeeIds.get(start + i);
+        }
+        Arrays.sort(followees, 0, count);
+        followeeOffsets.set(userId, position);
+        for (int i = 0; i < count; i++) {
+          if (i == 0 || followees[i] != followees[i - 1]) {
+            followeeIds.set(position++, followees[i]);
+          }
+        }
+        start = end;
+      }
+      followeeOffsets.set(userCount, position);
+    }
+
+    /**
+     * Group the tweet ids (posting order) by author.
+     */
+    void addTweets(OffHeapLongList authors, OffHeapIntArray userRanks) {
+      for (long tweet = 0; tweet < tweetCount; tweet++) {
+        int author = userRanks.get((int) authors.get(tweet));
+        authorTweetOffsets.set(author + 1L, authorTweetOffsets.get(author + 1L) + 1);
+      }
+      for (int author = 0; author < userCount; author++) {
+        authorTweetOffsets.set(author + 1L, authorTweetOffsets.get(author + 1L) + authorTweetOffsets.get(author));
+      }
+      long[] cursors = new long[userCount];
+      for (long tweet = 0; tweet < tweetCount; tweet++) {
+        int author = userRanks.get((int) authors.get(tweet));
+        authorTweetIds.set(authorTweetOffsets.get(author) + cursors[author]++, (int) tweet);
+      }
+    }
+
+    /**
+     * Write the feed of every selected user in the documented format, merging the tweet id
+     * ranges of the authors they follow as the feed is written.
+     *
+     * @return Number of bytes written.
+     */
+    long write(OutputStream out) throws IOException {
+      long written = 0;
+      byte[] scratch = new byte[OffHeapTextStore.MAX_TEXT_BYTES];
+      PriorityQueue<long[]> cursors = new PriorityQueue<>(Comparator.comparingInt(cursor -> authorTweetIds.get(cursor[0])));
+      for (int userId = 0; userId < userCount; userId++) {
+        if (userSelected.get(userId) == 0) {
+          continue;
+        }
+
+        written += writeText(out, userNames.get(userId), scratch);
+        out.write('\n');
+        written++;
+
+        // Cursor: position and end within the author's range of tweet ids
+        for (long i = followeeOffsets.get(userId); i < followeeOffsets.get(userId + 1L); i++) {
+          int author = followeeIds.get(i);
+          if (authorTweetOffsets.get(author) < authorTweetOffsets.get(author + 1L)) {
+            cursors.add(new long[]{authorTweetOffsets.get(author), authorTweetOffsets.get(author + 1L)});
+          }
+        }
+        while (!cursors.isEmpty()) {
+          long[] cursor = cursors.poll();
+          out.write('\t');
+          written += writeText(out, tweetTexts.get(authorTweetIds.get(cursor[0])), scratch) + 2;
+          out.write('\n');
+          if (++cursor[0] < cursor[1]) {
+            cursors.add(cursor);
+          }
+        }
+      }
+      return written;
+    }
+
+    /**
+     * Copy a text from the store to the stream; texts are stored UTF-8 encoded, as output.
+     */
+    private int writeText(OutputStream out, long handle, byte[] scratch) throws IOException {
+      int length = texts.read(handle, scratch);
+      out.write(scratch, 0, length);
+      return length;
+    }
+  }
+}
@@ -0,0 +1,276 @@
+package org.example.service;
+
+import lombok.extern.log4j.Log4j2;
+import org.example.exception.DataException;
+import org.example.utility.Configuration;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Service for generating the Twitter feed over multiple local worker processes. Each worker
+ * owns a hash partition of the recipient users, reads the same inputs, fans out only to its
+ * own users and writes a sorted partial feed file. The coordinator merges the partial feeds
+ * into the final alphabetical output.
+ */
+@Log4j2
+public final class PartitionedFeedService {
+
+  private static final String TWEET_LINE_PREFIX = "\t";
+  private static final String JAVA_TOOL_OPTIONS = "JAVA_TOOL_OPTIONS";
+  private static final String JDK_JAVA_OPTIONS = "JDK_JAVA_OPTIONS";
+  private static final Set<String> PARTITION_PROPERTIES = Set.of(Configuration.PROPERTY_PARTITION_WORKERS,
+      Configuration.PROPERTY_PARTITION_INDEX, Configuration.PROPERTY_PARTITION_OUTPUT);
+
+  private PartitionedFeedService() {
+    // Private constructor
+  }
+
+  /**
+   * Does the partition own the user (i.e. the user's feed is built by that partition's worker)
+   *
+   * @param user       The Twitter user.
+   * @param partition  The partition index.
+   * @param partitions The total number of partitions.
+   * @return true if the user belongs to the partition, otherwise false.
+   */
+  public static boolean isOwnedBy(String user, int partition, int partitions) {
+    return Math.floorMod(user.hashCode(), partitions) == partition;
+  }
+
+  /**
+   * Worker entry point; build the feed for the users owned by the configured partition
+   * and write it to the configured partial feed file.
+   *
+   * @throws DataException Occurs when a data record within input file is invalid such as pattern mismatch.
+   * @throws IOException   Occurs when reading the input files or writing the partial feed fails
+   */
+  public static void producePartialTwitterFeed() throws DataException, IOException {
+    int partition = Configuration.getPartitionIndex();
+    int partitions = Configuration.getPartitionWorkers();
+
+    log.debug("Building partial Twitter feed for partition " + partition + " of " + partitions);
+    String partialFeed = TwitterFeedService.produceTwitterFeed(user -> isOwnedBy(user, partition, partitions));
+    Files.writeString(Path.of(Configuration.getPartitionOutputPath()), partialFeed, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Coordinator entry point; start a worker process per partition, wait for all of them
+   * and merge their partial feeds into the final feed.
+   *
+   * @return Twitter feed in correct format
+   * @throws IOException Occurs when a worker fails or the partial feeds can't be read
+   */
+  public static String produceTwitterFeed() throws IOException {
+    int partitions = Configuration.getPartitionWorkers();
+    Path workDirectory = Files.createTempDirectory("twitter-feed-partitions");
+
+    try {
+      List<Path> partialFeeds = new ArrayList<>();
+      List<Process> workers = new ArrayList<>();
+      for (int partition = 0; partition < partitions; partition++) {
+        Path partialFeed = workDirectory.resolve("partition-" + partition + ".txt");
+        partialFeeds.add(partialFeed);
+        workers.add(startWorker(partition, partitions, partialFeed));
+      }
+
+      log.debug("Started " + partitions + " partition workers");
+      awaitWorkers(workers);
+
+      StringWriter twitterFeed = new StringWriter();
+      mergePartialFeeds(partialFeeds, twitterFeed);
+      return twitterFeed.toString();
+    } finally {
+      deleteDirectory(workDirectory);
+    }
+  }
+
+  /**
+   * Start a worker JVM with the same JVM options, classpath and configuration as this process.
+   *
+   * @param partition   The partition owned by the worker.
+   * @param partitions  The total number of partitions.
+   * @param partialFeed The file the worker writes its partial feed to.
+   * @return The started worker process.
+   * @throws IOException Occurs when the process can't be started.
+   */
+  private static Process startWorker(int partition, int partitions, Path partialFeed) throws IOException {
+    ProcessBuilder processBuilder = new ProcessBuilder(workerCommand(partition, partitions, partialFeed)).inheritIO();
+    // The options of these variables are part of the forwarded JVM options; they would be applied twice otherwise
+    processBuilder.environment().remove(JAVA_TOOL_OPTIONS);
+    processBuilder.environment().remove(JDK_JAVA_OPTIONS);
+    return processBuilder.start();
+  }
+
+  /**
+   * Build the command line of a worker JVM: the JVM options of this process (heap and GC
+   * settings, agents, system properties), its classpath and every configuration property
+   * that is set, with the partition properties replaced by those of the worker. Debugger
+   * agents aren't forwarded, as the workers would compete for the debug port.
+   *
+   * @param partition   The partition owned by the worker.
+   * @param partitions  The total number of partitions.
+   * @param partialFeed The file the worker writes its partial feed to.
+   * @return The command line.
+   */
+  static List<String> workerCommand(int partition, int partitions, Path partialFeed) {
+    String javaBinary = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+
+    List<String> command = new ArrayList<>();
+    command.add(javaBinary);
+    for (String argument : ManagementFactory.getRuntimeMXBean().getInputArguments()) {
+      if (!isDebuggerOption(argument) && !isConfigurationOption(argument)) {
+        command.add(argument);
+      }
+    }
+    command.add("-cp");
+    command.add(System.getProperty("java.class.path"));
+    // Current values of the configuration, which may have been set after the JVM started
+    Configuration.getProperties().forEach((property, value) -> {
+      if (!PARTITION_PROPERTIES.contains(property)) {
+        command.add("-D" + property + "=" + value);
+      }
+    });
+    command.add("-D" + Configuration.PROPERTY_PARTITION_WORKERS + "=" + partitions);
+    command.add("-D" + Configuration.PROPERTY_PARTITION_INDEX + "=" + partition);
+    command.add("-D" + Configuration.PROPERTY_PARTITION_OUTPUT + "=" + partialFeed);
+    command.add("org.example.Main");
+    return command;
+  }
+
+  private static boolean isDebuggerOption(String argument) {
+    return argument.startsWith("-agentlib:jdwp") || argument.startsWith("-Xrunjdwp") || argument.equals("-Xdebug");
+  }
+
+  private static boolean isConfigurationOption(String argument) {
+    if (!argument.startsWith("-D")) {
+      return false;
+    }
+    int separator = argument.indexOf('=');
+    return Configuration.isProperty(separator < 0 ? argument.substring(2) : argument.substring(2, separator));
+  }
+
+  /**
+   * Wait for all workers to finish; error out if any of them failed.
+   *
+   * @param workers The worker processes.
+   * @throws IOException Occurs when a worker exits with a failure code or the wait is interrupted.
+   */
+  private static void awaitWorkers(List<Process> workers) throws IOException {
+    try {
+      for (int partition = 0; partition < workers.size(); partition++) {
+        int exitCode = workers.get(partition).waitFor();
+        if (exitCode != 0) {
+          throw new IOException("Partition worker " + partition + " failed with exit code " + exitCode);
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while waiting for partition workers", e);
+    } finally {
+      workers.forEach(Process::destroy);
+    }
+  }
+
+  /**
+   * K-way merge of sorted partial feeds into a single feed in alphabetical user order.
+   * Each partial feed consists of user sections (user line followed by its tweet lines).
+   *
+   * @param partialFeeds The partial feed files, each sorted by user.
+   * @param output       The writer to write the merged feed to.
+   * @throws IOException Occurs when reading a partial feed or writing the output fails
+   */
+  public static void mergePartialFeeds(List<Path> partialFeeds, Writer output) throws IOException {
+    List<PartialFeedReader> readers = new ArrayList<>();
+    PriorityQueue<PartialFeedReader> queue = new PriorityQueue<>(Comparator.comparing(PartialFeedReader::getUser));
+
+    try {
+      for (Path partialFeed : partialFeeds) {
+        PartialFeedReader reader = new PartialFeedReader(Files.newBufferedReader(partialFeed, StandardCharsets.UTF_8));
+        readers.add(reader);
+        if (reader.getUser() != null) {
+          queue.add(reader);
+        }
+      }
+
+      while (!queue.isEmpty()) {
+        PartialFeedReader reader = queue.poll();
+        reader.copySection(output);
+        if (reader.getUser() != null) {
+          queue.add(reader);
+        }
+      }
+    } finally {
+      for (PartialFeedReader reader : readers) {
+        reader.close();
+      }
+    }
+  }
+
+  private static void deleteDirectory(Path directory) throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      for (Path file : (Iterable<Path>) files::iterator) {
+        Files.deleteIfExists(file);
+      }
+    }
+    Files.deleteIfExists(directory);
+  }
+
+  /**
+   * Reader over the user sections of a partial feed file.
+   */
+  private static final class PartialFeedReader implements AutoCloseable {
+
+    private final BufferedReader reader;
+    private String user;
+
+    PartialFeedReader(BufferedReader reader) throws IOException {
+      this.reader = reader;
+      this.user = reader.readLine();
+    }
+
+    /**
+     * @return The user of the current section, or null when the file is exhausted.
+     */
+    String getUser() {
+      return user;
+    }
+
+    /**
+     * Copy the current section (user line and tweet lines) to the output and advance to
+     * the next section.
+     *
+     * @param output The writer to copy the section to.
+     * @throws IOException Occurs when reading or writing fails
+     */
+    void copySection(Writer output) throws IOException {
+      output.write(user);
+      output.write('\n');
+
+      String line;
+      while ((line = reader.readLine()) != null && line.startsWith(TWEET_LINE_PREFIX)) {
+        output.write(line);
+        output.write('\n');
+      }
+      user = line;
+    }
+
+    @Override
+    public void close() throws IOException {
+      reader.close();
+    }
+  }
+}
@@ -0,0 +1,53 @@
+package org.example.service;
+
+import org.example.exception.DataException;
+import org.example.model.TwitterFollowers;
+import org.example.model.TwitterTweets;
+
+import java.io.IOException;
+import java.util.function.Predicate;
+
+/**
+ * Reference feed engine: the data mappers parse the input into TwitterFollowers and
+ * TwitterTweets, which fan out tweets per author. Other engines are checked against it.
+ */
+public class ReferenceFeedEngine implements FeedEngine {
+
+  public static final String NAME = "reference";
+
+  @Override
+  public String getName() {
+    return NAME;
+  }
+
+  @Override
+  public String produceTwitterFeed(String userFilePath, String tweetFilePath, Predicate<String> userFilter)
+      throws DataException, IOException {
+    TwitterFeedService.ParsedModel parsedModel = TwitterFeedService.parseModel(userFilePath, tweetFilePath, userFilter);
+    TwitterFollowers twitterFollowers = parsedModel.getTwitterFollowers();
+    TwitterTweets twitterTweets = parsedModel.getTwitterTweets();
+
+    /*
+    Loop through Twitter users from user input and extract their tweets
+    to be viewed based on who they are followers for.
+
+    Format:
+    X
+      <tab>@Y:<space>Z
+
+    X - Twitter user
+    Y - Twitter user that posted tweet
+    Z - Twitter tweet
+     */
+    StringBuilder twitterFeed = new StringBuilder();
+    for (String user : twitterFollowers.getUsers()) {
+      if (!userFilter.test(user)) {
+        continue;
+      }
+
+      TwitterFeedService.appendUserFeed(twitterFeed, user, twitterTweets.getTweets(user));
+    }
+
+    return twitterFeed.toString();
+  }
+}
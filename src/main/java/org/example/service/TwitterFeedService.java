@@ -2,15 +2,36 @@ package org.example.service;
 
 import lombok.extern.log4j.Log4j2;
 import org.example.exception.DataException;
+import org.example.mapper.DataMapper;
+import org.example.mapper.DegreeCounter;
+import org.example.mapper.InputValidator;
+import org.example.mapper.ShardedDataMapper;
 import org.example.mapper.TweetDataMapper;
 import org.example.mapper.UserDataMapper;
+import org.example.model.FeedIndex;
+import org.example.model.Footprint;
+import org.example.model.InputDegrees;
 import org.example.model.TwitterFollowers;
 import org.example.model.TwitterTweets;
+import org.example.store.FeedOffsetIndex;
+import org.example.store.FeedState;
 import org.example.utility.Configuration;
+import org.example.utility.MemoryBudget;
+import org.example.utility.ParallelGzipOutputStream;
 
+import java.io.BufferedOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Flow;
+import java.util.function.Predicate;
 
 /**
  * Service for generating the Twitter feed based on the file inputs.
@@ -18,6 +39,12 @@ import java.util.Set;
 @Log4j2
 public final class TwitterFeedService {
 
+  private static final String GZIP_EXTENSION = ".gz";
+  // Markers after the user of a delta section; user names never contain whitespace
+  static final String MARKER_APPEND = " +append";
+  static final String MARKER_REPLACE = " +replace";
+  static final String MARKER_REMOVED = " +removed";
+
   private TwitterFeedService() {
     // Private constructor
   }
@@ -31,47 +58,516 @@ public final class TwitterFeedService {
    * @throws IOException   Occurs when reading the input file fails
    */
   public static String produceTwitterFeed() throws DataException, IOException {
-    // Extract input via data mappers into POJO objects
-    UserDataMapper userDataMapper = new UserDataMapper();
-    TwitterFollowers twitterFollowers = userDataMapper.parseData(Configuration.getUserFilePath());
-    TweetDataMapper tweetDataMapper = new TweetDataMapper(twitterFollowers);
-    TwitterTweets twitterTweets = tweetDataMapper.parseData(Configuration.getTweetFilePath());
-
-    /*
-    If no users defined after parsing both user.txt and tweet.txt then error out
-    as we can't build a feed without users of tweets.
-     */
+    return produceTwitterFeed(user -> true);
+  }
+
+  /**
+   * Invoke the configured feed engine to extract data from input files and build Twitter
+   * feed for the users accepted by the filter only; tweets are also only fanned out to those users.
+   *
+   * @param userFilter Filter on the users to build the feed for (e.g. a partition of users).
+   * @return Twitter feed in correct format
+   * @throws DataException Occurs when a data record within input file is invalid such as pattern mismatch.
+   * @throws IOException   Occurs when reading the input file fails
+   */
+  public static String produceTwitterFeed(Predicate<String> userFilter) throws DataException, IOException {
+    FeedEngine feedEngine = FeedEngines.get(Configuration.getFeedEngine());
+    log.debug("Building Twitter feed with engine " + feedEngine.getName());
+
+    return feedEngine.produceTwitterFeed(Configuration.getUserFilePath(), Configuration.getTweetFilePath(), userFilter);
+  }
+
+  /**
+   * Invoke the configured feed engine and write the Twitter feed to a file instead of
+   * returning it. The reference engine's feed is rendered and written a user at a time, so
+   * the whole feed is never held in memory. A ".gz" output file is gzip compressed in
+   * parallel blocks (see {@link #openFeedOutput(Path)}). With output.index set, an uncompressed
+   * output file gets a sidecar FeedOffsetIndex to read single users from.
+   *
+   * @param outputFile The file to write the feed to; replaced once the feed is complete.
+   * @return Number of (uncompressed) feed bytes written
+   * @throws DataException Occurs when a data record within input file is invalid such as pattern mismatch.
+   * @throws IOException   Occurs when reading the input files or writing the output file fails
+   */
+  public static long writeTwitterFeed(Path outputFile) throws DataException, IOException {
+    if (!ReferenceFeedEngine.NAME.equals(Configuration.getFeedEngine())) {
+      // The offset index is built from the rendered sections, so only a feed without index is streamed
+      if (Configuration.isOutputIndex()) {
+        return writeFeedOutput(outputFile, produceTwitterFeed());
+      }
+      FeedEngine feedEngine = FeedEngines.get(Configuration.getFeedEngine());
+      log.debug("Writing Twitter feed with engine " + feedEngine.getName());
+      return writeOutput(outputFile, (out, offsetIndex) ->
+          feedEngine.writeTwitterFeed(Configuration.getUserFilePath(), Configuration.getTweetFilePath(), user -> true, out));
+    }
+
+    ParsedModel parsedModel = parseModel(Configuration.getUserFilePath(), Configuration.getTweetFilePath(), user -> true);
+    TwitterFollowers twitterFollowers = parsedModel.getTwitterFollowers();
+    TwitterTweets twitterTweets = parsedModel.getTwitterTweets();
+
+    return writeOutput(outputFile, (out, offsetIndex) -> {
+      long written = 0;
+      StringBuilder userFeed = new StringBuilder();
+      for (String user : twitterFollowers.getUsers()) {
+        userFeed.setLength(0);
+        appendUserFeed(userFeed, user, twitterTweets.getTweets(user));
+        byte[] userFeedBytes = userFeed.toString().getBytes(StandardCharsets.UTF_8);
+        out.write(userFeedBytes);
+        if (offsetIndex != null) {
+          offsetIndex.add(user, written, userFeedBytes.length);
+        }
+        written += userFeedBytes.length;
+      }
+      return written;
+    });
+  }
+
+  /**
+   * Write a rendered feed to a file; a ".gz" output file is gzip compressed in parallel blocks.
+   *
+   * @param outputFile  The file to write the feed to; replaced once the feed is complete.
+   * @param twitterFeed The rendered feed.
+   * @return Number of (uncompressed) feed bytes written
+   * @throws IOException Occurs when writing the output file fails
+   */
+  public static long writeFeedOutput(Path outputFile, String twitterFeed) throws IOException {
+    byte[] feedBytes = twitterFeed.getBytes(StandardCharsets.UTF_8);
+    return writeOutput(outputFile, (out, offsetIndex) -> {
+      out.write(feedBytes);
+      if (offsetIndex != null) {
+        offsetIndex.addSections(feedBytes, 0);
+      }
+      return feedBytes.length;
+    });
+  }
+
+  /**
+   * Open an output stream for a feed file. A file name ending in ".gz" gets a stream that
+   * cuts the feed into blocks of output.block.bytes, deflates them on output.compress.threads
+   * threads and writes them in order as concatenated gzip members, which standard gzip tools
+   * read as a single file.
+   *
+   * @param outputFile The file to write.
+   * @return Buffered (and possibly compressing) output stream; the caller closes it.
+   * @throws IOException Occurs when the file can't be created.
+   */
+  public static OutputStream openFeedOutput(Path outputFile) throws IOException {
+    return openFeedOutput(outputFile, isGzip(outputFile));
+  }
+
+  private static OutputStream openFeedOutput(Path file, boolean compressed) throws IOException {
+    OutputStream out = new BufferedOutputStream(Files.newOutputStream(file));
+    if (compressed) {
+      return new ParallelGzipOutputStream(out, Configuration.getOutputCompressThreads(), Configuration.getOutputBlockBytes());
+    }
+    return out;
+  }
+
+  private static boolean isGzip(Path outputFile) {
+    return outputFile.getFileName().toString().endsWith(GZIP_EXTENSION);
+  }
+
+  /**
+   * Write to a temporary file next to the output file, which replaces the output file once
+   * complete. With output.index set, the byte-offset index of an uncompressed output file is
+   * written next to it once the output file is in place.
+   */
+  private static <E extends Exception> long writeOutput(Path outputFile, FeedWriter<E> feedWriter) throws E, IOException {
+    Path absolute = outputFile.toAbsolutePath();
+    Path temporary = absolute.resolveSibling(absolute.getFileName() + ".tmp");
+    boolean compressed = isGzip(absolute);
+    FeedOffsetIndex.Builder offsetIndex = Configuration.isOutputIndex() && !compressed ? new FeedOffsetIndex.Builder() : null;
+    long startNanos = System.nanoTime();
+
+    long written;
+    try (OutputStream out = openFeedOutput(temporary, compressed)) {
+      written = feedWriter.write(out, offsetIndex);
+    } catch (Exception e) {
+      Files.deleteIfExists(temporary);
+      throw e;
+    }
+    long outputBytes = Files.size(temporary);
+    // A stale index must not outlive the output it describes
+    Files.deleteIfExists(FeedOffsetIndex.pathFor(absolute));
+    Files.move(temporary, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    if (offsetIndex != null) {
+      offsetIndex.write(absolute);
+    }
+
+    long elapsedNanos = Math.max(1, System.nanoTime() - startNanos);
+    log.info(String.format("Wrote %d feed bytes to %s (%d bytes on disk) in %d ms (%.1f MB/s)", written, absolute, outputBytes,
+        elapsedNanos / 1_000_000, written * 1e9 / elapsedNanos / (1024 * 1024)));
+    return written;
+  }
+
+  /**
+   * Invoke data mappers to extract data from input files and publish the Twitter feed as a
+   * chunk per user in alphabetical order. Chunks are rendered as the subscriber requests them,
+   * so a slow subscriber doesn't cause the whole feed to be held in memory.
+   *
+   * @return Publisher of the per-user feed chunks in correct format
+   * @throws DataException Occurs when a data record within input file is invalid such as pattern mismatch.
+   * @throws IOException   Occurs when reading the input file fails
+   */
+  public static Flow.Publisher<String> publishTwitterFeed() throws DataException, IOException {
+    ParsedModel parsedModel = parseModel(Configuration.getUserFilePath(), Configuration.getTweetFilePath(), user -> true);
+    TwitterFollowers twitterFollowers = parsedModel.getTwitterFollowers();
+    TwitterTweets twitterTweets = parsedModel.getTwitterTweets();
+
+    return new FeedPublisher(twitterFollowers, twitterTweets, user -> true);
+  }
+
+  /**
+   * Invoke data mappers to extract data from input files and build the Twitter feed of only
+   * the users whose feed changed since the run that wrote the state file. Every section is
+   * marked: if the previous feed of a user is a prefix of the new feed, only the new entries
+   * are emitted to be appended; otherwise (e.g. the user stopped following someone) the full
+   * feed is emitted to replace it. Users of the previous run that are gone are emitted as
+   * removed. The state file isn't touched; commit the returned delta once its output is
+   * persisted, so a failed write doesn't lose the changes for the next run.
+   *
+   * @param stateFile The per-user feed state of the previous run; absent for a first run.
+   * @return Twitter feed delta of the changed users in correct format
+   * @throws DataException Occurs when a data record within input file is invalid such as pattern mismatch.
+   * @throws IOException   Occurs when reading the input files or the state file fails
+   */
+  public static FeedDelta produceTwitterFeedDelta(Path stateFile) throws DataException, IOException {
+    FeedState previousState = FeedState.load(stateFile);
+    ParsedModel parsedModel = parseModel(Configuration.getUserFilePath(), Configuration.getTweetFilePath(), user -> true);
+    TwitterFollowers twitterFollowers = parsedModel.getTwitterFollowers();
+    TwitterTweets twitterTweets = parsedModel.getTwitterTweets();
+
+    log.debug("Building Twitter feed delta output");
+
+    FeedState currentState = new FeedState();
+    StringBuilder twitterFeed = new StringBuilder();
+    int changedFeeds = 0;
+    for (String user : twitterFollowers.getUsers()) {
+      List<String> userTweets = twitterTweets.getTweets(user);
+      int previousLength = previousState.getLength(user);
+
+      // Hash the feed, remembering the hash of the prefix the previous run emitted
+      long hash = FeedState.INITIAL_HASH;
+      long prefixHash = previousLength == 0 ? hash : ~previousState.getHash(user);
+      for (int i = 0; i < userTweets.size(); i++) {
+        hash = FeedState.hash(hash, userTweets.get(i));
+        if (i + 1 == previousLength) {
+          prefixHash = hash;
+        }
+      }
+      currentState.put(user, userTweets.size(), hash);
+
+      boolean unchanged = previousState.hasUser(user) && previousLength == userTweets.size() && previousState.getHash(user) == hash;
+      if (unchanged) {
+        continue;
+      }
+
+      changedFeeds++;
+      boolean appended = previousLength <= userTweets.size() && prefixHash == previousState.getHash(user);
+      twitterFeed.append(user).append(appended ? MARKER_APPEND : MARKER_REPLACE).append("\n");
+      for (String tweet : appended ? userTweets.subList(previousLength, userTweets.size()) : userTweets) {
+        twitterFeed.append("\t").append(tweet).append("\n");
+      }
+    }
+
+    // Users of the previous run missing from the input, in natural order
+    List<String> removedUsers = new ArrayList<>();
+    for (String user : previousState.getUsers()) {
+      if (!currentState.hasUser(user)) {
+        removedUsers.add(user);
+      }
+    }
+    Collections.sort(removedUsers);
+    for (String user : removedUsers) {
+      twitterFeed.append(user).append(MARKER_REMOVED).append("\n");
+    }
+    log.info(changedFeeds + " of " + twitterFollowers.getUsers().size() + " feeds changed and " + removedUsers.size()
+        + " removed since previous run");
+
+    return new FeedDelta(twitterFeed.toString(), currentState, stateFile);
+  }
+
+  /**
+   * Render the feed of a single user in the documented format.
+   *
+   * @param twitterFeed The builder to append the feed to.
+   * @param user        The Twitter user.
+   * @param userTweets  The tweets the user should see on their feed.
+   */
+  static void appendUserFeed(StringBuilder twitterFeed, String user, List<String> userTweets) {
+    twitterFeed.append(user).append("\n");
+
+    if (userTweets != null && !userTweets.isEmpty()) {
+      for (String tweet : userTweets) {
+        twitterFeed.append("\t").append(tweet).append("\n");
+      }
+    }
+  }
+
+  /**
+   * Invoke data mappers to extract data from input files and open a long-running feed
+   * service that serves rendered per-user feeds from a cache and accepts new tweets.
+   * When a tweet log is configured, the tweets it holds are replayed on top of the input files.
+   *
+   * @return LiveFeedService over all users
+   * @throws DataException Occurs when a data record within input file is invalid such as pattern mismatch.
+   * @throws IOException   Occurs when reading the input file fails
+   */
+  public static LiveFeedService openLiveFeed() throws DataException, IOException {
+    ParsedModel parsedModel = parseModel(Configuration.getUserFilePath(), Configuration.getTweetFilePath(), user -> true);
+    TwitterFollowers twitterFollowers = parsedModel.getTwitterFollowers();
+    TwitterTweets twitterTweets = parsedModel.getTwitterTweets();
+
+    LiveFeedService liveFeedService = new LiveFeedService(twitterFollowers, twitterTweets, new FeedCache(Configuration.getFeedCacheBytes()),
+        Configuration.getLookupThreads());
+
+    // Rebuild the tweets added in earlier runs from the durable log, if configured
+    if (Configuration.getTweetLogPath() != null) {
+      liveFeedService.openTweetLog(Path.of(Configuration.getTweetLogPath()),
+          Configuration.getTweetLogSegmentBytes(), Configuration.getTweetLogSyncEvery());
+    }
+
+    return liveFeedService;
+  }
+
+  /**
+   * Invoke data mappers to extract data from input files and build a read-only index
+   * that can be queried per user (e.g. a page of a single user's feed).
+   *
+   * @return FeedIndex over all users
+   * @throws DataException Occurs when a data record within input file is invalid such as pattern mismatch.
+   * @throws IOException   Occurs when reading the input file fails
+   */
+  public static FeedIndex buildFeedIndex() throws DataException, IOException {
+    ParsedModel parsedModel = parseModel(Configuration.getUserFilePath(), Configuration.getTweetFilePath(), user -> true);
+    TwitterFollowers twitterFollowers = parsedModel.getTwitterFollowers();
+    TwitterTweets twitterTweets = parsedModel.getTwitterTweets();
+
+    log.debug("Building Twitter feed index");
+    return new FeedIndex(twitterFollowers, twitterTweets, user -> true, Configuration.getCompactThresholdBytes());
+  }
+
+  /**
+   * Check every record of the user and tweet inputs (all shards) against the grammar of the
+   * data mappers, without building the feed.
+   *
+   * @return Validation report per input file, user files first
+   * @throws IOException Occurs when reading the input file fails
+   */
+  public static List<InputValidator.ValidationReport> validateInputs() throws IOException {
+    InputValidator inputValidator = new InputValidator(Configuration.getValidateThreads(), Configuration.getValidateReportLimit());
+    List<InputValidator.ValidationReport> reports = new ArrayList<>();
+    for (String userFilePath : ShardedDataMapper.resolveShards(Configuration.getUserFilePath())) {
+      reports.add(inputValidator.validate(userFilePath, InputValidator.RecordType.USER));
+    }
+    for (String tweetFilePath : ShardedDataMapper.resolveShards(Configuration.getTweetFilePath())) {
+      reports.add(inputValidator.validate(tweetFilePath, InputValidator.RecordType.TWEET));
+    }
+    return reports;
+  }
+
+  /**
+   * Extract both inputs via data mappers into the model the feeds are built from, charging
+   * a new memory budget, and log its estimated footprint.
+   *
+   * @param userFilePath  Path to the user input (file, directory or glob).
+   * @param tweetFilePath Path to the tweet input (file, directory or glob).
+   * @param userFilter    Filter on the users receiving tweets.
+   * @return The parsed followers and tweets
+   * @throws DataException Occurs when a data record within input file is invalid or no users are found.
+   * @throws IOException   Occurs when reading the input file fails
+   */
+  static ParsedModel parseModel(String userFilePath, String tweetFilePath, Predicate<String> userFilter) throws DataException, IOException {
+    MemoryBudget memoryBudget = newMemoryBudget();
+    TwitterFollowers twitterFollowers = parseTwitterFollowers(userFilePath, tweetFilePath, memoryBudget);
+    TwitterTweets twitterTweets = parseTwitterTweets(twitterFollowers, tweetFilePath, userFilter, memoryBudget);
+    logFootprint(twitterFollowers, twitterTweets, memoryBudget);
+    return new ParsedModel(twitterFollowers, twitterTweets);
+  }
+
+  /**
+   * Extract the user input via data mappers into POJO object, as below. When the two-pass
+   * ingest is configured and both inputs are single files, the degrees of both inputs are
+   * counted first; the follower graph and the tweets parsed against it are then created at
+   * their final size, and the estimated footprint is checked against the budget up front.
+   *
+   * @param userFilePath  Path to the user input (file, directory or glob).
+   * @param tweetFilePath Path to the tweet input (file, directory or glob), counted for pre-sizing.
+   * @param memoryBudget  Budget the estimated footprint of the followers is charged to.
+   * @return TwitterFollowers POJO object
+   * @throws DataException Occurs when a data record within input file is invalid or the estimate exceeds the budget.
+   * @throws IOException   Occurs when reading the input file fails
+   */
+  private static TwitterFollowers parseTwitterFollowers(String userFilePath, String tweetFilePath, MemoryBudget memoryBudget)
+      throws DataException, IOException {
+    if (!Configuration.isIngestPresize()) {
+      return parseTwitterFollowers(userFilePath, memoryBudget);
+    }
+    // Shards are parsed into separate instances, which can't be sized from the totals
+    List<String> userShards = ShardedDataMapper.resolveShards(userFilePath);
+    List<String> tweetShards = ShardedDataMapper.resolveShards(tweetFilePath);
+    if (userShards.size() > 1 || tweetShards.size() > 1) {
+      log.info("Skipping pre-sizing for sharded input");
+      return parseTwitterFollowers(userFilePath, memoryBudget);
+    }
+
+    long startNanos = System.nanoTime();
+    InputDegrees inputDegrees = new DegreeCounter().count(userShards.get(0), tweetShards.get(0));
+    log.info("Counted " + inputDegrees + " in " + (System.nanoTime() - startNanos) / 1_000_000 + " ms");
+    // The counts stay reachable until the tweets are filled, so they add to the peak
+    memoryBudget.checkEstimate(inputDegrees.getEstimatedBytes() + inputDegrees.getRetainedBytes(), "the counted inputs and their counts");
+
+    return new UserDataMapper(memoryBudget, inputDegrees).parseData(userShards.get(0));
+  }
+
+  /**
+   * Extract the user input via data mappers into POJO object.
+   * Input path can be a directory or glob of shards that are parsed concurrently
+   * and merged in file name order.
+   *
+   * @param userFilePath Path to the user input (file, directory or glob).
+   * @param memoryBudget Budget the estimated footprint of the followers is charged to.
+   * @return TwitterFollowers POJO object
+   * @throws DataException Occurs when a data record within input file is invalid such as pattern mismatch.
+   * @throws IOException   Occurs when reading the input file fails
+   */
+  static TwitterFollowers parseTwitterFollowers(String userFilePath, MemoryBudget memoryBudget) throws DataException, IOException {
+    DataMapper<TwitterFollowers> userDataMapper = new ShardedDataMapper<>(() -> new UserDataMapper(memoryBudget), (left, right) -> {
+      left.merge(right);
+      return left;
+    });
+    return userDataMapper.parseData(userFilePath);
+  }
+
+  /**
+   * Extract the tweet input via data mappers into POJO object; tweets are only fanned
+   * out to the users accepted by the filter. When a checkpoint directory is configured,
+   * the parse of every tweet input is checkpointed and resumed from its checkpoint.
+   * <p>
+   * If no users defined after parsing both user.txt and tweet.txt then error out
+   * as we can't build a feed without users of tweets.
+   *
+   * @param twitterFollowers TwitterFollowers POJO object
+   * @param tweetFilePath    Path to the tweet input (file, directory or glob).
+   * @param userFilter       Filter on the users receiving tweets.
+   * @param memoryBudget     Budget the estimated footprint of the tweets is charged to.
+   * @return TwitterTweets POJO object
+   * @throws DataException Occurs when a data record within input file is invalid or no users are found.
+   * @throws IOException   Occurs when reading the input file fails
+   */
+  private static TwitterTweets parseTwitterTweets(TwitterFollowers twitterFollowers, String tweetFilePath, Predicate<String> userFilter,
+                                                  MemoryBudget memoryBudget) throws DataException, IOException {
+    Path checkpointDirectory = Configuration.getCheckpointPath() == null ? null : Path.of(Configuration.getCheckpointPath());
+    if (checkpointDirectory != null) {
+      Files.createDirectories(checkpointDirectory);
+    }
+
+    DataMapper<TwitterTweets> tweetDataMapper = new ShardedDataMapper<>(
+        () -> new TweetDataMapper(twitterFollowers, userFilter, memoryBudget, checkpointDirectory, Configuration.getCheckpointIntervalLines(),
+            Configuration.isCheckpointVerifyPrefix()),
+        (left, right) -> {
+          left.merge(right);
+          return left;
+        });
+    TwitterTweets twitterTweets = tweetDataMapper.parseData(tweetFilePath);
+
     Set<String> users = twitterFollowers.getUsers();
     if (users == null || users.isEmpty()) {
       throw new DataException("No Twitter users found so no feed can be produced.");
     }
 
-    log.debug("Building Twitter feed output");
+    return twitterTweets;
+  }
 
-    /*
-    Loop through Twitter users from user input and extract their tweets
-    to be viewed based on who they are followers for.
+  /**
+   * Create the memory budget for a run from the configuration.
+   *
+   * @return MemoryBudget with the configured limit (unlimited when not set).
+   */
+  static MemoryBudget newMemoryBudget() {
+    return new MemoryBudget(Configuration.getMemoryBudgetBytes());
+  }
+
+  /**
+   * Log the end-of-run summary of the estimated memory footprint of the parsed model.
+   *
+   * @param twitterFollowers TwitterFollowers POJO object
+   * @param twitterTweets    TwitterTweets POJO object
+   * @param memoryBudget     The budget the parsing was charged to.
+   */
+  private static void logFootprint(TwitterFollowers twitterFollowers, TwitterTweets twitterTweets, MemoryBudget memoryBudget) {
+    Footprint followersFootprint = twitterFollowers.getFootprint();
+    Footprint tweetsFootprint = twitterTweets.getFootprint();
+    long totalBytes = followersFootprint.getEstimatedBytes() + tweetsFootprint.getEstimatedBytes();
 
-    Format:
-    X
-      <tab>@Y:<space>Z
+    log.info("Estimated memory footprint " + (totalBytes / 1024) + " KiB; followers " + followersFootprint
+        + ", tweets " + tweetsFootprint + ", " + memoryBudget);
+  }
 
-    X - Twitter user
-    Y - Twitter user that posted tweet
-    Z - Twitter tweet
+  /**
+   * The model parsed from the inputs: the follower graph and the tweets fanned out over it.
+   */
+  static final class ParsedModel {
+
+    private final TwitterFollowers twitterFollowers;
+    private final TwitterTweets twitterTweets;
+
+    private ParsedModel(TwitterFollowers twitterFollowers, TwitterTweets twitterTweets) {
+      this.twitterFollowers = twitterFollowers;
+      this.twitterTweets = twitterTweets;
+    }
+
+    TwitterFollowers getTwitterFollowers() {
+      return twitterFollowers;
+    }
+
+    TwitterTweets getTwitterTweets() {
+      return twitterTweets;
+    }
+  }
+
+  /**
+   * Outcome of a delta run: the output and the feed state it brings a consumer to.
+   */
+  public static final class FeedDelta {
+
+    private final String twitterFeed;
+    private final FeedState feedState;
+    private final Path stateFile;
+
+    FeedDelta(String twitterFeed, FeedState feedState, Path stateFile) {
+      this.twitterFeed = twitterFeed;
+      this.feedState = feedState;
+      this.stateFile = stateFile;
+    }
+
+    /**
+     * Get the delta output; every section starts with the user and a marker to append the
+     * entries that follow, replace the feed with them or remove the user.
+     *
+     * @return Twitter feed delta in correct format
      */
-    StringBuilder twitterFeed = new StringBuilder();
-    for (String user : users) {
-      twitterFeed.append(user).append("\n");
+    public String getTwitterFeed() {
+      return twitterFeed;
+    }
 
-      List<String> userTweets = twitterTweets.getTweets(user);
-      if (userTweets != null && !userTweets.isEmpty()) {
-        for (String tweet : userTweets) {
-          twitterFeed.append("\t").append(tweet).append("\n");
-        }
-      }
+    /**
+     * Save the feed state for the next run; call once the output is persisted.
+     *
+     * @throws IOException Occurs when the state file can't be written.
+     */
+    public void commit() throws IOException {
+      feedState.save(stateFile);
     }
+  }
 
-    return twitterFeed.toString();
+  /**
+   * Writes a feed to an output stream and adds the user sections to the offset index, if any.
+   *
+   * @param <E> Exception thrown besides IOException, e.g. a DataException of an engine parsing while it writes.
+   */
+  @FunctionalInterface
+  private interface FeedWriter<E extends Exception> {
+    long write(OutputStream out, FeedOffsetIndex.Builder offsetIndex) throws E, IOException;
   }
 }
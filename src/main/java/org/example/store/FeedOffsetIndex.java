@@ -0,0 +1,294 @@
+package org.example.store;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Sidecar index of a feed output file: per user the byte offset and length of their section
+ * (the user line and their tweet lines) in the feed file. The index is memory-mapped and
+ * binary searched, so reading the feed of one user costs a few index pages and a single
+ * read of the section, whatever the size of the feed file.
+ * <p>
+ * Layout (little endian): magic (int), version (int), user count (long), size of the feed
+ * file (long), an entry per user in natural order of the user names and the user names
+ * (UTF-8). An entry holds the offset of the user name (long), the offset and the length of
+ * the section in the feed file (longs) and the length of the user name (int).
+ */
+public class FeedOffsetIndex implements Closeable {
+
+  public static final String SUFFIX = ".idx";
+
+  private static final int MAGIC = 0x58444946;
+  private static final int VERSION = 1;
+  private static final int HEADER_BYTES = 2 * Integer.BYTES + 2 * Long.BYTES;
+  private static final int ENTRY_BYTES = 3 * Long.BYTES + Integer.BYTES;
+
+  private final Path indexFile;
+  private final MappedByteBuffer index;
+  private final FileChannel feed;
+  private final long feedBytes;
+  private final int userCount;
+
+  private FeedOffsetIndex(Path indexFile, MappedByteBuffer index, FileChannel feed, long feedBytes, int userCount) {
+    this.indexFile = indexFile;
+    this.index = index;
+    this.feed = feed;
+    this.feedBytes = feedBytes;
+    this.userCount = userCount;
+  }
+
+  /**
+   * Get the index file of a feed output file.
+   *
+   * @param feedFile The feed output file.
+   * @return The sidecar index path (feed file name with ".idx" appended).
+   */
+  public static Path pathFor(Path feedFile) {
+    return feedFile.resolveSibling(feedFile.getFileName() + SUFFIX);
+  }
+
+  /**
+   * Open the index of a feed file for lookups.
+   *
+   * @param feedFile The feed output file; its index is expected at {@link #pathFor(Path)}.
+   * @return The opened index; close it to release the feed file.
+   * @throws IOException Occurs when either file can't be read, the index is malformed or
+   *                     doesn't belong to the feed file (e.g. the feed was rewritten without it).
+   */
+  public static FeedOffsetIndex open(Path feedFile) throws IOException {
+    Path indexFile = pathFor(feedFile);
+    MappedByteBuffer index;
+    try (FileChannel channel = FileChannel.open(indexFile, StandardOpenOption.READ)) {
+      if (channel.size() < HEADER_BYTES || channel.size() > Integer.MAX_VALUE) {
+        throw new IOException("Feed index " + indexFile + " is malformed");
+      }
+      index = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+    index.order(ByteOrder.LITTLE_ENDIAN);
+
+    long userCount = index.getLong(2 * Integer.BYTES);
+    if (index.getInt(0) != MAGIC || index.getInt(Integer.BYTES) != VERSION
+        || userCount < 0 || HEADER_BYTES + userCount * ENTRY_BYTES > index.capacity()) {
+      throw new IOException("Feed index " + indexFile + " is malformed");
+    }
+
+    FileChannel feed = FileChannel.open(feedFile, StandardOpenOption.READ);
+    long feedBytes = feed.size();
+    if (feedBytes != index.getLong(2 * Integer.BYTES + Long.BYTES)) {
+      feed.close();
+      throw new IOException("Feed index " + indexFile + " doesn't match feed file " + feedFile);
+    }
+    return new FeedOffsetIndex(indexFile, index, feed, feedBytes, (int) userCount);
+  }
+
+  /**
+   * Read the section of a user from the feed file.
+   *
+   * @param user The Twitter user.
+   * @return The section bytes (user line and tweet lines), or null if the user isn't in the feed.
+   * @throws IOException Occurs when the feed file can't be read or the index entry is malformed.
+   */
+  public byte[] readSection(String user) throws IOException {
+    int entry = find(user.getBytes(StandardCharsets.UTF_8));
+    if (entry < 0) {
+      return null;
+    }
+
+    int entryOffset = HEADER_BYTES + entry * ENTRY_BYTES;
+    long sectionOffset = index.getLong(entryOffset + Long.BYTES);
+    long sectionLength = index.getLong(entryOffset + 2 * Long.BYTES);
+    // Entries are only read when looked up, so they are checked here rather than on open
+    if (sectionOffset < 0 || sectionLength < 0 || sectionLength > feedBytes - sectionOffset) {
+      throw new IOException("Feed index " + indexFile + " is malformed");
+    }
+    if (sectionLength > Integer.MAX_VALUE) {
+      throw new IOException("Feed section of " + user + " is too large to read at once: " + sectionLength + " bytes");
+    }
+
+    ByteBuffer section = ByteBuffer.allocate((int) sectionLength);
+    while (section.hasRemaining()) {
+      if (feed.read(section, sectionOffset + section.position()) < 0) {
+        throw new IOException("Feed file ends before the section of " + user);
+      }
+    }
+    return section.array();
+  }
+
+  /**
+   * Read the section of a user from the feed file as text.
+   *
+   * @param user The Twitter user.
+   * @return The section in the documented feed format, or null if the user isn't in the feed.
+   * @throws IOException Occurs when the feed file can't be read or the index entry is malformed.
+   */
+  public String readUserFeed(String user) throws IOException {
+    byte[] section = readSection(user);
+    return section == null ? null : new String(section, StandardCharsets.UTF_8);
+  }
+
+  public int getUserCount() {
+    return userCount;
+  }
+
+  @Override
+  public void close() throws IOException {
+    feed.close();
+  }
+
+  /**
+   * Binary search the entries for a user name.
+   *
+   * @return Index of the entry, or -1 if there is none for the name.
+   * @throws IOException Occurs when the name of a visited entry lies outside the names of the index.
+   */
+  private int find(byte[] name) throws IOException {
+    int low = 0;
+    int high = userCount - 1;
+    while (low <= high) {
+      int middle = (low + high) >>> 1;
+      int comparison = compareName(middle, name);
+      if (comparison < 0) {
+        low = middle + 1;
+      } else if (comparison > 0) {
+        high = middle - 1;
+      } else {
+        return middle;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Compare the user name of an entry with a name, by unsigned bytes (the natural order of
+   * the user names, which are ASCII).
+   */
+  private int compareName(int entry, byte[] name) throws IOException {
+    int entryOffset = HEADER_BYTES + entry * ENTRY_BYTES;
+    long nameOffset = index.getLong(entryOffset);
+    int nameLength = index.getInt(entryOffset + 3 * Long.BYTES);
+    long namesStart = HEADER_BYTES + (long) userCount * ENTRY_BYTES;
+    if (nameOffset < namesStart || nameLength < 0 || nameLength > index.capacity() - nameOffset) {
+      throw new IOException("Feed index " + indexFile + " is malformed");
+    }
+    int length = Math.min(nameLength, name.length);
+    for (int i = 0; i < length; i++) {
+      int comparison = Integer.compare(index.get((int) nameOffset + i) & 0xFF, name[i] & 0xFF);
+      if (comparison != 0) {
+        return comparison;
+      }
+    }
+    return Integer.compare(nameLength, name.length);
+  }
+
+  /**
+   * Collects the sections of a feed as it is written and writes the index.
+   */
+  public static final class Builder {
+
+    private final List<Section> sections = new ArrayList<>();
+
+    /**
+     * Add the section of a user.
+     *
+     * @param user   The Twitter user.
+     * @param offset Byte offset of the user line in the feed file.
+     * @param length Number of bytes of the user line and tweet lines.
+     */
+    public void add(String user, long offset, long length) {
+      sections.add(new Section(user, offset, length));
+    }
+
+    /**
+     * Add the sections of a rendered feed: every line that isn't a tweet line (starting with
+     * a tab) starts the section of the user it names.
+     *
+     * @param feed       The rendered feed (UTF-8).
+     * @param feedOffset Byte offset of the rendered feed in the feed file.
+     */
+    public void addSections(byte[] feed, long feedOffset) {
+      int sectionStart = -1;
+      String user = null;
+      int lineStart = 0;
+      while (lineStart < feed.length) {
+        int lineEnd = lineStart;
+        while (lineEnd < feed.length && feed[lineEnd] != '\n') {
+          lineEnd++;
+        }
+        if (feed[lineStart] != '\t') {
+          if (user != null) {
+            add(user, feedOffset + sectionStart, lineStart - sectionStart);
+          }
+          sectionStart = lineStart;
+          user = new String(feed, lineStart, lineEnd - lineStart, StandardCharsets.UTF_8);
+        }
+        lineStart = lineEnd + 1;
+      }
+      if (user != null) {
+        add(user, feedOffset + sectionStart, feed.length - sectionStart);
+      }
+    }
+
+    /**
+     * Write the index of a feed file; the index file is replaced atomically.
+     *
+     * @param feedFile The complete feed file the sections were collected for.
+     * @throws IOException Occurs when the index can't be written.
+     */
+    public void write(Path feedFile) throws IOException {
+      sections.sort(Comparator.comparing(section -> section.user));
+      List<byte[]> names = new ArrayList<>(sections.size());
+      long nameBytes = 0;
+      for (Section section : sections) {
+        byte[] name = section.user.getBytes(StandardCharsets.UTF_8);
+        names.add(name);
+        nameBytes += name.length;
+      }
+      long indexBytes = HEADER_BYTES + (long) sections.size() * ENTRY_BYTES + nameBytes;
+      if (indexBytes > Integer.MAX_VALUE) {
+        throw new IOException("Feed index of " + sections.size() + " users exceeds the maximum index size");
+      }
+
+      ByteBuffer index = ByteBuffer.allocate((int) indexBytes).order(ByteOrder.LITTLE_ENDIAN);
+      index.putInt(MAGIC).putInt(VERSION).putLong(sections.size()).putLong(Files.size(feedFile));
+      long nameOffset = HEADER_BYTES + (long) sections.size() * ENTRY_BYTES;
+      for (int i = 0; i < sections.size(); i++) {
+        Section section = sections.get(i);
+        index.putLong(nameOffset).putLong(section.offset).putLong(section.length).putInt(names.get(i).length);
+        nameOffset += names.get(i).length;
+      }
+      for (byte[] name : names) {
+        index.put(name);
+      }
+
+      Path indexFile = pathFor(feedFile.toAbsolutePath());
+      Path temporary = indexFile.resolveSibling(indexFile.getFileName() + ".tmp");
+      Files.write(temporary, index.array());
+      Files.move(temporary, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+  }
+
+  private static final class Section {
+
+    private final String user;
+    private final long offset;
+    private final long length;
+
+    Section(String user, long offset, long length) {
+      this.user = user;
+      this.offset = offset;
+      this.length = length;
+    }
+  }
+}
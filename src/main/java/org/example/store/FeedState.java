@@ -0,0 +1,175 @@
+package org.example.store;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Per-user feed state of a previous run: the number of feed entries and a hash over those
+ * entries. Used to emit only the feeds that changed since that run.
+ * <p>
+ * Stored as text, one line per user: user, entry count and hash (hex) separated by tabs.
+ */
+public class FeedState {
+
+  // FNV-1a 64 bit parameters
+  public static final long INITIAL_HASH = 0xcbf29ce484222325L;
+  private static final long FNV_PRIME = 0x100000001b3L;
+  private static final String DELIMITER = "\t";
+
+  private final Map<String, UserFeedState> users;
+
+  /**
+   * Constructor for an empty state.
+   */
+  public FeedState() {
+    this(new HashMap<>());
+  }
+
+  private FeedState(Map<String, UserFeedState> users) {
+    this.users = users;
+  }
+
+  /**
+   * Extend a feed hash with the next feed entry.
+   *
+   * @param hash  Hash of the previous entries (INITIAL_HASH for none).
+   * @param entry The next feed entry.
+   * @return Hash including the entry.
+   */
+  public static long hash(long hash, String entry) {
+    for (int i = 0; i < entry.length(); i++) {
+      hash = (hash ^ entry.charAt(i)) * FNV_PRIME;
+    }
+    // Entry separator, so that entry boundaries are part of the hash
+    return (hash ^ '\n') * FNV_PRIME;
+  }
+
+  /**
+   * Record the feed state of a user.
+   *
+   * @param user   The Twitter user.
+   * @param length Number of feed entries.
+   * @param hash   Hash over all feed entries.
+   */
+  public void put(String user, int length, long hash) {
+    users.put(user, new UserFeedState(length, hash));
+  }
+
+  /**
+   * Get the number of feed entries of a user.
+   *
+   * @param user The Twitter user.
+   * @return Entry count, 0 if the user has no recorded state.
+   */
+  public int getLength(String user) {
+    UserFeedState state = users.get(user);
+    return state == null ? 0 : state.length;
+  }
+
+  /**
+   * Get the hash over the feed entries of a user.
+   *
+   * @param user The Twitter user.
+   * @return Hash, INITIAL_HASH if the user has no recorded state.
+   */
+  public long getHash(String user) {
+    UserFeedState state = users.get(user);
+    return state == null ? INITIAL_HASH : state.hash;
+  }
+
+  /**
+   * Does the state contain the user
+   *
+   * @param user The Twitter user.
+   * @return true if state is recorded for the user, otherwise false.
+   */
+  public boolean hasUser(String user) {
+    return users.containsKey(user);
+  }
+
+  /**
+   * Get the users with recorded state
+   *
+   * @return Read-only set of users, in no particular order.
+   */
+  public Set<String> getUsers() {
+    return Collections.unmodifiableSet(users.keySet());
+  }
+
+  /**
+   * Load the state written by a previous run.
+   *
+   * @param stateFile The state file.
+   * @return The loaded state; empty if the file doesn't exist.
+   * @throws IOException Occurs when the file can't be read or is malformed.
+   */
+  public static FeedState load(Path stateFile) throws IOException {
+    FeedState feedState = new FeedState();
+    if (Files.notExists(stateFile)) {
+      return feedState;
+    }
+
+    try (BufferedReader reader = Files.newBufferedReader(stateFile, StandardCharsets.UTF_8)) {
+      String line;
+      int lineCounter = 0;
+      while ((line = reader.readLine()) != null) {
+        lineCounter++;
+        String[] fields = line.split(DELIMITER);
+        if (fields.length != 3) {
+          throw new IOException("Feed state record on line " + lineCounter + " is malformed.\nRecord: " + line);
+        }
+        try {
+          feedState.put(fields[0], Integer.parseInt(fields[1]), Long.parseUnsignedLong(fields[2], 16));
+        } catch (NumberFormatException e) {
+          throw new IOException("Feed state record on line " + lineCounter + " is malformed.\nRecord: " + line, e);
+        }
+      }
+    }
+    return feedState;
+  }
+
+  /**
+   * Write the state for the next run; the file is replaced atomically.
+   *
+   * @param stateFile The state file.
+   * @throws IOException Occurs when the file can't be written.
+   */
+  public void save(Path stateFile) throws IOException {
+    Path absolute = stateFile.toAbsolutePath();
+    Path temporary = absolute.resolveSibling(absolute.getFileName() + ".tmp");
+
+    try (BufferedWriter writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+      for (Map.Entry<String, UserFeedState> entry : new TreeMap<>(users).entrySet()) {
+        writer.write(entry.getKey());
+        writer.write(DELIMITER);
+        writer.write(Integer.toString(entry.getValue().length));
+        writer.write(DELIMITER);
+        writer.write(Long.toHexString(entry.getValue().hash));
+        writer.newLine();
+      }
+    }
+
+    Files.move(temporary, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  private static final class UserFeedState {
+
+    private final int length;
+    private final long hash;
+
+    UserFeedState(int length, long hash) {
+      this.length = length;
+      this.hash = hash;
+    }
+  }
+}
@@ -0,0 +1,108 @@
+package org.example.store;
+
+import lombok.extern.log4j.Log4j2;
+
+import java.io.Closeable;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Arena allocator for off-heap memory (direct ByteBuffers). Everything allocated from an
+ * arena is freed together when the arena is closed, rather than whenever the garbage
+ * collector finds the buffers unreachable; the heap only holds the buffer handles.
+ * <p>
+ * Buffers must not be used after the arena is closed.
+ */
+@Log4j2
+public class OffHeapArena implements Closeable {
+
+  // Frees a direct buffer immediately; null if the JVM doesn't allow it (then GC frees it)
+  private static final BufferFreer FREER = BufferFreer.create();
+
+  private final List<ByteBuffer> buffers = new ArrayList<>();
+  private long allocatedBytes;
+  private boolean closed;
+
+  /**
+   * Allocate a zero-filled off-heap buffer in native byte order.
+   *
+   * @param bytes Size of the buffer.
+   * @return The buffer, owned by this arena.
+   */
+  public synchronized ByteBuffer allocate(int bytes) {
+    if (closed) {
+      throw new IllegalStateException("Arena is closed");
+    }
+
+    ByteBuffer buffer = ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder());
+    buffers.add(buffer);
+    allocatedBytes += bytes;
+    return buffer;
+  }
+
+  /**
+   * Get the number of bytes allocated from this arena and not yet freed.
+   *
+   * @return Allocated bytes.
+   */
+  public synchronized long getAllocatedBytes() {
+    return allocatedBytes;
+  }
+
+  /**
+   * Free all buffers allocated from this arena.
+   */
+  @Override
+  public synchronized void close() {
+    if (closed) {
+      return;
+    }
+    closed = true;
+
+    if (FREER != null) {
+      buffers.forEach(FREER::free);
+    }
+    log.debug("Freed " + buffers.size() + " off-heap buffers of " + allocatedBytes + " bytes");
+    buffers.clear();
+    allocatedBytes = 0;
+  }
+
+  /**
+   * Immediate release of direct buffers through sun.misc.Unsafe#invokeCleaner, which is
+   * looked up reflectively as it is not part of the public API.
+   */
+  private static final class BufferFreer {
+
+    private final Object unsafe;
+    private final Method invokeCleaner;
+
+    private BufferFreer(Object unsafe, Method invokeCleaner) {
+      this.unsafe = unsafe;
+      this.invokeCleaner = invokeCleaner;
+    }
+
+    static BufferFreer create() {
+      try {
+        Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+        Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+        theUnsafe.setAccessible(true);
+        return new BufferFreer(theUnsafe.get(null), unsafeClass.getMethod("invokeCleaner", ByteBuffer.class));
+      } catch (ReflectiveOperationException | RuntimeException e) {
+        log.debug("Off-heap buffers are freed by the garbage collector: " + e);
+        return null;
+      }
+    }
+
+    void free(ByteBuffer buffer) {
+      try {
+        invokeCleaner.invoke(unsafe, buffer);
+      } catch (ReflectiveOperationException e) {
+        log.debug("Failed to free off-heap buffer: " + e);
+      }
+    }
+  }
+}
@@ -0,0 +1,41 @@
+package org.example.store;
+
+import java.nio.IntBuffer;
+
+/**
+ * Fixed-length int array in off-heap memory, split over buffers of up to 512 MiB so that
+ * it can hold more than a single buffer allows.
+ */
+public class OffHeapIntArray {
+
+  private static final int CHUNK_SHIFT = 27;
+  private static final int CHUNK_MASK = (1 << CHUNK_SHIFT) - 1;
+
+  private final IntBuffer[] chunks;
+  private final long length;
+
+  /**
+   * @param arena  The arena to allocate from.
+   * @param length Number of elements; all are 0 initially.
+   */
+  public OffHeapIntArray(OffHeapArena arena, long length) {
+    this.length = length;
+    this.chunks = new IntBuffer[(int) ((length + CHUNK_MASK) >>> CHUNK_SHIFT)];
+    for (int i = 0; i < chunks.length; i++) {
+      long chunkLength = Math.min(1L << CHUNK_SHIFT, length - ((long) i << CHUNK_SHIFT));
+      chunks[i] = arena.allocate((int) chunkLength * Integer.BYTES).asIntBuffer();
+    }
+  }
+
+  public int get(long index) {
+    return chunks[(int) (index >>> CHUNK_SHIFT)].get((int) (index & CHUNK_MASK));
+  }
+
+  public void set(long index, int value) {
+    chunks[(int) (index >>> CHUNK_SHIFT)].put((int) (index & CHUNK_MASK), value);
+  }
+
+  public long length() {
+    return length;
+  }
+}
@@ -0,0 +1,41 @@
+package org.example.store;
+
+import java.nio.LongBuffer;
+
+/**
+ * Fixed-length long array in off-heap memory, split over buffers of up to 1 GiB so that
+ * it can hold more than a single buffer allows.
+ */
+public class OffHeapLongArray {
+
+  private static final int CHUNK_SHIFT = 27;
+  private static final int CHUNK_MASK = (1 << CHUNK_SHIFT) - 1;
+
+  private final LongBuffer[] chunks;
+  private final long length;
+
+  /**
+   * @param arena  The arena to allocate from.
+   * @param length Number of elements; all are 0 initially.
+   */
+  public OffHeapLongArray(OffHeapArena arena, long length) {
+    this.length = length;
+    this.chunks = new LongBuffer[(int) ((length + CHUNK_MASK) >>> CHUNK_SHIFT)];
+    for (int i = 0; i < chunks.length; i++) {
+      long chunkLength = Math.min(1L << CHUNK_SHIFT, length - ((long) i << CHUNK_SHIFT));
+      chunks[i] = arena.allocate((int) chunkLength * Long.BYTES).asLongBuffer();
+    }
+  }
+
+  public long get(long index) {
+    return chunks[(int) (index >>> CHUNK_SHIFT)].get((int) (index & CHUNK_MASK));
+  }
+
+  public void set(long index, long value) {
+    chunks[(int) (index >>> CHUNK_SHIFT)].put((int) (index & CHUNK_MASK), value);
+  }
+
+  public long length() {
+    return length;
+  }
+}
@@ -0,0 +1,50 @@
+package org.example.store;
+
+import java.nio.LongBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Growable long list in off-heap memory, e.g. to collect records while the input is parsed.
+ * Buffers of a fixed size, chosen from the expected number of elements, are allocated from
+ * the arena as the list grows, so small inputs don't reserve large buffers.
+ */
+public class OffHeapLongList {
+
+  private static final int MIN_CHUNK_SHIFT = 10;
+  private static final int MAX_CHUNK_SHIFT = 27;
+
+  private final OffHeapArena arena;
+  private final int chunkShift;
+  private final int chunkMask;
+  private final List<LongBuffer> chunks = new ArrayList<>();
+  private long size;
+
+  /**
+   * @param arena        The arena to allocate from.
+   * @param expectedSize Expected number of elements; the list grows past it in chunks of about that size.
+   */
+  public OffHeapLongList(OffHeapArena arena, long expectedSize) {
+    this.arena = arena;
+    int shift = 64 - Long.numberOfLeadingZeros(Math.max(1, expectedSize - 1));
+    this.chunkShift = Math.max(MIN_CHUNK_SHIFT, Math.min(MAX_CHUNK_SHIFT, shift));
+    this.chunkMask = (1 << chunkShift) - 1;
+  }
+
+  public void add(long value) {
+    int chunk = (int) (size >>> chunkShift);
+    if (chunk == chunks.size()) {
+      chunks.add(arena.allocate((1 << chunkShift) * Long.BYTES).asLongBuffer());
+    }
+    chunks.get(chunk).put((int) (size & chunkMask), value);
+    size++;
+  }
+
+  public long get(long index) {
+    return chunks.get((int) (index >>> chunkShift)).get((int) (index & chunkMask));
+  }
+
+  public long size() {
+    return size;
+  }
+}
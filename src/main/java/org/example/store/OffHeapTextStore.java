@@ -0,0 +1,75 @@
+package org.example.store;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Append-only store of short texts (user names, tweets) in off-heap memory. Every text is
+ * written as a 2 byte length followed by its bytes and addressed by a long handle (chunk
+ * index and offset), so the heap holds no per-text objects. Chunks are sized from the
+ * expected number of text bytes, so a small input doesn't reserve a large buffer.
+ */
+public class OffHeapTextStore {
+
+  // Longest text that fits the 2 byte length prefix
+  public static final int MAX_TEXT_BYTES = 0xffff;
+
+  private static final int MIN_CHUNK_BYTES = 64 * 1024;
+  private static final int MAX_CHUNK_BYTES = 64 * 1024 * 1024;
+
+  private final OffHeapArena arena;
+  private final int chunkBytes;
+  private final List<ByteBuffer> chunks = new ArrayList<>();
+  private ByteBuffer current;
+
+  /**
+   * @param arena         The arena to allocate from.
+   * @param expectedBytes Expected number of text bytes (e.g. the input size); the store grows past it in chunks of
+   *                      about that size, between 64 KiB and 64 MiB.
+   */
+  public OffHeapTextStore(OffHeapArena arena, long expectedBytes) {
+    this.arena = arena;
+    this.chunkBytes = (int) Math.max(MIN_CHUNK_BYTES, Math.min(MAX_CHUNK_BYTES, expectedBytes));
+  }
+
+  /**
+   * Append a text.
+   *
+   * @param bytes The encoded text; at most MAX_TEXT_BYTES bytes.
+   * @return Handle to read the text back with.
+   */
+  public long append(byte[] bytes) {
+    if (bytes.length > MAX_TEXT_BYTES) {
+      throw new IllegalArgumentException("Text of " + bytes.length + " bytes exceeds " + MAX_TEXT_BYTES + " bytes");
+    }
+
+    int recordBytes = Short.BYTES + bytes.length;
+    if (current == null || current.remaining() < recordBytes) {
+      current = arena.allocate(Math.max(chunkBytes, recordBytes));
+      chunks.add(current);
+    }
+
+    long handle = ((long) (chunks.size() - 1) << 32) | current.position();
+    current.putShort((short) bytes.length).put(bytes);
+    return handle;
+  }
+
+  /**
+   * Read a text into a buffer.
+   *
+   * @param handle The handle returned when the text was appended.
+   * @param target Buffer of at least 65535 bytes to copy the text into.
+   * @return Number of bytes of the text.
+   */
+  public int read(long handle, byte[] target) {
+    ByteBuffer chunk = chunks.get((int) (handle >>> 32));
+    int offset = (int) handle;
+    int length = chunk.getShort(offset) & MAX_TEXT_BYTES;
+    // Absolute reads, as absolute bulk reads aren't available on Java 11
+    for (int i = 0; i < length; i++) {
+      target[i] = chunk.get(offset + Short.BYTES + i);
+    }
+    return length;
+  }
+}
@@ -0,0 +1,421 @@
+package org.example.store;
+
+import org.example.utility.LineReader;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.function.BiConsumer;
+
+/**
+ * Checkpoint of a partially parsed tweet input, written incrementally while parsing.
+ * <p>
+ * Every parsed tweet is appended to the current segment file; a commit forces the segment
+ * to disk and atomically replaces the small header file, which holds the position of the
+ * first unparsed line and the number of committed segments. Work done since the last
+ * commit is discarded on resume. The header also holds the position and a hash of the
+ * lines of the last committed interval and a hash of the first bytes of the input (up to
+ * HEAD_BYTES, before the interval), so a resumed parse checks the head of the input, seeks
+ * to the start of that interval, confirms the input is unchanged there and continues after
+ * it; the rest of the input before the interval isn't read again. A running hash over all
+ * committed lines lets a resumed parse verify the whole prefix instead, at the cost of
+ * reading it again.
+ * <p>
+ * Header (big endian): magic, version, offset and line number of the first unparsed line,
+ * offset and line number of the interval start, interval hash, head length and hash,
+ * prefix hash and segment count. Segment records: author and tweet, each as length (int)
+ * and ASCII bytes. A header of an earlier version counts as no commit.
+ * <p>
+ * A lock file keeps the checkpoint to a single parse at a time (e.g. partition workers
+ * parsing the same input); see {@link #open(Path, String)}.
+ */
+public class TweetCheckpoint implements Closeable {
+
+  private static final int MAGIC = 0x54434b50;
+  private static final int VERSION = 3;
+  // Bytes at the start of the input whose hash is checked on resume, whatever the interval
+  public static final int HEAD_BYTES = 64 * 1024;
+  private static final String SUFFIX = ".checkpoint";
+  private static final String SEGMENT_SUFFIX = ".segment-";
+  private static final String LOCK_SUFFIX = ".lock";
+  private static final String TEMPORARY_SUFFIX = ".tmp";
+  private static final int STREAM_BUFFER_BYTES = 64 * 1024;
+
+  private final Path headerFile;
+  private final FileChannel lockChannel;
+  private final FileLock lock;
+
+  private boolean committed;
+  private long offset;
+  private int lineNumber;
+  private long intervalOffset;
+  private int intervalLine;
+  private long intervalHash;
+  private int headLength;
+  private long headHash;
+  private long prefixHash;
+  private int segmentCount;
+
+  // Segment the parsed tweets are appended to until the next commit; opened on the first append
+  private FileChannel segmentChannel;
+  private DataOutputStream segment;
+
+  private TweetCheckpoint(Path headerFile, FileChannel lockChannel, FileLock lock) {
+    this.headerFile = headerFile;
+    this.lockChannel = lockChannel;
+    this.lock = lock;
+  }
+
+  /**
+   * Get the checkpoint (header) file of an input file; every input (shard) has its own checkpoint.
+   *
+   * @param directory     The checkpoint directory.
+   * @param inputFilePath The tweet input file.
+   * @return The checkpoint file path.
+   */
+  public static Path pathFor(Path directory, String inputFilePath) {
+    Path input = Path.of(inputFilePath).toAbsolutePath().normalize();
+    // The hash of the full path keeps inputs with the same file name apart
+    long pathHash = FeedState.hash(FeedState.INITIAL_HASH, input.toString());
+    return directory.resolve(input.getFileName() + "-" + Long.toHexString(pathHash) + SUFFIX);
+  }
+
+  /**
+   * Extend an interval hash with the next input line.
+   *
+   * @param hash Hash of the previous lines of the interval (FeedState.INITIAL_HASH for none).
+   * @param line The next line as read (not stripped).
+   * @return Hash including the line.
+   */
+  public static long hashLine(long hash, String line) {
+    return FeedState.hash(hash, line);
+  }
+
+  /**
+   * Hash the first bytes of an input.
+   *
+   * @param head The bytes at the start of the input (decompressed).
+   * @return Hash of the bytes.
+   */
+  public static long hashHead(byte[] head) {
+    return FeedState.hash(FeedState.INITIAL_HASH, new String(head, StandardCharsets.ISO_8859_1));
+  }
+
+  /**
+   * Open the checkpoint of an input, loading the committed progress if any.
+   *
+   * @param directory     The checkpoint directory.
+   * @param inputFilePath The tweet input file.
+   * @return The checkpoint, or null if another parse holds it.
+   * @throws IOException Occurs when the files can't be accessed or the header isn't a valid checkpoint.
+   */
+  public static TweetCheckpoint open(Path directory, String inputFilePath) throws IOException {
+    Path headerFile = pathFor(directory, inputFilePath).toAbsolutePath();
+    // The lock file stays in place; deleting it could let a later parse lock a file another parse still holds
+    FileChannel lockChannel = FileChannel.open(headerFile.resolveSibling(headerFile.getFileName() + LOCK_SUFFIX),
+        StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+    FileLock lock;
+    try {
+      lock = lockChannel.tryLock();
+    } catch (OverlappingFileLockException e) {
+      lock = null;
+    } catch (IOException e) {
+      lockChannel.close();
+      throw e;
+    }
+    if (lock == null) {
+      lockChannel.close();
+      return null;
+    }
+
+    TweetCheckpoint checkpoint = new TweetCheckpoint(headerFile, lockChannel, lock);
+    try {
+      checkpoint.load();
+    } catch (IOException e) {
+      checkpoint.close();
+      throw e;
+    }
+    return checkpoint;
+  }
+
+  /**
+   * Does the input still hold the lines of the last committed interval; reads those lines.
+   *
+   * @param lines Reader of the input positioned at the interval start, see {@link #getIntervalOffset()}.
+   * @return true if the lines and their terminators are unchanged, otherwise false.
+   * @throws IOException Occurs when the input can't be read.
+   */
+  public boolean matchesInterval(LineReader lines) throws IOException {
+    long hash = FeedState.INITIAL_HASH;
+    for (int line = intervalLine; line < lineNumber; line++) {
+      String text = lines.readLine();
+      if (text == null) {
+        return false;
+      }
+      hash = hashLine(hash, text);
+    }
+    return hash == intervalHash && lines.getOffset() == offset;
+  }
+
+  /**
+   * Does the input still start with the bytes the head hash was taken over.
+   *
+   * @param head The first {@link #getHeadLength()} bytes of the input, fewer if it is shorter.
+   * @return true if the head is unchanged, otherwise false.
+   */
+  public boolean matchesHead(byte[] head) {
+    return head.length == headLength && hashHead(head) == headHash;
+  }
+
+  /**
+   * Does the input still hold all committed lines; reads those lines.
+   *
+   * @param lines Reader of the input from its start.
+   * @return true if the lines and their terminators are unchanged, otherwise false.
+   * @throws IOException Occurs when the input can't be read.
+   */
+  public boolean matchesPrefix(LineReader lines) throws IOException {
+    long hash = FeedState.INITIAL_HASH;
+    for (int line = 0; line < lineNumber; line++) {
+      String text = lines.readLine();
+      if (text == null) {
+        return false;
+      }
+      hash = hashLine(hash, text);
+    }
+    return hash == prefixHash && lines.getOffset() == offset;
+  }
+
+  /**
+   * Replay the tweets of the committed segments, in input order.
+   *
+   * @param consumer Receives the author and text of every tweet.
+   * @throws IOException Occurs when a segment can't be read or is truncated.
+   */
+  public void replay(BiConsumer<String, String> consumer) throws IOException {
+    for (int index = 0; index < segmentCount; index++) {
+      try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(segmentFile(index)),
+          STREAM_BUFFER_BYTES))) {
+        while (true) {
+          String author;
+          try {
+            author = readText(in);
+          } catch (EOFException e) {
+            break;
+          }
+          consumer.accept(author, readText(in));
+        }
+      }
+    }
+  }
+
+  /**
+   * Append a parsed tweet; it is part of the checkpoint once the next commit completes.
+   *
+   * @param author The user that posted the tweet.
+   * @param tweet  The tweet.
+   * @throws IOException Occurs when the segment can't be written.
+   */
+  public void append(String author, String tweet) throws IOException {
+    if (segment == null) {
+      // Overwrites what an interrupted parse appended without committing
+      segmentChannel = FileChannel.open(segmentFile(segmentCount), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+          StandardOpenOption.TRUNCATE_EXISTING);
+      segment = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(segmentChannel), STREAM_BUFFER_BYTES));
+    }
+    writeText(segment, author);
+    writeText(segment, tweet);
+  }
+
+  /**
+   * Commit the tweets appended so far: force the current segment to disk and atomically
+   * replace the header, so a crash at any point leaves the previous commit intact.
+   *
+   * @param offset         Byte offset of the first unparsed line.
+   * @param lineNumber     Number of lines parsed, i.e. the first unparsed line is lineNumber + 1.
+   * @param intervalOffset Byte offset of the first line of the interval since the previous commit.
+   * @param intervalLine   Number of lines before the interval.
+   * @param intervalHash   Hash over the lines of the interval, see {@link #hashLine(long, String)}.
+   * @param head           The first bytes of the input, up to HEAD_BYTES but not past the interval start.
+   * @param prefixHash     Hash over all lines parsed, see {@link #hashLine(long, String)}.
+   * @throws IOException Occurs when the files can't be written.
+   */
+  public void commit(long offset, int lineNumber, long intervalOffset, int intervalLine, long intervalHash, byte[] head,
+                     long prefixHash) throws IOException {
+    int committedSegments = segmentCount;
+    if (segment != null) {
+      segment.flush();
+      segmentChannel.force(false);
+      segment.close();
+      segment = null;
+      committedSegments++;
+    }
+
+    Path temporary = headerFile.resolveSibling(headerFile.getFileName() + TEMPORARY_SUFFIX);
+    try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+        StandardOpenOption.TRUNCATE_EXISTING)) {
+      DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeLong(offset);
+      out.writeInt(lineNumber);
+      out.writeLong(intervalOffset);
+      out.writeInt(intervalLine);
+      out.writeLong(intervalHash);
+      out.writeInt(head.length);
+      out.writeLong(hashHead(head));
+      out.writeLong(prefixHash);
+      out.writeInt(committedSegments);
+      out.flush();
+      channel.force(true);
+    }
+    Files.move(temporary, headerFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+    this.committed = true;
+    this.offset = offset;
+    this.lineNumber = lineNumber;
+    this.intervalOffset = intervalOffset;
+    this.intervalLine = intervalLine;
+    this.intervalHash = intervalHash;
+    this.headLength = head.length;
+    this.headHash = hashHead(head);
+    this.prefixHash = prefixHash;
+    this.segmentCount = committedSegments;
+  }
+
+  /**
+   * Delete the header and every segment, e.g. once the input is fully parsed or when it
+   * changed since the checkpoint was taken. The checkpoint stays open for new appends.
+   *
+   * @throws IOException Occurs when the files can't be deleted.
+   */
+  public void delete() throws IOException {
+    if (segment != null) {
+      segment.close();
+      segment = null;
+    }
+    // The header goes first, so a crash part way leaves no header pointing at deleted segments
+    Files.deleteIfExists(headerFile);
+    for (int index = 0; index <= segmentCount; index++) {
+      Files.deleteIfExists(segmentFile(index));
+    }
+    committed = false;
+    offset = 0;
+    lineNumber = 0;
+    intervalOffset = 0;
+    intervalLine = 0;
+    intervalHash = FeedState.INITIAL_HASH;
+    headLength = 0;
+    headHash = hashHead(new byte[0]);
+    prefixHash = FeedState.INITIAL_HASH;
+    segmentCount = 0;
+  }
+
+  /**
+   * Close the checkpoint, discarding what was appended since the last commit, and release the lock.
+   *
+   * @throws IOException Occurs when the files can't be closed.
+   */
+  @Override
+  public void close() throws IOException {
+    try {
+      if (segment != null) {
+        segment.close();
+        segment = null;
+      }
+    } finally {
+      lock.release();
+      lockChannel.close();
+    }
+  }
+
+  /**
+   * Has an earlier parse committed progress to resume from.
+   *
+   * @return true if a commit exists, otherwise false.
+   */
+  public boolean isCommitted() {
+    return committed;
+  }
+
+  public long getOffset() {
+    return offset;
+  }
+
+  public int getLineNumber() {
+    return lineNumber;
+  }
+
+  public long getIntervalOffset() {
+    return intervalOffset;
+  }
+
+  public int getIntervalLine() {
+    return intervalLine;
+  }
+
+  public int getHeadLength() {
+    return headLength;
+  }
+
+  public long getPrefixHash() {
+    return prefixHash;
+  }
+
+  private void load() throws IOException {
+    intervalHash = FeedState.INITIAL_HASH;
+    headHash = hashHead(new byte[0]);
+    prefixHash = FeedState.INITIAL_HASH;
+    if (Files.notExists(headerFile)) {
+      return;
+    }
+
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(headerFile)))) {
+      if (in.readInt() != MAGIC) {
+        throw new IOException("File " + headerFile + " is not a tweet checkpoint");
+      }
+      // Written before the head and prefix were hashed; the input can't be confirmed unchanged
+      if (in.readInt() != VERSION) {
+        return;
+      }
+      offset = in.readLong();
+      lineNumber = in.readInt();
+      intervalOffset = in.readLong();
+      intervalLine = in.readInt();
+      intervalHash = in.readLong();
+      headLength = in.readInt();
+      headHash = in.readLong();
+      prefixHash = in.readLong();
+      segmentCount = in.readInt();
+      committed = true;
+    }
+  }
+
+  private Path segmentFile(int index) {
+    return headerFile.resolveSibling(headerFile.getFileName() + SEGMENT_SUFFIX + index);
+  }
+
+  private static void writeText(DataOutputStream out, String text) throws IOException {
+    out.writeInt(text.length());
+    out.write(text.getBytes(StandardCharsets.ISO_8859_1));
+  }
+
+  private static String readText(DataInputStream in) throws IOException {
+    byte[] text = new byte[in.readInt()];
+    in.readFully(text);
+    return new String(text, StandardCharsets.ISO_8859_1);
+  }
+}
@@ -0,0 +1,338 @@
+package org.example.store;
+
+import lombok.extern.log4j.Log4j2;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Durable append-only log of tweets, written through memory-mapped segment files of a
+ * fixed size.
+ * <p>
+ * Record layout (big endian): payload length (int), record type (byte), payload, CRC32
+ * of type and payload (int). Authors are written once as an AUTHOR record (author id,
+ * name) and tweets as a TWEET record (author id, sequence number, text). A zero length
+ * marks the end of the data in a segment.
+ * <p>
+ * On open the segments are scanned sequentially to replay the tweets; a torn or corrupt
+ * record (e.g. after a crash in the middle of an append) and everything after it is
+ * truncated. The segment size of an existing log is given by its segment files; opening
+ * it with a different size, or with a segment missing from the numbering, fails rather
+ * than truncating committed records.
+ */
+@Log4j2
+public class TweetLog implements Closeable {
+
+  private static final String SEGMENT_PREFIX = "tweets-";
+  private static final String SEGMENT_SUFFIX = ".log";
+  private static final byte RECORD_AUTHOR = 1;
+  private static final byte RECORD_TWEET = 2;
+  // Payload length, record type and checksum
+  private static final int RECORD_OVERHEAD = Integer.BYTES + 1 + Integer.BYTES;
+  private static final int MIN_SEGMENT_BYTES = 4096;
+
+  /**
+   * Callback for the tweets found while scanning the log.
+   */
+  @FunctionalInterface
+  public interface TweetConsumer {
+    void accept(long sequence, String author, String tweet);
+  }
+
+  private final Path directory;
+  private final int segmentBytes;
+  private final int syncEvery;
+  private final Map<String, Integer> authorIds = new HashMap<>();
+  private final CRC32 crc = new CRC32();
+
+  private int segmentIndex;
+  private MappedByteBuffer segment;
+  private long nextSequence;
+  private int unsyncedAppends;
+  private boolean closed;
+
+  private TweetLog(Path directory, int segmentBytes, int syncEvery) {
+    this.directory = directory;
+    this.segmentBytes = segmentBytes;
+    this.syncEvery = syncEvery;
+  }
+
+  /**
+   * Open (or create) the log in the directory, replaying all tweets it holds in order and
+   * truncating a torn tail.
+   *
+   * @param directory    Directory holding the segment files.
+   * @param segmentBytes Size of each segment file.
+   * @param syncEvery    Sync policy: force to disk every N appends; 1 syncs every append and
+   *                     0 leaves flushing to the OS (and close).
+   * @param consumer     Receives every tweet in the log, in append order.
+   * @return The opened log, positioned after the last valid record.
+   * @throws IOException Occurs when the segment files can't be read or written.
+   */
+  public static TweetLog open(Path directory, int segmentBytes, int syncEvery, TweetConsumer consumer) throws IOException {
+    if (segmentBytes < MIN_SEGMENT_BYTES) {
+      throw new IllegalArgumentException("Segment size must be at least " + MIN_SEGMENT_BYTES + " bytes");
+    }
+    if (syncEvery < 0) {
+      throw new IllegalArgumentException("Sync interval must not be negative");
+    }
+
+    Files.createDirectories(directory);
+    TweetLog tweetLog = new TweetLog(directory, segmentBytes, syncEvery);
+    tweetLog.recover(consumer);
+    return tweetLog;
+  }
+
+  /**
+   * Append a tweet to the log.
+   *
+   * @param author The Twitter user that posted the tweet.
+   * @param tweet  The actual tweet/post.
+   * @return The sequence number of the tweet.
+   * @throws IOException Occurs when the segment can't be written or synced.
+   */
+  public synchronized long append(String author, String tweet) throws IOException {
+    ensureOpen();
+    Integer authorId = authorIds.get(author);
+    if (authorId == null) {
+      authorId = authorIds.size();
+      byte[] name = author.getBytes(StandardCharsets.UTF_8);
+      ByteBuffer payload = ByteBuffer.allocate(Integer.BYTES + name.length);
+      payload.putInt(authorId).put(name);
+      writeRecord(RECORD_AUTHOR, payload.array());
+      authorIds.put(author, authorId);
+    }
+
+    long sequence = nextSequence;
+    byte[] text = tweet.getBytes(StandardCharsets.UTF_8);
+    ByteBuffer payload = ByteBuffer.allocate(Integer.BYTES + Long.BYTES + text.length);
+    payload.putInt(authorId).putLong(sequence).put(text);
+    writeRecord(RECORD_TWEET, payload.array());
+    nextSequence++;
+
+    if (syncEvery > 0 && ++unsyncedAppends >= syncEvery) {
+      sync();
+    }
+    return sequence;
+  }
+
+  /**
+   * Force the appended records of the active segment to disk.
+   *
+   * @throws IOException Occurs when the log is closed.
+   */
+  public synchronized void sync() throws IOException {
+    ensureOpen();
+    segment.force();
+    unsyncedAppends = 0;
+  }
+
+  /**
+   * Get the sequence number the next appended tweet will get.
+   *
+   * @return Next sequence number (equals the number of tweets in the log).
+   */
+  public synchronized long getNextSequence() {
+    return nextSequence;
+  }
+
+  @Override
+  public synchronized void close() {
+    if (!closed) {
+      segment.force();
+      segment = null;
+      closed = true;
+    }
+  }
+
+  private void ensureOpen() throws IOException {
+    if (closed) {
+      throw new IOException("Tweet log in " + directory + " is closed");
+    }
+  }
+
+  /**
+   * Write a record at the current position, rolling over to a new segment if it
+   * doesn't fit. The length is written last so a torn record is never seen as complete.
+   */
+  private void writeRecord(byte type, byte[] payload) throws IOException {
+    int recordBytes = RECORD_OVERHEAD + payload.length;
+    // Keep room for the zero length that marks the end of the segment
+    if (recordBytes + Integer.BYTES > segmentBytes) {
+      throw new IOException("Record of " + recordBytes + " bytes does not fit in a segment");
+    }
+    if (segment.position() + recordBytes + Integer.BYTES > segmentBytes) {
+      segment.force();
+      segment = mapSegment(segmentPath(++segmentIndex));
+    }
+
+    int start = segment.position();
+    crc.reset();
+    crc.update(type);
+    crc.update(payload);
+
+    segment.position(start + Integer.BYTES);
+    segment.put(type).put(payload).putInt((int) crc.getValue());
+    segment.putInt(start, payload.length);
+  }
+
+  /**
+   * Scan all segments in order, replaying tweets and truncating from the first torn or
+   * corrupt record onwards.
+   *
+   * @throws IOException Occurs when the segments can't be read, a segment is missing or a
+   *                     segment size doesn't match the configured size.
+   */
+  private void recover(TweetConsumer consumer) throws IOException {
+    List<Path> segments = listSegments();
+    checkSegments(segments);
+    Map<Integer, String> authorNames = new HashMap<>();
+
+    for (int index = 0; index < segments.size(); index++) {
+      MappedByteBuffer buffer = mapSegment(segments.get(index));
+      boolean torn = scanSegment(buffer, authorNames, consumer);
+
+      if (torn || index == segments.size() - 1) {
+        if (torn) {
+          log.warn("Truncating torn tweet log tail in segment " + segments.get(index) + " at offset " + buffer.position());
+          truncate(buffer, segments.subList(index + 1, segments.size()));
+        }
+        segmentIndex = index;
+        segment = buffer;
+        break;
+      }
+    }
+
+    if (segment == null) {
+      segmentIndex = 0;
+      segment = mapSegment(segmentPath(0));
+    }
+
+    authorNames.forEach((id, name) -> authorIds.put(name, id));
+  }
+
+  /**
+   * Check that the segments are numbered without gaps and all have the configured size.
+   * Only the last segment may still be empty, when a crash hit right after creating it.
+   */
+  private void checkSegments(List<Path> segments) throws IOException {
+    for (int index = 0; index < segments.size(); index++) {
+      Path path = segments.get(index);
+      if (!path.equals(segmentPath(index))) {
+        throw new IOException("Tweet log in " + directory + " is missing segment " + segmentPath(index).getFileName()
+            + " (found " + path.getFileName() + ")");
+      }
+      long size = Files.size(path);
+      if (size != segmentBytes && !(size == 0 && index == segments.size() - 1)) {
+        throw new IOException("Tweet log segment " + path + " is " + size + " bytes, but the log is opened with "
+            + segmentBytes + " byte segments");
+      }
+    }
+  }
+
+  /**
+   * Scan the records of a segment, leaving the buffer positioned after the last valid record.
+   *
+   * @return true if the segment ends with a torn or corrupt record, false if it ends cleanly.
+   */
+  private boolean scanSegment(MappedByteBuffer buffer, Map<Integer, String> authorNames, TweetConsumer consumer) {
+    while (buffer.remaining() >= Integer.BYTES) {
+      int start = buffer.position();
+      int payloadLength = buffer.getInt(start);
+      if (payloadLength == 0) {
+        return false;
+      }
+      if (payloadLength < 0 || start + RECORD_OVERHEAD + payloadLength > segmentBytes) {
+        return true;
+      }
+
+      byte type = buffer.get(start + Integer.BYTES);
+      byte[] payload = new byte[payloadLength];
+      buffer.position(start + Integer.BYTES + 1);
+      buffer.get(payload);
+      int checksum = buffer.getInt();
+
+      crc.reset();
+      crc.update(type);
+      crc.update(payload);
+      if ((int) crc.getValue() != checksum || !applyRecord(type, payload, authorNames, consumer)) {
+        buffer.position(start);
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private boolean applyRecord(byte type, byte[] payload, Map<Integer, String> authorNames, TweetConsumer consumer) {
+    ByteBuffer record = ByteBuffer.wrap(payload);
+    if (type == RECORD_AUTHOR && payload.length >= Integer.BYTES) {
+      int authorId = record.getInt();
+      authorNames.put(authorId, new String(payload, Integer.BYTES, payload.length - Integer.BYTES, StandardCharsets.UTF_8));
+      return true;
+    }
+
+    if (type == RECORD_TWEET && payload.length >= Integer.BYTES + Long.BYTES) {
+      String author = authorNames.get(record.getInt());
+      if (author == null) {
+        return false;
+      }
+      long sequence = record.getLong();
+      String tweet = new String(payload, record.position(), record.remaining(), StandardCharsets.UTF_8);
+      consumer.accept(sequence, author, tweet);
+      nextSequence = sequence + 1;
+      return true;
+    }
+
+    return false;
+  }
+
+  /**
+   * Zero the segment from the buffer position onwards and delete the later segments.
+   */
+  private void truncate(MappedByteBuffer buffer, List<Path> laterSegments) throws IOException {
+    int position = buffer.position();
+    for (int i = position; i < segmentBytes; i++) {
+      buffer.put(i, (byte) 0);
+    }
+    buffer.force();
+
+    for (Path laterSegment : laterSegments) {
+      Files.deleteIfExists(laterSegment);
+    }
+  }
+
+  private Path segmentPath(int index) {
+    return directory.resolve(String.format("%s%08d%s", SEGMENT_PREFIX, index, SEGMENT_SUFFIX));
+  }
+
+  private MappedByteBuffer mapSegment(Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      // Mapping beyond the end of the file grows it to the full segment size (zero filled)
+      return channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+    }
+  }
+
+  private List<Path> listSegments() throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files.filter(file -> {
+            String name = file.getFileName().toString();
+            return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+          })
+          .sorted()
+          .collect(Collectors.toList());
+    }
+  }
+}
@@ -0,0 +1,120 @@
+package org.example.utility;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/**
+ * Scanner for 7-bit ASCII input that processes 8 bytes at a time as a long word (SWAR,
+ * SIMD within a register) instead of decoding and inspecting one character at a time.
+ * <p>
+ * A byte equal to a delimiter is found by XOR-ing the word with the delimiter repeated in
+ * every byte, which turns matching bytes into zero bytes, and then testing for a zero byte
+ * with {@code (x - 0x01..01) & ~x & 0x80..80}. A byte outside 7-bit ASCII is a byte with the
+ * high bit set, i.e. {@code word & 0x80..80} is non-zero.
+ */
+public final class AsciiScanner {
+
+  private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+  private static final long ONES = 0x0101010101010101L;
+  private static final long HIGH_BITS = 0x8080808080808080L;
+  private static final long NEW_LINES = ONES * '\n';
+  private static final long CARRIAGE_RETURNS = ONES * '\r';
+
+  private AsciiScanner() {
+    // Private constructor
+  }
+
+  /**
+   * Callback for the lines found while scanning.
+   */
+  @FunctionalInterface
+  public interface LineVisitor {
+
+    /**
+     * @param data     The scanned data.
+     * @param start    Index of the first byte of the line.
+     * @param end      Index after the last byte of the line (excluding the terminator).
+     * @param nonAscii Index of the first byte outside 7-bit ASCII in the line, or -1 if there is none.
+     */
+    void visit(byte[] data, int start, int end, int nonAscii) throws IOException;
+  }
+
+  /**
+   * Scan a range of the data line by line, splitting the way BufferedReader does: a line ends
+   * at "\n", "\r" or "\r\n", and a terminator at the end of the range doesn't start another
+   * (empty) line. Lines with bytes outside 7-bit ASCII are passed on with the index of the
+   * first such byte.
+   * The range must start at the start of a line and end at the end of a line (after its
+   * terminator) or the end of the data.
+   *
+   * @param data    The data to scan.
+   * @param from    Index of the first byte of the range.
+   * @param to      Index after the last byte of the range.
+   * @param visitor Receives every line of the range, in order.
+   * @throws IOException Passed on from the visitor.
+   */
+  public static void scanLines(byte[] data, int from, int to, LineVisitor visitor) throws IOException {
+    int lineStart = from;
+    int lineNonAscii = -1;
+    int position = from;
+
+    while (position < to) {
+      int terminator;
+      int nonAscii;
+
+      if (position + Long.BYTES <= to) {
+        long word = (long) LONGS.get(data, position);
+        long terminators = matches(word, NEW_LINES) | matches(word, CARRIAGE_RETURNS);
+        long highBits = word & HIGH_BITS;
+        // Little endian: the lowest set bit belongs to the first byte that matches
+        terminator = terminators == 0 ? -1 : position + firstByte(terminators);
+        nonAscii = highBits == 0 ? -1 : position + firstByte(highBits);
+      } else {
+        byte value = data[position];
+        terminator = value == '\n' || value == '\r' ? position : -1;
+        nonAscii = value < 0 ? position : -1;
+      }
+
+      if (nonAscii >= 0 && (terminator < 0 || nonAscii < terminator)) {
+        if (lineNonAscii < 0) {
+          lineNonAscii = nonAscii;
+        }
+        // Continue after the byte; the rest of the word may still hold a terminator
+        position = nonAscii + 1;
+        continue;
+      }
+
+      if (terminator < 0) {
+        position += position + Long.BYTES <= to ? Long.BYTES : 1;
+        continue;
+      }
+
+      visitor.visit(data, lineStart, terminator, lineNonAscii);
+      position = terminator + 1;
+      if (data[terminator] == '\r' && position < to && data[position] == '\n') {
+        position++;
+      }
+      lineStart = position;
+      lineNonAscii = -1;
+    }
+
+    if (lineStart < to) {
+      visitor.visit(data, lineStart, to, lineNonAscii);
+    }
+  }
+
+  /**
+   * Mark the bytes of the word equal to the byte repeated in pattern with their high bit.
+   * Bytes above the first match may be marked falsely (borrow), the first mark is exact.
+   */
+  private static long matches(long word, long pattern) {
+    long zeroed = word ^ pattern;
+    return (zeroed - ONES) & ~zeroed & HIGH_BITS;
+  }
+
+  private static int firstByte(long marks) {
+    return Long.numberOfTrailingZeros(marks) >>> 3;
+  }
+}
@@ -4,6 +4,13 @@ import lombok.extern.log4j.Log4j2;
 import org.apache.commons.lang3.StringUtils;
 import org.example.exception.ConfigException;
 
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 /**
  * Utility class to handle the configuration that can be set for this program such
  * as the paths to the input files.
@@ -14,10 +21,88 @@ public class Configuration {
   // Constants
   public static final String PROPERTY_USER_FILE_PATH = "path.file.user";
   public static final String PROPERTY_TWEET_FILE_PATH = "path.file.tweet";
+  public static final String PROPERTY_PARTITION_WORKERS = "partition.workers";
+  public static final String PROPERTY_PARTITION_INDEX = "partition.index";
+  public static final String PROPERTY_PARTITION_OUTPUT = "partition.output";
+  public static final String PROPERTY_FEED_CACHE_BYTES = "cache.feed.bytes";
+  public static final String PROPERTY_TWEET_LOG_PATH = "path.log.tweet";
+  public static final String PROPERTY_STATE_FILE_PATH = "path.file.state";
+  public static final String PROPERTY_TWEET_LOG_SEGMENT_BYTES = "tweetlog.segment.bytes";
+  public static final String PROPERTY_TWEET_LOG_SYNC_EVERY = "tweetlog.sync.every";
+  public static final String PROPERTY_FEED_ENGINE = "feed.engine";
+  public static final String PROPERTY_MEMORY_BUDGET_BYTES = "memory.budget.bytes";
+  public static final String PROPERTY_COMPACT_THRESHOLD_BYTES = "memory.compact.threshold.bytes";
+  public static final String PROPERTY_BATCH_MANIFEST_PATH = "path.file.batch";
+  public static final String PROPERTY_BATCH_WORKERS = "batch.workers";
+  public static final String PROPERTY_LOOKUP_THREADS = "lookup.threads";
+  public static final String PROPERTY_FAST_START = "fast.start";
+  public static final String PROPERTY_CHECKPOINT_PATH = "path.dir.checkpoint";
+  public static final String PROPERTY_CHECKPOINT_INTERVAL_LINES = "checkpoint.interval.lines";
+  public static final String PROPERTY_CHECKPOINT_VERIFY_PREFIX = "checkpoint.verify.prefix";
+  public static final String PROPERTY_VALIDATE_ONLY = "validate.only";
+  public static final String PROPERTY_VALIDATE_THREADS = "validate.threads";
+  public static final String PROPERTY_VALIDATE_REPORT_LIMIT = "validate.report.limit";
+  public static final String PROPERTY_INGEST_PRESIZE = "ingest.presize";
+  public static final String PROPERTY_OUTPUT_FILE_PATH = "path.file.output";
+  public static final String PROPERTY_OUTPUT_COMPRESS_THREADS = "output.compress.threads";
+  public static final String PROPERTY_OUTPUT_BLOCK_BYTES = "output.block.bytes";
+  public static final String PROPERTY_OUTPUT_INDEX = "output.index";
+  public static final String PROPERTY_TRACE_PARSE_SAMPLE = "trace.parse.sample";
+  public static final String PROPERTY_TRACE_PARSE_USERS = "trace.parse.users";
+  public static final String PROPERTY_TRACE_PARSE_BUFFER = "trace.parse.buffer";
+
+  // Every configuration property, e.g. to hand the configuration of a run on to worker processes
+  private static final List<String> PROPERTIES = List.of(PROPERTY_USER_FILE_PATH, PROPERTY_TWEET_FILE_PATH,
+      PROPERTY_PARTITION_WORKERS, PROPERTY_PARTITION_INDEX, PROPERTY_PARTITION_OUTPUT, PROPERTY_FEED_CACHE_BYTES,
+      PROPERTY_TWEET_LOG_PATH, PROPERTY_STATE_FILE_PATH, PROPERTY_TWEET_LOG_SEGMENT_BYTES, PROPERTY_TWEET_LOG_SYNC_EVERY,
+      PROPERTY_FEED_ENGINE, PROPERTY_MEMORY_BUDGET_BYTES, PROPERTY_COMPACT_THRESHOLD_BYTES, PROPERTY_BATCH_MANIFEST_PATH,
+      PROPERTY_BATCH_WORKERS, PROPERTY_LOOKUP_THREADS, PROPERTY_FAST_START, PROPERTY_CHECKPOINT_PATH,
+      PROPERTY_CHECKPOINT_INTERVAL_LINES, PROPERTY_CHECKPOINT_VERIFY_PREFIX, PROPERTY_VALIDATE_ONLY,
+      PROPERTY_VALIDATE_THREADS, PROPERTY_VALIDATE_REPORT_LIMIT, PROPERTY_INGEST_PRESIZE, PROPERTY_OUTPUT_FILE_PATH, PROPERTY_OUTPUT_COMPRESS_THREADS, PROPERTY_OUTPUT_BLOCK_BYTES,
+      PROPERTY_OUTPUT_INDEX, PROPERTY_TRACE_PARSE_SAMPLE, PROPERTY_TRACE_PARSE_USERS, PROPERTY_TRACE_PARSE_BUFFER);
+
+  // Defaults
+  private static final long DEFAULT_FEED_CACHE_BYTES = 64L * 1024 * 1024;
+  private static final int DEFAULT_TWEET_LOG_SEGMENT_BYTES = 64 * 1024 * 1024;
+  private static final int DEFAULT_TWEET_LOG_SYNC_EVERY = 1;
+  private static final String DEFAULT_FEED_ENGINE = "reference";
+  private static final long DEFAULT_COMPACT_THRESHOLD_BYTES = 0;
+  private static final int DEFAULT_CHECKPOINT_INTERVAL_LINES = 1_000_000;
+  private static final int DEFAULT_OUTPUT_BLOCK_BYTES = 1024 * 1024;
+  private static final int DEFAULT_TRACE_PARSE_BUFFER = 1024;
+  private static final int DEFAULT_VALIDATE_REPORT_LIMIT = 1000;
 
   // Global Variables
   private static String userFilePath;
   private static String tweetFilePath;
+  private static int partitionWorkers;
+  private static int partitionIndex;
+  private static String partitionOutputPath;
+  private static long feedCacheBytes;
+  private static String tweetLogPath;
+  private static String stateFilePath;
+  private static int tweetLogSegmentBytes;
+  private static int tweetLogSyncEvery;
+  private static String feedEngine;
+  private static long memoryBudgetBytes;
+  private static long compactThresholdBytes = DEFAULT_COMPACT_THRESHOLD_BYTES;
+  private static String batchManifestPath;
+  private static int batchWorkers;
+  private static int lookupThreads;
+  private static String checkpointPath;
+  private static int checkpointIntervalLines;
+  private static boolean checkpointVerifyPrefix;
+  private static boolean validateOnly;
+  private static int validateThreads;
+  private static int validateReportLimit;
+  private static boolean ingestPresize;
+  private static String outputFilePath;
+  private static int outputCompressThreads;
+  private static int outputBlockBytes;
+  private static boolean outputIndex;
+  private static int traceParseSample;
+  private static Set<String> traceParseUsers = Collections.emptySet();
+  private static int traceParseBufferEvents = DEFAULT_TRACE_PARSE_BUFFER;
 
   private Configuration() {
     // Private constructor
@@ -30,9 +115,120 @@ public class Configuration {
    * @throws ConfigException Occurs when mandatory properties aren't set.
    */
   public static void init() throws ConfigException {
-    // Extract input file paths
-    userFilePath = parseConfigElement(PROPERTY_USER_FILE_PATH);
-    tweetFilePath = parseConfigElement(PROPERTY_TWEET_FILE_PATH);
+    // Optional batch mode; the input file paths are then taken from the manifest
+    batchManifestPath = StringUtils.trimToNull(System.getProperty(PROPERTY_BATCH_MANIFEST_PATH));
+    batchWorkers = parseOptionalIntConfigElement(PROPERTY_BATCH_WORKERS, Runtime.getRuntime().availableProcessors());
+
+    // Optional validation-only mode; checks the inputs without building the feed
+    validateOnly = Boolean.parseBoolean(StringUtils.trim(System.getProperty(PROPERTY_VALIDATE_ONLY)));
+    validateThreads = parseOptionalIntConfigElement(PROPERTY_VALIDATE_THREADS, Runtime.getRuntime().availableProcessors());
+    validateReportLimit = parseOptionalIntConfigElement(PROPERTY_VALIDATE_REPORT_LIMIT, DEFAULT_VALIDATE_REPORT_LIMIT);
+
+    // Extract input file paths; validation needs them even in batch mode
+    if (batchManifestPath == null || validateOnly) {
+      userFilePath = parseConfigElement(PROPERTY_USER_FILE_PATH);
+      tweetFilePath = parseConfigElement(PROPERTY_TWEET_FILE_PATH);
+    } else {
+      userFilePath = System.getProperty(PROPERTY_USER_FILE_PATH);
+      tweetFilePath = System.getProperty(PROPERTY_TWEET_FILE_PATH);
+    }
+
+    // Optional partitioned (multi-process) run mode
+    partitionWorkers = parseOptionalIntConfigElement(PROPERTY_PARTITION_WORKERS, 1);
+    partitionIndex = parseOptionalIntConfigElement(PROPERTY_PARTITION_INDEX, -1);
+    partitionOutputPath = System.getProperty(PROPERTY_PARTITION_OUTPUT);
+
+    // Byte budget for the cache of rendered feeds (long-running mode)
+    feedCacheBytes = parseOptionalLongConfigElement(PROPERTY_FEED_CACHE_BYTES, DEFAULT_FEED_CACHE_BYTES);
+
+    // Threads for asynchronous feed lookups (long-running mode); 0 uses virtual threads where available
+    lookupThreads = parseOptionalIntConfigElement(PROPERTY_LOOKUP_THREADS, 0);
+
+    // Optional feed state of the previous run (delta output mode)
+    stateFilePath = StringUtils.trimToNull(System.getProperty(PROPERTY_STATE_FILE_PATH));
+
+    // Optional durable tweet log (long-running mode)
+    tweetLogPath = StringUtils.trimToNull(System.getProperty(PROPERTY_TWEET_LOG_PATH));
+    tweetLogSegmentBytes = parseOptionalIntConfigElement(PROPERTY_TWEET_LOG_SEGMENT_BYTES, DEFAULT_TWEET_LOG_SEGMENT_BYTES);
+    tweetLogSyncEvery = parseOptionalIntConfigElement(PROPERTY_TWEET_LOG_SYNC_EVERY, DEFAULT_TWEET_LOG_SYNC_EVERY);
+
+    // Optional checkpoints of the tweet input parse, to resume an interrupted run
+    checkpointPath = StringUtils.trimToNull(System.getProperty(PROPERTY_CHECKPOINT_PATH));
+    checkpointIntervalLines = parseOptionalIntConfigElement(PROPERTY_CHECKPOINT_INTERVAL_LINES, DEFAULT_CHECKPOINT_INTERVAL_LINES);
+    checkpointVerifyPrefix = Boolean.parseBoolean(StringUtils.trim(System.getProperty(PROPERTY_CHECKPOINT_VERIFY_PREFIX)));
+
+    // Optional pre-pass counting degrees, to create the model structures at their final size
+    ingestPresize = Boolean.parseBoolean(StringUtils.trim(System.getProperty(PROPERTY_INGEST_PRESIZE)));
+
+    // Optional output file instead of the log; compressed in parallel blocks for a ".gz" file
+    outputFilePath = StringUtils.trimToNull(System.getProperty(PROPERTY_OUTPUT_FILE_PATH));
+    outputCompressThreads = parseOptionalIntConfigElement(PROPERTY_OUTPUT_COMPRESS_THREADS, Runtime.getRuntime().availableProcessors());
+    outputBlockBytes = parseOptionalIntConfigElement(PROPERTY_OUTPUT_BLOCK_BYTES, DEFAULT_OUTPUT_BLOCK_BYTES);
+    outputIndex = Boolean.parseBoolean(StringUtils.trim(System.getProperty(PROPERTY_OUTPUT_INDEX)));
+
+    // Optional tracing of sampled records of the parse, logged asynchronously
+    traceParseSample = parseOptionalIntConfigElement(PROPERTY_TRACE_PARSE_SAMPLE, 0);
+    traceParseUsers = parseOptionalSetConfigElement(PROPERTY_TRACE_PARSE_USERS);
+    traceParseBufferEvents = parseOptionalIntConfigElement(PROPERTY_TRACE_PARSE_BUFFER, DEFAULT_TRACE_PARSE_BUFFER);
+
+    // Engine used to build the full feed
+    feedEngine = StringUtils.defaultIfBlank(System.getProperty(PROPERTY_FEED_ENGINE), DEFAULT_FEED_ENGINE).trim();
+
+    // Optional hard budget on the estimated model footprint, and the footprint above which compact structures are used
+    memoryBudgetBytes = parseOptionalLongConfigElement(PROPERTY_MEMORY_BUDGET_BYTES, 0);
+    compactThresholdBytes = parseOptionalLongConfigElement(PROPERTY_COMPACT_THRESHOLD_BYTES, DEFAULT_COMPACT_THRESHOLD_BYTES);
+
+    if (partitionWorkers < 1) {
+      throw new ConfigException("Value for property - " + PROPERTY_PARTITION_WORKERS + " must be at least 1");
+    }
+    if (partitionIndex >= partitionWorkers) {
+      throw new ConfigException("Value for property - " + PROPERTY_PARTITION_INDEX + " must be less than " + partitionWorkers);
+    }
+    if (feedCacheBytes < 0) {
+      throw new ConfigException("Value for property - " + PROPERTY_FEED_CACHE_BYTES + " must not be negative");
+    }
+    if (checkpointIntervalLines < 1) {
+      throw new ConfigException("Value for property - " + PROPERTY_CHECKPOINT_INTERVAL_LINES + " must be at least 1");
+    }
+    if (outputCompressThreads < 1) {
+      throw new ConfigException("Value for property - " + PROPERTY_OUTPUT_COMPRESS_THREADS + " must be at least 1");
+    }
+    if (outputBlockBytes < 1) {
+      throw new ConfigException("Value for property - " + PROPERTY_OUTPUT_BLOCK_BYTES + " must be at least 1");
+    }
+    if (traceParseSample < 0) {
+      throw new ConfigException("Value for property - " + PROPERTY_TRACE_PARSE_SAMPLE + " must not be negative");
+    }
+    if (traceParseBufferEvents < 1) {
+      throw new ConfigException("Value for property - " + PROPERTY_TRACE_PARSE_BUFFER + " must be at least 1");
+    }
+    if (validateThreads < 1) {
+      throw new ConfigException("Value for property - " + PROPERTY_VALIDATE_THREADS + " must be at least 1");
+    }
+    if (validateReportLimit < 1) {
+      throw new ConfigException("Value for property - " + PROPERTY_VALIDATE_REPORT_LIMIT + " must be at least 1");
+    }
+    if (lookupThreads < 0) {
+      throw new ConfigException("Value for property - " + PROPERTY_LOOKUP_THREADS + " must not be negative");
+    }
+    if (batchWorkers < 1) {
+      throw new ConfigException("Value for property - " + PROPERTY_BATCH_WORKERS + " must be at least 1");
+    }
+    if (memoryBudgetBytes < 0) {
+      throw new ConfigException("Value for property - " + PROPERTY_MEMORY_BUDGET_BYTES + " must not be negative");
+    }
+    if (compactThresholdBytes < 0) {
+      throw new ConfigException("Value for property - " + PROPERTY_COMPACT_THRESHOLD_BYTES + " must not be negative");
+    }
+    if (tweetLogSyncEvery < 0) {
+      throw new ConfigException("Value for property - " + PROPERTY_TWEET_LOG_SYNC_EVERY + " must not be negative");
+    }
+    if (outputIndex && (outputFilePath == null || outputFilePath.endsWith(".gz"))) {
+      throw new ConfigException("Value for property - " + PROPERTY_OUTPUT_INDEX + " requires an uncompressed " + PROPERTY_OUTPUT_FILE_PATH);
+    }
+    if (isPartitionWorker() && StringUtils.isBlank(partitionOutputPath)) {
+      throw new ConfigException("Value not set for property - " + PROPERTY_PARTITION_OUTPUT);
+    }
   }
 
   /**
@@ -57,7 +253,63 @@ public class Configuration {
   }
 
   /**
-   * Get the user input file path
+   * Parse an optional integer property and fall back to the default value when not set.
+   *
+   * @param envVar       The property name to lookup.
+   * @param defaultValue The value used when the property isn't set.
+   * @return The value of the property.
+   * @throws ConfigException Occurs when the property is set but not a valid integer.
+   */
+  private static int parseOptionalIntConfigElement(String envVar, int defaultValue) throws ConfigException {
+    long value = parseOptionalLongConfigElement(envVar, defaultValue);
+    if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+      throw new ConfigException("Value for property - " + envVar + " is out of range: " + value);
+    }
+    return (int) value;
+  }
+
+  /**
+   * Parse an optional long property and fall back to the default value when not set.
+   *
+   * @param envVar       The property name to lookup.
+   * @param defaultValue The value used when the property isn't set.
+   * @return The value of the property.
+   * @throws ConfigException Occurs when the property is set but not a valid number.
+   */
+  private static long parseOptionalLongConfigElement(String envVar, long defaultValue) throws ConfigException {
+    log.debug("Parsing value for property - " + envVar);
+    String envVal = System.getProperty(envVar);
+
+    if (StringUtils.isBlank(envVal)) {
+      return defaultValue;
+    }
+
+    try {
+      return Long.parseLong(envVal.trim());
+    } catch (NumberFormatException e) {
+      throw new ConfigException("Value for property - " + envVar + " is not a valid number: " + envVal);
+    }
+  }
+
+  /**
+   * Parse an optional comma separated list property into a set of its (trimmed) values.
+   *
+   * @param envVar The property name to lookup.
+   * @return Read-only set of the values, empty when the property isn't set.
+   */
+  private static Set<String> parseOptionalSetConfigElement(String envVar) {
+    log.debug("Parsing value for property - " + envVar);
+    Set<String> values = new HashSet<>();
+    for (String value : StringUtils.split(StringUtils.defaultString(System.getProperty(envVar)), ',')) {
+      if (StringUtils.isNotBlank(value)) {
+        values.add(value.trim());
+      }
+    }
+    return Collections.unmodifiableSet(values);
+  }
+
+  /**
+   * Get the user input file path; can also be a directory or glob pattern of sharded files.
    *
    * @return The absolute file path
    */
@@ -66,11 +318,300 @@ public class Configuration {
   }
 
   /**
-   * Get the tweet input file path
+   * Get the tweet input file path; can also be a directory or glob pattern of sharded files.
    *
    * @return The absolute file path
    */
   public static String getTweetFilePath() {
     return tweetFilePath;
   }
+
+  /**
+   * Get the number of worker processes to partition the feed generation over
+   *
+   * @return Number of worker processes (1 when not partitioned)
+   */
+  public static int getPartitionWorkers() {
+    return partitionWorkers;
+  }
+
+  /**
+   * Get the partition owned by this process when running as a partition worker
+   *
+   * @return The partition index, or -1 if not running as a worker
+   */
+  public static int getPartitionIndex() {
+    return partitionIndex;
+  }
+
+  /**
+   * Get the file a partition worker writes its partial feed to
+   *
+   * @return The partial feed file path
+   */
+  public static String getPartitionOutputPath() {
+    return partitionOutputPath;
+  }
+
+  /**
+   * Get the byte budget for the cache of rendered per-user feeds
+   *
+   * @return Number of bytes (0 disables caching)
+   */
+  public static long getFeedCacheBytes() {
+    return feedCacheBytes;
+  }
+
+  /**
+   * Get the number of threads for asynchronous feed lookups
+   *
+   * @return Number of threads (0 for a virtual thread per lookup where available)
+   */
+  public static int getLookupThreads() {
+    return lookupThreads;
+  }
+
+  /**
+   * Get the directory of the durable tweet log
+   *
+   * @return The directory path, or null if no tweet log is used
+   */
+  public static String getTweetLogPath() {
+    return tweetLogPath;
+  }
+
+  /**
+   * Get the size of a tweet log segment file
+   *
+   * @return Number of bytes per segment
+   */
+  public static int getTweetLogSegmentBytes() {
+    return tweetLogSegmentBytes;
+  }
+
+  /**
+   * Get the tweet log sync policy
+   *
+   * @return Force the log to disk every N appends (0 leaves flushing to the OS)
+   */
+  public static int getTweetLogSyncEvery() {
+    return tweetLogSyncEvery;
+  }
+
+  /**
+   * Get the feed state file used to only output the feeds that changed since the previous run
+   *
+   * @return The state file path, or null if the full feed is output
+   */
+  public static String getStateFilePath() {
+    return stateFilePath;
+  }
+
+  /**
+   * Get the directory holding the checkpoints of the tweet input parse
+   *
+   * @return The directory path, or null if no checkpoints are written
+   */
+  public static String getCheckpointPath() {
+    return checkpointPath;
+  }
+
+  /**
+   * Get the number of tweet input lines between checkpoints
+   *
+   * @return Number of lines
+   */
+  public static int getCheckpointIntervalLines() {
+    return checkpointIntervalLines;
+  }
+
+  /**
+   * Is every committed line of a checkpointed input verified on resume, rather than only its
+   * head and the last interval
+   *
+   * @return true if the whole committed prefix is read again and verified, otherwise false
+   */
+  public static boolean isCheckpointVerifyPrefix() {
+    return checkpointVerifyPrefix;
+  }
+
+  /**
+   * Is the validation-only mode requested, which checks the inputs without building the feed
+   *
+   * @return true if only the inputs are validated, otherwise false
+   */
+  public static boolean isValidateOnly() {
+    return validateOnly;
+  }
+
+  /**
+   * Get the maximum number of input chunks validated concurrently
+   *
+   * @return Number of threads
+   */
+  public static int getValidateThreads() {
+    return validateThreads;
+  }
+
+  /**
+   * Get the maximum number of malformed lines kept in the validation report of an input
+   *
+   * @return Number of malformed lines
+   */
+  public static int getValidateReportLimit() {
+    return validateReportLimit;
+  }
+
+  /**
+   * Is the two-pass ingest requested, which counts degrees first to pre-size the model
+   *
+   * @return true if the inputs are counted before they are parsed, otherwise false
+   */
+  public static boolean isIngestPresize() {
+    return ingestPresize;
+  }
+
+  /**
+   * Get the file the feed is written to; a ".gz" file is gzip compressed
+   *
+   * @return The output file path, or null if the feed is logged
+   */
+  public static String getOutputFilePath() {
+    return outputFilePath;
+  }
+
+  /**
+   * Get the number of threads compressing a ".gz" output file
+   *
+   * @return Number of threads
+   */
+  public static int getOutputCompressThreads() {
+    return outputCompressThreads;
+  }
+
+  /**
+   * Get the number of uncompressed bytes per independently compressed block of a ".gz" output file
+   *
+   * @return Block size in bytes
+   */
+  public static int getOutputBlockBytes() {
+    return outputBlockBytes;
+  }
+
+  /**
+   * Is a per-user byte-offset index of the output file requested (see FeedOffsetIndex)
+   *
+   * @return true if the index is written next to the output file, otherwise false
+   */
+  public static boolean isOutputIndex() {
+    return outputIndex;
+  }
+
+  /**
+   * Get the sampling rate of parse tracing: one of every this many lines is traced
+   *
+   * @return Lines per traced line, or 0 if lines aren't sampled
+   */
+  public static int getTraceParseSample() {
+    return traceParseSample;
+  }
+
+  /**
+   * Get the users whose records are traced while parsing
+   *
+   * @return Read-only set of user names, empty if no user is traced
+   */
+  public static Set<String> getTraceParseUsers() {
+    return traceParseUsers;
+  }
+
+  /**
+   * Get the number of traced records buffered for logging before records are dropped
+   *
+   * @return Buffer capacity in records
+   */
+  public static int getTraceParseBufferEvents() {
+    return traceParseBufferEvents;
+  }
+
+  /**
+   * Get the name of the engine used to build the full feed
+   *
+   * @return The feed engine name ("reference" unless configured)
+   */
+  public static String getFeedEngine() {
+    return feedEngine;
+  }
+
+  /**
+   * Get the hard budget on the estimated memory footprint of the parsed input
+   *
+   * @return Number of bytes (0 when unlimited)
+   */
+  public static long getMemoryBudgetBytes() {
+    return memoryBudgetBytes;
+  }
+
+  /**
+   * Get the configuration properties set for this run as they were set (not parsed), e.g. to
+   * start worker processes with the same configuration.
+   *
+   * @return Property name mapped to value of every configuration property that is set.
+   */
+  public static Map<String, String> getProperties() {
+    Map<String, String> properties = new LinkedHashMap<>();
+    for (String property : PROPERTIES) {
+      String value = System.getProperty(property);
+      if (value != null) {
+        properties.put(property, value);
+      }
+    }
+    return properties;
+  }
+
+  /**
+   * Is the name one of the configuration properties
+   *
+   * @param property The property name.
+   * @return true if the property is part of the configuration, otherwise false.
+   */
+  public static boolean isProperty(String property) {
+    return PROPERTIES.contains(property);
+  }
+
+  /**
+   * Get the estimated footprint above which compact structures are selected
+   *
+   * @return Number of bytes
+   */
+  public static long getCompactThresholdBytes() {
+    return compactThresholdBytes;
+  }
+
+  /**
+   * Get the manifest of (user file, tweet file, output file) jobs processed in batch mode
+   *
+   * @return The manifest file path, or null if not running in batch mode
+   */
+  public static String getBatchManifestPath() {
+    return batchManifestPath;
+  }
+
+  /**
+   * Get the number of jobs processed concurrently in batch mode
+   *
+   * @return Number of worker threads (defaults to the number of processors)
+   */
+  public static int getBatchWorkers() {
+    return batchWorkers;
+  }
+
+  /**
+   * Is this process a worker of a partitioned run
+   *
+   * @return true if running as partition worker, otherwise false.
+   */
+  public static boolean isPartitionWorker() {
+    return partitionIndex >= 0;
+  }
 }
@@ -0,0 +1,258 @@
+package org.example.utility;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Reader of the lines of a 7-bit ASCII input stream that holds at most a block of the input
+ * at a time, however large the input is.
+ * <p>
+ * The stream is read in blocks that are split into lines with the AsciiScanner. A line that
+ * runs past the end of a block is carried over to the front of the next block, and so is a
+ * trailing "\r" whose "\n" may start the next block; the block only grows for a single line
+ * longer than the block. Lines end at "\n", "\r" or "\r\n" as with BufferedReader.
+ * <p>
+ * A closed reader hands its block back to the thread that closed it, and the next reader
+ * of the default block size created on that thread takes it over, so that the inputs parsed
+ * one after the other on a worker thread (e.g. batch jobs) share a single block.
+ */
+public final class LineReader implements Closeable {
+
+  public static final int DEFAULT_BLOCK_BYTES = 1 << 20;
+
+  // Block of a closed reader per thread, for the next reader on that thread; null if taken
+  private static final ThreadLocal<byte[]> SPARE_BLOCKS = new ThreadLocal<>();
+
+  private final InputStream in;
+  private final String filePath;
+  private final boolean rejectNonAscii;
+
+  private byte[] block;
+  // Number of bytes read into the block and the part of it split into lines
+  private int filled;
+  private int scanned;
+  // Input offset of the first byte of the block
+  private long blockOffset;
+  private boolean endOfInput;
+
+  // Lines of the scanned part: text, index after the terminator and first non-ASCII byte (-1 if none)
+  private String[] lines = new String[64];
+  private int[] lineEnds = new int[64];
+  private int[] lineNonAscii = new int[64];
+  private int lineCount;
+  private int nextLine;
+
+  private int lineNumber;
+  private long offset;
+  private long nonAsciiOffset = -1;
+
+  /**
+   * Constructor for a reader rejecting input outside 7-bit ASCII.
+   *
+   * @param in       The input stream; closed with the reader.
+   * @param filePath The path of the file the input is read from, for error reporting.
+   */
+  public LineReader(InputStream in, String filePath) {
+    this(in, filePath, true);
+  }
+
+  /**
+   * @param in             The input stream; closed with the reader.
+   * @param filePath       The path of the file the input is read from, for error reporting.
+   * @param rejectNonAscii true to fail on a line with a byte outside 7-bit ASCII, false to
+   *                       return it (see {@link #getNonAsciiOffset()}).
+   */
+  public LineReader(InputStream in, String filePath, boolean rejectNonAscii) {
+    this(in, filePath, rejectNonAscii, DEFAULT_BLOCK_BYTES);
+  }
+
+  /**
+   * Constructor for a reader rejecting input outside 7-bit ASCII that starts part way into
+   * the input, e.g. to resume a parse; line numbers and offsets continue from that position.
+   *
+   * @param in         The input stream, positioned at the offset; closed with the reader.
+   * @param filePath   The path of the file the input is read from, for error reporting.
+   * @param offset     Byte offset of the input the stream is positioned at (a line start).
+   * @param lineNumber Number of lines before the offset.
+   */
+  public LineReader(InputStream in, String filePath, long offset, int lineNumber) {
+    this(in, filePath, true);
+    this.blockOffset = offset;
+    this.offset = offset;
+    this.lineNumber = lineNumber;
+  }
+
+  LineReader(InputStream in, String filePath, boolean rejectNonAscii, int blockBytes) {
+    this.in = in;
+    this.filePath = filePath;
+    this.rejectNonAscii = rejectNonAscii;
+    this.block = takeBlock(blockBytes);
+  }
+
+  /**
+   * Read the next line.
+   *
+   * @return The line without its terminator, or null at the end of the input.
+   * @throws IOException       Occurs when the input can't be read.
+   * @throws NonAsciiException Occurs when the line contains a byte outside 7-bit ASCII while
+   *                           those are rejected.
+   */
+  public String readLine() throws IOException {
+    if (block == null) {
+      throw new IOException("File " + filePath + " is closed");
+    }
+    while (nextLine == lineCount) {
+      if (!scanBlock()) {
+        return null;
+      }
+    }
+
+    int line = nextLine++;
+    lineNumber++;
+    offset = blockOffset + lineEnds[line];
+    nonAsciiOffset = lineNonAscii[line] < 0 ? -1 : blockOffset + lineNonAscii[line];
+    if (rejectNonAscii && nonAsciiOffset >= 0) {
+      throw new NonAsciiException("File " + filePath + " contains a character that is not 7-bit ASCII on line "
+          + lineNumber + " (byte offset " + nonAsciiOffset + ")");
+    }
+    String text = lines[line];
+    lines[line] = null;
+    return text;
+  }
+
+  /**
+   * Get the number of lines read so far.
+   *
+   * @return Line number of the last line read, 0 before the first.
+   */
+  public int getLineNumber() {
+    return lineNumber;
+  }
+
+  /**
+   * Get the input offset after the last line read, including its terminator.
+   *
+   * @return Byte offset of the start of the next line.
+   */
+  public long getOffset() {
+    return offset;
+  }
+
+  /**
+   * Get the input offset of the first byte outside 7-bit ASCII in the last line read.
+   *
+   * @return Byte offset, or -1 if the line is 7-bit ASCII.
+   */
+  public long getNonAsciiOffset() {
+    return nonAsciiOffset;
+  }
+
+  @Override
+  public void close() throws IOException {
+    // A block grown for a long line isn't kept
+    if (block != null && block.length == DEFAULT_BLOCK_BYTES) {
+      SPARE_BLOCKS.set(block);
+    }
+    block = null;
+    in.close();
+  }
+
+  private static byte[] takeBlock(int blockBytes) {
+    byte[] spare = SPARE_BLOCKS.get();
+    if (spare != null && spare.length == blockBytes) {
+      SPARE_BLOCKS.remove();
+      return spare;
+    }
+    return new byte[blockBytes];
+  }
+
+  /**
+   * Split the next complete lines of the input, reading (and if needed growing) the block.
+   *
+   * @return false at the end of the input, otherwise true (possibly without any new line).
+   */
+  private boolean scanBlock() throws IOException {
+    if (endOfInput && scanned == filled) {
+      return false;
+    }
+
+    // Carry the unscanned tail over to the front of the block and fill up the rest
+    if (scanned > 0) {
+      System.arraycopy(block, scanned, block, 0, filled - scanned);
+      blockOffset += scanned;
+      filled -= scanned;
+      scanned = 0;
+    }
+    if (!endOfInput && filled == block.length) {
+      block = Arrays.copyOf(block, block.length * 2);
+    }
+    while (!endOfInput && filled < block.length) {
+      int read = in.read(block, filled, block.length - filled);
+      if (read < 0) {
+        endOfInput = true;
+      } else {
+        filled += read;
+      }
+    }
+
+    int end = endOfInput ? filled : lastLineEnd();
+    lineCount = 0;
+    nextLine = 0;
+    AsciiScanner.scanLines(block, 0, end, (data, start, lineEnd, nonAscii) -> addLine(data, start, lineEnd, nonAscii));
+    // Terminator of every line is the start of the next one, the last one ends the scanned part
+    for (int line = 0; line < lineCount - 1; line++) {
+      lineEnds[line] = lineEnds[line + 1];
+    }
+    if (lineCount > 0) {
+      lineEnds[lineCount - 1] = end;
+    }
+    scanned = end;
+    return true;
+  }
+
+  /**
+   * Get the index after the last complete line of the filled block; a "\r" at the very end
+   * doesn't complete a line yet, as a "\n" may follow in the next block.
+   */
+  private int lastLineEnd() {
+    for (int index = filled - 1; index >= 0; index--) {
+      byte value = block[index];
+      if (value == '\n' || value == '\r' && index < filled - 1) {
+        return index + 1;
+      }
+    }
+    return 0;
+  }
+
+  /**
+   * Record a scanned line; its start is kept as end until the next line is known.
+   */
+  private void addLine(byte[] data, int start, int end, int nonAscii) {
+    if (lineCount == lines.length) {
+      lines = Arrays.copyOf(lines, lineCount * 2);
+      lineEnds = Arrays.copyOf(lineEnds, lineCount * 2);
+      lineNonAscii = Arrays.copyOf(lineNonAscii, lineCount * 2);
+    }
+    lines[lineCount] = new String(data, start, end - start, StandardCharsets.ISO_8859_1);
+    lineEnds[lineCount] = start;
+    lineNonAscii[lineCount] = nonAscii;
+    lineCount++;
+  }
+
+  /**
+   * Failure on a line with a byte outside 7-bit ASCII, i.e. malformed input rather than a
+   * failure to read it; callers parsing records report it as such.
+   */
+  public static final class NonAsciiException extends IOException {
+
+    /**
+     * @param errorMessage error message for exception.
+     */
+    public NonAsciiException(String errorMessage) {
+      super(errorMessage);
+    }
+  }
+}
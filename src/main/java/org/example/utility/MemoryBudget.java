@@ -0,0 +1,82 @@
+package org.example.utility;
+
+import org.example.exception.MemoryBudgetException;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hard budget on the estimated memory footprint of the in-memory model, shared by the data
+ * mappers of a run (including mappers parsing shards concurrently). Mappers charge the
+ * growth of their model's estimate as they parse, so that ingestion stops with a clear error
+ * well before the JVM runs out of memory.
+ */
+public class MemoryBudget {
+
+  private final long limitBytes;
+  private final AtomicLong usedBytes = new AtomicLong();
+
+  /**
+   * @param limitBytes Maximum estimated footprint in bytes; 0 means unlimited (usage is still tracked).
+   */
+  public MemoryBudget(long limitBytes) {
+    if (limitBytes < 0) {
+      throw new IllegalArgumentException("Memory budget must not be negative");
+    }
+    this.limitBytes = limitBytes;
+  }
+
+  /**
+   * Create an unlimited budget that only tracks usage.
+   *
+   * @return Unlimited MemoryBudget.
+   */
+  public static MemoryBudget unlimited() {
+    return new MemoryBudget(0);
+  }
+
+  /**
+   * Charge the growth of an estimated footprint to the budget.
+   *
+   * @param bytes      Number of estimated bytes added.
+   * @param filePath   The file being parsed, for the error message.
+   * @param lineNumber The line being parsed, for the error message.
+   * @throws MemoryBudgetException Occurs when the total estimate exceeds the budget.
+   */
+  public void charge(long bytes, String filePath, int lineNumber) throws MemoryBudgetException {
+    long used = usedBytes.addAndGet(bytes);
+    if (limitBytes > 0 && used > limitBytes) {
+      throw new MemoryBudgetException("Estimated memory footprint of " + used + " bytes exceeds the budget of " + limitBytes
+          + " bytes (property " + Configuration.PROPERTY_MEMORY_BUDGET_BYTES + ") while parsing line " + lineNumber
+          + " of " + filePath + ". Increase the heap and budget, or partition the input.");
+    }
+  }
+
+  /**
+   * Check an estimate of the full footprint, known before parsing (e.g. from counted degrees),
+   * against the budget without charging it; parsing still charges its growth.
+   *
+   * @param estimatedBytes Estimated footprint of the model once parsed.
+   * @param description    What the estimate is of, for the error message.
+   * @throws MemoryBudgetException Occurs when the estimate exceeds the budget.
+   */
+  public void checkEstimate(long estimatedBytes, String description) throws MemoryBudgetException {
+    if (limitBytes > 0 && estimatedBytes > limitBytes) {
+      throw new MemoryBudgetException("Estimated memory footprint of " + estimatedBytes + " bytes for " + description
+          + " exceeds the budget of " + limitBytes + " bytes (property " + Configuration.PROPERTY_MEMORY_BUDGET_BYTES
+          + "). Increase the heap and budget, or partition the input.");
+    }
+  }
+
+  public long getUsedBytes() {
+    return usedBytes.get();
+  }
+
+  public long getLimitBytes() {
+    return limitBytes;
+  }
+
+  @Override
+  public String toString() {
+    return "MemoryBudget{usedBytes=" + usedBytes.get() + ", limitBytes=" + (limitBytes > 0 ? Long.toString(limitBytes) : "unlimited") + "}";
+  }
+}
@@ -0,0 +1,236 @@
+package org.example.utility;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Output stream that gzip compresses its data on several threads. The data is cut into
+ * blocks of a fixed size; every block is deflated independently into a complete gzip member
+ * (header, deflate data and trailer) and the members are written in order. A gzip file may
+ * hold any number of concatenated members, so the output is a regular .gz file for gunzip,
+ * zcat and GZIPInputStream; it is slightly larger than single-threaded gzip output, as
+ * no block refers back to the data of the previous one.
+ * <p>
+ * At most a bounded number of blocks is in flight, so memory use doesn't depend on the
+ * size of the output. The stream isn't thread safe.
+ */
+public class ParallelGzipOutputStream extends OutputStream {
+
+  private static final int GZIP_HEADER_BYTES = 10;
+  private static final int GZIP_TRAILER_BYTES = 8;
+  // Magic, deflate method, no flags, no modification time, no extra flags, unknown OS
+  private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+
+  private final OutputStream out;
+  private final ExecutorService executor;
+  private final int blockBytes;
+  private final int level;
+  private final int maxPendingBlocks;
+  private final Deque<Future<byte[]>> pendingBlocks = new ArrayDeque<>();
+
+  private byte[] block;
+  private int blockLength;
+  private long membersWritten;
+  private long uncompressedBytes;
+  private long compressedBytes;
+  private boolean closed;
+
+  /**
+   * Create a stream compressing at the default level.
+   *
+   * @param out        The stream the gzip members are written to; closed when this stream is closed.
+   * @param threads    Number of threads compressing blocks.
+   * @param blockBytes Number of uncompressed bytes per block (gzip member).
+   */
+  public ParallelGzipOutputStream(OutputStream out, int threads, int blockBytes) {
+    this(out, threads, blockBytes, Deflater.DEFAULT_COMPRESSION);
+  }
+
+  /**
+   * @param out        The stream the gzip members are written to; closed when this stream is closed.
+   * @param threads    Number of threads compressing blocks.
+   * @param blockBytes Number of uncompressed bytes per block (gzip member).
+   * @param level      Deflate compression level (0-9, or -1 for the default).
+   */
+  public ParallelGzipOutputStream(OutputStream out, int threads, int blockBytes, int level) {
+    if (threads < 1) {
+      throw new IllegalArgumentException("Thread count must be at least 1");
+    }
+    if (blockBytes < 1) {
+      throw new IllegalArgumentException("Block size must be at least 1 byte");
+    }
+    this.out = out;
+    this.blockBytes = blockBytes;
+    this.level = level;
+    // Keep every thread busy while the oldest block is written
+    this.maxPendingBlocks = 2 * threads;
+    this.block = new byte[blockBytes];
+
+    AtomicInteger threadCounter = new AtomicInteger();
+    this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+      Thread thread = new Thread(runnable, "gzip-deflater-" + threadCounter.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  @Override
+  public void write(int b) throws IOException {
+    ensureOpen();
+    block[blockLength++] = (byte) b;
+    if (blockLength == blockBytes) {
+      submitBlock();
+    }
+  }
+
+  @Override
+  public void write(byte[] data, int offset, int length) throws IOException {
+    ensureOpen();
+    while (length > 0) {
+      int copied = Math.min(length, blockBytes - blockLength);
+      System.arraycopy(data, offset, block, blockLength, copied);
+      blockLength += copied;
+      offset += copied;
+      length -= copied;
+      if (blockLength == blockBytes) {
+        submitBlock();
+      }
+    }
+  }
+
+  /**
+   * Write the blocks compressed so far and flush the underlying stream. The partial block
+   * being filled is kept, so that flushing doesn't produce small gzip members.
+   *
+   * @throws IOException Occurs when compressing or writing fails.
+   */
+  @Override
+  public void flush() throws IOException {
+    ensureOpen();
+    while (!pendingBlocks.isEmpty()) {
+      writeMember(pendingBlocks.poll());
+    }
+    out.flush();
+  }
+
+  /**
+   * Compress the last (partial) block, write all members and close the underlying stream.
+   * Output without any data still gets an empty member, so that it is a valid gzip file.
+   *
+   * @throws IOException Occurs when compressing or writing fails.
+   */
+  @Override
+  public void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    try {
+      if (blockLength > 0 || membersWritten + pendingBlocks.size() == 0) {
+        submitBlock();
+      }
+      flush();
+    } finally {
+      closed = true;
+      executor.shutdownNow();
+      out.close();
+    }
+  }
+
+  public long getUncompressedBytes() {
+    return uncompressedBytes;
+  }
+
+  /**
+   * Get the number of compressed bytes written so far (including gzip headers and trailers)
+   *
+   * @return Byte count
+   */
+  public long getCompressedBytes() {
+    return compressedBytes;
+  }
+
+  private void submitBlock() throws IOException {
+    byte[] data = block;
+    int length = blockLength;
+    pendingBlocks.add(executor.submit(() -> compressMember(data, length, level)));
+    uncompressedBytes += length;
+    block = new byte[blockBytes];
+    blockLength = 0;
+
+    while (pendingBlocks.size() > maxPendingBlocks) {
+      writeMember(pendingBlocks.poll());
+    }
+  }
+
+  private void writeMember(Future<byte[]> pendingBlock) throws IOException {
+    byte[] member;
+    try {
+      member = pendingBlock.get();
+    } catch (ExecutionException e) {
+      throw new IOException("Failed to compress output block", e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while compressing output");
+    }
+    out.write(member);
+    membersWritten++;
+    compressedBytes += member.length;
+  }
+
+  private void ensureOpen() throws IOException {
+    if (closed) {
+      throw new IOException("Stream closed");
+    }
+  }
+
+  /**
+   * Deflate a block into a complete gzip member.
+   *
+   * @return The member: header, raw deflate data, CRC32 and length of the block.
+   */
+  static byte[] compressMember(byte[] data, int length, int level) {
+    Deflater deflater = new Deflater(level, true);
+    try {
+      deflater.setInput(data, 0, length);
+      deflater.finish();
+
+      // Stored (incompressible) blocks add a few bytes per 16 KiB on top of the input
+      byte[] member = new byte[GZIP_HEADER_BYTES + length + length / 1000 + 64 + GZIP_TRAILER_BYTES];
+      System.arraycopy(GZIP_HEADER, 0, member, 0, GZIP_HEADER_BYTES);
+      int position = GZIP_HEADER_BYTES;
+      while (!deflater.finished()) {
+        if (position == member.length - GZIP_TRAILER_BYTES) {
+          member = Arrays.copyOf(member, member.length * 2);
+        }
+        position += deflater.deflate(member, position, member.length - GZIP_TRAILER_BYTES - position);
+      }
+
+      CRC32 crc = new CRC32();
+      crc.update(data, 0, length);
+      position = writeIntLittleEndian(member, position, (int) crc.getValue());
+      position = writeIntLittleEndian(member, position, length);
+      return position == member.length ? member : Arrays.copyOf(member, position);
+    } finally {
+      deflater.end();
+    }
+  }
+
+  private static int writeIntLittleEndian(byte[] buffer, int position, int value) {
+    buffer[position] = (byte) value;
+    buffer[position + 1] = (byte) (value >>> 8);
+    buffer[position + 2] = (byte) (value >>> 16);
+    buffer[position + 3] = (byte) (value >>> 24);
+    return position + Integer.BYTES;
+  }
+}
@@ -0,0 +1,240 @@
+package org.example.utility;
+
+import lombok.extern.log4j.Log4j2;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Tracing of the records parsed by the data mappers. Rather than logging every line at
+ * debug level, a line is traced when it is one of every trace.parse.sample lines or names
+ * one of trace.parse.users (the author of a tweet record; the follower or any followed user
+ * of a user record). Traced records are queued in a bounded buffer and logged by a
+ * background thread; when the buffer is full, records are dropped (and the drops counted)
+ * instead of slowing the parse down. {@link #shutdown()} logs the buffered records before
+ * the program exits.
+ * <p>
+ * Tracing a record is a field test when tracing is off, and a modulo and a set lookup per
+ * line when it is on; only traced records allocate anything.
+ */
+@Log4j2
+public final class ParseTracer {
+
+  private static final ParseTracer DISABLED = new ParseTracer(0, Collections.emptySet(), 1, null);
+  private static final long SHUTDOWN_TIMEOUT_MILLIS = 5000;
+
+  private static ParseTracer instance = DISABLED;
+
+  private final boolean enabled;
+  private final int sampleEvery;
+  private final Set<String> users;
+  private final int bufferEvents;
+  private final BlockingQueue<TraceEvent> buffer;
+  private final AtomicLong droppedEvents = new AtomicLong();
+  private final Thread drainThread;
+  private volatile boolean closed;
+
+  /**
+   * @param sampleEvery  Trace one of every this many lines; 0 to not sample.
+   * @param users        Users whose records are always traced.
+   * @param bufferEvents Number of traced records buffered before records are dropped.
+   * @param sink         Receives the traced records on the background thread; null for a disabled tracer.
+   */
+  ParseTracer(int sampleEvery, Set<String> users, int bufferEvents, Consumer<TraceEvent> sink) {
+    this.enabled = sampleEvery > 0 || !users.isEmpty();
+    this.sampleEvery = sampleEvery;
+    this.users = users;
+    this.bufferEvents = bufferEvents;
+    this.buffer = enabled ? new ArrayBlockingQueue<>(bufferEvents) : null;
+    if (enabled) {
+      this.drainThread = new Thread(() -> drain(sink), "parse-tracer");
+      this.drainThread.setDaemon(true);
+      this.drainThread.start();
+    } else {
+      this.drainThread = null;
+    }
+  }
+
+  /**
+   * Get the tracer for the current configuration. A tracer is created when tracing is first
+   * configured, and replaced (its buffered records still logged) when the configuration changes.
+   *
+   * @return The configured tracer, which does nothing if tracing isn't configured.
+   */
+  public static synchronized ParseTracer getInstance() {
+    int sampleEvery = Configuration.getTraceParseSample();
+    Set<String> users = Configuration.getTraceParseUsers();
+    int bufferEvents = Configuration.getTraceParseBufferEvents();
+    if (instance.sampleEvery != sampleEvery || !instance.users.equals(users)
+        || (instance.enabled && instance.bufferEvents != bufferEvents)) {
+      instance.close();
+      instance = sampleEvery > 0 || !users.isEmpty()
+          ? new ParseTracer(sampleEvery, users, bufferEvents, ParseTracer::logEvent)
+          : DISABLED;
+    }
+    return instance;
+  }
+
+  /**
+   * Log the records traced so far and stop the tracer of the current configuration; called
+   * before the program exits, as the background thread doesn't keep the JVM alive.
+   */
+  public static synchronized void shutdown() {
+    instance.close();
+    instance = DISABLED;
+  }
+
+  /**
+   * Trace a parsed record if it is sampled or of a traced user.
+   *
+   * @param filePath   The input file of the record.
+   * @param lineNumber Line number of the record in the input file.
+   * @param user       The user of the record (follower or author).
+   * @param record     The record as parsed.
+   */
+  public void trace(String filePath, int lineNumber, String user, String record) {
+    if (isTraced(lineNumber, user)) {
+      record(filePath, lineNumber, user, record);
+    }
+  }
+
+  /**
+   * Is a line traced because it is sampled or of a traced user
+   *
+   * @param lineNumber Line number of the record in the input file.
+   * @param user       The user of the record (follower or author).
+   * @return true if the record of the line is to be traced, otherwise false.
+   */
+  public boolean isTraced(int lineNumber, String user) {
+    return enabled && ((sampleEvery > 0 && lineNumber % sampleEvery == 0) || users.contains(user));
+  }
+
+  /**
+   * Is a user one of the traced users, e.g. a followed user of a user record
+   *
+   * @param user The Twitter user.
+   * @return true if the records naming the user are to be traced, otherwise false.
+   */
+  public boolean isTracedUser(String user) {
+    return enabled && users.contains(user);
+  }
+
+  /**
+   * Queue a record for logging, whether or not it is sampled; see {@link #isTraced(int, String)}.
+   *
+   * @param filePath   The input file of the record.
+   * @param lineNumber Line number of the record in the input file.
+   * @param user       The user of the record (follower or author).
+   * @param record     The record as parsed.
+   */
+  public void record(String filePath, int lineNumber, String user, String record) {
+    if (!enabled || closed) {
+      return;
+    }
+    if (!buffer.offer(new TraceEvent(filePath, lineNumber, user, record))) {
+      droppedEvents.incrementAndGet();
+    }
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Get the number of traced records dropped because the buffer was full
+   *
+   * @return Dropped record count
+   */
+  public long getDroppedEvents() {
+    return droppedEvents.get();
+  }
+
+  /**
+   * Stop tracing and wait until the buffered records are logged.
+   */
+  void close() {
+    if (!enabled || closed) {
+      return;
+    }
+    closed = true;
+    drainThread.interrupt();
+    try {
+      drainThread.join(SHUTDOWN_TIMEOUT_MILLIS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void drain(Consumer<TraceEvent> sink) {
+    long reportedDrops = 0;
+    try {
+      while (true) {
+        sink.accept(buffer.take());
+        reportedDrops = reportDrops(reportedDrops);
+      }
+    } catch (InterruptedException e) {
+      // Closed; log what was traced so far
+      List<TraceEvent> remaining = new ArrayList<>();
+      buffer.drainTo(remaining);
+      remaining.forEach(sink);
+      reportDrops(reportedDrops);
+    }
+  }
+
+  private long reportDrops(long reportedDrops) {
+    long drops = droppedEvents.get();
+    if (drops != reportedDrops) {
+      log.warn("Parse trace buffer full, dropped " + (drops - reportedDrops) + " traced record(s)");
+    }
+    return drops;
+  }
+
+  private static void logEvent(TraceEvent event) {
+    log.info(event);
+  }
+
+  /**
+   * A traced record.
+   */
+  public static final class TraceEvent {
+
+    private final String filePath;
+    private final int lineNumber;
+    private final String user;
+    private final String record;
+
+    TraceEvent(String filePath, int lineNumber, String user, String record) {
+      this.filePath = filePath;
+      this.lineNumber = lineNumber;
+      this.user = user;
+      this.record = record;
+    }
+
+    public String getFilePath() {
+      return filePath;
+    }
+
+    public int getLineNumber() {
+      return lineNumber;
+    }
+
+    public String getUser() {
+      return user;
+    }
+
+    public String getRecord() {
+      return record;
+    }
+
+    @Override
+    public String toString() {
+      return "Parsed " + filePath + " line " + lineNumber + " (user " + user + "): " + record;
+    }
+  }
+}
@@ -0,0 +1,482 @@
+package org.example.utility;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * Immutable hash map that shares structure with the map it was derived from (hash array
+ * mapped trie). {@link #plus(Object, Object)} and {@link #minus(Object)} return a new map
+ * and copy only the trie nodes on the path to the changed entry, so a change costs
+ * O(log32 n) rather than a copy of the whole map; unchanged nodes are shared.
+ * <p>
+ * The map is read-only through the Map interface; null keys and values aren't supported.
+ *
+ * @param <K> Key type.
+ * @param <V> Value type.
+ */
+public final class PersistentHashMap<K, V> extends AbstractMap<K, V> {
+
+  private static final int BITS = 5;
+  private static final int MASK = (1 << BITS) - 1;
+  // Nodes on the longest path: bitmap nodes for every 5 bits of the hash and a collision node
+  private static final int MAX_DEPTH = 8;
+  private static final PersistentHashMap<?, ?> EMPTY = new PersistentHashMap<>(null, 0);
+
+  private final Node root;
+  private final int size;
+
+  private PersistentHashMap(Node root, int size) {
+    this.root = root;
+    this.size = size;
+  }
+
+  /**
+   * Get the empty map.
+   *
+   * @param <K> Key type.
+   * @param <V> Value type.
+   * @return Map without entries.
+   */
+  @SuppressWarnings("unchecked")
+  public static <K, V> PersistentHashMap<K, V> empty() {
+    return (PersistentHashMap<K, V>) EMPTY;
+  }
+
+  /**
+   * Create a map with the entries of another map. The trie is built bottom-up in a single
+   * pass over the entries ordered by hash, rather than by adding the entries one by one.
+   *
+   * @param map The entries.
+   * @param <K> Key type.
+   * @param <V> Value type.
+   * @return Map with the same entries.
+   */
+  public static <K, V> PersistentHashMap<K, V> copyOf(Map<? extends K, ? extends V> map) {
+    if (map instanceof PersistentHashMap) {
+      @SuppressWarnings("unchecked")
+      PersistentHashMap<K, V> persistent = (PersistentHashMap<K, V>) map;
+      return persistent;
+    }
+    int count = map.size();
+    if (count == 0) {
+      return empty();
+    }
+
+    // Order by the reversed hash: the trie branches on the low bits first, so every subtree is a contiguous range
+    long[] order = new long[count];
+    Object[] unordered = new Object[2 * count];
+    int index = 0;
+    for (Map.Entry<? extends K, ? extends V> entry : map.entrySet()) {
+      unordered[2 * index] = Objects.requireNonNull(entry.getKey());
+      unordered[2 * index + 1] = Objects.requireNonNull(entry.getValue());
+      order[index] = (Integer.toUnsignedLong(Integer.reverse(hash(entry.getKey()))) << 32) | index;
+      index++;
+    }
+    Arrays.sort(order);
+
+    Object[] pairs = new Object[2 * count];
+    int[] hashes = new int[count];
+    for (int i = 0; i < count; i++) {
+      int from = (int) order[i];
+      pairs[2 * i] = unordered[2 * from];
+      pairs[2 * i + 1] = unordered[2 * from + 1];
+      hashes[i] = Integer.reverse((int) (order[i] >>> 32));
+    }
+    return new PersistentHashMap<>(build(pairs, hashes, 0, count, 0), count);
+  }
+
+  /**
+   * Get a map with an entry added or replaced.
+   *
+   * @param key   The key.
+   * @param value The value.
+   * @return Map including the entry; this map if it already holds the same value for the key.
+   */
+  public PersistentHashMap<K, V> plus(K key, V value) {
+    Objects.requireNonNull(key);
+    Objects.requireNonNull(value);
+    boolean[] added = new boolean[1];
+    Node node = put(root == null ? Node.EMPTY : root, key, value, hash(key), 0, added);
+    return node == root ? this : new PersistentHashMap<>(node, added[0] ? size + 1 : size);
+  }
+
+  /**
+   * Get a map with an entry removed.
+   *
+   * @param key The key.
+   * @return Map excluding the key; this map if it doesn't hold the key.
+   */
+  public PersistentHashMap<K, V> minus(Object key) {
+    if (root == null || key == null) {
+      return this;
+    }
+    Node node = remove(root, key, hash(key), 0);
+    if (node == root) {
+      return this;
+    }
+    return node == null ? empty() : new PersistentHashMap<>(node, size - 1);
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public V get(Object key) {
+    if (root == null || key == null) {
+      return null;
+    }
+    int hash = hash(key);
+    Node node = root;
+    int shift = 0;
+    while (true) {
+      if (node.collision) {
+        int index = node.indexOf(key);
+        return index < 0 ? null : (V) node.slots[index + 1];
+      }
+      int bit = bit(hash, shift);
+      if ((node.bitmap & bit) == 0) {
+        return null;
+      }
+      int index = node.index(bit);
+      Object slotKey = node.slots[index];
+      if (slotKey == null) {
+        node = (Node) node.slots[index + 1];
+        shift += BITS;
+      } else {
+        return key.equals(slotKey) ? (V) node.slots[index + 1] : null;
+      }
+    }
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return get(key) != null;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public void forEach(BiConsumer<? super K, ? super V> action) {
+    EntryIterator iterator = new EntryIterator();
+    while (iterator.hasNext()) {
+      iterator.advance();
+      action.accept((K) iterator.key, (V) iterator.value);
+    }
+  }
+
+  @Override
+  public Set<Map.Entry<K, V>> entrySet() {
+    return new AbstractSet<>() {
+      @Override
+      public Iterator<Map.Entry<K, V>> iterator() {
+        EntryIterator iterator = new EntryIterator();
+        return new Iterator<>() {
+          @Override
+          public boolean hasNext() {
+            return iterator.hasNext();
+          }
+
+          @Override
+          @SuppressWarnings("unchecked")
+          public Map.Entry<K, V> next() {
+            iterator.advance();
+            return new SimpleImmutableEntry<>((K) iterator.key, (V) iterator.value);
+          }
+        };
+      }
+
+      @Override
+      public int size() {
+        return size;
+      }
+    };
+  }
+
+  /**
+   * Iterate the keys without creating an entry per key.
+   */
+  Iterator<K> keyIterator() {
+    EntryIterator iterator = new EntryIterator();
+    return new Iterator<>() {
+      @Override
+      public boolean hasNext() {
+        return iterator.hasNext();
+      }
+
+      @Override
+      @SuppressWarnings("unchecked")
+      public K next() {
+        iterator.advance();
+        return (K) iterator.key;
+      }
+    };
+  }
+
+  private static int hash(Object key) {
+    int hash = key.hashCode();
+    // Spread the high bits into the low bits the first levels branch on
+    return hash ^ (hash >>> 16);
+  }
+
+  private static int bit(int hash, int shift) {
+    return 1 << ((hash >>> shift) & MASK);
+  }
+
+  /**
+   * Build the node of the range [from, to) of entries ordered by reversed hash; all entries
+   * in the range share the hash bits below shift.
+   */
+  private static Node build(Object[] pairs, int[] hashes, int from, int to, int shift) {
+    // Entries of the same branch are contiguous, but the branches are ordered by reversed bits; collect them first
+    int[] starts = new int[MASK + 1];
+    Arrays.fill(starts, -1);
+    int bitmap = 0;
+    for (int i = from; i < to; i++) {
+      int branch = (hashes[i] >>> shift) & MASK;
+      if (starts[branch] < 0) {
+        starts[branch] = i;
+        bitmap |= 1 << branch;
+      }
+    }
+
+    Object[] slots = new Object[2 * Integer.bitCount(bitmap)];
+    int slot = 0;
+    for (int branch = 0; branch <= MASK; branch++) {
+      int start = starts[branch];
+      if (start < 0) {
+        continue;
+      }
+      int end = start + 1;
+      while (end < to && ((hashes[end] >>> shift) & MASK) == branch) {
+        end++;
+      }
+
+      if (end - start == 1) {
+        slots[slot] = pairs[2 * start];
+        slots[slot + 1] = pairs[2 * start + 1];
+      } else if (hashes[start] == hashes[end - 1]) {
+        // Ordered by hash, so equal first and last hashes mean the whole branch collides
+        slots[slot + 1] = Node.collision(hashes[start], Arrays.copyOfRange(pairs, 2 * start, 2 * end));
+      } else {
+        slots[slot + 1] = build(pairs, hashes, start, end, shift + BITS);
+      }
+      slot += 2;
+    }
+    return new Node(bitmap, slots);
+  }
+
+  private static Node put(Node node, Object key, Object value, int hash, int shift, boolean[] added) {
+    if (node.collision) {
+      if (hash != node.bitmap) {
+        // A different hash reaching a collision node; branch above it
+        Node branch = new Node(bit(node.bitmap, shift), new Object[] {null, node});
+        return put(branch, key, value, hash, shift, added);
+      }
+      int index = node.indexOf(key);
+      if (index >= 0) {
+        return node.slots[index + 1] == value ? node : node.with(index + 1, value);
+      }
+      added[0] = true;
+      Object[] slots = Arrays.copyOf(node.slots, node.slots.length + 2);
+      slots[node.slots.length] = key;
+      slots[node.slots.length + 1] = value;
+      return Node.collision(hash, slots);
+    }
+
+    int bit = bit(hash, shift);
+    int index = node.index(bit);
+    if ((node.bitmap & bit) == 0) {
+      added[0] = true;
+      Object[] slots = new Object[node.slots.length + 2];
+      System.arraycopy(node.slots, 0, slots, 0, index);
+      slots[index] = key;
+      slots[index + 1] = value;
+      System.arraycopy(node.slots, index, slots, index + 2, node.slots.length - index);
+      return new Node(node.bitmap | bit, slots);
+    }
+
+    Object slotKey = node.slots[index];
+    Object slotValue = node.slots[index + 1];
+    if (slotKey == null) {
+      Node child = put((Node) slotValue, key, value, hash, shift + BITS, added);
+      return child == slotValue ? node : node.with(index + 1, child);
+    }
+    if (key.equals(slotKey)) {
+      return slotValue == value ? node : node.with(index + 1, value);
+    }
+
+    // Two keys in the same branch; push both down into a new node
+    added[0] = true;
+    int slotHash = hash(slotKey);
+    Node child;
+    if (slotHash == hash) {
+      child = Node.collision(hash, new Object[] {slotKey, slotValue, key, value});
+    } else {
+      child = put(put(Node.EMPTY, slotKey, slotValue, slotHash, shift + BITS, new boolean[1]), key, value, hash, shift + BITS,
+          new boolean[1]);
+    }
+    Object[] slots = node.slots.clone();
+    slots[index] = null;
+    slots[index + 1] = child;
+    return new Node(node.bitmap, slots);
+  }
+
+  /**
+   * Remove a key below a node.
+   *
+   * @return The node without the key (the same node if absent), or null if it became empty.
+   */
+  private static Node remove(Node node, Object key, int hash, int shift) {
+    if (node.collision) {
+      int index = node.indexOf(key);
+      if (index < 0) {
+        return node;
+      }
+      return node.slots.length == 2 ? null : Node.collision(node.bitmap, node.without(index));
+    }
+
+    int bit = bit(hash, shift);
+    if ((node.bitmap & bit) == 0) {
+      return node;
+    }
+    int index = node.index(bit);
+    Object slotKey = node.slots[index];
+    if (slotKey == null) {
+      Node child = remove((Node) node.slots[index + 1], key, hash, shift + BITS);
+      if (child == node.slots[index + 1]) {
+        return node;
+      }
+      if (child != null) {
+        return node.with(index + 1, child);
+      }
+    } else if (!key.equals(slotKey)) {
+      return node;
+    }
+
+    int bitmap = node.bitmap & ~bit;
+    return bitmap == 0 ? null : new Node(bitmap, node.without(index));
+  }
+
+  /**
+   * Trie node. A bitmap node holds a key/value pair per set bit of its bitmap, ordered by
+   * bit; a null key marks a child node in the value slot. A collision node holds the pairs
+   * of keys with the same (full) hash, which it keeps in place of the bitmap.
+   */
+  private static final class Node {
+
+    static final Node EMPTY = new Node(0, new Object[0]);
+
+    final int bitmap;
+    final Object[] slots;
+    final boolean collision;
+
+    Node(int bitmap, Object[] slots) {
+      this(bitmap, slots, false);
+    }
+
+    private Node(int bitmap, Object[] slots, boolean collision) {
+      this.bitmap = bitmap;
+      this.slots = slots;
+      this.collision = collision;
+    }
+
+    static Node collision(int hash, Object[] pairs) {
+      return new Node(hash, pairs, true);
+    }
+
+    int index(int bit) {
+      return 2 * Integer.bitCount(bitmap & (bit - 1));
+    }
+
+    int indexOf(Object key) {
+      for (int index = 0; index < slots.length; index += 2) {
+        if (key.equals(slots[index])) {
+          return index;
+        }
+      }
+      return -1;
+    }
+
+    Node with(int index, Object value) {
+      Object[] copy = slots.clone();
+      copy[index] = value;
+      return new Node(bitmap, copy, collision);
+    }
+
+    Object[] without(int index) {
+      Object[] copy = new Object[slots.length - 2];
+      System.arraycopy(slots, 0, copy, 0, index);
+      System.arraycopy(slots, index + 2, copy, index, slots.length - index - 2);
+      return copy;
+    }
+  }
+
+  /**
+   * Depth-first iteration over the pairs of the trie.
+   */
+  private final class EntryIterator {
+
+    private final Node[] nodes = new Node[MAX_DEPTH];
+    private final int[] positions = new int[MAX_DEPTH];
+    private int depth = -1;
+    private Object nextKey;
+    private Object nextValue;
+    Object key;
+    Object value;
+
+    EntryIterator() {
+      if (root != null) {
+        push(root);
+        find();
+      }
+    }
+
+    boolean hasNext() {
+      return nextKey != null;
+    }
+
+    void advance() {
+      if (nextKey == null) {
+        throw new NoSuchElementException();
+      }
+      key = nextKey;
+      value = nextValue;
+      find();
+    }
+
+    private void push(Node node) {
+      depth++;
+      nodes[depth] = node;
+      positions[depth] = 0;
+    }
+
+    private void find() {
+      nextKey = null;
+      while (depth >= 0) {
+        Node node = nodes[depth];
+        int position = positions[depth];
+        if (position >= node.slots.length) {
+          depth--;
+          continue;
+        }
+        positions[depth] = position + 2;
+        if (node.slots[position] == null) {
+          push((Node) node.slots[position + 1]);
+        } else {
+          nextKey = node.slots[position];
+          nextValue = node.slots[position + 1];
+          return;
+        }
+      }
+    }
+  }
+}
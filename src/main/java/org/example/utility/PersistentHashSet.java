@@ -0,0 +1,97 @@
+package org.example.utility;
+
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Immutable hash set that shares structure with the set it was derived from; see
+ * {@link PersistentHashMap}. {@link #plus(Object)} and {@link #minus(Object)} return a new
+ * set in O(log32 n). The set is read-only through the Set interface.
+ *
+ * @param <E> Element type.
+ */
+public final class PersistentHashSet<E> extends AbstractSet<E> {
+
+  private static final PersistentHashSet<?> EMPTY = new PersistentHashSet<>(PersistentHashMap.empty());
+
+  // Every element maps to itself
+  private final PersistentHashMap<E, E> elements;
+
+  private PersistentHashSet(PersistentHashMap<E, E> elements) {
+    this.elements = elements;
+  }
+
+  /**
+   * Get the empty set.
+   *
+   * @param <E> Element type.
+   * @return Set without elements.
+   */
+  @SuppressWarnings("unchecked")
+  public static <E> PersistentHashSet<E> empty() {
+    return (PersistentHashSet<E>) EMPTY;
+  }
+
+  /**
+   * Create a set with the elements of a collection.
+   *
+   * @param collection The elements.
+   * @param <E>        Element type.
+   * @return Set with the same (unique) elements.
+   */
+  public static <E> PersistentHashSet<E> copyOf(Collection<? extends E> collection) {
+    if (collection instanceof PersistentHashSet) {
+      @SuppressWarnings("unchecked")
+      PersistentHashSet<E> persistent = (PersistentHashSet<E>) collection;
+      return persistent;
+    }
+    Map<E, E> map = new HashMap<>();
+    for (E element : collection) {
+      map.put(element, element);
+    }
+    return map.isEmpty() ? empty() : new PersistentHashSet<>(PersistentHashMap.copyOf(map));
+  }
+
+  /**
+   * Get a set with an element added.
+   *
+   * @param element The element.
+   * @return Set including the element; this set if it already holds it.
+   */
+  public PersistentHashSet<E> plus(E element) {
+    PersistentHashMap<E, E> plus = elements.containsKey(element) ? elements : elements.plus(element, element);
+    return plus == elements ? this : new PersistentHashSet<>(plus);
+  }
+
+  /**
+   * Get a set with an element removed.
+   *
+   * @param element The element.
+   * @return Set excluding the element; this set if it doesn't hold it.
+   */
+  public PersistentHashSet<E> minus(Object element) {
+    PersistentHashMap<E, E> minus = elements.minus(element);
+    if (minus == elements) {
+      return this;
+    }
+    return minus.isEmpty() ? empty() : new PersistentHashSet<>(minus);
+  }
+
+  @Override
+  public boolean contains(Object element) {
+    return elements.containsKey(element);
+  }
+
+  @Override
+  public int size() {
+    return elements.size();
+  }
+
+  @Override
+  public Iterator<E> iterator() {
+    return elements.keyIterator();
+  }
+}
@@ -0,0 +1,87 @@
+package org.example.utility;
+
+import java.util.Arrays;
+
+/**
+ * MSD (most significant digit first) radix sort for strings of 7-bit ASCII characters,
+ * such as Twitter user names. The resulting order is the natural String order, so it can
+ * replace a sorted map that is only needed for ordered iteration at the end.
+ */
+public final class StringRadixSort {
+
+  private static final int RADIX = 128;
+  // Small ranges are cheaper to finish with insertion sort than another counting pass
+  private static final int INSERTION_SORT_CUTOFF = 16;
+
+  private StringRadixSort() {
+    // Private constructor
+  }
+
+  /**
+   * Sort the strings in place in natural String order. Falls back to a comparison sort
+   * if any string contains a character outside 7-bit ASCII.
+   *
+   * @param values The strings to sort.
+   */
+  public static void sort(String[] values) {
+    for (String value : values) {
+      for (int i = 0; i < value.length(); i++) {
+        if (value.charAt(i) >= RADIX) {
+          Arrays.sort(values);
+          return;
+        }
+      }
+    }
+
+    sort(values, new String[values.length], 0, values.length, 0);
+  }
+
+  /**
+   * Sort the range [from, to) on the character at depth onwards; all strings in the range
+   * share their first depth characters.
+   */
+  private static void sort(String[] values, String[] buffer, int from, int to, int depth) {
+    if (to - from <= INSERTION_SORT_CUTOFF) {
+      insertionSort(values, from, to);
+      return;
+    }
+
+    // Bucket 0 holds the strings that end at this depth, bucket c + 1 those with character c
+    int[] bucketEnds = new int[RADIX + 2];
+    for (int i = from; i < to; i++) {
+      bucketEnds[bucket(values[i], depth) + 1]++;
+    }
+    for (int b = 0; b <= RADIX; b++) {
+      bucketEnds[b + 1] += bucketEnds[b];
+    }
+    for (int i = from; i < to; i++) {
+      buffer[bucketEnds[bucket(values[i], depth)]++] = values[i];
+    }
+    System.arraycopy(buffer, 0, values, from, to - from);
+
+    // Strings that ended are equal and already in place; recurse into every character bucket
+    for (int b = 1; b <= RADIX; b++) {
+      int bucketStart = from + bucketEnds[b - 1];
+      int bucketEnd = from + bucketEnds[b];
+      if (bucketEnd - bucketStart > 1) {
+        sort(values, buffer, bucketStart, bucketEnd, depth + 1);
+      }
+    }
+  }
+
+  private static int bucket(String value, int depth) {
+    return depth < value.length() ? value.charAt(depth) + 1 : 0;
+  }
+
+  private static void insertionSort(String[] values, int from, int to) {
+    for (int i = from + 1; i < to; i++) {
+      String value = values[i];
+      int j = i;
+      while (j > from && values[j - 1].compareTo(value) > 0) {
+        values[j] = values[j - 1];
+        j--;
+      }
+      values[j] = value;
+    }
+  }
+}
@@ -1,23 +1,34 @@
 package org.example.mapper;
 
+import org.example.exception.DataException;
+import org.example.utility.LineReader;
 import org.junit.Assert;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.mockito.MockedStatic;
 import org.mockito.Mockito;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.nio.charset.Charset;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * Test class for Configuration utility class
  */
 public class AbstractDataMapperTest {
 
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
   private AbstractDataMapper abstractDataMapper;
 
   @Before
@@ -36,7 +47,7 @@ public class AbstractDataMapperTest {
       mockedStatic.when(() -> Files.notExists(Mockito.any(Path.class))).thenReturn(false);
       mockedStatic.when(() -> Files.isReadable(Mockito.any(Path.class))).thenReturn(false);
 
-      abstractDataMapper.readFile("/path/to/file");
+      readFile("/path/to/file");
     }
   }
 
@@ -51,7 +62,7 @@ public class AbstractDataMapperTest {
     try (MockedStatic<Files> mockedStatic = Mockito.mockStatic(Files.class)) {
       mockedStatic.when(() -> Files.notExists(Mockito.any(Path.class))).thenReturn(true);
 
-      abstractDataMapper.readFile("/path/to/file");
+      readFile("/path/to/file");
     }
   }
 
@@ -62,18 +73,119 @@ public class AbstractDataMapperTest {
    */
   @Test
   public void testReadFile_HappyPath() throws IOException {
-    List<String> dummyData = Arrays.asList("Data1", "Data2", "Data3");
+    byte[] dummyData = "Data1\nData2\nData3\n".getBytes(StandardCharsets.US_ASCII);
     List<String> output;
 
     try (MockedStatic<Files> mockedStatic = Mockito.mockStatic(Files.class)) {
       mockedStatic.when(() -> Files.notExists(Mockito.any(Path.class))).thenReturn(false);
       mockedStatic.when(() -> Files.isReadable(Mockito.any(Path.class))).thenReturn(true);
-      mockedStatic.when(() -> Files.readAllLines(Mockito.any(Path.class), Mockito.any(Charset.class))).thenReturn(dummyData);
+      mockedStatic.when(() -> Files.newInputStream(Mockito.any(Path.class))).thenAnswer(invocation -> new ByteArrayInputStream(dummyData));
 
-      output = abstractDataMapper.readFile("/path/to/file");
+      output = readFile("/path/to/file");
     }
 
     Assert.assertNotNull(output);
     Assert.assertEquals("Data returned invalid size", 3, output.size());
   }
+
+  /**
+   * Use case where the input file has a .gz extension; data should be decompressed
+   * and returned as line data.
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testReadFile_GzipExtension() throws IOException {
+    Path filePath = writeGzip("user.txt.gz", "Ward follows Alan\nAlan follows Martin\n");
+
+    List<String> output = readFile(filePath.toString());
+
+    Assert.assertEquals("Data returned invalid", Arrays.asList("Ward follows Alan", "Alan follows Martin"), output);
+  }
+
+  /**
+   * Use case where the input file is gzip compressed but has no .gz extension;
+   * compression should be detected through the magic bytes.
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testReadFile_GzipMagicBytes() throws IOException {
+    StringBuilder data = new StringBuilder();
+    for (int i = 0; i < 20000; i++) {
+      data.append("Alan> Tweet number ").append(i).append('\n');
+    }
+    Path filePath = writeGzip("tweet.txt", data.toString());
+
+    List<String> output = readFile(filePath.toString());
+
+    Assert.assertEquals("Data returned invalid size", 20000, output.size());
+    Assert.assertEquals("Data returned invalid", "Alan> Tweet number 19999", output.get(19999));
+  }
+
+  /**
+   * Use case where the file has a .gz extension but isn't valid gzip data; program should error out.
+   *
+   * @throws IOException
+   */
+  @Test(expected = IOException.class)
+  public void testReadFile_GzipCorrupt() throws IOException {
+    Path filePath = temporaryFolder.newFile("corrupt.txt.gz").toPath();
+    Files.write(filePath, "Ward follows Alan".getBytes(StandardCharsets.UTF_8));
+
+    readFile(filePath.toString());
+  }
+
+  /**
+   * Use case where the input file contains a character outside 7-bit ASCII; program should
+   * error out with a DataException naming the line, like any other malformed record.
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testReadFile_NonAscii() throws IOException {
+    Path filePath = temporaryFolder.newFile("user.txt").toPath();
+    Files.write(filePath, "Ward follows Alan\nZoë follows Ward\n".getBytes(StandardCharsets.UTF_8));
+
+    try (LineReader lineReader = abstractDataMapper.openLines(filePath.toString())) {
+      RecordReader.readUsers(lineReader, (lineNumber, record, follower, users) -> { });
+      Assert.fail("Non-ASCII input should be rejected");
+    } catch (DataException e) {
+      Assert.assertTrue("Error should name the line", e.getMessage().contains("line 2"));
+    }
+  }
+
+  /**
+   * Utility method to write gzip compressed data into a temporary file
+   *
+   * @param fileName Name of the temporary file
+   * @param data     Data to compress
+   * @return Path to the written file
+   * @throws IOException
+   */
+  private Path writeGzip(String fileName, String data) throws IOException {
+    Path filePath = temporaryFolder.newFile(fileName).toPath();
+    try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(filePath))) {
+      out.write(data.getBytes(StandardCharsets.UTF_8));
+    }
+    return filePath;
+  }
+
+  /**
+   * Utility method to read all lines of a file through the mapper
+   *
+   * @param filePath Path of the file
+   * @return Lines of the file
+   * @throws IOException
+   */
+  private List<String> readFile(String filePath) throws IOException {
+    List<String> lines = new ArrayList<>();
+    try (LineReader lineReader = abstractDataMapper.openLines(filePath)) {
+      String line;
+      while ((line = lineReader.readLine()) != null) {
+        lines.add(line);
+      }
+    }
+    return lines;
+  }
 }
@@ -0,0 +1,58 @@
+package org.example.mapper;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Test class for the AsyncGzipInputStream class
+ */
+public class AsyncGzipInputStreamTest {
+
+  /**
+   * Decompressed data should match the original data.
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testRead_Inflates() throws IOException {
+    String text = "Alan> If you have a procedure with 10 parameters, you probably missed some.\n".repeat(5000);
+    ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+    try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+      out.write(text.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    try (InputStream in = new AsyncGzipInputStream(new ByteArrayInputStream(compressed.toByteArray()))) {
+      Assert.assertEquals("Inflated data mismatch", text, new String(in.readAllBytes(), StandardCharsets.US_ASCII));
+    }
+  }
+
+  /**
+   * An unchecked failure on the inflater thread should fail the read instead of leaving
+   * the consumer waiting for data forever.
+   *
+   * @throws IOException
+   */
+  @Test(timeout = 10000)
+  public void testRead_InflaterThreadFailure() throws IOException {
+    InputStream failing = new InputStream() {
+      @Override
+      public int read() {
+        throw new IllegalStateException("Source failed");
+      }
+    };
+
+    try (InputStream in = new AsyncGzipInputStream(failing)) {
+      in.read();
+      Assert.fail("Read should fail when the inflater thread fails");
+    } catch (IOException e) {
+      Assert.assertTrue("Cause should be the inflater failure", e.getCause() instanceof IllegalStateException);
+    }
+  }
+}
@@ -0,0 +1,68 @@
+package org.example.mapper;
+
+import org.example.exception.DataException;
+import org.example.model.InputDegrees;
+import org.example.model.TwitterFollowers;
+import org.example.model.TwitterTweets;
+import org.example.utility.MemoryBudget;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Test class for the DegreeCounter class
+ */
+public class DegreeCounterTest {
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  /**
+   * The counted degrees should equal the sizes of the parsed model for input without
+   * repeated follows, and the pre-sized model should hold the same feeds.
+   *
+   * @throws IOException
+   * @throws DataException
+   */
+  @Test
+  public void testCount_MatchesParsedModel() throws IOException, DataException {
+    Path userFile = temporaryFolder.newFile("user.txt").toPath();
+    Path tweetFile = temporaryFolder.newFile("tweet.txt").toPath();
+    Files.write(userFile, Arrays.asList("Ward follows Alan", "Alan follows Martin", "", "Piet follows Martin, Alan"), StandardCharsets.US_ASCII);
+    Files.write(tweetFile, Arrays.asList("Alan> one", "Ward> two", "Alan> three", "Kent> four", "malformed"), StandardCharsets.US_ASCII);
+
+    InputDegrees inputDegrees = new DegreeCounter().count(userFile.toString(), tweetFile.toString());
+    TwitterFollowers twitterFollowers = new UserDataMapper(MemoryBudget.unlimited(), inputDegrees).parseData(userFile.toString());
+
+    for (String user : Arrays.asList("Alan", "Martin", "Ward", "Piet")) {
+      Assert.assertEquals(user + " follower degree mismatch", twitterFollowers.getFollowers(user).size(), inputDegrees.getFollowerDegree(user));
+      int followees = twitterFollowers.getFollowees(user) == null ? 0 : twitterFollowers.getFollowees(user).size();
+      Assert.assertEquals(user + " followee degree mismatch", followees, inputDegrees.getFolloweeDegree(user));
+    }
+    // Kent only tweets and follows themselves
+    Assert.assertEquals("User count mismatch", 5, inputDegrees.getUserCount());
+    Assert.assertEquals("Alan tweet count mismatch", 2, inputDegrees.getTweetCount("Alan"));
+    Assert.assertEquals("Tweet count mismatch", 4, inputDegrees.getTweetCount());
+
+    Files.write(tweetFile, Arrays.asList("Alan> one", "Ward> two", "Alan> three", "Kent> four"), StandardCharsets.US_ASCII);
+    TwitterTweets presized = new TweetDataMapper(twitterFollowers).parseData(tweetFile.toString());
+    Assert.assertNull("Counts should be released once the tweets are parsed", twitterFollowers.getInputDegrees());
+    TwitterTweets grown = new TweetDataMapper(new UserDataMapper().parseData(userFile.toString())).parseData(tweetFile.toString());
+
+    for (String user : Arrays.asList("Alan", "Martin", "Ward", "Piet", "Kent")) {
+      Assert.assertEquals(user + " feed mismatch", grown.getTweets(user), presized.getTweets(user));
+    }
+    // Piet follows Alan and themselves, but only Alan tweeted
+    Assert.assertEquals("Piet run count mismatch", 1, inputDegrees.getRunCount("Piet"));
+    Assert.assertEquals("Ward run count mismatch", 2, inputDegrees.getRunCount("Ward"));
+    Assert.assertEquals("Estimate mismatch", presized.getEstimatedBytes() + twitterFollowers.getEstimatedBytes(), inputDegrees.getEstimatedBytes());
+    Assert.assertTrue("Counts should have a retained size", inputDegrees.getRetainedBytes() > 0);
+  }
+}
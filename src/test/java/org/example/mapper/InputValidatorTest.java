@@ -0,0 +1,119 @@
+package org.example.mapper;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Test class for the InputValidator class
+ */
+public class InputValidatorTest {
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  /**
+   * Every malformed line should be reported with its line number in the whole file, also when
+   * the file is split over many chunks.
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testValidate_ReportsEveryMalformedLine() throws IOException {
+    StringBuilder data = new StringBuilder();
+    List<Long> expected = new ArrayList<>();
+    for (int line = 1; line <= 1000; line++) {
+      if (line % 97 == 0) {
+        data.append("Alan tweet ").append(line).append("\r\n");
+        expected.add((long) line);
+      } else if (line % 50 == 0) {
+        data.append("   \n");
+      } else {
+        data.append("Alan> tweet ").append(line).append(line % 2 == 0 ? "\r\n" : "\n");
+      }
+    }
+    Path tweetFile = temporaryFolder.newFile("tweet.txt").toPath();
+    Files.write(tweetFile, data.toString().getBytes(StandardCharsets.US_ASCII));
+
+    InputValidator.ValidationReport report = new InputValidator(4, 1000, 64).validate(tweetFile.toString(), InputValidator.RecordType.TWEET);
+
+    List<Long> actual = new ArrayList<>();
+    report.getMalformedLines().forEach(malformedLine -> actual.add(malformedLine.getLineNumber()));
+    Assert.assertEquals("Malformed lines mismatch", expected, actual);
+    Assert.assertEquals("Record mismatch", "Alan tweet 97", report.getMalformedLines().get(0).getRecord());
+    Assert.assertEquals("Line count mismatch", 1000, report.getLineCount());
+    Assert.assertFalse("Report should be invalid", report.isValid());
+  }
+
+  /**
+   * Only the first malformed lines up to the limit should be kept, in line order across
+   * chunks, while all of them are counted.
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testValidate_ReportLimit() throws IOException {
+    StringBuilder data = new StringBuilder();
+    for (int line = 1; line <= 500; line++) {
+      data.append(line % 3 == 0 ? "Alan tweet " : "Alan> tweet ").append(line).append('\n');
+    }
+    Path tweetFile = temporaryFolder.newFile("tweet.txt").toPath();
+    Files.write(tweetFile, data.toString().getBytes(StandardCharsets.US_ASCII));
+
+    InputValidator.ValidationReport report = new InputValidator(4, 5, 64).validate(tweetFile.toString(), InputValidator.RecordType.TWEET);
+
+    List<Long> actual = new ArrayList<>();
+    report.getMalformedLines().forEach(malformedLine -> actual.add(malformedLine.getLineNumber()));
+    Assert.assertEquals("Malformed lines mismatch", List.of(3L, 6L, 9L, 12L, 15L), actual);
+    Assert.assertEquals("Malformed count mismatch", 166, report.getMalformedCount());
+    Assert.assertFalse("Report should be invalid", report.isValid());
+  }
+
+  /**
+   * User records are checked against the user pattern and non-ASCII lines are reported
+   * instead of failing the validation; gzip input is decompressed first.
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testValidate_GzipUserFile() throws IOException {
+    Path userFile = temporaryFolder.newFile("user.txt.gz").toPath();
+    try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(userFile))) {
+      out.write("Ward follows Alan\nAlan follows Martin, \nJosé follows Ward\nMartin follows Alan, Ward\n".getBytes(StandardCharsets.UTF_8));
+    }
+
+    InputValidator.ValidationReport report = new InputValidator(2, 1000).validate(userFile.toString(), InputValidator.RecordType.USER);
+
+    Assert.assertEquals("Malformed line count mismatch", 2, report.getMalformedLines().size());
+    Assert.assertEquals("First malformed line mismatch", 2, report.getMalformedLines().get(0).getLineNumber());
+    Assert.assertEquals("Second malformed line mismatch", 3, report.getMalformedLines().get(1).getLineNumber());
+    Assert.assertTrue("Reason should name ASCII", report.getMalformedLines().get(1).getReason().contains("ASCII"));
+  }
+
+  /**
+   * The sample inputs are valid.
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testValidate_ValidFiles() throws IOException {
+    InputValidator inputValidator = new InputValidator(4, 1000, 16);
+
+    InputValidator.ValidationReport userReport = inputValidator.validate("src/test/resources/user.txt", InputValidator.RecordType.USER);
+    InputValidator.ValidationReport tweetReport = inputValidator.validate("src/test/resources/tweet.txt", InputValidator.RecordType.TWEET);
+
+    Assert.assertTrue("User file should be valid: " + userReport.getMalformedLines(), userReport.isValid());
+    Assert.assertTrue("Tweet file should be valid: " + tweetReport.getMalformedLines(), tweetReport.isValid());
+    Assert.assertEquals("Byte count mismatch", Files.size(Path.of("src/test/resources/tweet.txt")), tweetReport.getByteCount());
+  }
+}
@@ -0,0 +1,73 @@
+package org.example.mapper;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Test class for the RecordMatcher class; the matcher should behave exactly like the
+ * documented record patterns.
+ */
+public class RecordMatcherTest {
+
+  private static final Pattern REGEX_USER_FOLLOWERS = Pattern.compile("^([a-zA-Z]+)\\sfollows\\s(([a-zA-Z]+)(,\\s[a-zA-Z]+)*)$");
+  private static final Pattern REGEX_TWEETS = Pattern.compile("^([a-zA-Z]+)>\\s((.){1,139})$");
+
+  /**
+   * User records should be accepted exactly when the pattern matches, with the same groups.
+   */
+  @Test
+  public void testMatchUserRecord_MatchesPattern() {
+    Random random = new Random(5);
+    String[] tokens = {"Ward", "a", "follows", " ", "\t", ",", ", ", ",\t", "1", "follow"};
+    for (int round = 0; round < 20000; round++) {
+      StringBuilder line = new StringBuilder();
+      int length = random.nextInt(8);
+      for (int i = 0; i < length; i++) {
+        line.append(tokens[random.nextInt(tokens.length)]);
+      }
+      if (random.nextInt(4) == 0) {
+        // Mostly well-formed record with a random tail
+        line.insert(0, "Alan follows Martin");
+      }
+
+      String record = line.toString();
+      Matcher matcher = REGEX_USER_FOLLOWERS.matcher(record);
+      String[] groups = RecordMatcher.matchUserRecord(record);
+      if (matcher.matches()) {
+        Assert.assertNotNull("Record should match [" + record + "]", groups);
+        Assert.assertEquals("Follower mismatch for [" + record + "]", matcher.group(1), groups[0]);
+        Assert.assertEquals("Users mismatch for [" + record + "]", matcher.group(2), groups[1]);
+      } else {
+        Assert.assertNull("Record should not match [" + record + "]", groups);
+      }
+    }
+  }
+
+  /**
+   * Tweet records should be accepted exactly when the pattern matches.
+   */
+  @Test
+  public void testFindTweetDelimiter_MatchesPattern() {
+    Random random = new Random(3);
+    String alphabet = "aZ1> \t\r\n.>";
+    for (int round = 0; round < 20000; round++) {
+      StringBuilder line = new StringBuilder();
+      int length = random.nextInt(8);
+      for (int i = 0; i < length; i++) {
+        line.append(alphabet.charAt(random.nextInt(alphabet.length())));
+      }
+      if (random.nextInt(50) == 0) {
+        // Around the maximum tweet length
+        line.append("Alan> ").append("x".repeat(136 + random.nextInt(6)));
+      }
+
+      String record = line.toString();
+      Assert.assertEquals("Pattern mismatch for [" + record + "]", REGEX_TWEETS.matcher(record).matches(),
+          RecordMatcher.findTweetDelimiter(record) > 0);
+    }
+  }
+}
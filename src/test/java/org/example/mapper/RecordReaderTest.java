@@ -0,0 +1,84 @@
+package org.example.mapper;
+
+import org.example.exception.DataException;
+import org.example.utility.LineReader;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Test class for the RecordReader class
+ */
+public class RecordReaderTest {
+
+  /**
+   * Records should be stripped and split into the follower and the users followed; blank
+   * lines should be skipped with their line number.
+   *
+   * @throws IOException
+   * @throws DataException
+   */
+  @Test
+  public void testReadUsers_RecordsAndBlankLines() throws IOException, DataException {
+    List<String> visited = new ArrayList<>();
+
+    int lineCount = RecordReader.readUsers(linesOf("  Ward follows Alan, Martin \n\t\nAlan follows Martin"),
+        new RecordReader.UserVisitor() {
+
+          @Override
+          public void blankLine(int lineNumber) {
+            visited.add(lineNumber + ": blank");
+          }
+
+          @Override
+          public void follows(int lineNumber, String record, String follower, List<String> users) {
+            visited.add(lineNumber + ": " + follower + " " + users);
+          }
+        });
+
+    Assert.assertEquals("Line count mismatch", 3, lineCount);
+    Assert.assertEquals("Visited records mismatch", List.of("1: Ward [Alan, Martin]", "2: blank", "3: Alan [Martin]"), visited);
+  }
+
+  /**
+   * A malformed record should be reported to the visitor before the parse fails naming
+   * the line.
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testReadTweets_MalformedRecord() throws IOException {
+    List<Integer> malformedLines = new ArrayList<>();
+    List<String> tweets = new ArrayList<>();
+
+    try {
+      RecordReader.readTweets(linesOf("Alan> First.\nAlan First.\nAlan> Never read."), new RecordReader.TweetVisitor() {
+
+        @Override
+        public void malformedRecord(int lineNumber) {
+          malformedLines.add(lineNumber);
+        }
+
+        @Override
+        public void tweet(int lineNumber, String record, String user, String tweet) {
+          tweets.add(user + ": " + tweet);
+        }
+      });
+      Assert.fail("Malformed record should fail the parse");
+    } catch (DataException e) {
+      Assert.assertTrue("Error should name the line", e.getMessage().startsWith("Tweet record on line 2"));
+    }
+
+    Assert.assertEquals("Malformed lines mismatch", List.of(2), malformedLines);
+    Assert.assertEquals("Tweets mismatch", List.of("Alan: First."), tweets);
+  }
+
+  private static LineReader linesOf(String data) {
+    return new LineReader(new ByteArrayInputStream(data.getBytes(StandardCharsets.US_ASCII)), "test");
+  }
+}
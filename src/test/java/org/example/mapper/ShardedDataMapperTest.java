@@ -0,0 +1,95 @@
+package org.example.mapper;
+
+import org.example.exception.DataException;
+import org.example.model.TwitterFollowers;
+import org.example.model.TwitterTweets;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Test class for the ShardedDataMapper class
+ */
+public class ShardedDataMapperTest {
+
+  private static final String USER_SHARD_DIRECTORY = "src/test/resources/shards/user";
+  private static final String TWEET_SHARD_GLOB = "src/test/resources/shards/tweet/tweet_*.txt";
+
+  /**
+   * Use case where a directory is given; all files should be returned in file name order.
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testResolveShards_Directory() throws IOException {
+    List<String> shards = ShardedDataMapper.resolveShards(USER_SHARD_DIRECTORY);
+
+    Assert.assertEquals("Shard count mismatch", 3, shards.size());
+    Assert.assertTrue("Shards not ordered", shards.get(0).endsWith("user_01.txt"));
+    Assert.assertTrue("Shards not ordered", shards.get(2).endsWith("user_03.txt"));
+  }
+
+  /**
+   * Use case where a plain file path is given; path should be returned as is.
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testResolveShards_SingleFile() throws IOException {
+    List<String> shards = ShardedDataMapper.resolveShards("src/test/resources/user.txt");
+
+    Assert.assertEquals("Shards mismatch", List.of("src/test/resources/user.txt"), shards);
+  }
+
+  /**
+   * Use case where the glob pattern matches no files; program should error out.
+   *
+   * @throws IOException
+   */
+  @Test(expected = IOException.class)
+  public void testResolveShards_NoMatches() throws IOException {
+    ShardedDataMapper.resolveShards("src/test/resources/shards/tweet/*.gz");
+  }
+
+  /**
+   * Use case where user shards are parsed concurrently and followers unioned across shards.
+   *
+   * @throws IOException
+   * @throws DataException
+   */
+  @Test
+  public void testParseData_UserShards() throws IOException, DataException {
+    TwitterFollowers twitterFollowers = new ShardedDataMapper<>(UserDataMapper::new, (left, right) -> {
+      left.merge(right);
+      return left;
+    }).parseData(USER_SHARD_DIRECTORY);
+
+    Assert.assertEquals("User count mismatch", 3, twitterFollowers.getUsers().size());
+    Assert.assertEquals("Follower count mismatch for Alan", 2, twitterFollowers.getFollowers("Alan").size());
+    Assert.assertEquals("Follower count mismatch for Martin", 2, twitterFollowers.getFollowers("Martin").size());
+  }
+
+  /**
+   * Use case where tweet shards are parsed concurrently; tweet order per follower
+   * should match the order of the shards.
+   *
+   * @throws IOException
+   * @throws DataException
+   */
+  @Test
+  public void testParseData_TweetShardsOrdered() throws IOException, DataException {
+    TwitterFollowers twitterFollowers = new UserDataMapper().parseData("src/test/resources/user.txt");
+    TwitterTweets twitterTweets = new ShardedDataMapper<>(() -> new TweetDataMapper(twitterFollowers), (left, right) -> {
+      left.merge(right);
+      return left;
+    }).parseData(TWEET_SHARD_GLOB);
+
+    List<String> wardTweets = twitterTweets.getTweets("Ward");
+    Assert.assertEquals("Ward Tweet count mismatch", 3, wardTweets.size());
+    Assert.assertTrue("Tweet order mismatch", wardTweets.get(0).startsWith("@Alan: If you have"));
+    Assert.assertTrue("Tweet order mismatch", wardTweets.get(1).startsWith("@Ward: "));
+    Assert.assertTrue("Tweet order mismatch", wardTweets.get(2).startsWith("@Alan: Random numbers"));
+  }
+}
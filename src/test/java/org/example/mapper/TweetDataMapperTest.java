@@ -4,12 +4,23 @@ import lombok.extern.log4j.Log4j2;
 import org.example.exception.DataException;
 import org.example.model.TwitterFollowers;
 import org.example.model.TwitterTweets;
+import org.example.store.TweetCheckpoint;
+import org.example.utility.MemoryBudget;
 import org.junit.Assert;
 import org.junit.BeforeClass;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.mockito.Mockito;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -22,6 +33,9 @@ public class TweetDataMapperTest {
   private static final String PATH = "path/to/file/tweet.txt";
   private static TweetDataMapper tweetDataMapper = null;
 
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
   @BeforeClass
   public static void setupBeforeClass() throws DataException, IOException {
     try {
@@ -56,6 +70,31 @@ public class TweetDataMapperTest {
     Assert.assertEquals("Martin Tweet count mismatch", 0, twitterTweets.getTweets("Martin").size());
   }
 
+  /**
+   * Use case where authors post interleaved tweets; feed of a follower of multiple
+   * authors should keep the posting order across authors.
+   *
+   * @throws IOException
+   * @throws DataException
+   */
+  @Test
+  public void testParseData_InterleavedAuthorsOrder() throws IOException, DataException {
+    List<String> tweetData = new LinkedList<>();
+    tweetData.add("Alan> First.");
+    tweetData.add("Ward> Second.");
+    tweetData.add("Alan> Third.");
+    tweetData.add("Alan> Fourth.");
+    tweetData.add("Ward> Fifth.");
+
+    TwitterTweets twitterTweets = invokeParseData(tweetData);
+
+    Assert.assertEquals("Ward feed order mismatch",
+        List.of("@Alan: First.", "@Ward: Second.", "@Alan: Third.", "@Alan: Fourth.", "@Ward: Fifth."),
+        twitterTweets.getTweets("Ward"));
+    Assert.assertEquals("Alan feed order mismatch",
+        List.of("@Alan: First.", "@Alan: Third.", "@Alan: Fourth."), twitterTweets.getTweets("Alan"));
+  }
+
   /**
    * Use where file couldn't be read; method should error out.
    *
@@ -64,7 +103,7 @@ public class TweetDataMapperTest {
    */
   @Test(expected = IOException.class)
   public void testParseData_FileReadError() throws IOException, DataException {
-    Mockito.doThrow(new IOException()).when(tweetDataMapper).readFile(Mockito.anyString());
+    Mockito.doThrow(new IOException()).when(tweetDataMapper).openInput(Mockito.anyString());
     tweetDataMapper.parseData(PATH);
   }
 
@@ -230,6 +269,215 @@ public class TweetDataMapperTest {
     Assert.assertEquals("Piet Tweet count mismatch", 1, twitterTweets.getTweets("Piet").size());
   }
 
+  /**
+   * A parse failing on a malformed record should leave a checkpoint; parsing the corrected
+   * input resumes from it and gives the same result as a clean parse.
+   *
+   * @throws DataException
+   * @throws IOException
+   */
+  @Test
+  public void testParseData_ResumeFromCheckpoint() throws DataException, IOException {
+    Path checkpointDirectory = temporaryFolder.getRoot().toPath();
+    List<String> malformed = Arrays.asList("Alan> one", "Ward> two", "Piet> three", "Alan> four", "Ward two", "Alan> six");
+    List<String> corrected = Arrays.asList("Alan> one", "Ward> two", "Piet> three", "Alan> four", "Ward> five", "Alan> six");
+
+    try {
+      invokeCheckpointedParseData(malformed, checkpointDirectory);
+      Assert.fail("Malformed record should fail the parse");
+    } catch (DataException e) {
+      Assert.assertTrue("Checkpoint should be written", Files.exists(TweetCheckpoint.pathFor(checkpointDirectory, PATH)));
+    }
+
+    TwitterTweets resumed = invokeCheckpointedParseData(corrected, checkpointDirectory);
+    TwitterTweets clean = invokeCheckpointedParseData(corrected, null);
+
+    for (String user : Arrays.asList("Alan", "Martin", "Ward", "Piet")) {
+      Assert.assertEquals(user + " feed mismatch", clean.getTweets(user), resumed.getTweets(user));
+    }
+    Assert.assertEquals("Tweet count mismatch", 6, resumed.getFootprint().getEntries());
+    Assert.assertTrue("Checkpoint should be deleted once parsed", Files.notExists(TweetCheckpoint.pathFor(checkpointDirectory, PATH)));
+  }
+
+  /**
+   * Resuming should seek to the checkpointed byte offset also when lines end in "\r\n".
+   *
+   * @throws DataException
+   * @throws IOException
+   */
+  @Test
+  public void testParseData_ResumeFromCheckpointCrlf() throws DataException, IOException {
+    Path checkpointDirectory = temporaryFolder.getRoot().toPath();
+    List<String> malformed = Arrays.asList("Alan> one", "Ward> two", "Piet> three", "Alan> four", "Ward> five", "Alan six");
+    List<String> corrected = Arrays.asList("Alan> one", "Ward> two", "Piet> three", "Alan> four", "Ward> five", "Alan> six", "Ward> seven");
+
+    try {
+      invokeCheckpointedParseData(malformed, "\r\n", checkpointDirectory);
+      Assert.fail("Malformed record should fail the parse");
+    } catch (DataException e) {
+      // Expected; leaves a checkpoint after line 5
+    }
+
+    TwitterTweets resumed = invokeCheckpointedParseData(corrected, "\r\n", checkpointDirectory);
+    TwitterTweets clean = invokeCheckpointedParseData(corrected, "\r\n", null);
+
+    Assert.assertEquals("Ward feed mismatch", clean.getTweets("Ward"), resumed.getTweets("Ward"));
+    Assert.assertEquals("Tweet count mismatch", 7, resumed.getFootprint().getEntries());
+  }
+
+  /**
+   * A parse should run without checkpoints while another parse holds the checkpoint of the
+   * same input.
+   *
+   * @throws DataException
+   * @throws IOException
+   */
+  @Test
+  public void testParseData_CheckpointHeldByAnotherParse() throws DataException, IOException {
+    Path checkpointDirectory = temporaryFolder.getRoot().toPath();
+
+    try (TweetCheckpoint held = TweetCheckpoint.open(checkpointDirectory, PATH)) {
+      Assert.assertNotNull("Checkpoint should be opened", held);
+      Assert.assertNull("Checkpoint should be locked", TweetCheckpoint.open(checkpointDirectory, PATH));
+      try {
+        invokeCheckpointedParseData(Arrays.asList("Alan> one", "Ward> two", "Alan three"), checkpointDirectory);
+        Assert.fail("Malformed record should fail the parse");
+      } catch (DataException e) {
+        Assert.assertTrue("No checkpoint should be written", Files.notExists(TweetCheckpoint.pathFor(checkpointDirectory, PATH)));
+      }
+    }
+  }
+
+  /**
+   * A checkpoint of an input whose prefix changed should be ignored.
+   *
+   * @throws DataException
+   * @throws IOException
+   */
+  @Test
+  public void testParseData_CheckpointOfChangedInput() throws DataException, IOException {
+    Path checkpointDirectory = temporaryFolder.getRoot().toPath();
+    try {
+      invokeCheckpointedParseData(Arrays.asList("Alan> one", "Ward> two", "Alan three"), checkpointDirectory);
+      Assert.fail("Malformed record should fail the parse");
+    } catch (DataException e) {
+      // Expected; leaves a checkpoint after line 2
+    }
+
+    TwitterTweets twitterTweets = invokeCheckpointedParseData(Arrays.asList("Alan> uno", "Ward> two", "Alan> three"), checkpointDirectory);
+
+    Assert.assertEquals("Alan feed mismatch", Arrays.asList("@Alan: uno", "@Alan: three"), twitterTweets.getTweets("Alan"));
+  }
+
+  /**
+   * A checkpoint of an input whose head changed before the last interval should be ignored,
+   * rather than replaying the tweets of the stale lines.
+   *
+   * @throws DataException
+   * @throws IOException
+   */
+  @Test
+  public void testParseData_CheckpointOfChangedHead() throws DataException, IOException {
+    Path checkpointDirectory = temporaryFolder.getRoot().toPath();
+    List<String> malformed = Arrays.asList("Alan> one", "Ward> two", "Piet> three", "Alan> four", "Ward> five", "Alan> six",
+        "Ward> seven", "Alan eight");
+    try {
+      invokeCheckpointedParseData(malformed, checkpointDirectory);
+      Assert.fail("Malformed record should fail the parse");
+    } catch (DataException e) {
+      // Expected; leaves a checkpoint after line 7 with the interval of line 7 only
+    }
+
+    List<String> changed = Arrays.asList("Alan> uno", "Ward> two", "Piet> three", "Alan> four", "Ward> five", "Alan> six",
+        "Ward> seven", "Alan> eight");
+    TwitterTweets twitterTweets = invokeCheckpointedParseData(changed, checkpointDirectory);
+
+    Assert.assertEquals("Alan feed mismatch", Arrays.asList("@Alan: uno", "@Alan: four", "@Alan: six", "@Alan: eight"),
+        twitterTweets.getTweets("Alan"));
+  }
+
+  /**
+   * With prefix verification a change anywhere before the last interval, also past the
+   * checked head of the input, should discard the checkpoint.
+   *
+   * @throws DataException
+   * @throws IOException
+   */
+  @Test
+  public void testParseData_CheckpointVerifyPrefix() throws DataException, IOException {
+    Path checkpointDirectory = temporaryFolder.getRoot().toPath();
+    List<String> malformed = new ArrayList<>();
+    for (int i = 0; i < 3000; i++) {
+      malformed.add(String.format("Alan> Tweet number %04d padded to make the input larger than the head", i));
+    }
+    malformed.set(2999, "Alan malformed");
+    try {
+      invokeCheckpointedParseData(malformed, "\n", checkpointDirectory, 1000, true);
+      Assert.fail("Malformed record should fail the parse");
+    } catch (DataException e) {
+      // Expected; leaves a checkpoint after line 2999 with the interval from line 2001
+    }
+
+    List<String> changed = new ArrayList<>(malformed);
+    changed.set(1500, "Alan> Changed past the head of the input");
+    changed.set(2999, "Alan> Corrected");
+    TwitterTweets twitterTweets = invokeCheckpointedParseData(changed, "\n", checkpointDirectory, 1000, true);
+
+    Assert.assertEquals("Changed tweet should be parsed", "@Alan: Changed past the head of the input",
+        twitterTweets.getTweets("Alan").get(1500));
+    Assert.assertEquals("Tweet count mismatch", 3000, twitterTweets.getTweets("Alan").size());
+  }
+
+  /**
+   * Utility method to parse tweet records against a fresh follower graph with checkpoints
+   * every 2 lines
+   *
+   * @param data                The tweet records
+   * @param checkpointDirectory The checkpoint directory, null to disable checkpoints
+   * @return The parsed tweets
+   * @throws DataException
+   * @throws IOException
+   */
+  private TwitterTweets invokeCheckpointedParseData(List<String> data, Path checkpointDirectory) throws DataException, IOException {
+    return invokeCheckpointedParseData(data, "\n", checkpointDirectory);
+  }
+
+  /**
+   * Utility method as above, with the given line terminator
+   *
+   * @param data                The tweet records
+   * @param terminator          The line terminator
+   * @param checkpointDirectory The checkpoint directory, null to disable checkpoints
+   * @return The parsed tweets
+   * @throws DataException
+   * @throws IOException
+   */
+  private TwitterTweets invokeCheckpointedParseData(List<String> data, String terminator, Path checkpointDirectory)
+      throws DataException, IOException {
+    return invokeCheckpointedParseData(data, terminator, checkpointDirectory, 2, false);
+  }
+
+  /**
+   * Utility method as above, with the given checkpoint interval and prefix verification
+   *
+   * @param data                The tweet records
+   * @param terminator          The line terminator
+   * @param checkpointDirectory The checkpoint directory, null to disable checkpoints
+   * @param interval            Number of lines between checkpoints
+   * @param verifyPrefix        true to verify all committed lines on resume
+   * @return The parsed tweets
+   * @throws DataException
+   * @throws IOException
+   */
+  private TwitterTweets invokeCheckpointedParseData(List<String> data, String terminator, Path checkpointDirectory,
+                                                    int interval, boolean verifyPrefix) throws DataException, IOException {
+    TwitterFollowers twitterFollowers = new UserDataMapper().parseData("src/test/resources/user.txt");
+    TweetDataMapper checkpointedMapper = Mockito.spy(new TweetDataMapper(twitterFollowers, follower -> true,
+        MemoryBudget.unlimited(), checkpointDirectory, interval, verifyPrefix));
+    Mockito.doAnswer(invocation -> inputOf(data, terminator)).when(checkpointedMapper).openInput(Mockito.anyString());
+    return checkpointedMapper.parseData(PATH);
+  }
+
   /**
    * Utility method to assist with invoking the parseData method and passing a specific set of tweet records
    *
@@ -239,7 +487,18 @@ public class TweetDataMapperTest {
    * @throws IOException
    */
   private TwitterTweets invokeParseData(List<String> data) throws DataException, IOException {
-    Mockito.doReturn(data).when(tweetDataMapper).readFile(Mockito.anyString());
+    Mockito.doAnswer(invocation -> inputOf(data, "\n")).when(tweetDataMapper).openInput(Mockito.anyString());
     return tweetDataMapper.parseData(PATH);
   }
+
+  /**
+   * Utility method to create an input stream of the given lines, as read from the input file
+   *
+   * @param data       The lines of the input file
+   * @param terminator The line terminator
+   * @return Stream of the lines
+   */
+  private static InputStream inputOf(List<String> data, String terminator) {
+    return new ByteArrayInputStream(String.join(terminator, data).getBytes(StandardCharsets.US_ASCII));
+  }
 }
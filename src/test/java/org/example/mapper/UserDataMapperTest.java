@@ -1,12 +1,17 @@
 package org.example.mapper;
 
 import org.example.exception.DataException;
+import org.example.exception.MemoryBudgetException;
 import org.example.model.TwitterFollowers;
+import org.example.utility.LineReader;
+import org.example.utility.MemoryBudget;
 import org.junit.Assert;
 import org.junit.Test;
 import org.mockito.Mockito;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -50,7 +55,7 @@ public class UserDataMapperTest {
    */
   @Test(expected = IOException.class)
   public void testParseData_FileReadError() throws IOException, DataException {
-    Mockito.doThrow(new IOException()).when(userDataMapper).readFile(Mockito.anyString());
+    Mockito.doThrow(new IOException()).when(userDataMapper).openLines(Mockito.anyString());
     userDataMapper.parseData(PATH);
   }
 
@@ -265,6 +270,28 @@ public class UserDataMapperTest {
     Assert.assertEquals("Followers size mismatch", 2, twitterFollowers.getFollowers("Rick").size());
   }
 
+  /**
+   * Use case where the estimated footprint exceeds the memory budget; parsing should stop
+   * at the record that exceeded it with a clear error.
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testParseData_MemoryBudgetExceeded() throws IOException {
+    UserDataMapper budgetedMapper = Mockito.spy(new UserDataMapper(new MemoryBudget(1000)));
+    Mockito.doAnswer(invocation -> linesOf(List.of("Ward follows Alan", "Alan follows Martin", "Martin follows Ward")))
+        .when(budgetedMapper).openLines(Mockito.anyString());
+
+    try {
+      budgetedMapper.parseData(PATH);
+      Assert.fail("Memory budget should be exceeded");
+    } catch (MemoryBudgetException e) {
+      Assert.assertTrue("Message should name the line", e.getMessage().contains("line 2 of " + PATH));
+    } catch (DataException e) {
+      Assert.fail("Unexpected data exception: " + e.getMessage());
+    }
+  }
+
   /**
    * Utility method to assist with invoking the parseData method and passing a specific set of user records
    *
@@ -274,7 +301,17 @@ public class UserDataMapperTest {
    * @throws IOException
    */
   private TwitterFollowers invokeParseData(List<String> data) throws DataException, IOException {
-    Mockito.doReturn(data).when(userDataMapper).readFile(Mockito.anyString());
+    Mockito.doAnswer(invocation -> linesOf(data)).when(userDataMapper).openLines(Mockito.anyString());
     return userDataMapper.parseData(PATH);
   }
+
+  /**
+   * Utility method to create a reader of the given lines, as read from the input file
+   *
+   * @param data The lines of the input file
+   * @return Reader of the lines
+   */
+  private static LineReader linesOf(List<String> data) {
+    return new LineReader(new ByteArrayInputStream(String.join("\n", data).getBytes(StandardCharsets.US_ASCII)), PATH);
+  }
 }
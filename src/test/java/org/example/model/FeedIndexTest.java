@@ -0,0 +1,153 @@
+package org.example.model;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Test class for the FeedIndex class
+ */
+public class FeedIndexTest {
+
+  private TwitterFollowers twitterFollowers;
+  private TwitterTweets twitterTweets;
+  private FeedIndex feedIndex;
+
+  @Before
+  public void setupBeforeTest() {
+    twitterFollowers = new TwitterFollowers();
+    twitterFollowers.addFollower("Alan", "Alan");
+    twitterFollowers.addFollower("Alan", "Ward");
+    twitterFollowers.addFollower("Martin", "Martin");
+    twitterFollowers.addFollower("Ward", "Ward");
+
+    twitterTweets = new TwitterTweets();
+    twitterTweets.addTweet(Set.of("Alan", "Ward"), "Alan", "one");
+    twitterTweets.addTweet(Set.of("Ward"), "Ward", "two");
+    twitterTweets.addTweet(Set.of("Alan", "Ward"), "Alan", "three");
+
+    feedIndex = new FeedIndex(twitterFollowers, twitterTweets);
+  }
+
+  /**
+   * Users should be iterated in alphabetical order.
+   */
+  @Test
+  public void testUsers_AlphabeticalOrder() {
+    List<String> users = new ArrayList<>();
+    Iterator<String> iterator = feedIndex.users();
+    iterator.forEachRemaining(users::add);
+
+    Assert.assertEquals("User order mismatch", List.of("Alan", "Martin", "Ward"), users);
+    Assert.assertEquals("User count mismatch", 3, feedIndex.userCount());
+  }
+
+  /**
+   * Every page of a compact feed merged from many runs, including runs of a merged instance,
+   * should equal the same slice of the full feed.
+   */
+  @Test
+  public void testFeed_DeepPages() {
+    Random random = new Random(42);
+    TwitterFollowers followers = new TwitterFollowers();
+    TwitterTweets tweets = new TwitterTweets();
+    TwitterTweets laterTweets = new TwitterTweets();
+    followers.addFollower("Reader", "Reader");
+    for (int author = 0; author < 20; author++) {
+      followers.addFollower("Author" + author, "Reader");
+    }
+    for (int i = 0; i < 1000; i++) {
+      String author = "Author" + random.nextInt(20);
+      (i < 600 ? tweets : laterTweets).addTweet(Set.of("Reader"), author, "tweet " + i);
+    }
+    tweets.merge(laterTweets);
+
+    FeedIndex index = new FeedIndex(followers, tweets);
+    List<String> feed = tweets.getTweets("Reader");
+    Assert.assertEquals("Feed size mismatch", 1000, index.feedSize("Reader"));
+    for (int offset = 0; offset <= 1005; offset += 7) {
+      List<String> expected = feed.subList(Math.min(offset, 1000), Math.min(offset + 13, 1000));
+      Assert.assertEquals("Page mismatch at " + offset, expected, index.feed("Reader", offset, 13));
+    }
+  }
+
+  /**
+   * Pages of a feed should follow the feed order and be bounded by the limit.
+   */
+  @Test
+  public void testFeed_Pagination() {
+    Assert.assertEquals("Feed size mismatch", 3, feedIndex.feedSize("Ward"));
+    Assert.assertEquals("First page mismatch", List.of("@Alan: one", "@Ward: two"), feedIndex.feed("Ward", 0, 2));
+    Assert.assertEquals("Second page mismatch", List.of("@Alan: three"), feedIndex.feed("Ward", 2, 2));
+    Assert.assertTrue("Page past end should be empty", feedIndex.feed("Ward", 3, 2).isEmpty());
+    Assert.assertEquals("Large limit mismatch", 2, feedIndex.feed("Alan", 0, Integer.MAX_VALUE).size());
+  }
+
+  /**
+   * Unknown users and users without tweets should have empty feeds.
+   */
+  @Test
+  public void testFeed_EmptyAndUnknownUser() {
+    Assert.assertEquals("Feed size mismatch for Martin", 0, feedIndex.feedSize("Martin"));
+    Assert.assertTrue("Feed should be empty for Martin", feedIndex.feed("Martin", 0, 10).isEmpty());
+    Assert.assertEquals("Feed size mismatch for unknown user", 0, feedIndex.feedSize("Piet"));
+    Assert.assertFalse("Unknown user should not be indexed", feedIndex.hasUser("Piet"));
+  }
+
+  /**
+   * Negative offset is invalid and should error out.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testFeed_NegativeOffset() {
+    feedIndex.feed("Ward", -1, 2);
+  }
+
+  /**
+   * Returned pages are read-only.
+   */
+  @Test(expected = UnsupportedOperationException.class)
+  public void testFeed_ReadOnly() {
+    feedIndex.feed("Ward", 0, 2).clear();
+  }
+
+  /**
+   * Index within the compact threshold should materialise the feeds and serve the same pages
+   * as the default (compact) index.
+   */
+  @Test
+  public void testFeed_MaterialisedIndex() {
+    FeedIndex materialisedIndex = new FeedIndex(twitterFollowers, twitterTweets, user -> true, Long.MAX_VALUE);
+
+    Assert.assertTrue("Index should be compact by default", feedIndex.isCompact());
+    Assert.assertFalse("Index should be materialised", materialisedIndex.isCompact());
+    Assert.assertEquals("Feed size mismatch", 3, materialisedIndex.feedSize("Ward"));
+    for (int offset = 0; offset <= 3; offset++) {
+      Assert.assertEquals("Page mismatch at " + offset, materialisedIndex.feed("Ward", offset, 2), feedIndex.feed("Ward", offset, 2));
+    }
+    Assert.assertTrue("Unknown user should have no feed", materialisedIndex.feed("Piet", 0, 2).isEmpty());
+  }
+
+  /**
+   * Footprints should count users, follows, tweets, fan-out runs and feed entries.
+   */
+  @Test
+  public void testFootprint_Counts() {
+    Footprint followersFootprint = twitterFollowers.getFootprint();
+    Assert.assertEquals("User count mismatch", 3, followersFootprint.getEntries());
+    Assert.assertEquals("Edge count mismatch", 4, followersFootprint.getEdges());
+    Assert.assertEquals("Name bytes mismatch", "AlanMartinWard".length(), followersFootprint.getTextBytes());
+
+    Footprint tweetsFootprint = twitterTweets.getFootprint();
+    Assert.assertEquals("Tweet count mismatch", 3, tweetsFootprint.getEntries());
+    Assert.assertEquals("Run count mismatch", 3, tweetsFootprint.getEdges());
+    Assert.assertEquals("Feed entry count mismatch", 5, tweetsFootprint.getFeedEntries());
+    Assert.assertEquals("Text bytes mismatch", "@Alan: one@Ward: two@Alan: three".length(), tweetsFootprint.getTextBytes());
+    Assert.assertTrue("Estimate should exceed the text", tweetsFootprint.getEstimatedBytes() > tweetsFootprint.getTextBytes());
+  }
+}
@@ -0,0 +1,107 @@
+package org.example.service;
+
+import org.example.exception.DataException;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Test class for BatchFeedService class.
+ */
+public final class BatchFeedServiceTest {
+
+  private static final String USER_FILE_VALID = Path.of("src/test/resources/user.txt").toAbsolutePath().toString();
+  private static final String TWEET_FILE_VALID = Path.of("src/test/resources/tweet.txt").toAbsolutePath().toString();
+  private static final String TWEET_FILE_PIET = Path.of("src/test/resources/tweet_piet.txt").toAbsolutePath().toString();
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  /**
+   * Every job of the manifest should produce the same feed as a single run, while a job with
+   * a missing input fails on its own without stopping the others or leaving output behind
+   * (not even the output of an earlier run).
+   *
+   * @throws Exception
+   */
+  @Test
+  public void testRunBatch_IsolatesFailures() throws Exception {
+    Path manifest = temporaryFolder.newFile("manifest.txt").toPath();
+    Files.writeString(manifest, "# user\ttweet\toutput\n" +
+        USER_FILE_VALID + "\t" + TWEET_FILE_VALID + "\tfirst.txt\n" +
+        "\n" +
+        USER_FILE_VALID + "\tmissing.txt\tsecond.txt\n" +
+        USER_FILE_VALID + "\t" + TWEET_FILE_PIET + "\tthird.txt\n");
+
+    Files.writeString(temporaryFolder.getRoot().toPath().resolve("second.txt"), "Stale feed of an earlier run\n");
+
+    List<BatchFeedService.BatchJob> jobs = BatchFeedService.readManifest(manifest);
+    List<BatchFeedService.BatchResult> results = BatchFeedService.runBatch(jobs, 2, new ReferenceFeedEngine());
+
+    Assert.assertEquals("Result count mismatch", 3, results.size());
+    Assert.assertTrue("First job should succeed", results.get(0).isSuccessful());
+    Assert.assertFalse("Second job should fail", results.get(1).isSuccessful());
+    Assert.assertTrue("Third job should succeed", results.get(2).isSuccessful());
+
+    ReferenceFeedEngine feedEngine = new ReferenceFeedEngine();
+    Path root = temporaryFolder.getRoot().toPath();
+    Assert.assertEquals("First feed mismatch", feedEngine.produceTwitterFeed(USER_FILE_VALID, TWEET_FILE_VALID, user -> true),
+        Files.readString(root.resolve("first.txt"), StandardCharsets.UTF_8));
+    Assert.assertEquals("Third feed mismatch", feedEngine.produceTwitterFeed(USER_FILE_VALID, TWEET_FILE_PIET, user -> true),
+        Files.readString(root.resolve("third.txt"), StandardCharsets.UTF_8));
+    Assert.assertEquals("Output size mismatch", Files.size(root.resolve("first.txt")), results.get(0).getOutputBytes());
+    Assert.assertTrue("Failed job should leave no output", Files.notExists(root.resolve("second.txt")));
+  }
+
+  /**
+   * An error in one job (e.g. running out of memory) should fail that job only.
+   *
+   * @throws Exception
+   */
+  @Test
+  public void testRunBatch_IsolatesErrors() throws Exception {
+    Path root = temporaryFolder.getRoot().toPath();
+    FeedEngine feedEngine = new ReferenceFeedEngine() {
+      @Override
+      public String produceTwitterFeed(String userFilePath, String tweetFilePath, Predicate<String> userFilter)
+          throws DataException, IOException {
+        if (tweetFilePath.equals(TWEET_FILE_PIET)) {
+          throw new OutOfMemoryError("Java heap space");
+        }
+        return super.produceTwitterFeed(userFilePath, tweetFilePath, userFilter);
+      }
+    };
+    List<BatchFeedService.BatchJob> jobs = List.of(
+        new BatchFeedService.BatchJob(Path.of(USER_FILE_VALID), Path.of(TWEET_FILE_PIET), root.resolve("first.txt")),
+        new BatchFeedService.BatchJob(Path.of(USER_FILE_VALID), Path.of(TWEET_FILE_VALID), root.resolve("second.txt")));
+
+    List<BatchFeedService.BatchResult> results = BatchFeedService.runBatch(jobs, 1, feedEngine);
+
+    Assert.assertTrue("Failure should be the error", results.get(0).getFailure() instanceof OutOfMemoryError);
+    Assert.assertTrue("Failed job should leave no output", Files.notExists(root.resolve("first.txt")));
+    Assert.assertTrue("Second job should succeed", results.get(1).isSuccessful());
+    Assert.assertEquals("Second feed mismatch", new ReferenceFeedEngine().produceTwitterFeed(USER_FILE_VALID, TWEET_FILE_VALID,
+        user -> true), Files.readString(root.resolve("second.txt"), StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Manifest lines that don't hold three paths should be rejected.
+   *
+   * @throws Exception
+   */
+  @Test(expected = DataException.class)
+  public void testReadManifest_MalformedLine() throws Exception {
+    Path manifest = temporaryFolder.newFile("manifest.txt").toPath();
+    Files.writeString(manifest, USER_FILE_VALID + "\t" + TWEET_FILE_VALID + "\n");
+
+    BatchFeedService.readManifest(manifest);
+  }
+}
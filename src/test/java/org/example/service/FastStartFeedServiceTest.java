@@ -0,0 +1,69 @@
+package org.example.service;
+
+import org.example.exception.DataException;
+import org.example.utility.Configuration;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Test class for FastStartFeedService class.
+ */
+public final class FastStartFeedServiceTest {
+
+  private static final String USER_FILE_VALID = "src/test/resources/user.txt";
+  private static final String TWEET_FILE_VALID = "src/test/resources/tweet.txt";
+
+  @Before
+  public void setupBeforeTest() {
+    System.setProperty(Configuration.PROPERTY_USER_FILE_PATH, USER_FILE_VALID);
+    System.setProperty(Configuration.PROPERTY_TWEET_FILE_PATH, TWEET_FILE_VALID);
+    System.setProperty(Configuration.PROPERTY_FAST_START, "true");
+  }
+
+  @After
+  public void cleanupAfterTest() {
+    System.clearProperty(Configuration.PROPERTY_FAST_START);
+    System.clearProperty(Configuration.PROPERTY_STATE_FILE_PATH);
+  }
+
+  /**
+   * The fast-start feed should be identical to the feed of the reference engine.
+   *
+   * @throws Exception
+   */
+  @Test
+  public void testWriteTwitterFeed_MatchesReference() throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    FastStartFeedService.writeTwitterFeed(out);
+
+    String expected = new ReferenceFeedEngine().produceTwitterFeed(USER_FILE_VALID, TWEET_FILE_VALID, user -> true);
+    Assert.assertEquals("Feed mismatch", expected, out.toString(StandardCharsets.US_ASCII));
+  }
+
+  /**
+   * Malformed records should be rejected as by the data mappers.
+   *
+   * @throws Exception
+   */
+  @Test(expected = DataException.class)
+  public void testWriteTwitterFeed_MalformedRecord() throws Exception {
+    System.setProperty(Configuration.PROPERTY_TWEET_FILE_PATH, USER_FILE_VALID);
+    FastStartFeedService.writeTwitterFeed(new ByteArrayOutputStream());
+  }
+
+  /**
+   * Fast start only applies to the plain full feed.
+   */
+  @Test
+  public void testIsApplicable() {
+    Assert.assertTrue("Fast start should apply", FastStartFeedService.isApplicable());
+
+    System.setProperty(Configuration.PROPERTY_STATE_FILE_PATH, "state.txt");
+    Assert.assertFalse("Fast start should not apply in delta mode", FastStartFeedService.isApplicable());
+  }
+}
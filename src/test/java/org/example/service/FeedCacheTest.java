@@ -0,0 +1,74 @@
+package org.example.service;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+
+/**
+ * Test class for FeedCache class.
+ */
+public final class FeedCacheTest {
+
+  /**
+   * Cached block should be returned and counted as hit; unknown user as miss.
+   */
+  @Test
+  public void testGet_HitAndMiss() {
+    FeedCache feedCache = new FeedCache(100);
+    feedCache.put("Alan", new byte[10]);
+
+    Assert.assertNotNull(feedCache.get("Alan"));
+    Assert.assertNull(feedCache.get("Ward"));
+    Assert.assertEquals("Hit count mismatch", 1, feedCache.getHits());
+    Assert.assertEquals("Miss count mismatch", 1, feedCache.getMisses());
+  }
+
+  /**
+   * Least recently used entries should be evicted once over the byte budget.
+   */
+  @Test
+  public void testPut_EvictsLeastRecentlyUsed() {
+    FeedCache feedCache = new FeedCache(30);
+    feedCache.put("Alan", new byte[10]);
+    feedCache.put("Martin", new byte[10]);
+    feedCache.put("Ward", new byte[10]);
+
+    // Touch Alan so that Martin becomes the least recently used entry
+    feedCache.get("Alan");
+    feedCache.put("Piet", new byte[10]);
+
+    Assert.assertNull("Martin should be evicted", feedCache.get("Martin"));
+    Assert.assertNotNull("Alan should be cached", feedCache.get("Alan"));
+    Assert.assertEquals("Eviction count mismatch", 1, feedCache.getEvictions());
+    Assert.assertEquals("Used bytes mismatch", 30, feedCache.getUsedBytes());
+  }
+
+  /**
+   * Blocks larger than the budget should not be cached.
+   */
+  @Test
+  public void testPut_BlockLargerThanBudget() {
+    FeedCache feedCache = new FeedCache(5);
+    feedCache.put("Alan", new byte[10]);
+
+    Assert.assertEquals("Entry count mismatch", 0, feedCache.getEntryCount());
+    Assert.assertEquals("Used bytes mismatch", 0, feedCache.getUsedBytes());
+  }
+
+  /**
+   * Only the given users should be invalidated.
+   */
+  @Test
+  public void testInvalidate_OnlyGivenUsers() {
+    FeedCache feedCache = new FeedCache(100);
+    feedCache.put("Alan", new byte[10]);
+    feedCache.put("Ward", new byte[10]);
+
+    feedCache.invalidate(List.of("Alan", "Piet"));
+
+    Assert.assertNull("Alan should be invalidated", feedCache.get("Alan"));
+    Assert.assertNotNull("Ward should be cached", feedCache.get("Ward"));
+    Assert.assertEquals("Used bytes mismatch", 10, feedCache.getUsedBytes());
+  }
+}
@@ -0,0 +1,103 @@
+package org.example.service;
+
+import org.example.exception.DataException;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Test class for FeedEngineHarness class.
+ */
+public final class FeedEngineHarnessTest {
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  /**
+   * Generated input should be valid input for the reference engine, and an engine compared
+   * against itself should produce identical output.
+   *
+   * @throws Exception
+   */
+  @Test
+  public void testCompare_IdenticalEngines() throws Exception {
+    Path userFile = temporaryFolder.getRoot().toPath().resolve("user.txt");
+    Path tweetFile = temporaryFolder.getRoot().toPath().resolve("tweet.txt");
+    FeedEngineHarness.generateInputs(userFile, tweetFile, 30, 3, 200, 1);
+
+    List<String> users = Files.readAllLines(userFile);
+    Assert.assertEquals("User line count mismatch", 30, users.size());
+    Assert.assertEquals("Tweet line count mismatch", 200, Files.readAllLines(tweetFile).size());
+
+    FeedEngineHarness.Result result = FeedEngineHarness.compare(new ReferenceFeedEngine(), FeedEngines.get("reference"),
+        userFile.toString(), tweetFile.toString(), 1);
+
+    Assert.assertTrue("Output should be identical", result.isIdentical());
+    Assert.assertEquals("First difference mismatch", -1, result.getFirstDifference());
+    Assert.assertTrue("Run time should be measured", result.getBaselineNanos() > 0 && result.getCandidateNanos() > 0);
+  }
+
+  /**
+   * Output differences should be reported with the offset of the first differing byte.
+   *
+   * @throws Exception
+   */
+  @Test
+  public void testCompare_DifferentEngines() throws Exception {
+    FeedEngine lowerCaseEngine = new FeedEngine() {
+      @Override
+      public String getName() {
+        return "lowercase";
+      }
+
+      @Override
+      public String produceTwitterFeed(String userFilePath, String tweetFilePath, Predicate<String> userFilter) throws IOException, DataException {
+        return new ReferenceFeedEngine().produceTwitterFeed(userFilePath, tweetFilePath, userFilter).toLowerCase();
+      }
+    };
+
+    FeedEngineHarness.Result result = FeedEngineHarness.compare(new ReferenceFeedEngine(), lowerCaseEngine,
+        "src/test/resources/user.txt", "src/test/resources/tweet.txt", 1);
+
+    Assert.assertFalse("Output should differ", result.isIdentical());
+    Assert.assertEquals("First difference mismatch", 0, result.getFirstDifference());
+  }
+
+  /**
+   * The tweets of the throughput figure should be the tweet records, also for gzip input
+   * with blank lines.
+   *
+   * @throws Exception
+   */
+  @Test
+  public void testCompare_CountsTweetRecords() throws Exception {
+    Path tweetFile = temporaryFolder.getRoot().toPath().resolve("tweet.txt.gz");
+    try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(tweetFile))) {
+      out.write(("\n" + Files.readString(Path.of("src/test/resources/tweet.txt")) + "\n\n").getBytes(StandardCharsets.US_ASCII));
+    }
+
+    FeedEngineHarness.Result result = FeedEngineHarness.compare(new ReferenceFeedEngine(), FeedEngines.get("reference"),
+        "src/test/resources/user.txt", tweetFile.toString(), 1);
+
+    Assert.assertTrue("Output should be identical", result.isIdentical());
+    Assert.assertEquals("Tweet count mismatch", 3, result.getTweets());
+  }
+
+  /**
+   * Unknown engine names should be rejected.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testGet_UnknownEngine() {
+    FeedEngines.get("unknown");
+  }
+}
@@ -0,0 +1,256 @@
+package org.example.service;
+
+import org.example.model.TwitterFollowers;
+import org.example.model.TwitterTweets;
+import org.example.utility.Configuration;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Test class for LiveFeedService class.
+ */
+public final class LiveFeedServiceTest {
+
+  private static final String USER_FILE_VALID = "src/test/resources/user.txt";
+  private static final String TWEET_FILE_VALID = "src/test/resources/tweet.txt";
+  private static final String USER_FILE_RELOAD = "src/test/resources/user_reload.txt";
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private LiveFeedService liveFeedService;
+
+  @Before
+  public void setupBeforeTest() throws Exception {
+    System.setProperty(Configuration.PROPERTY_USER_FILE_PATH, USER_FILE_VALID);
+    System.setProperty(Configuration.PROPERTY_TWEET_FILE_PATH, TWEET_FILE_VALID);
+    Configuration.init();
+
+    liveFeedService = TwitterFeedService.openLiveFeed();
+  }
+
+  @After
+  public void cleanupAfterTest() {
+    liveFeedService.close();
+  }
+
+  /**
+   * Repeated requests for a feed should be served from the cache.
+   */
+  @Test
+  public void testGetUserFeed_CachedAfterFirstRequest() {
+    String expectedFeed = "Alan\n" +
+        "\t@Alan: If you have a procedure with 10 parameters, you probably missed some.\n" +
+        "\t@Alan: Random numbers should not be generated with a method chosen at random.\n";
+
+    byte[] first = liveFeedService.getUserFeed("Alan");
+    byte[] second = liveFeedService.getUserFeed("Alan");
+
+    Assert.assertEquals("Feed mismatch", expectedFeed, new String(first, StandardCharsets.UTF_8));
+    Assert.assertSame("Second request should be served from cache", first, second);
+    Assert.assertEquals("Hit count mismatch", 1, liveFeedService.getFeedCache().getHits());
+    Assert.assertEquals("Miss count mismatch", 1, liveFeedService.getFeedCache().getMisses());
+  }
+
+  /**
+   * New tweet should invalidate the feeds of the author's followers only.
+   */
+  @Test
+  public void testAddTweet_InvalidatesFollowers() throws Exception {
+    liveFeedService.getUserFeed("Alan");
+    liveFeedService.getUserFeed("Martin");
+    liveFeedService.getUserFeed("Ward");
+
+    liveFeedService.addTweet("Ward", "New tweet.");
+
+    Assert.assertEquals("Entry count mismatch", 2, liveFeedService.getFeedCache().getEntryCount());
+    String wardFeed = new String(liveFeedService.getUserFeed("Ward"), StandardCharsets.UTF_8);
+    Assert.assertTrue("Ward feed should contain new tweet", wardFeed.endsWith("\t@Ward: New tweet.\n"));
+  }
+
+  /**
+   * Unknown user has no feed.
+   */
+  @Test
+  public void testGetUserFeed_UnknownUser() {
+    Assert.assertNull(liveFeedService.getUserFeed("Piet"));
+  }
+
+  /**
+   * Reloaded follower graph should be swapped in; feeds that changed should be re-rendered
+   * and readers of the previous snapshot should still see the complete previous graph.
+   *
+   * @throws Exception
+   */
+  @Test
+  public void testReloadFollowers_SwapsGraphAndInvalidatesChangedFeeds() throws Exception {
+    liveFeedService.getUserFeed("Alan");
+    liveFeedService.getUserFeed("Ward");
+    TwitterFollowers previous = liveFeedService.getTwitterFollowers();
+
+    liveFeedService.reloadFollowersAsync(USER_FILE_RELOAD).get();
+
+    String martinFeed = new String(liveFeedService.getUserFeed("Martin"), StandardCharsets.UTF_8);
+    String wardFeed = new String(liveFeedService.getUserFeed("Ward"), StandardCharsets.UTF_8);
+    Assert.assertEquals("Martin feed mismatch", "Martin\n" +
+        "\t@Alan: If you have a procedure with 10 parameters, you probably missed some.\n" +
+        "\t@Alan: Random numbers should not be generated with a method chosen at random.\n", martinFeed);
+    Assert.assertEquals("Ward feed mismatch", "Ward\n" +
+        "\t@Ward: There are only two hard things in Computer Science: cache invalidation, naming things and off-by-1 errors.\n", wardFeed);
+    Assert.assertEquals("Previous snapshot should be unchanged", 2, previous.getFollowers("Alan").size());
+  }
+
+  /**
+   * Graph snapshot handed to readers must be immutable.
+   */
+  @Test(expected = UnsupportedOperationException.class)
+  public void testGetTwitterFollowers_Immutable() {
+    liveFeedService.getTwitterFollowers().addFollower("Alan", "Piet");
+  }
+
+  /**
+   * Removing an edge or user that doesn't exist should return the same snapshot, without
+   * adding the user; removing an edge shouldn't change the snapshot it was removed from.
+   */
+  @Test
+  public void testWithoutFollower_Snapshots() {
+    TwitterFollowers twitterFollowers = liveFeedService.getTwitterFollowers();
+
+    Assert.assertSame("Unknown user should be a no-op", twitterFollowers, twitterFollowers.withoutFollower("Piet", "Alan"));
+    Assert.assertSame("Unknown edge should be a no-op", twitterFollowers, twitterFollowers.withoutFollower("Alan", "Piet"));
+    Assert.assertFalse("Unknown user shouldn't be added", twitterFollowers.getUsers().contains("Piet"));
+
+    TwitterFollowers removed = twitterFollowers.withoutFollower("Alan", "Ward");
+    Assert.assertFalse("Edge should be removed", removed.getFollowers("Alan").contains("Ward"));
+    Assert.assertTrue("Previous snapshot shouldn't change", twitterFollowers.getFollowers("Alan").contains("Ward"));
+    Assert.assertSame("Re-adding an existing edge should be a no-op", twitterFollowers, twitterFollowers.withFollower("Alan", "Ward"));
+  }
+
+  /**
+   * Tweets added with an open tweet log should be rebuilt from the log on the next start.
+   *
+   * @throws Exception
+   */
+  @Test
+  public void testOpenTweetLog_ReplaysTweetsOnRestart() throws Exception {
+    Path directory = temporaryFolder.getRoot().toPath();
+    liveFeedService.openTweetLog(directory, 4096, 1);
+    liveFeedService.addTweet("Ward", "Logged tweet.");
+    liveFeedService.addTweet("Piet", "Unknown user tweet.");
+    liveFeedService.close();
+
+    LiveFeedService restarted = TwitterFeedService.openLiveFeed();
+    restarted.openTweetLog(directory, 4096, 1);
+
+    String wardFeed = new String(restarted.getUserFeed("Ward"), StandardCharsets.UTF_8);
+    Assert.assertTrue("Ward feed should contain logged tweet", wardFeed.endsWith("\t@Ward: Logged tweet.\n"));
+    Assert.assertEquals("Piet feed mismatch", "Piet\n\t@Piet: Unknown user tweet.\n",
+        new String(restarted.getUserFeed("Piet"), StandardCharsets.UTF_8));
+    restarted.close();
+  }
+
+  /**
+   * Unfollow should drop exactly the unfollowed author's tweets from the follower's feed
+   * and update both directions of the graph.
+   */
+  @Test
+  public void testRemoveFollower_RepairsFeed() {
+    liveFeedService.getUserFeed("Ward");
+    liveFeedService.getUserFeed("Alan");
+
+    Assert.assertTrue("Ward should follow Alan", liveFeedService.removeFollower("Alan", "Ward"));
+    Assert.assertFalse("Second unfollow should be a no-op", liveFeedService.removeFollower("Alan", "Ward"));
+    Assert.assertEquals("Only the Alan feed should stay cached", 1, liveFeedService.getFeedCache().getEntryCount());
+
+    Assert.assertEquals("Ward feed mismatch", "Ward\n" +
+            "\t@Ward: There are only two hard things in Computer Science: cache invalidation, naming things and off-by-1 errors.\n",
+        new String(liveFeedService.getUserFeed("Ward"), StandardCharsets.UTF_8));
+
+    TwitterFollowers twitterFollowers = liveFeedService.getTwitterFollowers();
+    Assert.assertFalse("Alan followers mismatch", twitterFollowers.getFollowers("Alan").contains("Ward"));
+    Assert.assertFalse("Ward followees mismatch", twitterFollowers.getFollowees("Ward").contains("Alan"));
+  }
+
+  /**
+   * Follow should add all of the followed author's tweets to the follower's feed.
+   */
+  @Test
+  public void testAddFollower_RepairsFeed() {
+    Assert.assertTrue("Alan shouldn't follow Ward yet", liveFeedService.addFollower("Ward", "Alan"));
+
+    Assert.assertEquals("Alan feed mismatch", "Alan\n" +
+            "\t@Alan: If you have a procedure with 10 parameters, you probably missed some.\n" +
+            "\t@Ward: There are only two hard things in Computer Science: cache invalidation, naming things and off-by-1 errors.\n" +
+            "\t@Alan: Random numbers should not be generated with a method chosen at random.\n",
+        new String(liveFeedService.getUserFeed("Alan"), StandardCharsets.UTF_8));
+    Assert.assertTrue("Alan followees mismatch", liveFeedService.getTwitterFollowers().getFollowees("Alan").contains("Ward"));
+  }
+
+  /**
+   * Feeds of several users looked up asynchronously should match the synchronous lookups,
+   * in request order and without unknown users.
+   *
+   * @throws Exception
+   */
+  @Test
+  public void testGetUserFeedsAsync_MatchesSynchronousLookup() throws Exception {
+    Map<String, byte[]> userFeeds = liveFeedService.getUserFeedsAsync(Arrays.asList("Ward", "Piet", "Alan", "Ward")).get();
+
+    Assert.assertArrayEquals("Users mismatch", new String[]{"Ward", "Alan"}, userFeeds.keySet().toArray());
+    Assert.assertArrayEquals("Ward feed mismatch", liveFeedService.getUserFeed("Ward"), userFeeds.get("Ward"));
+    Assert.assertArrayEquals("Alan feed mismatch", liveFeedService.getUserFeed("Alan"), userFeeds.get("Alan"));
+  }
+
+  /**
+   * Lookups should run on a caller-provided executor, which stays usable after close.
+   *
+   * @throws Exception
+   */
+  @Test
+  public void testGetUserFeedAsync_CallerExecutor() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      LiveFeedService service = new LiveFeedService(liveFeedService.getTwitterFollowers(), new TwitterTweets(),
+          new FeedCache(1024), executor);
+
+      Assert.assertEquals("Feed mismatch", "Alan\n", new String(service.getUserFeedAsync("Alan").get(), StandardCharsets.UTF_8));
+      Assert.assertNull("Unknown user should have no feed", service.getUserFeedAsync("Piet").get());
+
+      service.close();
+      Assert.assertFalse("Caller executor should not be shut down", executor.isShutdown());
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  /**
+   * A service without a caller executor should create its own on the first asynchronous
+   * lookup and refuse asynchronous lookups once closed.
+   *
+   * @throws Exception
+   */
+  @Test
+  public void testGetUserFeedAsync_OwnExecutor() throws Exception {
+    LiveFeedService service = new LiveFeedService(liveFeedService.getTwitterFollowers(), new TwitterTweets(), new FeedCache(1024));
+    Assert.assertEquals("Feed mismatch", "Alan\n", new String(service.getUserFeedAsync("Alan").get(), StandardCharsets.UTF_8));
+    service.close();
+
+    try {
+      service.getUserFeedAsync("Alan");
+      Assert.fail("Lookup after close should be refused");
+    } catch (IllegalStateException e) {
+      Assert.assertEquals("Error mismatch", "Live feed service is closed", e.getMessage());
+    }
+  }
+}
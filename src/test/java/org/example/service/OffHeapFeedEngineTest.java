@@ -0,0 +1,122 @@
+package org.example.service;
+
+import org.example.exception.DataException;
+import org.example.store.OffHeapTextStore;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Test class for OffHeapFeedEngine class.
+ */
+public final class OffHeapFeedEngineTest {
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  /**
+   * The off-heap engine should produce exactly the output of the reference engine.
+   *
+   * @throws Exception
+   */
+  @Test
+  public void testProduceTwitterFeed_MatchesReference() throws Exception {
+    FeedEngineHarness.Result result = FeedEngineHarness.compare(new ReferenceFeedEngine(), FeedEngines.get(OffHeapFeedEngine.NAME),
+        "src/test/resources/user.txt", "src/test/resources/tweet.txt", 1);
+
+    Assert.assertTrue("Output should be identical", result.isIdentical());
+  }
+
+  /**
+   * Same as above on generated input with many interleaved authors per feed.
+   *
+   * @throws Exception
+   */
+  @Test
+  public void testProduceTwitterFeed_GeneratedInput() throws Exception {
+    Path userFile = temporaryFolder.getRoot().toPath().resolve("user.txt");
+    Path tweetFile = temporaryFolder.getRoot().toPath().resolve("tweet.txt");
+    FeedEngineHarness.generateInputs(userFile, tweetFile, 200, 8, 2000, 7);
+
+    FeedEngineHarness.Result result = FeedEngineHarness.compare(new ReferenceFeedEngine(), new OffHeapFeedEngine(),
+        userFile.toString(), tweetFile.toString(), 1);
+
+    Assert.assertTrue("Output should be identical, first difference at " + result.getFirstDifference(), result.isIdentical());
+  }
+
+  /**
+   * The user filter should select the feeds that are output.
+   *
+   * @throws Exception
+   */
+  @Test
+  public void testProduceTwitterFeed_UserFilter() throws Exception {
+    String expected = new ReferenceFeedEngine().produceTwitterFeed("src/test/resources/user.txt", "src/test/resources/tweet.txt",
+        user -> user.startsWith("A"));
+    String actual = new OffHeapFeedEngine().produceTwitterFeed("src/test/resources/user.txt", "src/test/resources/tweet.txt",
+        user -> user.startsWith("A"));
+
+    Assert.assertEquals("Filtered feed mismatch", expected, actual);
+  }
+
+  /**
+   * The streamed feed should match the returned feed and report the bytes written; sharded
+   * input (a directory of shards) should match the reference engine on the same shards.
+   *
+   * @throws Exception
+   */
+  @Test
+  public void testWriteTwitterFeed_ShardedInput() throws Exception {
+    Path userFile = temporaryFolder.getRoot().toPath().resolve("user.txt");
+    Path tweetFile = temporaryFolder.getRoot().toPath().resolve("tweet.txt");
+    FeedEngineHarness.generateInputs(userFile, tweetFile, 100, 5, 1000, 3);
+    Path userShards = temporaryFolder.newFolder("users").toPath();
+    Path tweetShards = temporaryFolder.newFolder("tweets").toPath();
+    splitLines(userFile, userShards);
+    splitLines(tweetFile, tweetShards);
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    long written = new OffHeapFeedEngine().writeTwitterFeed(userShards.toString(), tweetShards.toString(), user -> true, out);
+    String expected = new ReferenceFeedEngine().produceTwitterFeed(userShards.toString(), tweetShards.toString(), user -> true);
+
+    Assert.assertEquals("Sharded feed mismatch", expected, out.toString(StandardCharsets.UTF_8));
+    Assert.assertEquals("Written byte count mismatch", out.size(), written);
+  }
+
+  /**
+   * A text longer than the off-heap store holds should be rejected as bad data naming the
+   * file and line, like any other record the engine can't take.
+   *
+   * @throws Exception
+   */
+  @Test
+  public void testProduceTwitterFeed_TextTooLong() throws Exception {
+    Path userFile = temporaryFolder.getRoot().toPath().resolve("user.txt");
+    Path tweetFile = temporaryFolder.getRoot().toPath().resolve("tweet.txt");
+    Files.writeString(userFile, "Ward follows Alan\n");
+    Files.writeString(tweetFile, "Alan> Short tweet\n" + "A".repeat(OffHeapTextStore.MAX_TEXT_BYTES) + "> Too long\n");
+
+    try {
+      new OffHeapFeedEngine().produceTwitterFeed(userFile.toString(), tweetFile.toString(), user -> true);
+      Assert.fail("Expected DataException");
+    } catch (DataException e) {
+      Assert.assertTrue("Message should name the line, was: " + e.getMessage(), e.getMessage().contains("line 2 of " + tweetFile));
+    }
+  }
+
+  /**
+   * Split the lines of a file over two shards of the directory.
+   */
+  private static void splitLines(Path file, Path directory) throws Exception {
+    List<String> lines = Files.readAllLines(file);
+    Files.write(directory.resolve("part-0.txt"), lines.subList(0, lines.size() / 2));
+    Files.write(directory.resolve("part-1.txt"), lines.subList(lines.size() / 2, lines.size()));
+  }
+}
@@ -0,0 +1,114 @@
+package org.example.service;
+
+import org.example.utility.Configuration;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Test class for PartitionedFeedService class.
+ */
+public final class PartitionedFeedServiceTest {
+
+  private static final String USER_FILE_VALID = "src/test/resources/user.txt";
+  private static final String TWEET_FILE_VALID = "src/test/resources/tweet.txt";
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @After
+  public void cleanupAfterTest() {
+    System.clearProperty(Configuration.PROPERTY_PARTITION_WORKERS);
+    System.clearProperty(Configuration.PROPERTY_FEED_ENGINE);
+  }
+
+  /**
+   * Every user should be owned by exactly one partition.
+   */
+  @Test
+  public void testIsOwnedBy_SinglePartitionPerUser() {
+    for (String user : List.of("Alan", "Martin", "Ward", "Piet", "a", "Zz")) {
+      int owners = 0;
+      for (int partition = 0; partition < 4; partition++) {
+        if (PartitionedFeedService.isOwnedBy(user, partition, 4)) {
+          owners++;
+        }
+      }
+      Assert.assertEquals("Partition owner count mismatch for " + user, 1, owners);
+    }
+  }
+
+  /**
+   * Partial feeds sorted per user should be merged into one alphabetical feed
+   * with tweet lines kept with their user.
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testMergePartialFeeds_AlphabeticalOrder() throws IOException {
+    Path first = temporaryFolder.newFile("partition-0.txt").toPath();
+    Path second = temporaryFolder.newFile("partition-1.txt").toPath();
+    Path empty = temporaryFolder.newFile("partition-2.txt").toPath();
+    Files.writeString(first, "Alan\n\t@Alan: one\nWard\n\t@Alan: one\n\t@Ward: two\n");
+    Files.writeString(second, "Martin\nZed\n\t@Zed: three\n");
+
+    StringWriter output = new StringWriter();
+    PartitionedFeedService.mergePartialFeeds(List.of(first, second, empty), output);
+
+    Assert.assertEquals("Merged feed mismatch",
+        "Alan\n\t@Alan: one\nMartin\nWard\n\t@Alan: one\n\t@Ward: two\nZed\n\t@Zed: three\n", output.toString());
+  }
+
+  /**
+   * Feed produced by multiple worker processes should match the single-process feed.
+   *
+   * @throws Exception
+   */
+  @Test
+  public void testProduceTwitterFeed_MatchesSingleProcess() throws Exception {
+    System.setProperty(Configuration.PROPERTY_USER_FILE_PATH, USER_FILE_VALID);
+    System.setProperty(Configuration.PROPERTY_TWEET_FILE_PATH, TWEET_FILE_VALID);
+    Configuration.init();
+    String expectedTwitterFeed = TwitterFeedService.produceTwitterFeed();
+
+    System.setProperty(Configuration.PROPERTY_PARTITION_WORKERS, "3");
+    Configuration.init();
+    String twitterFeed = PartitionedFeedService.produceTwitterFeed();
+
+    Assert.assertEquals("Feed does not match single process feed", expectedTwitterFeed, twitterFeed);
+  }
+
+  /**
+   * Worker command should carry the JVM options and configuration of this process, with the
+   * partition properties of the worker only.
+   */
+  @Test
+  public void testWorkerCommand_ForwardsOptionsAndConfiguration() {
+    System.setProperty(Configuration.PROPERTY_PARTITION_WORKERS, "3");
+    System.setProperty(Configuration.PROPERTY_FEED_ENGINE, "offheap");
+    Path partialFeed = temporaryFolder.getRoot().toPath().resolve("partition-1.txt");
+
+    List<String> command = PartitionedFeedService.workerCommand(1, 3, partialFeed);
+
+    for (String argument : ManagementFactory.getRuntimeMXBean().getInputArguments()) {
+      if (!argument.startsWith("-D") && !argument.startsWith("-agentlib:jdwp")) {
+        Assert.assertTrue("JVM option not forwarded: " + argument, command.contains(argument));
+      }
+    }
+    Assert.assertTrue(command.contains("-D" + Configuration.PROPERTY_FEED_ENGINE + "=offheap"));
+    Assert.assertEquals(1, command.stream()
+        .filter(argument -> argument.startsWith("-D" + Configuration.PROPERTY_PARTITION_WORKERS + "=")).count());
+    Assert.assertTrue(command.contains("-D" + Configuration.PROPERTY_PARTITION_INDEX + "=1"));
+    Assert.assertTrue(command.contains("-D" + Configuration.PROPERTY_PARTITION_OUTPUT + "=" + partialFeed));
+    Assert.assertEquals("org.example.Main", command.get(command.size() - 1));
+  }
+}
@@ -0,0 +1,259 @@
+package org.example.service;
+
+import org.example.utility.Configuration;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Startup benchmark: runs the program in fresh JVMs on a tiny input and reports the time
+ * from launching the JVM to the first feed line on stdout (time-to-first-output), for the
+ * regular path, the fast-start path and, given a class data sharing archive, the fast-start
+ * path with the archive. A missing archive is recorded first with a training run.
+ * <p>
+ * Usage: {@code java -cp <test classes>:<classpath> org.example.service.StartupBenchmark [runs] [archiveFile]}
+ * <p>
+ * The benchmark is kept with the tests so it isn't shipped in the program jar, and reports on
+ * stdout as the test logging configuration is off. The launched programs get the class path
+ * of the benchmark without its own (test) classes. Recording an archive on Java 11 requires
+ * that class path to hold jar files only (e.g. the assembled jar); class directories aren't
+ * archived.
+ */
+public final class StartupBenchmark {
+
+  private static final int DEFAULT_RUNS = 5;
+  private static final String USER_INPUT = "Ward follows Alan\nAlan follows Martin\nWard follows Martin, Alan\n";
+  private static final String TWEET_INPUT = "Alan> If you have a procedure with 10 parameters, you probably missed some.\n"
+      + "Ward> There are only two hard things in Computer Science: cache invalidation, naming things and off-by-1 errors.\n"
+      + "Alan> Random numbers should not be generated with a method chosen at random.\n";
+  // First line of the feed of the input above
+  private static final String FIRST_FEED_LINE = "Alan";
+
+  private StartupBenchmark() {
+    // Private constructor
+  }
+
+  public static void main(String[] args) {
+    try {
+      int runs = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_RUNS;
+      Path archive = args.length > 1 ? Path.of(args[1]).toAbsolutePath() : null;
+
+      Path workDirectory = Files.createTempDirectory("twitter-feed-startup");
+      Path userFile = workDirectory.resolve("user.txt");
+      Path tweetFile = workDirectory.resolve("tweet.txt");
+      try {
+        writeInputs(userFile, tweetFile);
+        if (archive != null && Files.notExists(archive)) {
+          recordArchive(archive, userFile, tweetFile);
+          System.out.println("Recorded class data sharing archive " + archive);
+        }
+
+        List<Result> results = new ArrayList<>();
+        results.add(measure("regular", Collections.emptyList(), userFile, tweetFile, runs));
+        results.add(measure("fast-start", List.of("-D" + Configuration.PROPERTY_FAST_START + "=true"), userFile, tweetFile, runs));
+        if (archive != null) {
+          results.add(measure("fast-start+cds", List.of("-D" + Configuration.PROPERTY_FAST_START + "=true",
+              "-XX:SharedArchiveFile=" + archive, "-Xshare:auto"), userFile, tweetFile, runs));
+        }
+        results.forEach(System.out::println);
+      } finally {
+        Files.deleteIfExists(userFile);
+        Files.deleteIfExists(tweetFile);
+        Files.deleteIfExists(workDirectory);
+      }
+    } catch (Exception e) {
+      System.err.println("Failed to run startup benchmark: " + e.getMessage());
+      System.exit(1);
+    }
+  }
+
+  /**
+   * Write the tiny benchmark input (the example of the assignment).
+   *
+   * @param userFile  The user input file to write.
+   * @param tweetFile The tweet input file to write.
+   * @throws IOException Occurs when the files can't be written.
+   */
+  public static void writeInputs(Path userFile, Path tweetFile) throws IOException {
+    Files.writeString(userFile, USER_INPUT, StandardCharsets.US_ASCII);
+    Files.writeString(tweetFile, TWEET_INPUT, StandardCharsets.US_ASCII);
+  }
+
+  /**
+   * Record an application class data sharing archive of the classes loaded by a fast-start
+   * run: a training run dumps the loaded class list, which is then archived.
+   *
+   * @param archive   The archive file to write.
+   * @param userFile  The user input file of the training run.
+   * @param tweetFile The tweet input file of the training run.
+   * @throws IOException Occurs when a JVM can't be started or fails.
+   */
+  public static void recordArchive(Path archive, Path userFile, Path tweetFile) throws IOException {
+    Path classList = archive.resolveSibling(archive.getFileName() + ".classlist");
+    try {
+      runToCompletion(command(List.of("-D" + Configuration.PROPERTY_FAST_START + "=true", "-XX:DumpLoadedClassList=" + classList),
+          userFile, tweetFile));
+
+      List<String> dump = new ArrayList<>();
+      dump.add(javaBinary());
+      dump.addAll(Arrays.asList("-Xshare:dump", "-XX:SharedClassListFile=" + classList, "-XX:SharedArchiveFile=" + archive,
+          "-cp", programClassPath()));
+      runToCompletion(dump);
+    } finally {
+      Files.deleteIfExists(classList);
+    }
+  }
+
+  /**
+   * Launch the program the given number of times and measure the time to first output.
+   *
+   * @param name       Name of the variant, for reporting.
+   * @param jvmOptions Options passed to the JVM of every run.
+   * @param userFile   The user input file.
+   * @param tweetFile  The tweet input file.
+   * @param runs       Number of runs.
+   * @return Median time to first output and to exit over the runs.
+   * @throws IOException Occurs when a run can't be started, fails or doesn't output the feed.
+   */
+  public static Result measure(String name, List<String> jvmOptions, Path userFile, Path tweetFile, int runs) throws IOException {
+    if (runs < 1) {
+      throw new IllegalArgumentException("Run count must be at least 1");
+    }
+
+    long[] firstOutputNanos = new long[runs];
+    long[] exitNanos = new long[runs];
+    List<String> command = command(jvmOptions, userFile, tweetFile);
+
+    for (int run = 0; run < runs; run++) {
+      long start = System.nanoTime();
+      Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+
+      long firstOutput = -1;
+      try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+        String line;
+        while ((line = reader.readLine()) != null) {
+          if (firstOutput < 0 && line.equals(FIRST_FEED_LINE)) {
+            firstOutput = System.nanoTime() - start;
+          }
+        }
+      }
+
+      int exitCode = waitFor(process);
+      exitNanos[run] = System.nanoTime() - start;
+      if (exitCode != 0 || firstOutput < 0) {
+        throw new IOException("Run of " + name + " failed with exit code " + exitCode + (firstOutput < 0 ? " without feed output" : ""));
+      }
+      firstOutputNanos[run] = firstOutput;
+    }
+
+    return new Result(name, median(firstOutputNanos), median(exitNanos));
+  }
+
+  private static List<String> command(List<String> jvmOptions, Path userFile, Path tweetFile) {
+    List<String> command = new ArrayList<>();
+    command.add(javaBinary());
+    command.addAll(jvmOptions);
+    command.add("-cp");
+    command.add(programClassPath());
+    command.add("-D" + Configuration.PROPERTY_USER_FILE_PATH + "=" + userFile);
+    command.add("-D" + Configuration.PROPERTY_TWEET_FILE_PATH + "=" + tweetFile);
+    command.add("org.example.Main");
+    return command;
+  }
+
+  /**
+   * Get the class path of the launched programs: the class path of the benchmark without the
+   * location of the benchmark itself, so neither the test classes nor the test logging
+   * configuration are picked up.
+   */
+  private static String programClassPath() {
+    Path benchmarkLocation;
+    try {
+      benchmarkLocation = Path.of(StartupBenchmark.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+    } catch (URISyntaxException e) {
+      throw new IllegalStateException("Location of the startup benchmark can't be resolved", e);
+    }
+
+    List<String> classPath = new ArrayList<>();
+    for (String entry : System.getProperty("java.class.path").split(File.pathSeparator)) {
+      if (!entry.isEmpty() && !Path.of(entry).toAbsolutePath().equals(benchmarkLocation.toAbsolutePath())) {
+        classPath.add(entry);
+      }
+    }
+    return String.join(File.pathSeparator, classPath);
+  }
+
+  private static String javaBinary() {
+    return System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+  }
+
+  private static void runToCompletion(List<String> command) throws IOException {
+    Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+    // Drain the output so that the process can't block on a full pipe
+    byte[] output = process.getInputStream().readAllBytes();
+    int exitCode = waitFor(process);
+    if (exitCode != 0) {
+      throw new IOException("Command " + command.get(1) + " failed with exit code " + exitCode + ":\n"
+          + new String(output, StandardCharsets.UTF_8));
+    }
+  }
+
+  private static int waitFor(Process process) throws IOException {
+    try {
+      return process.waitFor();
+    } catch (InterruptedException e) {
+      process.destroy();
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while waiting for the program", e);
+    }
+  }
+
+  private static long median(long[] values) {
+    long[] sorted = values.clone();
+    Arrays.sort(sorted);
+    return sorted[sorted.length / 2];
+  }
+
+  /**
+   * Startup times of a variant.
+   */
+  public static final class Result {
+
+    private final String name;
+    private final long firstOutputNanos;
+    private final long exitNanos;
+
+    private Result(String name, long firstOutputNanos, long exitNanos) {
+      this.name = name;
+      this.firstOutputNanos = firstOutputNanos;
+      this.exitNanos = exitNanos;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public long getFirstOutputNanos() {
+      return firstOutputNanos;
+    }
+
+    public long getExitNanos() {
+      return exitNanos;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("%-15s time to first output %6.1f ms, time to exit %6.1f ms", name, firstOutputNanos / 1e6, exitNanos / 1e6);
+    }
+  }
+}
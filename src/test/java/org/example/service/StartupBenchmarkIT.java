@@ -0,0 +1,42 @@
+package org.example.service;
+
+import org.example.utility.Configuration;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Integration test for StartupBenchmark class; also checks that the regular and fast-start
+ * paths both produce the feed when launched as a program. Launches JVMs, so it is run by
+ * the failsafe plugin of the integration-test profile rather than with the unit tests.
+ */
+public final class StartupBenchmarkIT {
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  /**
+   * Both paths should output the feed and be measured.
+   *
+   * @throws Exception
+   */
+  @Test
+  public void testMeasure_RegularAndFastStart() throws Exception {
+    Path userFile = temporaryFolder.getRoot().toPath().resolve("user.txt");
+    Path tweetFile = temporaryFolder.getRoot().toPath().resolve("tweet.txt");
+    StartupBenchmark.writeInputs(userFile, tweetFile);
+
+    // The regular path outputs the feed through the logger of the program's own configuration
+    StartupBenchmark.Result regular = StartupBenchmark.measure("regular", Collections.emptyList(), userFile, tweetFile, 1);
+    StartupBenchmark.Result fastStart = StartupBenchmark.measure("fast-start",
+        List.of("-D" + Configuration.PROPERTY_FAST_START + "=true"), userFile, tweetFile, 1);
+
+    Assert.assertTrue("First output should be measured", regular.getFirstOutputNanos() > 0 && fastStart.getFirstOutputNanos() > 0);
+    Assert.assertTrue("Exit should follow first output", fastStart.getExitNanos() >= fastStart.getFirstOutputNanos());
+  }
+}
@@ -1,21 +1,53 @@
 package org.example.service;
 
 import org.example.exception.DataException;
+import org.example.exception.MemoryBudgetException;
+import org.example.model.FeedIndex;
+import org.example.store.FeedOffsetIndex;
 import org.example.utility.Configuration;
 import org.junit.Assert;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPInputStream;
 
 /**
  * Test class for TwitterFeedService class.
  */
 public final class TwitterFeedServiceTest {
 
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
   private static final String USER_FILE_VALID = "src/test/resources/user.txt";
   private static final String USER_FILE_EMPTY = "src/test/resources/user_empty.txt";
 
   private static final String TWEET_FILE_VALID = "src/test/resources/tweet.txt";
   private static final String TWEET_FILE_EMPTY = "src/test/resources/tweet_empty.txt";
   private static final String TWEET_FILE_PIET = "src/test/resources/tweet_piet.txt";
+  private static final String TWEET_FILE_DELTA = "src/test/resources/tweet_delta.txt";
+
+  private static final String USER_SHARD_DIRECTORY = "src/test/resources/shards/user";
+  private static final String TWEET_SHARD_GLOB = "src/test/resources/shards/tweet/tweet_*.txt";
+
+  private static final String EXPECTED_FEED_VALID = "Alan\n" +
+      "\t@Alan: If you have a procedure with 10 parameters, you probably missed some.\n" +
+      "\t@Alan: Random numbers should not be generated with a method chosen at random.\n" +
+      "Martin\n" +
+      "Ward\n" +
+      "\t@Alan: If you have a procedure with 10 parameters, you probably missed some.\n" +
+      "\t@Ward: There are only two hard things in Computer Science: cache invalidation, naming things and off-by-1 errors.\n" +
+      "\t@Alan: Random numbers should not be generated with a method chosen at random.\n";
 
   /**
    * Use case for successful processing and Twitter feed.
@@ -46,6 +78,94 @@ public final class TwitterFeedServiceTest {
     Assert.assertEquals("Feed does not match expected", expectedTwitterFeed, twitterFeed);
   }
 
+  /**
+   * The two-pass ingest (degrees counted first to pre-size the model) should produce the
+   * same feed, and fail before parsing if the counted footprint exceeds the budget.
+   *
+   * @throws Exception
+   */
+  @Test
+  public void testProduceTwitterFeed_Presized() throws Exception {
+    System.setProperty(Configuration.PROPERTY_USER_FILE_PATH, USER_FILE_VALID);
+    System.setProperty(Configuration.PROPERTY_TWEET_FILE_PATH, TWEET_FILE_VALID);
+    System.setProperty(Configuration.PROPERTY_INGEST_PRESIZE, "true");
+    try {
+      Configuration.init();
+      Assert.assertEquals("Feed does not match expected", EXPECTED_FEED_VALID, TwitterFeedService.produceTwitterFeed());
+
+      System.setProperty(Configuration.PROPERTY_MEMORY_BUDGET_BYTES, "100");
+      Configuration.init();
+      try {
+        TwitterFeedService.produceTwitterFeed();
+        Assert.fail("Counted footprint should exceed the budget");
+      } catch (MemoryBudgetException e) {
+        Assert.assertTrue("Error should name the counted inputs: " + e.getMessage(), e.getMessage().contains("counted inputs"));
+      }
+    } finally {
+      System.clearProperty(Configuration.PROPERTY_INGEST_PRESIZE);
+      System.clearProperty(Configuration.PROPERTY_MEMORY_BUDGET_BYTES);
+    }
+  }
+
+  /**
+   * The feed written to a ".gz" output file should decompress to the feed, and a plain
+   * output file should hold the feed as is.
+   *
+   * @throws Exception
+   */
+  @Test
+  public void testWriteTwitterFeed_CompressedOutput() throws Exception {
+    System.setProperty(Configuration.PROPERTY_USER_FILE_PATH, USER_FILE_VALID);
+    System.setProperty(Configuration.PROPERTY_TWEET_FILE_PATH, TWEET_FILE_VALID);
+    System.setProperty(Configuration.PROPERTY_OUTPUT_BLOCK_BYTES, "64");
+    try {
+      Configuration.init();
+      Path compressedFile = temporaryFolder.getRoot().toPath().resolve("feed.txt.gz");
+      Path plainFile = temporaryFolder.getRoot().toPath().resolve("feed.txt");
+
+      long written = TwitterFeedService.writeTwitterFeed(compressedFile);
+      TwitterFeedService.writeFeedOutput(plainFile, EXPECTED_FEED_VALID);
+
+      try (InputStream in = new GZIPInputStream(Files.newInputStream(compressedFile))) {
+        Assert.assertEquals("Feed does not match expected", EXPECTED_FEED_VALID, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+      }
+      Assert.assertEquals("Written byte count mismatch", EXPECTED_FEED_VALID.length(), written);
+      Assert.assertEquals("Plain feed does not match expected", EXPECTED_FEED_VALID, Files.readString(plainFile));
+    } finally {
+      System.clearProperty(Configuration.PROPERTY_OUTPUT_BLOCK_BYTES);
+    }
+  }
+
+  /**
+   * The offset index written next to a plain output file should locate the feed of every
+   * user within the output file.
+   *
+   * @throws Exception
+   */
+  @Test
+  public void testWriteTwitterFeed_OffsetIndex() throws Exception {
+    Path outputFile = temporaryFolder.getRoot().toPath().resolve("feed.txt");
+    System.setProperty(Configuration.PROPERTY_USER_FILE_PATH, USER_FILE_VALID);
+    System.setProperty(Configuration.PROPERTY_TWEET_FILE_PATH, TWEET_FILE_VALID);
+    System.setProperty(Configuration.PROPERTY_OUTPUT_FILE_PATH, outputFile.toString());
+    System.setProperty(Configuration.PROPERTY_OUTPUT_INDEX, "true");
+    try {
+      Configuration.init();
+
+      TwitterFeedService.writeTwitterFeed(outputFile);
+
+      try (FeedOffsetIndex offsetIndex = FeedOffsetIndex.open(outputFile)) {
+        Assert.assertEquals("User count mismatch", 3, offsetIndex.getUserCount());
+        Assert.assertEquals("Feed does not match expected",
+            EXPECTED_FEED_VALID.substring(EXPECTED_FEED_VALID.indexOf("Ward\n")), offsetIndex.readUserFeed("Ward"));
+        Assert.assertEquals("Feed does not match expected", "Martin\n", offsetIndex.readUserFeed("Martin"));
+      }
+    } finally {
+      System.clearProperty(Configuration.PROPERTY_OUTPUT_FILE_PATH);
+      System.clearProperty(Configuration.PROPERTY_OUTPUT_INDEX);
+    }
+  }
+
   /**
    * Use case tested where users in input file, but tweet file is empty.
    * Should process as expected and printout list of users
@@ -101,4 +221,194 @@ public final class TwitterFeedServiceTest {
 
     TwitterFeedService.produceTwitterFeed();
   }
+
+  /**
+   * Use case where the user input is a directory of shards and the tweet input a glob
+   * of shards; feed should be identical to parsing the single files.
+   *
+   * @throws Exception
+   */
+  @Test
+  public void testProduceTwitterFeed_ShardedInput() throws Exception {
+    System.setProperty(Configuration.PROPERTY_USER_FILE_PATH, USER_SHARD_DIRECTORY);
+    System.setProperty(Configuration.PROPERTY_TWEET_FILE_PATH, TWEET_SHARD_GLOB);
+    Configuration.init();
+
+    String twitterFeed = TwitterFeedService.produceTwitterFeed();
+
+    Assert.assertEquals("Feed does not match expected", EXPECTED_FEED_VALID, twitterFeed);
+  }
+
+  /**
+   * Use case where the feed index is queried per user; should match the rendered feed.
+   *
+   * @throws Exception
+   */
+  @Test
+  public void testBuildFeedIndex_HappyPath() throws Exception {
+    System.setProperty(Configuration.PROPERTY_USER_FILE_PATH, USER_FILE_VALID);
+    System.setProperty(Configuration.PROPERTY_TWEET_FILE_PATH, TWEET_FILE_VALID);
+    Configuration.init();
+
+    FeedIndex feedIndex = TwitterFeedService.buildFeedIndex();
+
+    Assert.assertEquals("User count mismatch", 3, feedIndex.userCount());
+    Assert.assertEquals("Feed size mismatch", 3, feedIndex.feedSize("Ward"));
+    Assert.assertEquals("Feed page mismatch",
+        List.of("@Ward: There are only two hard things in Computer Science: cache invalidation, naming things and off-by-1 errors."),
+        feedIndex.feed("Ward", 1, 1));
+  }
+
+  /**
+   * Use case for delta output; first run outputs all feeds to append, an unchanged rerun
+   * outputs nothing and a run with a new tweet outputs only the new entry for its recipients.
+   *
+   * @throws Exception
+   */
+  @Test
+  public void testProduceTwitterFeedDelta_OnlyChangedFeeds() throws Exception {
+    Path stateFile = temporaryFolder.getRoot().toPath().resolve("feed.state");
+    System.setProperty(Configuration.PROPERTY_USER_FILE_PATH, USER_FILE_VALID);
+    System.setProperty(Configuration.PROPERTY_TWEET_FILE_PATH, TWEET_FILE_VALID);
+    Configuration.init();
+
+    Assert.assertEquals("First run should output all feeds", EXPECTED_FEED_VALID.replaceAll("(?m)^(\\S+)$", "$1 +append"),
+        produceCommittedFeedDelta(stateFile));
+    Assert.assertEquals("Unchanged run should output nothing", "", produceCommittedFeedDelta(stateFile));
+
+    System.setProperty(Configuration.PROPERTY_TWEET_FILE_PATH, TWEET_FILE_DELTA);
+    Configuration.init();
+
+    Assert.assertEquals("Delta run should output new entries only", "Ward +append\n\t@Ward: Delta tweet.\n",
+        produceCommittedFeedDelta(stateFile));
+  }
+
+  /**
+   * Use case for delta output where a feed changed other than by new entries (tweets
+   * removed); the full feed of the user should be output to replace the previous one.
+   *
+   * @throws Exception
+   */
+  @Test
+  public void testProduceTwitterFeedDelta_RewrittenFeed() throws Exception {
+    Path stateFile = temporaryFolder.getRoot().toPath().resolve("feed.state");
+    System.setProperty(Configuration.PROPERTY_USER_FILE_PATH, USER_FILE_VALID);
+    System.setProperty(Configuration.PROPERTY_TWEET_FILE_PATH, TWEET_FILE_DELTA);
+    Configuration.init();
+    produceCommittedFeedDelta(stateFile);
+
+    System.setProperty(Configuration.PROPERTY_TWEET_FILE_PATH, TWEET_FILE_VALID);
+    Configuration.init();
+
+    Assert.assertEquals("Rewritten feed should be output in full", "Ward +replace\n" +
+            "\t@Alan: If you have a procedure with 10 parameters, you probably missed some.\n" +
+            "\t@Ward: There are only two hard things in Computer Science: cache invalidation, naming things and off-by-1 errors.\n" +
+            "\t@Alan: Random numbers should not be generated with a method chosen at random.\n",
+        produceCommittedFeedDelta(stateFile));
+  }
+
+  /**
+   * Use case for delta output where a user of the previous run is no longer in the input;
+   * the user should be output as removed.
+   *
+   * @throws Exception
+   */
+  @Test
+  public void testProduceTwitterFeedDelta_RemovedUser() throws Exception {
+    Path stateFile = temporaryFolder.getRoot().toPath().resolve("feed.state");
+    System.setProperty(Configuration.PROPERTY_USER_FILE_PATH, USER_FILE_VALID);
+    System.setProperty(Configuration.PROPERTY_TWEET_FILE_PATH, TWEET_FILE_VALID);
+    Configuration.init();
+    produceCommittedFeedDelta(stateFile);
+
+    Path userFile = temporaryFolder.newFile("user.txt").toPath();
+    Files.write(userFile, List.of("Ward follows Alan"), StandardCharsets.US_ASCII);
+    System.setProperty(Configuration.PROPERTY_USER_FILE_PATH, userFile.toString());
+    Configuration.init();
+
+    // Alan follows no one anymore, so no longer sees their own tweets either
+    Assert.assertEquals("Removed user should be output", "Alan +replace\nMartin +removed\n", produceCommittedFeedDelta(stateFile));
+  }
+
+  /**
+   * The state file should only move on once the delta is committed, so a delta whose output
+   * wasn't persisted is produced again by the next run.
+   *
+   * @throws Exception
+   */
+  @Test
+  public void testProduceTwitterFeedDelta_UncommittedDelta() throws Exception {
+    Path stateFile = temporaryFolder.getRoot().toPath().resolve("feed.state");
+    System.setProperty(Configuration.PROPERTY_USER_FILE_PATH, USER_FILE_VALID);
+    System.setProperty(Configuration.PROPERTY_TWEET_FILE_PATH, TWEET_FILE_VALID);
+    Configuration.init();
+
+    String uncommitted = TwitterFeedService.produceTwitterFeedDelta(stateFile).getTwitterFeed();
+
+    Assert.assertTrue("State file should not be written before commit", Files.notExists(stateFile));
+    Assert.assertEquals("Uncommitted delta should be produced again", uncommitted, produceCommittedFeedDelta(stateFile));
+  }
+
+  /**
+   * Published feed should deliver one chunk per requested user in alphabetical order, and
+   * nothing beyond the requested demand.
+   *
+   * @throws Exception
+   */
+  @Test
+  public void testPublishTwitterFeed_Backpressure() throws Exception {
+    System.setProperty(Configuration.PROPERTY_USER_FILE_PATH, USER_FILE_VALID);
+    System.setProperty(Configuration.PROPERTY_TWEET_FILE_PATH, TWEET_FILE_VALID);
+    Configuration.init();
+
+    List<String> chunks = new ArrayList<>();
+    AtomicBoolean completed = new AtomicBoolean();
+    AtomicReference<Flow.Subscription> subscription = new AtomicReference<>();
+    TwitterFeedService.publishTwitterFeed().subscribe(new Flow.Subscriber<>() {
+      @Override
+      public void onSubscribe(Flow.Subscription newSubscription) {
+        subscription.set(newSubscription);
+      }
+
+      @Override
+      public void onNext(String chunk) {
+        chunks.add(chunk);
+      }
+
+      @Override
+      public void onError(Throwable throwable) {
+        Assert.fail("Unexpected error: " + throwable);
+      }
+
+      @Override
+      public void onComplete() {
+        completed.set(true);
+      }
+    });
+
+    Assert.assertTrue("Nothing should be delivered before a request", chunks.isEmpty());
+    subscription.get().request(1);
+    Assert.assertEquals("Only the requested chunk should be delivered", List.of("Alan\n" +
+        "\t@Alan: If you have a procedure with 10 parameters, you probably missed some.\n" +
+        "\t@Alan: Random numbers should not be generated with a method chosen at random.\n"), chunks);
+    Assert.assertFalse("Feed should not be complete yet", completed.get());
+
+    subscription.get().request(Long.MAX_VALUE);
+    Assert.assertEquals("Feed does not match expected", EXPECTED_FEED_VALID, String.join("", chunks));
+    Assert.assertEquals("Chunk per user expected", 3, chunks.size());
+    Assert.assertTrue("Feed should be complete", completed.get());
+  }
+
+  /**
+   * Utility method to produce the feed delta and commit its state, as after persisting the output
+   *
+   * @param stateFile The state file
+   * @return The delta output
+   * @throws Exception
+   */
+  private static String produceCommittedFeedDelta(Path stateFile) throws Exception {
+    TwitterFeedService.FeedDelta feedDelta = TwitterFeedService.produceTwitterFeedDelta(stateFile);
+    feedDelta.commit();
+    return feedDelta.getTwitterFeed();
+  }
 }
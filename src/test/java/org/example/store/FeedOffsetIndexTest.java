@@ -0,0 +1,140 @@
+package org.example.store;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Test class for the FeedOffsetIndex class
+ */
+public class FeedOffsetIndexTest {
+
+  private static final String FEED = "Alan\n" +
+      "\t@Alan: First.\n" +
+      "Martin\n" +
+      "Ward\n" +
+      "\t@Alan: First.\n" +
+      "\t@Ward: Second.\n";
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  /**
+   * The sections found in a rendered feed should be read back per user, without the
+   * sections of the other users.
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testReadUserFeed_SectionsOfRenderedFeed() throws IOException {
+    Path feedFile = writeFeedWithIndex();
+
+    try (FeedOffsetIndex offsetIndex = FeedOffsetIndex.open(feedFile)) {
+      Assert.assertEquals("User count mismatch", 3, offsetIndex.getUserCount());
+      Assert.assertEquals("Section mismatch", "Alan\n\t@Alan: First.\n", offsetIndex.readUserFeed("Alan"));
+      Assert.assertEquals("Section mismatch", "Martin\n", offsetIndex.readUserFeed("Martin"));
+      Assert.assertEquals("Section mismatch", "Ward\n\t@Alan: First.\n\t@Ward: Second.\n", offsetIndex.readUserFeed("Ward"));
+      Assert.assertNull("Unknown user should have no section", offsetIndex.readUserFeed("Bob"));
+      Assert.assertNull("Unknown user should have no section", offsetIndex.readUserFeed("Zed"));
+    }
+  }
+
+  /**
+   * Sections added out of order should still be found, as the index is sorted when written.
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testReadSection_SectionsAddedOutOfOrder() throws IOException {
+    Path feedFile = temporaryFolder.getRoot().toPath().resolve("feed.txt");
+    Files.write(feedFile, "Ward\nAlan\n".getBytes(StandardCharsets.UTF_8));
+    FeedOffsetIndex.Builder builder = new FeedOffsetIndex.Builder();
+    builder.add("Ward", 0, 5);
+    builder.add("Alan", 5, 5);
+    builder.write(feedFile);
+
+    try (FeedOffsetIndex offsetIndex = FeedOffsetIndex.open(feedFile)) {
+      Assert.assertEquals("Section mismatch", "Alan\n", offsetIndex.readUserFeed("Alan"));
+      Assert.assertEquals("Section mismatch", "Ward\n", offsetIndex.readUserFeed("Ward"));
+    }
+  }
+
+  /**
+   * An index shouldn't be used for a feed file that changed after it was written.
+   *
+   * @throws IOException
+   */
+  @Test(expected = IOException.class)
+  public void testOpen_FeedFileChanged() throws IOException {
+    Path feedFile = writeFeedWithIndex();
+    Files.write(feedFile, "Alan\n".getBytes(StandardCharsets.UTF_8));
+
+    FeedOffsetIndex.open(feedFile).close();
+  }
+
+  /**
+   * A file that isn't a feed index should be rejected.
+   *
+   * @throws IOException
+   */
+  @Test(expected = IOException.class)
+  public void testOpen_MalformedIndex() throws IOException {
+    Path feedFile = writeFeedWithIndex();
+    Files.write(FeedOffsetIndex.pathFor(feedFile), FEED.getBytes(StandardCharsets.UTF_8));
+
+    FeedOffsetIndex.open(feedFile).close();
+  }
+
+  /**
+   * An entry whose section lies outside the feed file or whose name lies outside the names
+   * of the index should be reported as a malformed index when it is read.
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testReadSection_MalformedEntry() throws IOException {
+    Path feedFile = writeFeedWithIndex();
+    // Entry 1 (Martin) is the first one the binary search visits
+    int entryOffset = 2 * Integer.BYTES + 2 * Long.BYTES + 3 * Long.BYTES + Integer.BYTES;
+
+    corruptIndex(feedFile, entryOffset + 2 * Long.BYTES, Long.MAX_VALUE);
+    assertMalformed(feedFile, "Martin");
+
+    corruptIndex(feedFile, entryOffset, -1);
+    assertMalformed(feedFile, "Alan");
+  }
+
+  private static void corruptIndex(Path feedFile, int offset, long value) throws IOException {
+    Path indexFile = FeedOffsetIndex.pathFor(feedFile);
+    ByteBuffer index = ByteBuffer.wrap(Files.readAllBytes(indexFile)).order(ByteOrder.LITTLE_ENDIAN);
+    index.putLong(offset, value);
+    Files.write(indexFile, index.array());
+  }
+
+  private static void assertMalformed(Path feedFile, String user) throws IOException {
+    try (FeedOffsetIndex offsetIndex = FeedOffsetIndex.open(feedFile)) {
+      offsetIndex.readUserFeed(user);
+      Assert.fail("Expected IOException");
+    } catch (IOException e) {
+      Assert.assertTrue("Index should be reported as malformed, was: " + e.getMessage(), e.getMessage().contains("is malformed"));
+    }
+  }
+
+  private Path writeFeedWithIndex() throws IOException {
+    Path feedFile = temporaryFolder.getRoot().toPath().resolve("feed.txt");
+    byte[] feed = FEED.getBytes(StandardCharsets.UTF_8);
+    Files.write(feedFile, feed);
+    FeedOffsetIndex.Builder builder = new FeedOffsetIndex.Builder();
+    builder.addSections(feed, 0);
+    builder.write(feedFile);
+    return feedFile;
+  }
+}
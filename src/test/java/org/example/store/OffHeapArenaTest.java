@@ -0,0 +1,70 @@
+package org.example.store;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Test class for OffHeapArena and the off-heap arrays allocated from it.
+ */
+public final class OffHeapArenaTest {
+
+  /**
+   * Values written to the off-heap arrays and text store should read back unchanged.
+   */
+  @Test
+  public void testArrays_ReadBack() {
+    try (OffHeapArena arena = new OffHeapArena()) {
+      OffHeapIntArray ints = new OffHeapIntArray(arena, 100);
+      OffHeapLongArray longs = new OffHeapLongArray(arena, 100);
+      OffHeapTextStore texts = new OffHeapTextStore(arena, 16);
+      for (int i = 0; i < 100; i++) {
+        ints.set(i, i * 3);
+        longs.set(i, (long) i << 40);
+      }
+      long first = texts.append("Alan".getBytes(StandardCharsets.UTF_8));
+      long second = texts.append("été".getBytes(StandardCharsets.UTF_8));
+
+      Assert.assertEquals("Int value mismatch", 297, ints.get(99));
+      Assert.assertEquals("Long value mismatch", 99L << 40, longs.get(99));
+      byte[] scratch = new byte[0xffff];
+      Assert.assertEquals("Text mismatch", "Alan", new String(scratch, 0, texts.read(first, scratch), StandardCharsets.UTF_8));
+      Assert.assertEquals("Text mismatch", "été", new String(scratch, 0, texts.read(second, scratch), StandardCharsets.UTF_8));
+      Assert.assertTrue("Allocated bytes should be tracked", arena.getAllocatedBytes() >= 100 * (Integer.BYTES + Long.BYTES));
+    }
+  }
+
+  /**
+   * Lists and text stores should allocate chunks sized from the expected input, growing past it.
+   */
+  @Test
+  public void testGrowable_SizedFromInput() {
+    try (OffHeapArena arena = new OffHeapArena()) {
+      OffHeapLongList longs = new OffHeapLongList(arena, 100);
+      OffHeapTextStore texts = new OffHeapTextStore(arena, 100);
+      Assert.assertEquals("Nothing should be allocated up front", 0, arena.getAllocatedBytes());
+
+      for (int i = 0; i < 5000; i++) {
+        longs.add(i * 7L);
+      }
+      long first = texts.append("Alan".getBytes(StandardCharsets.UTF_8));
+
+      Assert.assertEquals("Size mismatch", 5000, longs.size());
+      Assert.assertEquals("Long value mismatch", 4999 * 7L, longs.get(4999));
+      byte[] scratch = new byte[0xffff];
+      Assert.assertEquals("Text mismatch", "Alan", new String(scratch, 0, texts.read(first, scratch), StandardCharsets.UTF_8));
+      Assert.assertTrue("Chunks should be sized from the expected input", arena.getAllocatedBytes() < 1024 * 1024);
+    }
+  }
+
+  /**
+   * Allocating from a closed arena should fail.
+   */
+  @Test(expected = IllegalStateException.class)
+  public void testAllocate_Closed() {
+    OffHeapArena arena = new OffHeapArena();
+    arena.close();
+    arena.allocate(16);
+  }
+}
@@ -0,0 +1,208 @@
+package org.example.store;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Test class for the TweetLog class
+ */
+public class TweetLogTest {
+
+  private static final int SEGMENT_BYTES = 4096;
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  /**
+   * Tweets appended to the log should be replayed in order when reopened.
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testOpen_ReplaysAppendedTweets() throws IOException {
+    Path directory = temporaryFolder.getRoot().toPath();
+    try (TweetLog tweetLog = TweetLog.open(directory, SEGMENT_BYTES, 1, (sequence, author, tweet) -> Assert.fail())) {
+      Assert.assertEquals("Sequence mismatch", 0, tweetLog.append("Alan", "First."));
+      Assert.assertEquals("Sequence mismatch", 1, tweetLog.append("Ward", "Second."));
+      Assert.assertEquals("Sequence mismatch", 2, tweetLog.append("Alan", "Third."));
+    }
+
+    List<String> replayed = new ArrayList<>();
+    try (TweetLog tweetLog = TweetLog.open(directory, SEGMENT_BYTES, 1,
+        (sequence, author, tweet) -> replayed.add(sequence + " " + author + " " + tweet))) {
+      Assert.assertEquals("Next sequence mismatch", 3, tweetLog.getNextSequence());
+    }
+
+    Assert.assertEquals("Replayed tweets mismatch", List.of("0 Alan First.", "1 Ward Second.", "2 Alan Third."), replayed);
+  }
+
+  /**
+   * Appends that don't fit in a segment should roll over to a new segment and be
+   * replayed across segments.
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testAppend_RollsOverSegments() throws IOException {
+    Path directory = temporaryFolder.getRoot().toPath();
+    try (TweetLog tweetLog = TweetLog.open(directory, SEGMENT_BYTES, 0, (sequence, author, tweet) -> Assert.fail())) {
+      for (int i = 0; i < 200; i++) {
+        tweetLog.append(i % 2 == 0 ? "Alan" : "Ward", "Tweet number " + i + " with some padding text.");
+      }
+    }
+
+    Assert.assertTrue("Expected multiple segments", countSegments(directory) > 1);
+
+    List<Long> sequences = new ArrayList<>();
+    try (TweetLog tweetLog = TweetLog.open(directory, SEGMENT_BYTES, 0, (sequence, author, tweet) -> sequences.add(sequence))) {
+      Assert.assertEquals("Next sequence mismatch", 200, tweetLog.getNextSequence());
+    }
+    Assert.assertEquals("Replayed tweet count mismatch", 200, sequences.size());
+    Assert.assertEquals("Last sequence mismatch", Long.valueOf(199), sequences.get(199));
+  }
+
+  /**
+   * A torn record at the tail (length written but data corrupt) should be truncated and
+   * appends should continue after the last valid record.
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testOpen_TruncatesTornTail() throws IOException {
+    Path directory = temporaryFolder.getRoot().toPath();
+    long tailOffset;
+    try (TweetLog tweetLog = TweetLog.open(directory, SEGMENT_BYTES, 1, (sequence, author, tweet) -> Assert.fail())) {
+      tweetLog.append("Alan", "First.");
+    }
+    tailOffset = findTail(directory.resolve("tweets-00000000.log"));
+
+    // Simulate a crash in the middle of an append: length present, payload incomplete
+    try (FileChannel channel = FileChannel.open(directory.resolve("tweets-00000000.log"), StandardOpenOption.WRITE)) {
+      ByteBuffer torn = ByteBuffer.allocate(9);
+      torn.putInt(20).put((byte) 2).putInt(0);
+      torn.flip();
+      channel.write(torn, tailOffset);
+    }
+
+    List<String> replayed = new ArrayList<>();
+    try (TweetLog tweetLog = TweetLog.open(directory, SEGMENT_BYTES, 1, (sequence, author, tweet) -> replayed.add(tweet))) {
+      Assert.assertEquals("Replayed tweets mismatch", List.of("First."), replayed);
+      tweetLog.append("Ward", "Second.");
+    }
+
+    replayed.clear();
+    try (TweetLog ignored = TweetLog.open(directory, SEGMENT_BYTES, 1, (sequence, author, tweet) -> replayed.add(tweet))) {
+      Assert.assertEquals("Replayed tweets mismatch after truncation", List.of("First.", "Second."), replayed);
+    }
+  }
+
+  /**
+   * Reopening a log with a different segment size should fail and leave the records intact.
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testOpen_SegmentSizeMismatch() throws IOException {
+    Path directory = temporaryFolder.getRoot().toPath();
+    try (TweetLog tweetLog = TweetLog.open(directory, 2 * SEGMENT_BYTES, 1, (sequence, author, tweet) -> Assert.fail())) {
+      for (int i = 0; i < 100; i++) {
+        tweetLog.append("Alan", "Tweet number " + i + ".");
+      }
+    }
+
+    try {
+      TweetLog.open(directory, SEGMENT_BYTES, 1, (sequence, author, tweet) -> { });
+      Assert.fail("Open with a smaller segment size should fail");
+    } catch (IOException e) {
+      Assert.assertTrue("Error should name the segment size: " + e.getMessage(), e.getMessage().contains("bytes"));
+    }
+
+    List<Long> sequences = new ArrayList<>();
+    try (TweetLog tweetLog = TweetLog.open(directory, 2 * SEGMENT_BYTES, 1, (sequence, author, tweet) -> sequences.add(sequence))) {
+      Assert.assertEquals("Next sequence mismatch", 100, tweetLog.getNextSequence());
+    }
+    Assert.assertEquals("Replayed tweet count mismatch", 100, sequences.size());
+  }
+
+  /**
+   * A gap in the segment numbering should fail the open rather than replay around it.
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testOpen_MissingSegment() throws IOException {
+    Path directory = temporaryFolder.getRoot().toPath();
+    try (TweetLog tweetLog = TweetLog.open(directory, SEGMENT_BYTES, 0, (sequence, author, tweet) -> Assert.fail())) {
+      for (int i = 0; i < 200; i++) {
+        tweetLog.append("Alan", "Tweet number " + i + " with some padding text.");
+      }
+    }
+    Assert.assertTrue("Expected at least three segments", countSegments(directory) > 2);
+    Files.delete(directory.resolve("tweets-00000001.log"));
+
+    try {
+      TweetLog.open(directory, SEGMENT_BYTES, 0, (sequence, author, tweet) -> { });
+      Assert.fail("Open with a missing segment should fail");
+    } catch (IOException e) {
+      Assert.assertTrue("Error should name the missing segment: " + e.getMessage(),
+          e.getMessage().contains("tweets-00000001.log"));
+    }
+    Assert.assertTrue("Later segments should be kept", Files.exists(directory.resolve("tweets-00000002.log")));
+  }
+
+  /**
+   * Appending to or syncing a closed log should fail with an IOException.
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testAppend_AfterClose() throws IOException {
+    TweetLog tweetLog = TweetLog.open(temporaryFolder.getRoot().toPath(), SEGMENT_BYTES, 1, (sequence, author, tweet) -> Assert.fail());
+    tweetLog.close();
+    tweetLog.close();
+
+    try {
+      tweetLog.append("Alan", "Too late.");
+      Assert.fail("Append after close should fail");
+    } catch (IOException e) {
+      Assert.assertTrue("Error should say the log is closed: " + e.getMessage(), e.getMessage().contains("closed"));
+    }
+    try {
+      tweetLog.sync();
+      Assert.fail("Sync after close should fail");
+    } catch (IOException e) {
+      Assert.assertTrue("Error should say the log is closed: " + e.getMessage(), e.getMessage().contains("closed"));
+    }
+  }
+
+  /**
+   * Find the offset of the end-of-data marker in a segment.
+   */
+  private long findTail(Path segment) throws IOException {
+    ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(segment));
+    int position = 0;
+    int length;
+    while ((length = buffer.getInt(position)) != 0) {
+      position += Integer.BYTES + 1 + length + Integer.BYTES;
+    }
+    return position;
+  }
+
+  private long countSegments(Path directory) throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files.filter(file -> file.getFileName().toString().endsWith(".log")).count();
+    }
+  }
+}
@@ -0,0 +1,115 @@
+package org.example.utility;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Test class for the AsciiScanner class
+ */
+public class AsciiScannerTest {
+
+  /**
+   * Lines should be split on all terminators exactly like BufferedReader, at any alignment
+   * relative to the 8 byte words.
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testScanLines_MatchesBufferedReader() throws IOException {
+    Random random = new Random(11);
+    String alphabet = "ab> \n\r";
+    for (int round = 0; round < 500; round++) {
+      StringBuilder data = new StringBuilder();
+      int length = random.nextInt(40);
+      for (int i = 0; i < length; i++) {
+        data.append(alphabet.charAt(random.nextInt(alphabet.length())));
+      }
+
+      List<String> expected = new ArrayList<>();
+      try (BufferedReader reader = new BufferedReader(new StringReader(data.toString()))) {
+        String line;
+        while ((line = reader.readLine()) != null) {
+          expected.add(line);
+        }
+      }
+
+      byte[] bytes = data.toString().getBytes(StandardCharsets.US_ASCII);
+      Assert.assertEquals("Lines mismatch for " + Arrays.toString(bytes), expected, scanLines(bytes));
+    }
+  }
+
+  /**
+   * Empty data has no lines.
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testScanLines_Empty() throws IOException {
+    Assert.assertEquals("Lines mismatch", Collections.emptyList(), scanLines(new byte[0]));
+  }
+
+  /**
+   * A byte with the high bit set should be found, also after the last terminator and in the
+   * tail shorter than a word, and rejected by the LineReader naming its line.
+   */
+  @Test
+  public void testScanLines_NonAsciiRejected() {
+    byte[][] inputs = {
+        "Alan> café au lait\n".getBytes(StandardCharsets.UTF_8),
+        "Alan> ok\nWard> é".getBytes(StandardCharsets.UTF_8),
+        {'a', '\n', 'b', '\n', (byte) 0x80}
+    };
+    String[] lines = {"line 1", "line 2", "line 3"};
+
+    for (int i = 0; i < inputs.length; i++) {
+      try (LineReader lineReader = new LineReader(new ByteArrayInputStream(inputs[i]), "test")) {
+        while (lineReader.readLine() != null) {
+          // Read up to the non-ASCII line
+        }
+        Assert.fail("Non-ASCII input should be rejected");
+      } catch (IOException e) {
+        Assert.assertTrue("Error should name " + lines[i] + ": " + e.getMessage(),
+            e instanceof LineReader.NonAsciiException && e.getMessage().contains(lines[i] + " "));
+      }
+    }
+  }
+
+  /**
+   * Scanning should pass lines with bytes outside 7-bit ASCII on with the first such byte
+   * and carry on with the next line.
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testScanLines_NonAscii() throws IOException {
+    byte[] data = "Alan> ok\nWard> caf\u00e9 \u00e9\r\nPiet> ok".getBytes(StandardCharsets.UTF_8);
+    List<String> lines = new ArrayList<>();
+    List<Integer> nonAsciiOffsets = new ArrayList<>();
+
+    AsciiScanner.scanLines(data, 0, data.length, (bytes, start, end, nonAscii) -> {
+      lines.add(new String(bytes, start, end - start, StandardCharsets.UTF_8));
+      nonAsciiOffsets.add(nonAscii);
+    });
+
+    Assert.assertEquals("Lines mismatch", Arrays.asList("Alan> ok", "Ward> caf\u00e9 \u00e9", "Piet> ok"), lines);
+    Assert.assertEquals("Non-ASCII offsets mismatch", Arrays.asList(-1, 18, -1), nonAsciiOffsets);
+  }
+
+  private static List<String> scanLines(byte[] data) throws IOException {
+    List<String> lines = new ArrayList<>();
+    AsciiScanner.scanLines(data, 0, data.length,
+        (bytes, start, end, nonAscii) -> lines.add(new String(bytes, start, end - start, StandardCharsets.US_ASCII)));
+    return lines;
+  }
+}
@@ -1,6 +1,7 @@
 package org.example.utility;
 
 import org.example.exception.ConfigException;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -15,6 +16,15 @@ public class ConfigurationTest {
   public void setupBeforeTest() {
     System.clearProperty(Configuration.PROPERTY_USER_FILE_PATH);
     System.clearProperty(Configuration.PROPERTY_TWEET_FILE_PATH);
+    System.clearProperty(Configuration.PROPERTY_PARTITION_WORKERS);
+    System.clearProperty(Configuration.PROPERTY_PARTITION_INDEX);
+    System.clearProperty(Configuration.PROPERTY_PARTITION_OUTPUT);
+    System.clearProperty(Configuration.PROPERTY_BATCH_MANIFEST_PATH);
+  }
+
+  @After
+  public void cleanupAfterTest() {
+    System.clearProperty(Configuration.PROPERTY_BATCH_MANIFEST_PATH);
   }
 
   /**
@@ -46,4 +56,47 @@ public class ConfigurationTest {
     assertEquals(Configuration.getUserFilePath(), dummyUserPath);
     assertEquals(Configuration.getTweetFilePath(), dummyTweetPath);
   }
+
+  /**
+   * Test use case where the partition worker count is not a valid number.
+   *
+   * @throws ConfigException
+   */
+  @Test(expected = ConfigException.class)
+  public void testInit_InvalidPartitionWorkers() throws ConfigException {
+    System.setProperty(Configuration.PROPERTY_USER_FILE_PATH, "/path/to/file/user");
+    System.setProperty(Configuration.PROPERTY_TWEET_FILE_PATH, "/path/to/file/tweet");
+    System.setProperty(Configuration.PROPERTY_PARTITION_WORKERS, "many");
+
+    Configuration.init();
+  }
+
+  /**
+   * Test use case where a partition worker is configured without partial feed output path.
+   *
+   * @throws ConfigException
+   */
+  @Test(expected = ConfigException.class)
+  public void testInit_PartitionWorkerNoOutput() throws ConfigException {
+    System.setProperty(Configuration.PROPERTY_USER_FILE_PATH, "/path/to/file/user");
+    System.setProperty(Configuration.PROPERTY_TWEET_FILE_PATH, "/path/to/file/tweet");
+    System.setProperty(Configuration.PROPERTY_PARTITION_WORKERS, "2");
+    System.setProperty(Configuration.PROPERTY_PARTITION_INDEX, "1");
+
+    Configuration.init();
+  }
+
+  /**
+   * Test use case where a batch manifest is set; the input file paths come from the
+   * manifest so they aren't mandatory.
+   *
+   * @throws ConfigException
+   */
+  @Test
+  public void testInit_BatchManifestWithoutInputFiles() throws ConfigException {
+    System.setProperty(Configuration.PROPERTY_BATCH_MANIFEST_PATH, "/path/to/manifest");
+    Configuration.init();
+
+    assertEquals("/path/to/manifest", Configuration.getBatchManifestPath());
+  }
 }
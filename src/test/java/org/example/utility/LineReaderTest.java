@@ -0,0 +1,165 @@
+package org.example.utility;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Test class for the LineReader class
+ */
+public class LineReaderTest {
+
+  /**
+   * Lines should be split exactly like BufferedReader whatever the block size, including
+   * lines and "\r\n" terminators that span a block edge and lines longer than a block.
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testReadLine_MatchesBufferedReaderAcrossBlocks() throws IOException {
+    Random random = new Random(7);
+    String alphabet = "abcd> \n\r";
+    for (int round = 0; round < 500; round++) {
+      StringBuilder data = new StringBuilder();
+      int length = random.nextInt(200);
+      for (int i = 0; i < length; i++) {
+        data.append(alphabet.charAt(random.nextInt(alphabet.length())));
+      }
+      byte[] bytes = data.toString().getBytes(StandardCharsets.US_ASCII);
+
+      List<String> expected = new ArrayList<>();
+      try (BufferedReader reader = new BufferedReader(new StringReader(data.toString()))) {
+        String line;
+        while ((line = reader.readLine()) != null) {
+          expected.add(line);
+        }
+      }
+
+      int blockBytes = 1 + random.nextInt(16);
+      List<String> actual = new ArrayList<>();
+      try (LineReader lineReader = new LineReader(new TrickleInputStream(bytes), "test", true, blockBytes)) {
+        String line;
+        while ((line = lineReader.readLine()) != null) {
+          actual.add(line);
+        }
+        Assert.assertEquals("Line count mismatch", expected.size(), lineReader.getLineNumber());
+      }
+
+      Assert.assertEquals("Lines mismatch for " + Arrays.toString(bytes) + " in blocks of " + blockBytes, expected, actual);
+    }
+  }
+
+  /**
+   * The offset after every line should count its terminator as read, whether it is "\n",
+   * "\r" or "\r\n".
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testGetOffset_CountsTerminators() throws IOException {
+    byte[] data = "Alan\r\nWard\rMartin\nEnd".getBytes(StandardCharsets.US_ASCII);
+    List<Long> offsets = new ArrayList<>();
+
+    try (LineReader lineReader = new LineReader(new ByteArrayInputStream(data), "test", true, 4)) {
+      while (lineReader.readLine() != null) {
+        offsets.add(lineReader.getOffset());
+      }
+    }
+
+    Assert.assertEquals("Offsets mismatch", Arrays.asList(6L, 11L, 18L, 21L), offsets);
+  }
+
+  /**
+   * A rejecting reader should fail on a non-ASCII line naming the line and file offset; a
+   * lenient reader should return the line with the offset of the first non-ASCII byte.
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testReadLine_NonAscii() throws IOException {
+    byte[] data = "Ward follows Alan\nZoë follows Ward\n".getBytes(StandardCharsets.UTF_8);
+
+    try (LineReader lineReader = new LineReader(new ByteArrayInputStream(data), "user.txt", true, 8)) {
+      Assert.assertEquals("First line mismatch", "Ward follows Alan", lineReader.readLine());
+      lineReader.readLine();
+      Assert.fail("Non-ASCII line should be rejected");
+    } catch (LineReader.NonAsciiException e) {
+      Assert.assertTrue("Error should name the line", e.getMessage().contains("line 2 (byte offset 20)"));
+    }
+
+    try (LineReader lineReader = new LineReader(new ByteArrayInputStream(data), "user.txt", false, 8)) {
+      lineReader.readLine();
+      Assert.assertEquals("Non-ASCII offset of ASCII line mismatch", -1, lineReader.getNonAsciiOffset());
+      lineReader.readLine();
+      Assert.assertEquals("Non-ASCII offset mismatch", 20, lineReader.getNonAsciiOffset());
+      Assert.assertNull("End of input expected", lineReader.readLine());
+    }
+  }
+
+  /**
+   * Readers created one after the other on a thread share its block; a closed reader should
+   * fail instead of reading into the block taken over by the next reader.
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testClose_HandsBlockToNextReader() throws IOException {
+    byte[] first = "Alan\nWard\n".getBytes(StandardCharsets.US_ASCII);
+    byte[] second = "Martin\n".getBytes(StandardCharsets.US_ASCII);
+
+    LineReader firstReader = new LineReader(new TrickleInputStream(first), "first.txt");
+    Assert.assertEquals("First line mismatch", "Alan", firstReader.readLine());
+    firstReader.close();
+
+    try (LineReader secondReader = new LineReader(new ByteArrayInputStream(second), "second.txt")) {
+      Assert.assertEquals("Line of next reader mismatch", "Martin", secondReader.readLine());
+      Assert.assertNull("End of input expected", secondReader.readLine());
+      try {
+        firstReader.readLine();
+        Assert.fail("Read after close should fail");
+      } catch (IOException e) {
+        Assert.assertTrue("Error should say the reader is closed: " + e.getMessage(), e.getMessage().contains("closed"));
+      }
+    }
+  }
+
+  /**
+   * Input stream handing out at most a few bytes per read, like a slow (e.g. inflating)
+   * source.
+   */
+  private static final class TrickleInputStream extends InputStream {
+
+    private final byte[] data;
+    private int position;
+
+    TrickleInputStream(byte[] data) {
+      this.data = data;
+    }
+
+    @Override
+    public int read() {
+      return position < data.length ? data[position++] & 0xFF : -1;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) {
+      if (position >= data.length) {
+        return -1;
+      }
+      int count = Math.min(Math.min(len, 3), data.length - position);
+      System.arraycopy(data, position, b, off, count);
+      position += count;
+      return count;
+    }
+  }
+}
@@ -0,0 +1,82 @@
+package org.example.utility;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Test class for the ParallelGzipOutputStream class
+ */
+public class ParallelGzipOutputStreamTest {
+
+  /**
+   * Data spread over many blocks, written in pieces of any size, should decompress to the
+   * original data as a single gzip stream.
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testWrite_RoundTrip() throws IOException {
+    Random random = new Random(7);
+    byte[] data = new byte[100_000];
+    for (int i = 0; i < data.length; i++) {
+      // Mix of compressible text and random bytes
+      data[i] = i % 3 == 0 ? (byte) random.nextInt() : (byte) ('a' + i % 26);
+    }
+
+    ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+    try (ParallelGzipOutputStream out = new ParallelGzipOutputStream(compressed, 3, 4096)) {
+      int position = 0;
+      while (position < data.length) {
+        int length = Math.min(data.length - position, random.nextInt(10_000));
+        if (length == 1) {
+          out.write(data[position]);
+        } else {
+          out.write(data, position, length);
+        }
+        position += length;
+      }
+      out.flush();
+      Assert.assertEquals("Uncompressed byte count mismatch", data.length - data.length % 4096, out.getUncompressedBytes());
+    }
+
+    Assert.assertArrayEquals("Decompressed data mismatch", data, gunzip(compressed.toByteArray()));
+  }
+
+  /**
+   * Output without data should still be a valid (empty) gzip file.
+   *
+   * @throws IOException
+   */
+  @Test
+  public void testClose_Empty() throws IOException {
+    ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+    new ParallelGzipOutputStream(compressed, 2, 1024).close();
+
+    Assert.assertEquals("Decompressed size mismatch", 0, gunzip(compressed.toByteArray()).length);
+  }
+
+  /**
+   * Writing after close should fail.
+   *
+   * @throws IOException
+   */
+  @Test(expected = IOException.class)
+  public void testWrite_Closed() throws IOException {
+    ParallelGzipOutputStream out = new ParallelGzipOutputStream(new ByteArrayOutputStream(), 1, 1024);
+    out.close();
+    out.write(1);
+  }
+
+  private static byte[] gunzip(byte[] compressed) throws IOException {
+    try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+      return in.readAllBytes();
+    }
+  }
+}
@@ -0,0 +1,129 @@
+package org.example.utility;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Test class for the ParseTracer class
+ */
+public class ParseTracerTest {
+
+  /**
+   * One of every N lines should be traced, plus every line of a traced user.
+   *
+   * @throws InterruptedException
+   */
+  @Test
+  public void testTrace_SampledLinesAndTracedUsers() throws InterruptedException {
+    BlockingQueue<ParseTracer.TraceEvent> traced = new LinkedBlockingQueue<>();
+    ParseTracer parseTracer = new ParseTracer(3, Set.of("Ward"), 16, traced::add);
+
+    for (int lineNumber = 1; lineNumber <= 7; lineNumber++) {
+      String user = lineNumber == 5 ? "Ward" : "Alan";
+      parseTracer.trace("tweet.txt", lineNumber, user, user + "> Tweet " + lineNumber);
+    }
+
+    List<Integer> tracedLines = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      ParseTracer.TraceEvent event = traced.poll(5, TimeUnit.SECONDS);
+      Assert.assertNotNull("Traced record missing", event);
+      tracedLines.add(event.getLineNumber());
+    }
+    Assert.assertEquals("Traced lines mismatch", List.of(3, 5, 6), tracedLines);
+    Assert.assertNull("No other line should be traced", traced.poll(100, TimeUnit.MILLISECONDS));
+  }
+
+  /**
+   * A tracer without a sampling rate or users should trace nothing.
+   */
+  @Test
+  public void testTrace_Disabled() {
+    ParseTracer parseTracer = new ParseTracer(0, Collections.emptySet(), 1, event -> Assert.fail("Nothing should be traced"));
+
+    parseTracer.trace("user.txt", 1, "Alan", "Alan follows Martin");
+
+    Assert.assertFalse("Tracer should be disabled", parseTracer.isEnabled());
+  }
+
+  /**
+   * Records traced while the buffer is full should be dropped instead of blocking the parse.
+   *
+   * @throws InterruptedException
+   */
+  @Test
+  public void testTrace_DropsWhenBufferFull() throws InterruptedException {
+    CountDownLatch sinkEntered = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    ParseTracer parseTracer = new ParseTracer(1, Collections.emptySet(), 2, event -> {
+      sinkEntered.countDown();
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    });
+
+    // The first record is taken by the (blocked) sink, the next two fill the buffer
+    parseTracer.trace("tweet.txt", 1, "Alan", "Alan> First.");
+    Assert.assertTrue("Sink should receive the first record", sinkEntered.await(5, TimeUnit.SECONDS));
+    for (int lineNumber = 2; lineNumber <= 5; lineNumber++) {
+      parseTracer.trace("tweet.txt", lineNumber, "Alan", "Alan> Tweet.");
+    }
+    release.countDown();
+
+    Assert.assertEquals("Dropped record count mismatch", 2, parseTracer.getDroppedEvents());
+  }
+
+  /**
+   * Closing the tracer should hand every buffered record to the sink before returning,
+   * and records traced after close should be ignored.
+   */
+  @Test
+  public void testClose_FlushesBufferedRecords() {
+    CountDownLatch release = new CountDownLatch(1);
+    List<Integer> tracedLines = Collections.synchronizedList(new ArrayList<>());
+    ParseTracer parseTracer = new ParseTracer(1, Collections.emptySet(), 16, event -> {
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      tracedLines.add(event.getLineNumber());
+    });
+
+    for (int lineNumber = 1; lineNumber <= 4; lineNumber++) {
+      parseTracer.trace("user.txt", lineNumber, "Alan", "Alan follows Martin");
+    }
+    release.countDown();
+    parseTracer.close();
+    parseTracer.trace("user.txt", 5, "Alan", "Alan follows Ward");
+
+    Assert.assertEquals("Traced lines mismatch", List.of(1, 2, 3, 4), tracedLines);
+  }
+
+  /**
+   * Traced users should be recognised wherever the mapper finds them in a record, while
+   * other users are only traced when sampled.
+   */
+  @Test
+  public void testIsTraced_TracedUsers() {
+    ParseTracer parseTracer = new ParseTracer(10, Set.of("Martin"), 1, event -> {
+    });
+
+    Assert.assertTrue("Traced user should be recognised", parseTracer.isTracedUser("Martin"));
+    Assert.assertFalse("Other user should not be traced", parseTracer.isTracedUser("Alan"));
+    Assert.assertTrue("Record of traced user should be traced", parseTracer.isTraced(3, "Martin"));
+    Assert.assertTrue("Sampled line should be traced", parseTracer.isTraced(10, "Alan"));
+    Assert.assertFalse("Other line should not be traced", parseTracer.isTraced(3, "Alan"));
+    parseTracer.close();
+  }
+}
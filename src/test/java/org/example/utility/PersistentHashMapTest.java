@@ -0,0 +1,121 @@
+package org.example.utility;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Test class for the PersistentHashMap and PersistentHashSet classes
+ */
+public class PersistentHashMapTest {
+
+  /**
+   * Random puts and removes should leave the same entries as a HashMap, including keys with
+   * equal hashes, while every earlier version stays unchanged.
+   */
+  @Test
+  public void testPlusMinus_MatchesHashMap() {
+    Random random = new Random(11);
+    Map<Key, Integer> expected = new HashMap<>();
+    PersistentHashMap<Key, Integer> map = PersistentHashMap.empty();
+    List<PersistentHashMap<Key, Integer>> versions = new ArrayList<>();
+    List<Map<Key, Integer>> expectedVersions = new ArrayList<>();
+
+    for (int i = 0; i < 20000; i++) {
+      // Few distinct hashes, so that collision nodes are created and split
+      Key key = new Key(random.nextInt(3000), random.nextInt(500));
+      if (random.nextInt(3) == 0) {
+        expected.remove(key);
+        map = map.minus(key);
+      } else {
+        expected.put(key, i);
+        map = map.plus(key, i);
+      }
+      if (i % 1000 == 0) {
+        versions.add(map);
+        expectedVersions.add(new HashMap<>(expected));
+      }
+    }
+
+    Assert.assertEquals("Map mismatch", expected, map);
+    Assert.assertEquals("Map mismatch", expected, new HashMap<>(map));
+    for (int i = 0; i < versions.size(); i++) {
+      Assert.assertEquals("Version " + i + " changed", expectedVersions.get(i), versions.get(i));
+    }
+  }
+
+  /**
+   * A map built in bulk should hold the same entries as one built entry by entry.
+   */
+  @Test
+  public void testCopyOf_MatchesPlus() {
+    Random random = new Random(13);
+    Map<Key, Integer> expected = new HashMap<>();
+    for (int i = 0; i < 50000; i++) {
+      expected.put(new Key(random.nextInt(), random.nextInt(40000)), i);
+    }
+
+    PersistentHashMap<Key, Integer> map = PersistentHashMap.copyOf(expected);
+    Assert.assertEquals("Size mismatch", expected.size(), map.size());
+    Assert.assertEquals("Map mismatch", expected, map);
+
+    // Removing every entry of a bulk built map should end with the empty map
+    for (Key key : expected.keySet()) {
+      map = map.minus(key);
+    }
+    Assert.assertSame("Map should be empty", PersistentHashMap.empty(), map);
+  }
+
+  /**
+   * Adding a present element or removing an absent one should return the same set.
+   */
+  @Test
+  public void testSet_UnchangedReturnsSame() {
+    PersistentHashSet<String> set = PersistentHashSet.copyOf(Set.of("Alan", "Martin"));
+
+    Assert.assertSame("Set should be unchanged", set, set.plus("Alan"));
+    Assert.assertSame("Set should be unchanged", set, set.minus("Ward"));
+    Assert.assertEquals("Set mismatch", new HashSet<>(Set.of("Alan", "Martin", "Ward")), set.plus("Ward"));
+    Assert.assertEquals("Set mismatch", Set.of("Martin"), set.minus("Alan"));
+    Assert.assertEquals("Set mismatch", Set.of("Alan", "Martin"), set);
+  }
+
+  /**
+   * The map should be read-only through the Map interface.
+   */
+  @Test(expected = UnsupportedOperationException.class)
+  public void testPut_Unsupported() {
+    PersistentHashMap.<String, String>empty().plus("Alan", "Martin").put("Ward", "Alan");
+  }
+
+  /**
+   * Key with a chosen hash code.
+   */
+  private static final class Key {
+
+    private final int id;
+    private final int hash;
+
+    Key(int id, int hash) {
+      this.id = id;
+      this.hash = hash;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      return other instanceof Key && ((Key) other).id == id && ((Key) other).hash == hash;
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+  }
+}
@@ -0,0 +1,49 @@
+package org.example.utility;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Test class for the StringRadixSort class
+ */
+public class StringRadixSortTest {
+
+  /**
+   * Radix sort should produce the natural String order, including upper/lower case,
+   * shared prefixes and duplicates.
+   */
+  @Test
+  public void testSort_NaturalOrder() {
+    Random random = new Random(7);
+    String[] values = new String[5000];
+    for (int i = 0; i < values.length; i++) {
+      StringBuilder value = new StringBuilder();
+      int length = 1 + random.nextInt(8);
+      for (int j = 0; j < length; j++) {
+        // Small alphabet of both cases so that prefixes and duplicates are common
+        value.append("abcABC".charAt(random.nextInt(6)));
+      }
+      values[i] = value.toString();
+    }
+
+    String[] expected = values.clone();
+    Arrays.sort(expected);
+    StringRadixSort.sort(values);
+
+    Assert.assertArrayEquals("Sort order mismatch", expected, values);
+  }
+
+  /**
+   * Strings outside 7-bit ASCII should still be sorted in natural order.
+   */
+  @Test
+  public void testSort_NonAsciiFallback() {
+    String[] values = {"Zoë", "Alan", "Ärne", "Martin"};
+    StringRadixSort.sort(values);
+
+    Assert.assertArrayEquals("Sort order mismatch", new String[]{"Alan", "Martin", "Zoë", "Ärne"}, values);
+  }
+}